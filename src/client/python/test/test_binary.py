@@ -0,0 +1,19 @@
+from zerograph import binary
+
+
+def test_can_round_trip_values():
+    value = {"name": "Alice", "age": 33, "big": 2 ** 40, "neg": -1000,
+             "score": 1.5, "tags": ["a", "b"], "none": None, "ok": True}
+    assert binary.unpack(bytes(binary.pack(value))) == value
+
+
+def test_can_unpack_frame_of_messages():
+    frame = binary.MARKER + binary.pack_message([200, "x"]) + binary.pack_message([200])
+    assert list(binary.unpack_frame(bytes(frame))) == [[200, "x"], [200]]
+
+
+def test_can_unpack_node_extension():
+    frame = bytes.fromhex("c10c92ccc8c70601937b91a14880")
+    extension = lambda type_code, value: (type_code, value)
+    terms = list(binary.unpack_frame(frame, extension))
+    assert terms == [[200, (binary.NODE, [123, ["H"], {}])]]
@@ -0,0 +1,31 @@
+from zerograph import compression
+
+
+def test_can_round_trip_frame():
+    frame = b"200\t/*Node*/{\"id\":1,\"labels\":[\"Person\"]}\n" * 100
+    compressed = compression.compress(frame)
+    assert compressed.startswith(compression.MARKER)
+    assert len(compressed) < len(frame) // 4
+    assert compression.decompress(compressed) == frame
+
+
+def test_socket_only_compresses_frames_over_threshold():
+
+    class FakeSocket(object):
+        def __init__(self):
+            self.frames = []
+
+        def send(self, frame, flags=0):
+            self.frames.append(frame)
+
+        def recv(self):
+            return self.frames.pop(0)
+
+    socket = compression.CompressingSocket(FakeSocket(), threshold=100)
+    socket.send(b"GET\tnode\t1")
+    socket.send(b"GET\tnode\t1\n" * 100)
+    assert socket.recv() == b"GET\tnode\t1"
+    assert socket.recv() == b"GET\tnode\t1\n" * 100
+    assert socket.sent.frames == 1
+    assert socket.received.frames == 1
+    assert socket.sent.ratio > 4
@@ -0,0 +1,240 @@
+#!/usr/bin/env python
+
+""" Codec for the binary protocol. Values are encoded as MessagePack
+with three extension types for graph entities and pointers. Each message
+is a list of terms, prefixed by its length as an unsigned varint, and a
+frame holds a marker byte followed by any number of messages.
+"""
+
+import struct
+
+
+MARKER = b"\xc1"
+
+NODE = 1
+REL = 2
+POINTER = 3
+
+
+def pack(value, out=None, pointer=None):
+    """ Append the encoding of a value to a bytearray. If given, the
+    pointer function is called for any value that is not a plain value
+    and should return the (address, index) of a pointer, or None.
+    """
+    if out is None:
+        out = bytearray()
+    if value is None:
+        out.append(0xC0)
+    elif value is True:
+        out.append(0xC3)
+    elif value is False:
+        out.append(0xC2)
+    elif isinstance(value, int):
+        _pack_int(value, out)
+    elif isinstance(value, float):
+        out.append(0xCB)
+        out.extend(struct.pack(">d", value))
+    elif isinstance(value, str):
+        data = value.encode("utf-8")
+        size = len(data)
+        if size < 32:
+            out.append(0xA0 | size)
+        elif size < 0x100:
+            out.extend(struct.pack(">BB", 0xD9, size))
+        elif size < 0x10000:
+            out.extend(struct.pack(">BH", 0xDA, size))
+        else:
+            out.extend(struct.pack(">BI", 0xDB, size))
+        out.extend(data)
+    elif isinstance(value, (bytes, bytearray)):
+        size = len(value)
+        if size < 0x100:
+            out.extend(struct.pack(">BB", 0xC4, size))
+        elif size < 0x10000:
+            out.extend(struct.pack(">BH", 0xC5, size))
+        else:
+            out.extend(struct.pack(">BI", 0xC6, size))
+        out.extend(value)
+    elif isinstance(value, dict):
+        _pack_header(len(value), 0x80, 0xDE, out)
+        for key, item in value.items():
+            pack(str(key), out, pointer)
+            pack(item, out, pointer)
+    elif isinstance(value, (list, tuple)):
+        _pack_header(len(value), 0x90, 0xDC, out)
+        for item in value:
+            pack(item, out, pointer)
+    else:
+        address = pointer(value) if pointer else None
+        if address is None:
+            raise TypeError("Cannot encode value {0!r}".format(value))
+        content = bytearray()
+        if address[1] is None:
+            pack(address[0], content)
+        else:
+            pack(list(address), content)
+        out.extend(struct.pack(">BBb", 0xC7, len(content), POINTER))
+        out.extend(content)
+    return out
+
+
+def pack_message(terms, pointer=None):
+    """ Encode a list of terms as a length-prefixed message.
+    """
+    body = pack(list(terms), pointer=pointer)
+    out = bytearray()
+    size = len(body)
+    while size >= 0x80:
+        out.append((size & 0x7F) | 0x80)
+        size >>= 7
+    out.append(size)
+    out.extend(body)
+    return out
+
+
+def unpack_frame(frame, extension=None):
+    """ Yield the terms of each message in a binary frame. If given, the
+    extension function is called with the type and decoded content of
+    each extension value and its result used in place of that value.
+    """
+    if frame[0:1] != MARKER:
+        raise ValueError("Not a binary frame")
+    position = 1
+    while position < len(frame):
+        size = shift = 0
+        while True:
+            b = frame[position]
+            position += 1
+            size |= (b & 0x7F) << shift
+            if not b & 0x80:
+                break
+            shift += 7
+        end = position + size
+        terms, position = _unpack(frame, position, extension)
+        if position != end:
+            raise ValueError("Malformed message")
+        yield terms
+
+
+def unpack(data, extension=None):
+    value, position = _unpack(data, 0, extension)
+    if position != len(data):
+        raise ValueError("Unexpected trailing data")
+    return value
+
+
+def _pack_int(value, out):
+    if 0 <= value < 0x80:
+        out.append(value)
+    elif -32 <= value < 0:
+        out.append(value & 0xFF)
+    elif 0 <= value < 0x100:
+        out.extend(struct.pack(">BB", 0xCC, value))
+    elif 0 <= value < 0x10000:
+        out.extend(struct.pack(">BH", 0xCD, value))
+    elif 0 <= value < 0x100000000:
+        out.extend(struct.pack(">BI", 0xCE, value))
+    elif 0 <= value:
+        out.extend(struct.pack(">BQ", 0xCF, value))
+    elif -0x80 <= value:
+        out.extend(struct.pack(">Bb", 0xD0, value))
+    elif -0x8000 <= value:
+        out.extend(struct.pack(">Bh", 0xD1, value))
+    elif -0x80000000 <= value:
+        out.extend(struct.pack(">Bi", 0xD2, value))
+    else:
+        out.extend(struct.pack(">Bq", 0xD3, value))
+
+
+def _pack_header(count, fix, wide, out):
+    if count < 16:
+        out.append(fix | count)
+    elif count < 0x10000:
+        out.extend(struct.pack(">BH", wide, count))
+    else:
+        out.extend(struct.pack(">BI", wide + 1, count))
+
+
+_FIXED = {
+    0xCA: ">f", 0xCB: ">d",
+    0xCC: ">B", 0xCD: ">H", 0xCE: ">I", 0xCF: ">Q",
+    0xD0: ">b", 0xD1: ">h", 0xD2: ">i", 0xD3: ">q",
+}
+
+_SIZED = {
+    0xC4: ">B", 0xC5: ">H", 0xC6: ">I",
+    0xC7: ">B", 0xC8: ">H", 0xC9: ">I",
+    0xD9: ">B", 0xDA: ">H", 0xDB: ">I",
+    0xDC: ">H", 0xDD: ">I",
+    0xDE: ">H", 0xDF: ">I",
+}
+
+
+def _unpack(data, position, extension):
+    b = data[position]
+    position += 1
+    if b < 0x80:
+        return b, position
+    elif b >= 0xE0:
+        return b - 0x100, position
+    elif b & 0xF0 == 0x80:
+        return _unpack_map(data, position, b & 0x0F, extension)
+    elif b & 0xF0 == 0x90:
+        return _unpack_list(data, position, b & 0x0F, extension)
+    elif b & 0xE0 == 0xA0:
+        end = position + (b & 0x1F)
+        return data[position:end].decode("utf-8"), end
+    elif b == 0xC0:
+        return None, position
+    elif b == 0xC2:
+        return False, position
+    elif b == 0xC3:
+        return True, position
+    elif b in _FIXED:
+        fmt = _FIXED[b]
+        return struct.unpack_from(fmt, data, position)[0], position + struct.calcsize(fmt)
+    elif 0xD4 <= b <= 0xD8:
+        return _unpack_extension(data, position, 1 << (b - 0xD4), extension)
+    elif b in _SIZED:
+        fmt = _SIZED[b]
+        size = struct.unpack_from(fmt, data, position)[0]
+        position += struct.calcsize(fmt)
+        if b <= 0xC6:
+            return bytes(data[position:position + size]), position + size
+        elif b <= 0xC9:
+            return _unpack_extension(data, position, size, extension)
+        elif b <= 0xDB:
+            return data[position:position + size].decode("utf-8"), position + size
+        elif b <= 0xDD:
+            return _unpack_list(data, position, size, extension)
+        else:
+            return _unpack_map(data, position, size, extension)
+    else:
+        raise ValueError("Unknown type 0x{0:02X}".format(b))
+
+
+def _unpack_list(data, position, count, extension):
+    items = []
+    for _ in range(count):
+        item, position = _unpack(data, position, extension)
+        items.append(item)
+    return items, position
+
+
+def _unpack_map(data, position, count, extension):
+    items = {}
+    for _ in range(count):
+        key, position = _unpack(data, position, extension)
+        items[key], position = _unpack(data, position, extension)
+    return items, position
+
+
+def _unpack_extension(data, position, size, extension):
+    type_code = struct.unpack_from(">b", data, position)[0]
+    end = position + 1 + size
+    value, position = _unpack(data, position + 1, extension)
+    if position != end:
+        raise ValueError("Malformed extension")
+    if extension:
+        value = extension(type_code, value)
+    return value, end
@@ -0,0 +1,83 @@
+#!/usr/bin/env python
+
+""" Per-frame compression. A compressed frame is a NUL marker byte
+followed by the raw Deflate encoding of the original frame.
+"""
+
+import time
+import zlib
+
+
+MARKER = b"\x00"
+
+LEVEL = 1  # repetitive JSON compresses almost as well at the fastest level
+
+
+def compress(frame):
+    compressor = zlib.compressobj(LEVEL, zlib.DEFLATED, -zlib.MAX_WBITS)
+    return MARKER + compressor.compress(frame) + compressor.flush()
+
+
+def decompress(frame):
+    return zlib.decompress(frame[1:], -zlib.MAX_WBITS)
+
+
+class Traffic(object):
+    """ Byte counts and time spent for frames compressed in one
+    direction.
+    """
+
+    def __init__(self):
+        self.frames = 0
+        self.raw_bytes = 0
+        self.compressed_bytes = 0
+        self.seconds = 0.0
+
+    def __repr__(self):
+        return "<Traffic frames={0} raw_bytes={1} compressed_bytes={2} " \
+               "ratio={3:.2f} seconds={4:.6f}>".format(self.frames, self.raw_bytes,
+                                                       self.compressed_bytes, self.ratio,
+                                                       self.seconds)
+
+    @property
+    def ratio(self):
+        if self.compressed_bytes:
+            return self.raw_bytes / self.compressed_bytes
+        else:
+            return 0.0
+
+    def record(self, raw_bytes, compressed_bytes, seconds):
+        self.frames += 1
+        self.raw_bytes += raw_bytes
+        self.compressed_bytes += compressed_bytes
+        self.seconds += seconds
+
+
+class CompressingSocket(object):
+    """ Wraps a socket to compress outgoing frames of at least the
+    threshold size and decompress any compressed frames received.
+    """
+
+    def __init__(self, socket, threshold=0):
+        self.__socket = socket
+        self.threshold = threshold
+        self.sent = Traffic()
+        self.received = Traffic()
+
+    def send(self, frame, flags=0):
+        if self.threshold and len(frame) >= self.threshold:
+            start = time.perf_counter()
+            compressed = compress(frame)
+            if len(compressed) < len(frame):
+                self.sent.record(len(frame), len(compressed), time.perf_counter() - start)
+                frame = compressed
+        return self.__socket.send(frame, flags)
+
+    def recv(self):
+        frame = self.__socket.recv()
+        if frame.startswith(MARKER):
+            start = time.perf_counter()
+            compressed_size = len(frame)
+            frame = decompress(frame)
+            self.received.record(len(frame), compressed_size, time.perf_counter() - start)
+        return frame
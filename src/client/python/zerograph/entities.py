@@ -52,10 +52,20 @@ class Rel(PropertyContainer):
 
     def __init__(self, attributes):
         PropertyContainer.__init__(self, attributes)
-        self.__start = Node(attributes["start"])
-        self.__end = Node(attributes["end"])
+        self.__start = self.__node(attributes["start"])
+        self.__end = self.__node(attributes["end"])
         self.__type = attributes["type"]
 
+    @staticmethod
+    def __node(value):
+        # endpoints may be sent in full, already hydrated or as bare ids
+        if value is None or isinstance(value, Node):
+            return value
+        elif isinstance(value, dict):
+            return Node(value)
+        else:
+            return Node({"id": value})
+
     def __repr__(self):
         return "<Rel id={0} start={1} end={2} type={3} properties={4}>".format(self._id, self.start, self.end, repr(self.type), self.properties)
 
@@ -74,18 +84,32 @@ class Rel(PropertyContainer):
 
 class Pointer(object):
 
-    def __init__(self, attributes):
+    def __init__(self, attributes, index=None):
+        if isinstance(attributes, list):
+            attributes, index = attributes
         self.__address = attributes
+        self.__index = index
 
     def __repr__(self):
-        return "<Pointer address={0}>".format(self.address)
+        if self.index is None:
+            return "<Pointer address={0}>".format(self.address)
+        else:
+            return "<Pointer address={0} index={1}>".format(self.address, self.index)
 
     def __eq__(self, other):
-        return self.address == other.address
+        return self.address == other.address and self.index == other.index
 
     def __ne__(self, other):
         return not self.__eq__(other)
 
+    def __getitem__(self, index):
+        # address a single entity created by a bulk request
+        return Pointer(self.__address, index)
+
     @property
     def address(self):
         return self.__address
+
+    @property
+    def index(self):
+        return self.__index
@@ -6,6 +6,8 @@ import logging
 
 import zmq
 
+from . import binary
+from .compression import CompressingSocket
 from .data import Data
 from .entities import *
 
@@ -14,30 +16,94 @@ log = logging.getLogger(__name__)
 log.addHandler(logging.NullHandler())
 
 
-def hydrate(string):
+def hydrate(string, nodes=None):
     # TODO: expand attributes to kwargs for cleaner constructors
+    # nodes is the entity table for the current response, used to
+    # resolve nodes that the server sends by id alone
     data = Data.decode(string)
     if data.class_name == "Zerograph":
         return Zerograph(data.value)
     elif data.class_name == "Graph":
         return Graph(data.value)
     elif data.class_name == "Node":
-        return Node(data.value)
+        return _hydrate_node(data.value, nodes)
     elif data.class_name == "Rel":
-        return Rel(data.value)
+        attributes = dict(data.value)
+        attributes["start"] = _hydrate_node(attributes["start"], nodes)
+        attributes["end"] = _hydrate_node(attributes["end"], nodes)
+        return Rel(attributes)
     elif data.class_name == "Pointer":
         return Pointer(data.value)
     else:
         return data.value
 
 
+def _hydrate_node(value, nodes):
+    if isinstance(value, dict):
+        node = Node(value)
+        if nodes is not None:
+            nodes[node._id] = node
+        return node
+    elif nodes is not None and value in nodes:
+        return nodes[value]
+    else:
+        return Node({"id": value})
+
+
+def _hydrate_binary(type_code, value, nodes):
+    if type_code == binary.NODE:
+        if isinstance(value, list):
+            attributes = {"id": value[0], "labels": value[1]}
+            if len(value) > 2:
+                attributes["properties"] = value[2]
+            value = attributes
+        return _hydrate_node(value, nodes)
+    elif type_code == binary.REL:
+        attributes = {"id": value[0], "start": value[1], "end": value[2], "type": value[3]}
+        if len(value) > 4:
+            attributes["properties"] = value[4]
+        return Rel(attributes)
+    elif type_code == binary.POINTER:
+        return Pointer(value)
+    else:
+        return value
+
+
+def _hydrate_term(value):
+    # values with no binary form, such as graphs, arrive in text form
+    if isinstance(value, str) and value.startswith(("/*Graph*/", "/*Zerograph*/")):
+        return hydrate(value)
+    else:
+        return value
+
+
+def _pointer_address(obj):
+    if isinstance(obj, Pointer):
+        return obj.address, obj.index
+    else:
+        return None
+
+
 def dehydrate(obj):
     if isinstance(obj, Pointer):
-        return Data("Pointer", obj.address).encode()
+        if obj.index is None:
+            return Data("Pointer", obj.address).encode()
+        else:
+            return Data("Pointer", [obj.address, obj.index]).encode()
     else:
         return json.dumps(obj, separators=",:")
 
 
+def _options(options):
+    """ Return the optional trailing options term for a node or rel
+    request, e.g. {"return": "id"} or {"keys": ["name"]}.
+    """
+    if options:
+        return [options]
+    else:
+        return []
+
+
 class ClientError(Exception):
     pass
 
@@ -54,6 +120,10 @@ class MethodNotAllowed(ClientError):
     pass
 
 
+class RequestTimeout(ClientError):
+    pass
+
+
 class Conflict(ClientError):
     pass
 
@@ -66,6 +136,7 @@ ERRORS = {
     400: BadRequest,
     404: NotFound,
     405: MethodNotAllowed,
+    408: RequestTimeout,
     409: Conflict,
     500: ServerError,
 }
@@ -90,36 +161,71 @@ class Request(object):
     def data(self):
         return self.__data
 
-    def send(self, socket, more=False):
-        args = [self.__method, self.__resource]
-        args.extend(map(dehydrate, self.__data))
-        line = "\t".join(args)
-        socket.send(line.encode("utf-8"), zmq.SNDMORE if more else 0)
+    def send(self, socket, more=False, binary=False):
+        if binary:
+            terms = [self.__method, self.__resource]
+            terms.extend(self.__data)
+            frame = binary_frame(terms)
+        else:
+            args = [self.__method, self.__resource]
+            args.extend(map(dehydrate, self.__data))
+            frame = "\t".join(args).encode("utf-8")
+        socket.send(frame, zmq.SNDMORE if more else 0)
+
+
+def binary_frame(terms):
+    return bytes(binary.MARKER + binary.pack_message(terms, _pointer_address))
+
+
+class ResponseReader(object):
+    """ Reads responses one at a time from the frames received on a
+    socket. A frame may hold any number of response lines or binary
+    messages, including those for several requests.
+    """
+
+    def __init__(self, socket):
+        self.__socket = socket
+        self.__responses = None
+
+    def next(self, nodes=None):
+        while True:
+            if self.__responses is None:
+                self.__responses = self.__receive(nodes)
+            for status, data in self.__responses:
+                return status, data
+            self.__responses = None
+
+    def __receive(self, nodes):
+        try:
+            frame = self.__socket.recv()
+        except zmq.error.ZMQError as err:
+            raise TimeoutError("Timeout occurred while trying to receive "
+                               "data")
+        if frame.startswith(binary.MARKER):
+            extension = lambda type_code, value: _hydrate_binary(type_code, value, nodes)
+            for terms in binary.unpack_frame(frame, extension):
+                yield terms[0], tuple(_hydrate_term(term) for term in terms[1:])
+        else:
+            for line in frame.decode("utf-8").splitlines(keepends=False):
+                if line:
+                    parts = line.split("\t")
+                    yield int(parts[0]), tuple(hydrate(part, nodes) for part in parts[1:])
 
 
 class Response(object):
 
     @classmethod
-    def receive(cls, socket):
+    def receive(cls, reader, nodes=None):
         status = 0
         while status < 200:
-            try:
-                frame = socket.recv().decode("utf-8")
-            except zmq.error.ZMQError as err:
-                raise TimeoutError("Timeout occurred while trying to receive "
-                                   "data")
-            for line in frame.splitlines(keepends=False):
-                if line:
-                    parts = line.split("\t")
-                    status = int(parts[0])
-                    data = tuple(hydrate(part) for part in parts[1:])
-                    if status >= 400:
-                        raise ERRORS[status](*data)
-                    yield cls(status, *data)
+            status, data = reader.next(nodes)
+            if status >= 400:
+                raise ERRORS[status](*data)
+            yield cls(status, *data)
 
     @classmethod
-    def single(cls, socket):
-        rs = list(cls.receive(socket))
+    def single(cls, reader, nodes=None):
+        rs = list(cls.receive(reader, nodes))
         if len(rs) != 1:
             raise TypeError("Expected single line response")
         rs = rs[0]
@@ -132,8 +238,19 @@ class Response(object):
             raise TypeError("Expected single value response")
 
     @classmethod
-    def tabular(cls, socket):
-        return Table(cls.receive(socket))
+    def tabular(cls, reader, nodes=None):
+        return Table(cls.receive(reader, nodes))
+
+    @classmethod
+    def page(cls, reader, nodes=None):
+        rows = []
+        summary = None
+        for rs in cls.receive(reader, nodes):
+            if rs.status < 200:
+                rows.append(rs.data)
+            else:
+                summary = rs.data[0]
+        return rows, summary
 
     def __init__(self, status, *data):
         self.__status = status
@@ -194,30 +311,33 @@ class Table(object):
 class _Batch(object):
 
     @classmethod
-    def single(cls, socket, method, *args, **kwargs):
-        batch = cls(socket)
+    def single(cls, client, method, *args, **kwargs):
+        batch = cls(client.socket, client.binary)
         method(batch, *args, **kwargs)
         rs = list(batch.submit())
         return rs[0]
 
-    def __init__(self, socket):
+    def __init__(self, socket, binary=False):
         self.__socket = socket
+        self.__binary = binary
         self.__response_handlers = []
 
     def prepare(self, response_handler, method, resource, *args):
-        Request(method, resource, *args).send(self.__socket, more=True)
+        Request(method, resource, *args).send(self.__socket, more=True, binary=self.__binary)
         pointer = Pointer(len(self.__response_handlers))
         self.__response_handlers.append(response_handler)
         return pointer
 
     def submit(self):
         self.__socket.send(b"")  # to close multipart message
+        reader = ResponseReader(self.__socket)
         for handler in self.__response_handlers:
+            nodes = {}  # entity table for the response to a single request
             if isgeneratorfunction(handler):
-                yield list(handler(self.__socket))
+                yield list(handler(reader, nodes))
             else:
-                yield handler(self.__socket)
-        next(Response.receive(self.__socket))  # overall batch response
+                yield handler(reader, nodes)
+        next(Response.receive(reader))  # overall batch response
 
 
 class ZerographBatch(_Batch):
@@ -231,42 +351,179 @@ class ZerographBatch(_Batch):
     def close_graph(self, host, port, delete=False):
         return self.prepare(Response.single, "DELETE", "graph", host, int(port), delete)
 
+    def get_stats(self, port=None):
+        if port is None:
+            return self.prepare(Response.single, "GET", "stats")
+        else:
+            return self.prepare(Response.single, "GET", "stats", int(port))
+
+    def get_batches(self, port=None):
+        if port is None:
+            return self.prepare(Response.single, "GET", "batch")
+        else:
+            return self.prepare(Response.single, "GET", "batch", int(port))
+
+    def cancel_batch(self, port, batch_id):
+        return self.prepare(Response.single, "DELETE", "batch", int(port), int(batch_id))
+
 
 class GraphBatch(_Batch):
 
-    def execute(self, query):
-        return self.prepare(Response.tabular, "POST", "cypher", query)
+    def get_session(self):
+        return self.prepare(Response.single, "GET", "session")
+
+    def set_session(self, options):
+        """ Set encoding options for this and all later batches on the
+        same connection, e.g. {"rels": "compact", "nodes": "table"}.
+        """
+        return self.prepare(Response.single, "PUT", "session", options)
+
+    def patch_session(self, options):
+        """ Set encoding options for the remainder of this batch only.
+        """
+        return self.prepare(Response.single, "PATCH", "session", options)
+
+    def reset_session(self):
+        return self.prepare(Response.single, "DELETE", "session")
+
+    def execute(self, query, params=None, page=None, timeout=None):
+        """ Execute a Cypher query. If a page size is given, only that
+        many rows are returned and the stats of the table hold the id of
+        a cursor from which to fetch the rest. A timeout in milliseconds
+        replaces the default for the graph.
+        """
+        options = {}
+        if page is not None:
+            options["page"] = int(page)
+        if timeout is not None:
+            options["timeout"] = int(timeout)
+        if options:
+            return self.prepare(Response.tabular, "POST", "cypher", query, params, options)
+        elif params is None:
+            return self.prepare(Response.tabular, "POST", "cypher", query)
+        else:
+            return self.prepare(Response.tabular, "POST", "cypher", query, params)
+
+    def fetch_cursor(self, cursor, count=None):
+        """ Fetch the next page of rows from a cursor, returning the rows
+        and a summary in which the cursor is None once exhausted.
+        """
+        if count is None:
+            return self.prepare(Response.page, "GET", "cursor", int(cursor))
+        else:
+            return self.prepare(Response.page, "GET", "cursor", int(cursor), int(count))
+
+    def close_cursor(self, cursor):
+        return self.prepare(Response.single, "DELETE", "cursor", int(cursor))
+
+    def get_indexes(self, label=None):
+        if label is None:
+            return self.prepare(Response.single, "GET", "index")
+        else:
+            return self.prepare(Response.single, "GET", "index", label)
+
+    def get_index(self, label, key, wait=0):
+        return self.prepare(Response.single, "GET", "index", label, key, int(wait))
+
+    def create_index(self, label, key, unique=False, wait=0):
+        """ Create an index, or a uniqueness constraint, on a label and
+        property key, waiting up to the given number of milliseconds for
+        it to come online.
+        """
+        return self.prepare(Response.single, "PUT", "index", label, key, {"unique": unique, "wait": int(wait)})
 
-    def get_node(self, node_id):
-        return self.prepare(Response.single, "GET", "node", int(node_id))
+    def drop_index(self, label, key):
+        return self.prepare(Response.single, "DELETE", "index", label, key)
 
-    def put_node(self, node_id, labels, properties):
-        return self.prepare(Response.single, "PUT", "node", int(node_id), labels, properties)
+    def prepare_statement(self, query):
+        return self.prepare(Response.single, "PUT", "statement", query)
 
-    def patch_node(self, node_id, labels, properties):
-        return self.prepare(Response.single, "PATCH", "node", int(node_id), labels, properties)
+    def execute_statement(self, handle, rows):
+        return self.prepare(Response.tabular, "POST", "statement", int(handle), list(rows))
 
-    def create_node(self, labels, properties):
-        return self.prepare(Response.single, "POST", "node", labels, properties)
+    def release_statement(self, handle):
+        return self.prepare(Response.single, "DELETE", "statement", int(handle))
+
+    def get_node(self, node_id, options=None):
+        return self.prepare(Response.single, "GET", "node", int(node_id), *_options(options))
+
+    def put_node(self, node_id, labels, properties, options=None):
+        return self.prepare(Response.single, "PUT", "node", int(node_id), labels, properties, *_options(options))
+
+    def patch_node(self, node_id, labels, properties, options=None):
+        return self.prepare(Response.single, "PATCH", "node", int(node_id), labels, properties, *_options(options))
+
+    def create_node(self, labels, properties, options=None):
+        return self.prepare(Response.single, "POST", "node", labels, properties, *_options(options))
 
     def delete_node(self, node_id):
         return self.prepare(Response.single, "DELETE", "node", int(node_id))
 
-    def get_rel(self, rel_id):
-        return self.prepare(Response.single, "GET", "rel", int(rel_id))
+    def create_nodes(self, labels, properties):
+        """ Create many nodes, one for each item of a list of property
+        maps or each row of a dict of property columns. The pointer
+        returned can be indexed to address individual nodes.
+        """
+        return self.prepare(Response.single, "POST", "nodes", labels, properties)
+
+    def match_nodes(self, label, key, value, skip=0, limit=None, ids=False):
+        """ Fetch the nodes, or only the IDs of the nodes, with a label and
+        property value, skipping and limiting the matches as given.
+        """
+        options = {"skip": int(skip), "ids": ids}
+        if limit is not None:
+            options["limit"] = int(limit)
+        return self.prepare(Response.page, "GET", "nodeset", label, key, value, options)
+
+    def count_nodes(self, label, key, value):
+        return self.prepare(Response.single, "GET", "nodeset", label, key, value, {"count": True})
+
+    def merge_nodes(self, label, key, values, properties=None):
+        """ Merge one node for each of a list of values of a property key,
+        creating those that do not exist. Optional properties, aligned
+        with the values, are set on every node. The pointer returned can
+        be indexed to address individual nodes.
+        """
+        if properties is None:
+            return self.prepare(Response.single, "POST", "nodeset", label, key, list(values))
+        else:
+            return self.prepare(Response.single, "POST", "nodeset", label, key, list(values), properties)
+
+    def traverse(self, start, **options):
+        """ Traverse from a start node, given by ID or pointer, with
+        options such as direction, types, min_depth, max_depth, order,
+        uniqueness, where, limit and return ("nodes" or "paths").
+        """
+        return self.prepare(Response.page, "GET", "traverse", start, *_options(options))
 
-    def put_rel(self, rel_id, properties):
-        return self.prepare(Response.single, "PUT", "rel", int(rel_id), properties)
+    def find_paths(self, start, end, **options):
+        """ Find paths between two nodes, given by ID or pointer, with
+        options such as algorithm ("shortest", "all_shortest", "dijkstra"
+        or "astar"), cost, estimate, direction, types, max_depth and limit.
+        """
+        return self.prepare(Response.page, "GET", "path", start, end, *_options(options))
 
-    def patch_rel(self, rel_id, properties):
-        return self.prepare(Response.single, "PATCH", "rel", int(rel_id), properties)
+    def get_rel(self, rel_id, options=None):
+        return self.prepare(Response.single, "GET", "rel", int(rel_id), *_options(options))
 
-    def create_rel(self, start_node, end_node, type, properties):
-        return self.prepare(Response.single, "POST", "rel", start_node, end_node, type, properties)
+    def put_rel(self, rel_id, properties, options=None):
+        return self.prepare(Response.single, "PUT", "rel", int(rel_id), properties, *_options(options))
+
+    def patch_rel(self, rel_id, properties, options=None):
+        return self.prepare(Response.single, "PATCH", "rel", int(rel_id), properties, *_options(options))
+
+    def create_rel(self, start_node, end_node, type, properties, options=None):
+        return self.prepare(Response.single, "POST", "rel", start_node, end_node, type, properties, *_options(options))
 
     def delete_rel(self, rel_id):
         return self.prepare(Response.single, "DELETE", "rel", int(rel_id))
 
+    def create_rels(self, start_nodes, end_nodes, type, properties=None):
+        if properties is None:
+            return self.prepare(Response.single, "POST", "rels", start_nodes, end_nodes, type)
+        else:
+            return self.prepare(Response.single, "POST", "rels", start_nodes, end_nodes, type, properties)
+
 
 class _Client(object):
 
@@ -279,15 +536,17 @@ class _Client(object):
         self.__host = attributes["host"]
         self.__port = attributes["port"]
         self.__address = "tcp://{0}:{1}".format(self.__host, self.__port)
+        self.__binary = False
         self.__context = zmq.Context()
-        self.__socket = self.__context.socket(zmq.REQ)
-        self.__socket.setsockopt(zmq.RCVTIMEO, 30000)  # TODO: configurable timeout
+        socket = self.__context.socket(zmq.REQ)
+        socket.setsockopt(zmq.RCVTIMEO, 30000)  # TODO: configurable timeout
         try:
-            self.__socket.connect(self.__address)
+            socket.connect(self.__address)
         except zmq.error.ZMQError as err:
             raise TimeoutError("Timeout occurred while trying to connect to "
                                "{0} on port {1}".format(self.__host,
                                                         self.__port))
+        self.__socket = CompressingSocket(socket)
 
     @property
     def zerograph(self):
@@ -305,6 +564,23 @@ class _Client(object):
     def socket(self):
         return self.__socket
 
+    @property
+    def compression(self):
+        """ Compression counters for frames sent and received on this
+        connection, including the time spent compressing them.
+        """
+        return {"sent": self.__socket.sent, "received": self.__socket.received}
+
+    @property
+    def binary(self):
+        """ True if requests are sent using the binary protocol.
+        """
+        return self.__binary
+
+    @binary.setter
+    def binary(self, value):
+        self.__binary = bool(value)
+
 
 class Zerograph(_Client):
 
@@ -326,13 +602,28 @@ class Zerograph(_Client):
         return self
 
     def get_graph(self, port):
-        return ZerographBatch.single(self.socket, ZerographBatch.get_graph, self.host, port)
+        return ZerographBatch.single(self, ZerographBatch.get_graph, self.host, port)
 
     def open_graph(self, port, create=False):
-        return ZerographBatch.single(self.socket, ZerographBatch.open_graph, self.host, port, create)
+        return ZerographBatch.single(self, ZerographBatch.open_graph, self.host, port, create)
 
     def close_graph(self, port, delete=False):
-        return ZerographBatch.single(self.socket, ZerographBatch.close_graph, self.host, port, delete)
+        return ZerographBatch.single(self, ZerographBatch.close_graph, self.host, port, delete)
+
+    def get_stats(self, port=None):
+        """ Fetch counters and latency histograms for the service on the
+        given port, or for all services if no port is given.
+        """
+        return ZerographBatch.single(self, ZerographBatch.get_stats, port)
+
+    def get_batches(self, port=None):
+        """ List the batches running on the graph on the given port, or
+        on all graphs if no port is given.
+        """
+        return ZerographBatch.single(self, ZerographBatch.get_batches, port)
+
+    def cancel_batch(self, port, batch_id):
+        return ZerographBatch.single(self, ZerographBatch.cancel_batch, port, batch_id)
 
 
 class Graph(_Client):
@@ -344,37 +635,123 @@ class Graph(_Client):
         self.zerograph.close_graph(self.port, delete=delete)
 
     def create_batch(self):
-        return GraphBatch(self.__socket)
+        return GraphBatch(self.socket, self.binary)
+
+    def get_session(self):
+        return GraphBatch.single(self, GraphBatch.get_session)
+
+    def set_session(self, options):
+        return GraphBatch.single(self, GraphBatch.set_session, options)
+
+    def reset_session(self):
+        self.binary = False
+        self.socket.threshold = 0
+        return GraphBatch.single(self, GraphBatch.reset_session)
+
+    def set_protocol(self, protocol):
+        """ Switch both requests and responses on this connection to the
+        "text" or "binary" protocol.
+        """
+        session = self.set_session({"protocol": protocol})
+        self.binary = (protocol == "binary")
+        return session
+
+    def set_compression(self, threshold):
+        """ Compress frames of at least the threshold size in bytes, in
+        both directions, or disable compression if the threshold is 0.
+        """
+        session = self.set_session({"compress": threshold})
+        self.socket.threshold = threshold
+        return session
+
+    def execute(self, query, params=None, timeout=None):
+        return GraphBatch.single(self, GraphBatch.execute, query, params, timeout=timeout)
+
+    def iterate(self, query, params=None, page=1000):
+        """ Execute a Cypher query and yield its rows, fetching them from
+        the server a page at a time.
+        """
+        table = GraphBatch.single(self, GraphBatch.execute, query, params, page=page)
+        for row in table.rows:
+            yield row
+        cursor = table.stats[0]["cursor"]
+        while cursor is not None:
+            rows, summary = GraphBatch.single(self, GraphBatch.fetch_cursor, cursor)
+            for row in rows:
+                yield row
+            cursor = summary["cursor"]
+
+    def close_cursor(self, cursor):
+        return GraphBatch.single(self, GraphBatch.close_cursor, cursor)
+
+    def get_indexes(self, label=None):
+        return GraphBatch.single(self, GraphBatch.get_indexes, label)
+
+    def get_index(self, label, key, wait=0):
+        return GraphBatch.single(self, GraphBatch.get_index, label, key, wait)
 
-    def execute(self, query):
-        return GraphBatch.single(self.socket, GraphBatch.execute, query)
+    def create_index(self, label, key, unique=False, wait=0):
+        return GraphBatch.single(self, GraphBatch.create_index, label, key, unique, wait)
 
-    def get_node(self, node_id):
-        return GraphBatch.single(self.socket, GraphBatch.get_node, node_id)
+    def drop_index(self, label, key):
+        return GraphBatch.single(self, GraphBatch.drop_index, label, key)
 
-    def put_node(self, node_id, labels, properties):
-        return GraphBatch.single(self.socket, GraphBatch.put_node, node_id, labels, properties)
+    def prepare_statement(self, query):
+        return GraphBatch.single(self, GraphBatch.prepare_statement, query)
 
-    def patch_node(self, node_id, labels, properties):
-        return GraphBatch.single(self.socket, GraphBatch.patch_node, node_id, labels, properties)
+    def execute_statement(self, handle, rows):
+        return GraphBatch.single(self, GraphBatch.execute_statement, handle, rows)
 
-    def create_node(self, labels, properties):
-        return GraphBatch.single(self.socket, GraphBatch.create_node, labels, properties)
+    def release_statement(self, handle):
+        return GraphBatch.single(self, GraphBatch.release_statement, handle)
+
+    def get_node(self, node_id, options=None):
+        return GraphBatch.single(self, GraphBatch.get_node, node_id, options=options)
+
+    def put_node(self, node_id, labels, properties, options=None):
+        return GraphBatch.single(self, GraphBatch.put_node, node_id, labels, properties, options=options)
+
+    def patch_node(self, node_id, labels, properties, options=None):
+        return GraphBatch.single(self, GraphBatch.patch_node, node_id, labels, properties, options=options)
+
+    def create_node(self, labels, properties, options=None):
+        return GraphBatch.single(self, GraphBatch.create_node, labels, properties, options=options)
 
     def delete_node(self, node_id):
-        return GraphBatch.single(self.socket, GraphBatch.delete_node, node_id)
+        return GraphBatch.single(self, GraphBatch.delete_node, node_id)
+
+    def create_nodes(self, labels, properties):
+        return GraphBatch.single(self, GraphBatch.create_nodes, labels, properties)
+
+    def match_nodes(self, label, key, value, skip=0, limit=None, ids=False):
+        return GraphBatch.single(self, GraphBatch.match_nodes, label, key, value, skip, limit, ids)
 
-    def get_rel(self, rel_id):
-        return GraphBatch.single(self.socket, GraphBatch.get_rel, rel_id)
+    def count_nodes(self, label, key, value):
+        return GraphBatch.single(self, GraphBatch.count_nodes, label, key, value)
 
-    def put_rel(self, rel_id, properties):
-        return GraphBatch.single(self.socket, GraphBatch.put_rel, rel_id, properties)
+    def merge_nodes(self, label, key, values, properties=None):
+        return GraphBatch.single(self, GraphBatch.merge_nodes, label, key, values, properties)
 
-    def patch_rel(self, rel_id, properties):
-        return GraphBatch.single(self.socket, GraphBatch.patch_rel, rel_id, properties)
+    def traverse(self, start, **options):
+        return GraphBatch.single(self, GraphBatch.traverse, start, **options)
 
-    def create_rel(self, start_node, end_node, type, properties):
-        return GraphBatch.single(self.socket, GraphBatch.create_rel, start_node, end_node, type, properties)
+    def find_paths(self, start, end, **options):
+        return GraphBatch.single(self, GraphBatch.find_paths, start, end, **options)
+
+    def get_rel(self, rel_id, options=None):
+        return GraphBatch.single(self, GraphBatch.get_rel, rel_id, options=options)
+
+    def put_rel(self, rel_id, properties, options=None):
+        return GraphBatch.single(self, GraphBatch.put_rel, rel_id, properties, options=options)
+
+    def patch_rel(self, rel_id, properties, options=None):
+        return GraphBatch.single(self, GraphBatch.patch_rel, rel_id, properties, options=options)
+
+    def create_rel(self, start_node, end_node, type, properties, options=None):
+        return GraphBatch.single(self, GraphBatch.create_rel, start_node, end_node, type, properties, options=options)
 
     def delete_rel(self, rel_id):
-        return GraphBatch.single(self.socket, GraphBatch.delete_rel, rel_id)
+        return GraphBatch.single(self, GraphBatch.delete_rel, rel_id)
+
+    def create_rels(self, start_nodes, end_nodes, type, properties=None):
+        return GraphBatch.single(self, GraphBatch.create_rels, start_nodes, end_nodes, type, properties)
@@ -0,0 +1,120 @@
+package org.zerograph.benchmark;
+
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.zerograph.ResponseWriter;
+import org.zerograph.Session;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.util.Data;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of representative values, both through Data and
+ * through the ResponseWriter used by workers, in full and compact forms.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmark {
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+
+    private GraphDatabaseService database;
+    private Transaction tx;
+    private Node node;
+    private Relationship rel;
+    private ResponseWriter fullWriter;
+    private ResponseWriter compactWriter;
+    private byte[] properties;
+    private byte[] pointer;
+
+    @Setup
+    public void setUp() throws BadRequest {
+        database = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        tx = database.beginTx();
+        node = database.createNode(DynamicLabel.label("Person"), DynamicLabel.label("Employee"));
+        node.setProperty("name", "Alice");
+        node.setProperty("age", 33);
+        node.setProperty("score", 0.75);
+        node.setProperty("tags", new String[] {"admin", "staff"});
+        Node other = database.createNode(DynamicLabel.label("Person"));
+        other.setProperty("name", "Bob");
+        rel = node.createRelationshipTo(other, DynamicRelationshipType.withName("KNOWS"));
+        rel.setProperty("since", 1999);
+        fullWriter = new ResponseWriter(null);
+        compactWriter = new ResponseWriter(null);
+        Session session = new Session(null);
+        session.update(Collections.<String, Object>singletonMap("rels", "compact"));
+        compactWriter.begin(session);
+        properties = "{\"name\":\"Alice\",\"age\":33,\"score\":0.75,\"tags\":[\"admin\",\"staff\"]}".getBytes(UTF_8);
+        pointer = "/*Pointer*/[12,3]".getBytes(UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tx.close();
+        database.shutdown();
+    }
+
+    @Benchmark
+    public String encodeNode() throws IOException {
+        return Data.encode(node);
+    }
+
+    @Benchmark
+    public String encodeRel() throws IOException {
+        return Data.encode(rel);
+    }
+
+    @Benchmark
+    public String encodeList() throws IOException {
+        return Data.encode(Arrays.asList(1, 2.5, "three", true, null));
+    }
+
+    @Benchmark
+    public byte[] writeNodeResponse() {
+        return fullWriter.encode(new OK(node));
+    }
+
+    @Benchmark
+    public byte[] writeRelResponse() {
+        return fullWriter.encode(new OK(rel));
+    }
+
+    @Benchmark
+    public byte[] writeCompactRelResponse() {
+        return compactWriter.encode(new OK(rel));
+    }
+
+    @Benchmark
+    public Object decodeProperties() throws IOException {
+        return Data.decode(properties, 0, properties.length);
+    }
+
+    @Benchmark
+    public Object decodePointer() throws IOException {
+        return Data.decode(pointer, 0, pointer.length);
+    }
+
+}
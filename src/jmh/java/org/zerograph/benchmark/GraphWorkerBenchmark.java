@@ -0,0 +1,173 @@
+package org.zerograph.benchmark;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.test.TestGraphDatabaseFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.zerograph.Graph;
+import org.zerograph.GraphWorker;
+import org.zeromq.ZMQ;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole batches executed by a GraphWorker against an impermanent
+ * database, with responses pulled back over inproc:// as the dispatcher
+ * would. Each benchmark measures one batch, from parsing to the final
+ * response frame.
+ *
+ * The database is created afresh for each iteration, so that writes made
+ * by one iteration do not slow the next. Merges are measured separately
+ * for values not yet in the database, which are given a fresh key for
+ * each invocation, and for values that already are.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GraphWorkerBenchmark {
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+    final private static int PORT = 47499;
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private GraphDatabaseService database;
+    private Graph graph;
+    private GraphWorker worker;
+    private ZMQ.Socket responses;
+    private List<byte[]> envelope;
+
+    private byte[] createNodes;
+    private byte[] createRels;
+    private byte[] mergeExistingNodes;
+    private byte[] cypherRead;
+
+    @Setup
+    public void setUp() {
+        envelope = Arrays.asList("benchmark".getBytes(UTF_8), new byte[0]);
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < batchSize; i++) {
+            batch.append("POST\tnode\t[\"Person\"]\t{\"name\":\"Person ").append(i).append("\",\"age\":33}\n");
+        }
+        createNodes = batch.toString().getBytes(UTF_8);
+        batch.setLength(0);
+        for (int i = 0; i <= batchSize; i++) {
+            batch.append("POST\tnode\t[]\t{}\n");
+        }
+        for (int i = 0; i < batchSize; i++) {
+            batch.append("POST\trel\t/*Pointer*/").append(i).append("\t/*Pointer*/").append(i + 1).append("\t\"KNOWS\"\t{}\n");
+        }
+        createRels = batch.toString().getBytes(UTF_8);
+        batch.setLength(0);
+        for (int i = 0; i < batchSize; i++) {
+            batch.append("PUT\tnodeset\t\"Member\"\t\"name\"\t\"Member ").append(i).append("\"\n");
+        }
+        mergeExistingNodes = batch.toString().getBytes(UTF_8);
+        batch.setLength(0);
+        for (int i = 0; i < batchSize; i++) {
+            batch.append("POST\tcypher\t\"MATCH (p:Person) RETURN p.name, p.age LIMIT 10\"\n");
+        }
+        cypherRead = batch.toString().getBytes(UTF_8);
+    }
+
+    @Setup(Level.Iteration)
+    public void createDatabase() {
+        database = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        graph = new Graph(null, "localhost", PORT, database);
+        responses = graph.getContext().socket(ZMQ.PULL);
+        responses.bind(graph.getInternalAddress());
+        worker = new GraphWorker(null, graph);
+        run(createNodes);  // data for reads
+        run(mergeExistingNodes);
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutdownDatabase() {
+        worker.close();
+        responses.close();
+        graph.getContext().term();
+        database.shutdown();
+    }
+
+    @Benchmark
+    public int createNodes() {
+        return run(createNodes);
+    }
+
+    @Benchmark
+    public int createRelsWithPointers() {
+        return run(createRels);
+    }
+
+    @Benchmark
+    public int mergeNewNodes(NewMembers members) {
+        return run(members.batch);
+    }
+
+    @Benchmark
+    public int mergeExistingNodes() {
+        return run(mergeExistingNodes);
+    }
+
+    @Benchmark
+    public int cypherRead() {
+        return run(cypherRead);
+    }
+
+    /**
+     * Execute a batch and return the number of frames sent back,
+     * including the envelope.
+     *
+     */
+    private int run(byte[] batch) {
+        ArrayList<byte[]> frames = new ArrayList<>(1);
+        frames.add(batch);
+        worker.handle(envelope, frames);
+        int count = 0;
+        do {
+            responses.recv(0);
+            count += 1;
+        } while (responses.hasReceiveMore());
+        return count;
+    }
+
+    /**
+     * A batch of merges on values that no earlier invocation has used,
+     * built before each invocation of the one benchmark that needs it.
+     * Setup at this level is not timed, though JMH adds a little overhead
+     * of its own to each invocation.
+     *
+     */
+    @State(Scope.Thread)
+    public static class NewMembers {
+
+        private int invocation;
+        private byte[] batch;
+
+        @Setup(Level.Invocation)
+        public void next(GraphWorkerBenchmark benchmark) {
+            invocation += 1;
+            StringBuilder batch = new StringBuilder();
+            for (int i = 0; i < benchmark.batchSize; i++) {
+                batch.append("PUT\tnodeset\t\"Member\"\t\"name\"\t\"Member ").append(invocation).append("/").append(i).append("\"\n");
+            }
+            this.batch = batch.toString().getBytes(UTF_8);
+        }
+
+    }
+
+}
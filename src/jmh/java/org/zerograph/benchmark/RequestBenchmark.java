@@ -0,0 +1,179 @@
+package org.zerograph.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.zerograph.Request;
+import org.zerograph.RequestReader;
+import org.zerograph.Spool;
+import org.zerograph.response.status4xx.Status4xx;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of single requests and the framing of whole batches, from
+ * heap frames and from a spooled batch.
+ *
+ * The node batch benchmarks measure the per-line cost of reading a batch
+ * of POST node requests shaped like those of test_batch.py, decoding
+ * every term, both as the server does now and by the earlier approach of
+ * splitting the frame as a String and mapping each term with Jackson.
+ * readNodeLines reads the same batch without touching any term, which
+ * is the cost of a line whose data a resource never asks for.
+ * Allocation per operation is reported when JMH is run with its gc
+ * profiler (-prof gc).
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestBenchmark {
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+    final private static String POINTER_HINT = "/*Pointer*/";
+
+    @Param({"1", "100", "10000"})
+    public int batchSize;
+
+    private byte[] nodeRequest;
+    private byte[] cypherRequest;
+    private List<byte[]> frames;
+    private List<ByteBuffer> spooledFrames;
+    private List<byte[]> nodeFrames;
+    private ObjectMapper mapper;
+
+    @Setup
+    public void setUp() throws IOException {
+        nodeRequest = "POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"age\":33}".getBytes(UTF_8);
+        cypherRequest = "POST\tcypher\t\"MATCH (a:Person) WHERE a.name = {name} RETURN a\"\t{\"name\":\"Alice\"}".getBytes(UTF_8);
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < batchSize; i++) {
+            batch.append("POST\trel\t/*Pointer*/").append(i).append("\t/*Pointer*/").append(i + 1).append("\t\"KNOWS\"\t{}\n");
+        }
+        frames = Collections.singletonList(batch.toString().getBytes(UTF_8));
+        spooledFrames = Spool.spill(frames, new File(System.getProperty("java.io.tmpdir")));
+        StringBuilder nodeBatch = new StringBuilder();
+        for (int i = 0; i < batchSize; i++) {
+            nodeBatch.append("POST\tnode\t[\"Number\"]\t{\"value\":").append(i)
+                    .append(",\"uuid\":\"").append(UUID.randomUUID().toString().replace("-", "")).append("\"}\n");
+        }
+        nodeFrames = Collections.singletonList(nodeBatch.toString().getBytes(UTF_8));
+        mapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public Request parseNodeRequest() throws Status4xx {
+        return new Request(nodeRequest);
+    }
+
+    @Benchmark
+    public Request parseCypherRequest() throws Status4xx {
+        return new Request(cypherRequest);
+    }
+
+    @Benchmark
+    public int readBatch(Blackhole blackhole) throws Status4xx {
+        return read(RequestReader.fromArrays(frames), blackhole);
+    }
+
+    @Benchmark
+    public int readSpooledBatch(Blackhole blackhole) throws Status4xx {
+        return read(new RequestReader(new ArrayList<>(spooledFrames)), blackhole);
+    }
+
+    @Benchmark
+    public int readNodeBatch(Blackhole blackhole) throws Status4xx {
+        RequestReader reader = RequestReader.fromArrays(nodeFrames);
+        Request request;
+        while ((request = reader.next()) != null) {
+            blackhole.consume(request.getListData(0));
+            blackhole.consume(request.getMapData(1));
+        }
+        return reader.getCount();
+    }
+
+    @Benchmark
+    public int readNodeLines(Blackhole blackhole) throws Status4xx {
+        return read(RequestReader.fromArrays(nodeFrames), blackhole);
+    }
+
+    /**
+     * The baseline for readNodeBatch: each frame decoded to a String and
+     * split into lines by a regular expression, each line split on tabs
+     * and each term after the first two decoded as the server formerly
+     * did, by mapping it with Jackson to a type chosen from its first
+     * character.
+     *
+     */
+    @Benchmark
+    public int readNodeBatchAsStrings(Blackhole blackhole) throws IOException {
+        int count = 0;
+        for (byte[] bytes : nodeFrames) {
+            String frame = new String(bytes, UTF_8);
+            for (String line : frame.split("\\r|\\n|\\r\\n")) {
+                if (line.length() > 0) {
+                    String[] parts = line.split("\t");
+                    blackhole.consume(parts[0]);
+                    blackhole.consume(parts[1]);
+                    for (int i = 2; i < parts.length; i++) {
+                        blackhole.consume(decode(parts[i]));
+                    }
+                    count += 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    private Object decode(String string) throws IOException {
+        switch (string) {
+            case "null":
+                return null;
+            case "true":
+                return true;
+            case "false":
+                return false;
+            default:
+                if (string.length() > 0) {
+                    char ch = string.charAt(0);
+                    if ((ch >= '0' && ch <= '9') || ch == '-') {
+                        return mapper.readValue(string, Number.class);
+                    } else if (ch == '"') {
+                        return mapper.readValue(string, String.class);
+                    } else if (ch == '[') {
+                        return mapper.readValue(string, List.class);
+                    } else if (ch == '{') {
+                        return mapper.readValue(string, Map.class);
+                    } else if (string.startsWith(POINTER_HINT)) {
+                        return mapper.readValue(string.substring(POINTER_HINT.length()), Integer.class);
+                    }
+                }
+                throw new IllegalArgumentException(string);
+        }
+    }
+
+    private static int read(RequestReader reader, Blackhole blackhole) throws Status4xx {
+        Request request;
+        while ((request = reader.next()) != null) {
+            blackhole.consume(request);
+        }
+        return reader.getCount();
+    }
+
+}
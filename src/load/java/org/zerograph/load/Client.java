@@ -0,0 +1,143 @@
+package org.zerograph.load;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A closed-loop client, which sends its next batch as soon as the
+ * response to the last one has been received. Over a DEALER connection,
+ * a client instead keeps a fixed number of batches in flight, sending
+ * another as each response arrives. Latencies are recorded once the
+ * warmup period has passed.
+ *
+ * A client that fails stops early, keeping the failure for the report.
+ *
+ */
+public class Client implements Runnable {
+
+    final private Connection connection;
+    final private Workload workload;
+    final private Random random;
+    final private Latencies[] latencies;
+    final private AtomicLong completed;
+    final private AtomicLong conflicts;
+    final private long recordFrom;
+    final private int pipeline;
+
+    private volatile boolean running;
+    private volatile Exception failure;
+
+    public Client(Connection connection, Workload workload, long seed, AtomicLong completed, AtomicLong conflicts, long recordFrom) {
+        this(connection, workload, seed, completed, conflicts, recordFrom, 1);
+    }
+
+    public Client(Connection connection, Workload workload, long seed, AtomicLong completed, AtomicLong conflicts, long recordFrom, int pipeline) {
+        this.connection = connection;
+        this.pipeline = pipeline;
+        this.workload = workload;
+        this.random = new Random(seed);
+        this.latencies = new Latencies[Workload.OPERATIONS.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Latencies();
+        }
+        this.completed = completed;
+        this.conflicts = conflicts;
+        this.recordFrom = recordFrom;
+        this.running = true;
+    }
+
+    public Latencies getLatencies(int operation) {
+        return latencies[operation];
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Return the exception with which this client stopped early, or null
+     * if it ran until stopped.
+     *
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (connection.isDealer()) {
+                runPipelined();
+            } else {
+                runSequential();
+            }
+        } catch (RuntimeException ex) {
+            failure = ex;
+            System.err.println(Thread.currentThread().getName() + " stopped: " + ex);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void runSequential() {
+        while (running) {
+            int operation = workload.nextOperation(random);
+            List<String> batch = workload.createBatch(operation, random);
+            long start = System.nanoTime();
+            List<String> responses = connection.request(batch);
+            record(operation, start, System.nanoTime(), responses);
+        }
+    }
+
+    /**
+     * Keep up to the pipeline depth of batches in flight until stopped,
+     * then wait for the responses to those still in flight.
+     *
+     */
+    private void runPipelined() {
+        HashMap<Long, long[]> inFlight = new HashMap<>(2 * pipeline);  // tag to operation and start time
+        ArrayList<String> responses = new ArrayList<>();
+        long nextTag = 0;
+        while (running || !inFlight.isEmpty()) {
+            while (running && inFlight.size() < pipeline) {
+                int operation = workload.nextOperation(random);
+                List<String> batch = workload.createBatch(operation, random);
+                inFlight.put(nextTag, new long[] {operation, System.nanoTime()});
+                connection.send(nextTag, batch);
+                nextTag += 1;
+            }
+            responses.clear();
+            long tag = connection.receive(responses);
+            long end = System.nanoTime();
+            long[] sent = inFlight.remove(tag);
+            if (sent == null) {
+                throw new IllegalStateException("Response to unknown batch " + tag);
+            }
+            record((int) sent[0], sent[1], end, responses);
+        }
+    }
+
+    private void record(int operation, long start, long end, List<String> responses) {
+        boolean conflict = false;
+        boolean error = false;
+        for (String response : responses) {
+            int status = Connection.status(response);
+            if (status == 409) {
+                conflict = true;
+            } else if (status >= 400) {
+                error = true;
+            }
+        }
+        completed.incrementAndGet();
+        if (conflict) {
+            conflicts.incrementAndGet();
+        }
+        if (start >= recordFrom) {
+            latencies[operation].record(end - start, conflict, error);
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.zerograph.load;
+
+import org.zeromq.ZMQ;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A connection to a Zerograph service. Over a REQ socket, one batch is
+ * sent at a time and all of its responses awaited. Over a DEALER socket,
+ * several batches may be in flight at once; each is sent with a tag ahead
+ * of the empty delimiter frame, which the server returns as part of the
+ * envelope of its responses, since these may arrive in any order.
+ *
+ */
+public class Connection {
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+    final private static byte[] EMPTY = new byte[0];
+
+    final private ZMQ.Socket socket;
+    final private boolean dealer;
+
+    public Connection(ZMQ.Context context, String host, int port, int timeout) {
+        this(context, host, port, timeout, false);
+    }
+
+    public Connection(ZMQ.Context context, String host, int port, int timeout, boolean dealer) {
+        this.dealer = dealer;
+        this.socket = context.socket(dealer ? ZMQ.DEALER : ZMQ.REQ);
+        this.socket.setLinger(0);
+        this.socket.setReceiveTimeOut(timeout);
+        this.socket.connect("tcp://" + host + ":" + port);
+    }
+
+    public boolean isDealer() {
+        return this.dealer;
+    }
+
+    /**
+     * Send a batch of request lines and return the response lines, the
+     * last of which is the overall batch status. Over a DEALER socket,
+     * no other batch may be in flight.
+     *
+     */
+    public List<String> request(List<String> lines) {
+        if (dealer) {
+            socket.sendMore(EMPTY);
+        }
+        sendLines(lines);
+        if (dealer) {
+            receiveFrame();  // the empty delimiter
+        }
+        ArrayList<String> responses = new ArrayList<>(lines.size() + 1);
+        receiveLines(responses);
+        return responses;
+    }
+
+    /**
+     * Send a batch of request lines over a DEALER socket without waiting
+     * for the responses, which are identified by the tag given.
+     *
+     */
+    public void send(long tag, List<String> lines) {
+        if (!dealer) {
+            throw new IllegalStateException("Batches can only be pipelined over a DEALER socket");
+        }
+        socket.sendMore(ByteBuffer.allocate(8).putLong(tag).array());
+        socket.sendMore(EMPTY);
+        sendLines(lines);
+    }
+
+    /**
+     * Receive the responses to any batch sent with a tag, adding the
+     * response lines to a list and returning the tag.
+     *
+     */
+    public long receive(List<String> responses) {
+        byte[] tag = receiveFrame();
+        if (tag.length != 8 || !socket.hasReceiveMore() || receiveFrame().length != 0) {
+            throw new IllegalStateException("Malformed response envelope");
+        }
+        receiveLines(responses);
+        return ByteBuffer.wrap(tag).getLong();
+    }
+
+    private void sendLines(List<String> lines) {
+        for (String line : lines) {
+            socket.sendMore(line.getBytes(UTF_8));
+        }
+        socket.send(EMPTY, 0);
+    }
+
+    private byte[] receiveFrame() {
+        byte[] frame = socket.recv(0);
+        if (frame == null) {
+            throw new IllegalStateException("Timed out waiting for response");
+        }
+        return frame;
+    }
+
+    private void receiveLines(List<String> responses) {
+        do {
+            byte[] frame = receiveFrame();
+            for (String line : new String(frame, UTF_8).split("[\r\n]+")) {
+                if (!line.isEmpty()) {
+                    responses.add(line);
+                }
+            }
+        } while (socket.hasReceiveMore());
+    }
+
+    public static int status(String response) {
+        int tab = response.indexOf('\t');
+        return Integer.parseInt(tab < 0 ? response : response.substring(0, tab));
+    }
+
+    public static String data(String response) {
+        int tab = response.indexOf('\t');
+        return tab < 0 ? null : response.substring(tab + 1);
+    }
+
+    public void close() {
+        socket.close();
+    }
+
+}
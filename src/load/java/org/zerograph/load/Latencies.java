@@ -0,0 +1,78 @@
+package org.zerograph.load;
+
+import java.util.Arrays;
+
+/**
+ * Every latency recorded for one operation by one client, in
+ * nanoseconds, together with conflict and error counts. Latencies are
+ * kept in full so that percentiles are exact.
+ *
+ */
+public class Latencies {
+
+    private long[] values;
+    private int size;
+    private long conflicts;
+    private long errors;
+
+    public Latencies() {
+        this.values = new long[1024];
+        this.size = 0;
+    }
+
+    public void record(long nanos, boolean conflict, boolean error) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+        if (conflict) {
+            conflicts += 1;
+        } else if (error) {
+            errors += 1;
+        }
+    }
+
+    public void add(Latencies other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        conflicts += other.conflicts;
+        errors += other.errors;
+    }
+
+    public int getCount() {
+        return size;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Sort the recorded latencies, which must be done before reading
+     * percentiles.
+     *
+     */
+    public void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+    public long getPercentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return values[Math.max(rank - 1, 0)];
+    }
+
+    public long getMax() {
+        return size == 0 ? 0 : values[size - 1];
+    }
+
+}
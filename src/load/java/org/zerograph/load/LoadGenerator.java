@@ -0,0 +1,316 @@
+package org.zerograph.load;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.zeromq.ZMQ;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a closed-loop workload against a local Zerograph graph service.
+ * A synthetic social graph is loaded first, then a number of concurrent
+ * clients run a mix of reads, writes, merges and Cypher queries for a
+ * fixed time, after which throughput, latency percentiles and conflict
+ * and error rates are reported for each operation.
+ *
+ * Options are given as --name=value:
+ *
+ *   host      server host (localhost)
+ *   control   control service port (47470)
+ *   port      graph service port, started if necessary (47474)
+ *   nodes     number of people to create (10000)
+ *   degree    mean number of people each person knows (10)
+ *   model     degree distribution, uniform or powerlaw (powerlaw)
+ *   load      whether to load the graph first (true); if not, node IDs
+ *             are assumed to run from zero to nodes - 1
+ *   clients   number of concurrent clients (16)
+ *   socket    client socket type, req or dealer (req)
+ *   pipeline  batches each dealer client keeps in flight (1)
+ *   batch     requests of one operation per batch (1)
+ *   mix       percentage of each operation (read=60,write=20,merge=10,cypher=10)
+ *   warmup    seconds before latencies are recorded (5)
+ *   duration  seconds to record for (30)
+ *   report    seconds between progress reports (5)
+ *   timeout   milliseconds to wait for a response (30000)
+ *   seed      random seed (1)
+ *   json      file to which results are also written as JSON
+ *
+ */
+public class LoadGenerator {
+
+    final private static int CHUNK_SIZE = 10000;
+    final private static ObjectMapper mapper = new ObjectMapper();
+
+    final private Map<String, String> options;
+
+    public LoadGenerator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LinkedHashMap<String, String> options = new LinkedHashMap<>();
+        options.put("host", "localhost");
+        options.put("control", "47470");
+        options.put("port", "47474");
+        options.put("nodes", "10000");
+        options.put("degree", "10");
+        options.put("model", "powerlaw");
+        options.put("load", "true");
+        options.put("clients", "16");
+        options.put("socket", "req");
+        options.put("pipeline", "1");
+        options.put("batch", "1");
+        options.put("mix", "read=60,write=20,merge=10,cypher=10");
+        options.put("warmup", "5");
+        options.put("duration", "30");
+        options.put("report", "5");
+        options.put("timeout", "30000");
+        options.put("seed", "1");
+        options.put("json", null);
+        for (String arg : args) {
+            String[] parts = arg.replaceFirst("^--", "").split("=", 2);
+            if (parts.length != 2 || !options.containsKey(parts[0])) {
+                System.err.println("Unknown option " + arg);
+                System.exit(1);
+            }
+            options.put(parts[0], parts[1]);
+        }
+        new LoadGenerator(options).run();
+    }
+
+    public void run() throws IOException, InterruptedException {
+        String host = options.get("host");
+        int port = getInt("port");
+        int timeout = getInt("timeout");
+        Random random = new Random(getInt("seed"));
+        ZMQ.Context context = ZMQ.context(1);
+        try {
+            // start the graph service if it is not already running
+            Connection control = new Connection(context, host, getInt("control"), timeout);
+            List<String> responses = control.request(Collections.singletonList("PUT\tgraph\t\"" + host + "\"\t" + port + "\ttrue"));
+            int status = Connection.status(responses.get(responses.size() - 1));
+            if (status >= 400 && status != 409) {
+                throw new IllegalStateException("Cannot start graph on port " + port + ": " + responses);
+            }
+            control.close();
+            // load the social graph
+            long[] nodes = new long[getInt("nodes")];
+            Workload workload = new Workload(nodes, getInt("degree"), "powerlaw".equals(options.get("model")), parseMix(options.get("mix")), getInt("batch"));
+            Connection connection = new Connection(context, host, port, timeout);
+            if (Boolean.parseBoolean(options.get("load"))) {
+                long start = System.nanoTime();
+                long rels = load(connection, workload, nodes, random);
+                System.out.printf("Loaded %d nodes and %d relationships in %.1fs%n", nodes.length, rels, (System.nanoTime() - start) / 1e9);
+            } else {
+                for (int i = 0; i < nodes.length; i++) {
+                    nodes[i] = i;
+                }
+            }
+            connection.close();
+            drive(context, host, port, timeout, workload, random);
+        } finally {
+            context.term();
+        }
+    }
+
+    private long load(Connection connection, Workload workload, long[] nodes, Random random) throws IOException {
+        // an index keeps merges from scanning every person; failure is not fatal
+        connection.request(Collections.singletonList("POST\tcypher\t\"CREATE INDEX ON :" + Workload.getLabel() + "(name)\""));
+        for (int first = 0; first < nodes.length; first += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, nodes.length - first);
+            StringBuilder names = new StringBuilder("{\"name\":[");
+            for (int i = 0; i < count; i++) {
+                names.append(i == 0 ? "" : ",").append(Workload.name(first + i));
+            }
+            names.append("]}");
+            String response = check(connection.request(Collections.singletonList(
+                    "POST\tnodes\t[\"" + Workload.getLabel() + "\"]\t" + names))).get(0);
+            Map summary = mapper.readValue(Connection.data(response), Map.class);
+            if (summary.containsKey("first")) {
+                long id = ((Number) summary.get("first")).longValue();
+                for (int i = 0; i < count; i++) {
+                    nodes[first + i] = id + i;
+                }
+            } else {
+                List ids = (List) summary.get("ids");
+                for (int i = 0; i < count; i++) {
+                    nodes[first + i] = ((Number) ids.get(i)).longValue();
+                }
+            }
+        }
+        long rels = 0;
+        StringBuilder starts = new StringBuilder();
+        StringBuilder ends = new StringBuilder();
+        int pending = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            int degree = workload.nextDegree(random);
+            for (int j = 0; j < degree; j++) {
+                long end = workload.nextNode(random);
+                if (end != nodes[i]) {
+                    starts.append(pending == 0 ? "" : ",").append(nodes[i]);
+                    ends.append(pending == 0 ? "" : ",").append(end);
+                    pending += 1;
+                }
+            }
+            if (pending >= CHUNK_SIZE || (i == nodes.length - 1 && pending > 0)) {
+                check(connection.request(Collections.singletonList(
+                        "POST\trels\t[" + starts + "]\t[" + ends + "]\t\"" + Workload.getType() + "\"")));
+                rels += pending;
+                starts.setLength(0);
+                ends.setLength(0);
+                pending = 0;
+            }
+        }
+        return rels;
+    }
+
+    private void drive(ZMQ.Context context, String host, int port, int timeout, Workload workload, Random random) throws IOException, InterruptedException {
+        int clientCount = getInt("clients");
+        boolean dealer = isDealer();
+        int pipeline = getInt("pipeline");
+        if (pipeline < 1 || (pipeline > 1 && !dealer)) {
+            throw new IllegalArgumentException("Pipelining requires --socket=dealer and a depth of at least 1");
+        }
+        long warmup = TimeUnit.SECONDS.toNanos(getInt("warmup"));
+        long duration = TimeUnit.SECONDS.toNanos(getInt("duration"));
+        long report = TimeUnit.SECONDS.toNanos(Math.max(1, getInt("report")));
+        AtomicLong completed = new AtomicLong();
+        AtomicLong conflicts = new AtomicLong();
+        long begin = System.nanoTime();
+        ArrayList<Client> clients = new ArrayList<>(clientCount);
+        ArrayList<Thread> threads = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            Connection connection = new Connection(context, host, port, timeout, dealer);
+            Client client = new Client(connection, workload, random.nextLong(), completed, conflicts, begin + warmup, pipeline);
+            Thread thread = new Thread(client, "load-client-" + i);
+            clients.add(client);
+            threads.add(thread);
+            thread.start();
+        }
+        System.out.printf("Running %d %s clients%s for %ds after %ds warmup%n", clientCount, dealer ? "DEALER" : "REQ",
+                dealer ? " with " + pipeline + " batches in flight" : "", getInt("duration"), getInt("warmup"));
+        long lastTime = begin;
+        long lastCompleted = 0;
+        long lastConflicts = 0;
+        long end = begin + warmup + duration;
+        while (System.nanoTime() < end) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(report, Math.max(0, end - System.nanoTime())));
+            long now = System.nanoTime();
+            long done = completed.get();
+            long failed = conflicts.get();
+            double seconds = (now - lastTime) / 1e9;
+            System.out.printf("%6.1fs  %10.1f batches/s  %6.2f%% conflicts%s%n", (now - begin) / 1e9,
+                    (done - lastCompleted) / seconds, done == lastCompleted ? 0.0 : 100.0 * (failed - lastConflicts) / (done - lastCompleted),
+                    now < begin + warmup ? "  (warmup)" : "");
+            lastTime = now;
+            lastCompleted = done;
+            lastConflicts = failed;
+        }
+        for (Client client : clients) {
+            client.stop();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int failed = 0;
+        for (Client client : clients) {
+            if (client.getFailure() != null) {
+                failed += 1;
+            }
+        }
+        if (failed > 0) {
+            System.out.printf("%d of %d clients stopped early; results cover less than the full load%n", failed, clientCount);
+        }
+        summarise(clients, duration / 1e9);
+    }
+
+    private void summarise(List<Client> clients, double seconds) throws IOException {
+        LinkedHashMap<String, Object> results = new LinkedHashMap<>();
+        Latencies total = new Latencies();
+        System.out.printf("%n%-8s %10s %10s %9s %9s %9s %9s %10s %8s%n",
+                "op", "batches", "batches/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "conflicts", "errors");
+        for (int op = 0; op < Workload.OPERATIONS.length; op++) {
+            Latencies latencies = new Latencies();
+            for (Client client : clients) {
+                latencies.add(client.getLatencies(op));
+            }
+            total.add(latencies);
+            results.put(Workload.OPERATIONS[op], summarise(Workload.OPERATIONS[op], latencies, seconds));
+        }
+        results.put("total", summarise("total", total, seconds));
+        String json = options.get("json");
+        if (json != null) {
+            LinkedHashMap<String, Object> document = new LinkedHashMap<>();
+            document.put("options", options);
+            document.put("results", results);
+            mapper.writeValue(new File(json), document);
+        }
+    }
+
+    private static Map<String, Object> summarise(String name, Latencies latencies, double seconds) {
+        latencies.sort();
+        int count = latencies.getCount();
+        double conflictRate = count == 0 ? 0 : 100.0 * latencies.getConflicts() / count;
+        double errorRate = count == 0 ? 0 : 100.0 * latencies.getErrors() / count;
+        System.out.printf("%-8s %10d %10.1f %9.3f %9.3f %9.3f %9.3f %9.2f%% %7.2f%%%n", name, count, count / seconds,
+                latencies.getPercentile(50) / 1e6, latencies.getPercentile(99) / 1e6,
+                latencies.getPercentile(99.9) / 1e6, latencies.getMax() / 1e6, conflictRate, errorRate);
+        LinkedHashMap<String, Object> summary = new LinkedHashMap<>();
+        summary.put("batches", count);
+        summary.put("throughput", count / seconds);
+        summary.put("p50", latencies.getPercentile(50) / 1e6);
+        summary.put("p99", latencies.getPercentile(99) / 1e6);
+        summary.put("p999", latencies.getPercentile(99.9) / 1e6);
+        summary.put("max", latencies.getMax() / 1e6);
+        summary.put("conflicts", conflictRate);
+        summary.put("errors", errorRate);
+        return summary;
+    }
+
+    private static List<String> check(List<String> responses) {
+        for (String response : responses) {
+            if (Connection.status(response) >= 400) {
+                throw new IllegalStateException("Request failed: " + response);
+            }
+        }
+        return responses;
+    }
+
+    private static int[] parseMix(String mix) {
+        int[] percentages = new int[Workload.OPERATIONS.length];
+        for (String term : mix.split(",")) {
+            String[] parts = term.split("=", 2);
+            int op = Arrays.asList(Workload.OPERATIONS).indexOf(parts[0].trim());
+            if (op < 0 || parts.length != 2) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + term);
+            }
+            percentages[op] = Integer.parseInt(parts[1].trim());
+        }
+        return percentages;
+    }
+
+    private boolean isDealer() {
+        switch (options.get("socket")) {
+            case "req":
+                return false;
+            case "dealer":
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown socket type " + options.get("socket"));
+        }
+    }
+
+    private int getInt(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+}
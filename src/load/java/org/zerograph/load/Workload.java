@@ -0,0 +1,126 @@
+package org.zerograph.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A synthetic social graph of people who know each other, and the mix of
+ * operations run against it. Popularity follows a Zipf-like distribution
+ * by node index, so in the power law model a few people have very many
+ * followers and are read and updated far more often than the rest.
+ *
+ */
+public class Workload {
+
+    final public static String[] OPERATIONS = {"read", "write", "merge", "cypher"};
+
+    final private static String LABEL = "Person";
+    final private static String TYPE = "KNOWS";
+    final private static String FRIENDS_OF_FRIENDS = "MATCH (a)-[:KNOWS]->()-[:KNOWS]->(c) WHERE id(a) = {id} RETURN count(c)";
+
+    final private long[] nodes;
+    final private int degree;
+    final private boolean powerLaw;
+    final private int[] mix;        // cumulative percentages, by operation
+    final private int batchSize;
+
+    public Workload(long[] nodes, int degree, boolean powerLaw, int[] mix, int batchSize) {
+        this.nodes = nodes;
+        this.degree = degree;
+        this.powerLaw = powerLaw;
+        this.mix = new int[mix.length];
+        int total = 0;
+        for (int i = 0; i < mix.length; i++) {
+            total += mix[i];
+            this.mix[i] = total;
+        }
+        this.batchSize = batchSize;
+    }
+
+    public static String getLabel() {
+        return LABEL;
+    }
+
+    public static String name(long index) {
+        return "\"" + LABEL + " " + index + "\"";
+    }
+
+    /**
+     * Return the number of people each person knows, drawn from either
+     * a constant or a Pareto distribution with the configured mean.
+     *
+     */
+    public int nextDegree(Random random) {
+        if (powerLaw) {
+            double alpha = 2.0;
+            double minimum = degree * (alpha - 1) / alpha;
+            return (int) Math.min(nodes.length - 1, Math.floor(minimum / Math.pow(1 - random.nextDouble(), 1 / alpha)));
+        } else {
+            return degree;
+        }
+    }
+
+    /**
+     * Return the ID of a random person, biased towards popular people
+     * under the power law model.
+     *
+     */
+    public long nextNode(Random random) {
+        int index;
+        if (powerLaw) {
+            index = (int) Math.pow(nodes.length, random.nextDouble()) - 1;
+        } else {
+            index = random.nextInt(nodes.length);
+        }
+        return nodes[Math.min(index, nodes.length - 1)];
+    }
+
+    public int nextOperation(Random random) {
+        int choice = random.nextInt(mix[mix.length - 1]);
+        for (int i = 0; i < mix.length; i++) {
+            if (choice < mix[i]) {
+                return i;
+            }
+        }
+        return mix.length - 1;
+    }
+
+    /**
+     * Build a batch of requests for an operation:
+     *
+     *   read    fetch a person
+     *   write   update a person and have them get to know someone
+     *   merge   find or create a person by name, one in ten new
+     *   cypher  count a person's friends of friends
+     *
+     */
+    public List<String> createBatch(int operation, Random random) {
+        ArrayList<String> lines = new ArrayList<>(2 * batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            long node = nextNode(random);
+            switch (operation) {
+                case 0:
+                    lines.add("GET\tnode\t" + node);
+                    break;
+                case 1:
+                    lines.add("PATCH\tnode\t" + node + "\t[]\t{\"seen\":" + System.currentTimeMillis() + "}");
+                    lines.add("POST\trel\t" + node + "\t" + nextNode(random) + "\t\"" + TYPE + "\"\t{}");
+                    break;
+                case 2:
+                    long index = (long) (random.nextDouble() * nodes.length * 1.1);
+                    lines.add("PUT\tnodeset\t\"" + LABEL + "\"\t\"name\"\t" + name(index));
+                    break;
+                default:
+                    lines.add("POST\tcypher\t\"" + FRIENDS_OF_FRIENDS + "\"\t{\"id\":" + node + "}");
+                    break;
+            }
+        }
+        return lines;
+    }
+
+    public static String getType() {
+        return TYPE;
+    }
+
+}
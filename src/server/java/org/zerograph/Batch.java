@@ -0,0 +1,124 @@
+package org.zerograph;
+
+import org.zerograph.response.status4xx.RequestTimeout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request batch being executed by a graph worker, as listed by the
+ * control service. Resources that iterate over query results call check
+ * as they go, which fails once the batch has been cancelled or the query
+ * currently running has exceeded its timeout.
+ *
+ */
+public class Batch {
+
+    final private int id;
+    final private UUID worker;
+    final private long startTime;  // milliseconds since the epoch
+    final private long start;      // nanoseconds
+    final private long queryTimeout;
+
+    private volatile String query;
+    private volatile long deadline;  // nanoseconds, or 0 for none
+    private volatile boolean cancelled;
+
+    Batch(int id, UUID worker, long queryTimeout) {
+        this.id = id;
+        this.worker = worker;
+        this.queryTimeout = queryTimeout;
+        this.startTime = System.currentTimeMillis();
+        this.start = System.nanoTime();
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    public UUID getWorker() {
+        return this.worker;
+    }
+
+    /**
+     * Return the text of the query currently running, or null if none is.
+     *
+     */
+    public String getQuery() {
+        return this.query;
+    }
+
+    /**
+     * Note the start of a query, which must finish within the default
+     * timeout of the graph.
+     *
+     */
+    public void startQuery(String query) {
+        startQuery(query, this.queryTimeout);
+    }
+
+    /**
+     * Note the start of a query, which must finish within the given
+     * number of milliseconds unless that is 0.
+     *
+     */
+    public void startQuery(String query, long timeout) {
+        this.query = query;
+        this.deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+    }
+
+    /**
+     * Return the number of milliseconds left before the current query
+     * runs past its deadline, or -1 if it has none.
+     *
+     */
+    public long getRemaining() {
+        long deadline = this.deadline;
+        if (deadline == 0) {
+            return -1;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    public void endQuery() {
+        this.query = null;
+        this.deadline = 0;
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Fail if this batch has been cancelled or the current query has run
+     * past its deadline.
+     *
+     */
+    public void check() throws RequestTimeout {
+        if (this.cancelled) {
+            throw new RequestTimeout("Batch " + this.id + " cancelled");
+        }
+        long deadline = this.deadline;
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new RequestTimeout("Query timed out");
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        map.put("id", this.id);
+        map.put("worker", this.worker.toString());
+        map.put("started", this.startTime);
+        map.put("elapsed", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.start));
+        map.put("query", this.query);
+        map.put("cancelled", this.cancelled);
+        return map;
+    }
+
+}
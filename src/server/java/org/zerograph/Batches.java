@@ -0,0 +1,79 @@
+package org.zerograph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The batches running on a Graph, keyed by an id assigned as each
+ * begins, so that they can be listed and cancelled through the control
+ * service. Also holds the default timeout for queries run by those
+ * batches.
+ *
+ */
+public class Batches {
+
+    final private ConcurrentSkipListMap<Integer, Batch> running;
+    final private AtomicInteger nextId;
+    final private long queryTimeout;
+
+    public Batches() {
+        this(0);
+    }
+
+    /**
+     * Create a registry for batches whose queries time out after the
+     * given number of milliseconds by default, or never if that is 0.
+     *
+     */
+    public Batches(long queryTimeout) {
+        this.running = new ConcurrentSkipListMap<>();
+        this.nextId = new AtomicInteger();
+        this.queryTimeout = queryTimeout;
+    }
+
+    public long getQueryTimeout() {
+        return this.queryTimeout;
+    }
+
+    public Batch begin(UUID worker) {
+        Batch batch = new Batch(nextId.getAndIncrement(), worker, queryTimeout);
+        running.put(batch.getId(), batch);
+        return batch;
+    }
+
+    public void end(Batch batch) {
+        running.remove(batch.getId());
+    }
+
+    /**
+     * Ask a running batch to stop, returning false if no batch with the
+     * given id is running. The batch fails at its next check, after
+     * which its transaction is rolled back.
+     *
+     */
+    public boolean cancel(int id) {
+        Batch batch = running.get(id);
+        if (batch == null) {
+            return false;
+        }
+        batch.cancel();
+        return true;
+    }
+
+    public List<Map<String, Object>> toList() {
+        ArrayList<Map<String, Object>> batches = new ArrayList<>();
+        for (Batch batch : running.values()) {
+            batches.add(batch.toMap());
+        }
+        return batches;
+    }
+
+    public int size() {
+        return running.size();
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.zerograph;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.List;
+
+/**
+ * An open result from which rows are fetched a page at a time over any
+ * number of batches. Each cursor runs in a transaction of its own which
+ * is suspended between pages; see Cursors.
+ *
+ * Rows are either maps of Cypher column values, where the cursor has
+ * columns, or single values such as nodes.
+ *
+ */
+public class Cursor {
+
+    final private int id;
+    final private Transaction tx;
+    final private int pageSize;
+
+    private javax.transaction.Transaction suspended;
+    private javax.transaction.Transaction outer;
+    private List<String> columns;
+    private ResourceIterator<?> rows;
+    private long lastUsed;
+
+    Cursor(int id, Transaction tx, int pageSize) {
+        this.id = id;
+        this.tx = tx;
+        this.pageSize = pageSize;
+        this.lastUsed = System.nanoTime();
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Return the number of rows fetched when no page size is requested.
+     *
+     */
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    /**
+     * Return the Cypher columns of each row, or null if rows are single
+     * values.
+     *
+     */
+    public List<String> getColumns() {
+        return this.columns;
+    }
+
+    public void open(List<String> columns, ResourceIterator<?> rows) {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    public boolean hasNext() {
+        return this.rows != null && this.rows.hasNext();
+    }
+
+    public Object next() {
+        return this.rows.next();
+    }
+
+    Transaction getTransaction() {
+        return this.tx;
+    }
+
+    javax.transaction.Transaction getSuspended() {
+        return this.suspended;
+    }
+
+    void setSuspended(javax.transaction.Transaction suspended) {
+        this.suspended = suspended;
+        this.lastUsed = System.nanoTime();
+    }
+
+    /**
+     * The transaction of the batch that is using this cursor, suspended
+     * while the cursor's own transaction is current.
+     *
+     */
+    javax.transaction.Transaction getOuter() {
+        return this.outer;
+    }
+
+    void setOuter(javax.transaction.Transaction outer) {
+        this.outer = outer;
+    }
+
+    long getLastUsed() {
+        return this.lastUsed;
+    }
+
+    void closeRows() {
+        if (this.rows != null) {
+            this.rows.close();
+            this.rows = null;
+        }
+    }
+
+}
@@ -0,0 +1,275 @@
+package org.zerograph;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.response.status4xx.Conflict;
+import org.zerograph.response.status4xx.NotFound;
+import org.zerograph.response.status5xx.ServerError;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The open cursors of a Graph, shared by all of its workers.
+ *
+ * A cursor keeps its result iterator and the transaction behind it open
+ * between batches. As transactions are bound to threads, the worker that
+ * opens or fetches from a cursor suspends its own batch transaction,
+ * resumes that of the cursor and swaps them back once the page is sent.
+ * A cursor is removed from the idle set while a worker is using it, so
+ * concurrent fetches from the same cursor are refused rather than
+ * interleaved.
+ *
+ * The number of open cursors is capped and cursors left idle for longer
+ * than the timeout are rolled back and discarded, so that clients
+ * abandoning a result cannot hold server memory, transactions or locks
+ * indefinitely. Idle cursors are expired whenever a cursor is opened or
+ * acquired and, while the graph is running, by a reaper that runs at a
+ * quarter of the timeout, so that they are also expired when no cursor
+ * traffic follows. A cursor that runs to the end of its result is
+ * committed and discarded at once.
+ *
+ */
+public class Cursors {
+
+    final public static int DEFAULT_LIMIT = 64;
+    final public static int DEFAULT_TIMEOUT = 60;  // seconds
+
+    final private static long MIN_REAPER_PERIOD = TimeUnit.MILLISECONDS.toNanos(100);
+    final private static ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "zerograph-cursors");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    final private GraphDatabaseService database;
+    final private Transactions transactions;
+    final private int limit;
+    final private long timeout;  // nanoseconds
+
+    final private ConcurrentHashMap<Integer, Cursor> idle;
+    final private AtomicInteger open;
+    final private AtomicInteger nextId;
+
+    private ScheduledFuture<?> reaping;
+
+    public Cursors(GraphDatabaseService database) {
+        this(database, DEFAULT_LIMIT, DEFAULT_TIMEOUT);
+    }
+
+    public Cursors(GraphDatabaseService database, int limit, int timeout) {
+        this.database = database;
+        this.transactions = new Transactions(database);
+        this.limit = limit;
+        this.timeout = TimeUnit.SECONDS.toNanos(timeout);
+        this.idle = new ConcurrentHashMap<>();
+        this.open = new AtomicInteger();
+        this.nextId = new AtomicInteger();
+    }
+
+    /**
+     * Open a new cursor and make its transaction current in place of
+     * that of the calling thread. The cursor must be passed to release
+     * once its first page has been fetched.
+     *
+     */
+    public Cursor open(int pageSize) throws Conflict, ServerError {
+        expire();
+        if (open.incrementAndGet() > limit) {
+            open.decrementAndGet();
+            throw new Conflict("Too many open cursors");
+        }
+        javax.transaction.Transaction outer = transactions.suspend();
+        Transaction tx;
+        try {
+            tx = database.beginTx();
+        } catch (RuntimeException ex) {
+            open.decrementAndGet();
+            transactions.resume(outer);
+            throw ex;
+        }
+        Cursor cursor = new Cursor(nextId.getAndIncrement(), tx, pageSize);
+        cursor.setOuter(outer);
+        return cursor;
+    }
+
+    /**
+     * Take an idle cursor for use by the calling thread, making its
+     * transaction current. The cursor must be passed to release once the
+     * page has been fetched.
+     *
+     */
+    public Cursor acquire(int id) throws NotFound, ServerError {
+        expire();
+        return take(id);
+    }
+
+    private Cursor take(int id) throws NotFound, ServerError {
+        Cursor cursor = idle.remove(id);
+        if (cursor == null) {
+            throw new NotFound("Cursor " + id + " not found");
+        }
+        cursor.setOuter(transactions.suspend());
+        try {
+            transactions.resume(cursor.getSuspended());
+        } catch (ServerError ex) {
+            open.decrementAndGet();
+            try {
+                transactions.rollback(cursor.getSuspended());
+            } catch (ServerError rollbackError) {
+                Log.warn("Cannot roll back cursor " + id + ": ", rollbackError.getMessage());
+            }
+            transactions.resume(cursor.getOuter());
+            throw ex;
+        }
+        return cursor;
+    }
+
+    /**
+     * Return a cursor to the idle set, or commit and discard it if its
+     * result is exhausted, then restore the transaction of the calling
+     * thread. Returns true if the cursor remains open.
+     *
+     */
+    public boolean release(Cursor cursor) throws ServerError {
+        javax.transaction.Transaction outer = cursor.getOuter();
+        cursor.setOuter(null);
+        try {
+            if (cursor.hasNext()) {
+                cursor.setSuspended(transactions.suspend());
+                idle.put(cursor.getId(), cursor);
+                return true;
+            } else {
+                finish(cursor, true);
+                return false;
+            }
+        } catch (ServerError ex) {
+            finish(cursor, false);
+            throw ex;
+        } finally {
+            transactions.resume(outer);
+        }
+    }
+
+    /**
+     * Roll back and discard a cursor in use by the calling thread, for
+     * example after an error, then restore the transaction of the calling
+     * thread.
+     *
+     */
+    public void abort(Cursor cursor) throws ServerError {
+        javax.transaction.Transaction outer = cursor.getOuter();
+        cursor.setOuter(null);
+        try {
+            finish(cursor, false);
+        } finally {
+            transactions.resume(outer);
+        }
+    }
+
+    /**
+     * Roll back and discard an idle cursor, returning false if no such
+     * cursor is idle.
+     *
+     */
+    public boolean close(int id) throws ServerError {
+        try {
+            abort(take(id));
+            return true;
+        } catch (NotFound ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Roll back and discard every idle cursor, such as when the graph is
+     * stopped.
+     *
+     */
+    public void closeAll() {
+        for (Integer id : new ArrayList<>(idle.keySet())) {
+            try {
+                close(id);
+            } catch (ServerError ex) {
+                Log.warn("Cannot close cursor " + id + ": ", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Roll back and discard every cursor that has been idle for longer
+     * than the timeout.
+     *
+     */
+    public void expire() {
+        if (timeout <= 0) {
+            return;
+        }
+        long cutoff = System.nanoTime() - timeout;
+        for (Map.Entry<Integer, Cursor> entry : idle.entrySet()) {
+            if (entry.getValue().getLastUsed() < cutoff) {
+                try {
+                    if (close(entry.getKey())) {
+                        Log.debug("--- Expired cursor ", entry.getKey());
+                    }
+                } catch (ServerError ex) {
+                    Log.warn("Cannot expire cursor " + entry.getKey() + ": ", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Start expiring idle cursors in the background, if they time out.
+     *
+     */
+    public synchronized void startReaper() {
+        if (timeout > 0 && reaping == null) {
+            long period = Math.max(timeout / 4, MIN_REAPER_PERIOD);
+            reaping = reaper.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    expire();
+                }
+            }, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public synchronized void stopReaper() {
+        if (reaping != null) {
+            reaping.cancel(false);
+            reaping = null;
+        }
+    }
+
+    public int getOpenCount() {
+        return open.get();
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+
+    private void finish(Cursor cursor, boolean success) {
+        open.decrementAndGet();
+        try {
+            cursor.closeRows();
+            if (success) {
+                cursor.getTransaction().success();
+            }
+        } finally {
+            cursor.getTransaction().close();
+        }
+    }
+
+}
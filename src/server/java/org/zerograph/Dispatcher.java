@@ -0,0 +1,303 @@
+package org.zerograph;
+
+import org.zerograph.response.status5xx.ServiceUnavailable;
+import org.zeromq.ZMQ;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Dispatcher owns the external ROUTER socket of a Service. Each
+ * incoming request batch is handed to an executor together with the
+ * envelope identifying the client. Workers are borrowed from a pool for
+ * the duration of a batch and push their responses back to the
+ * dispatcher, which routes them to the client by identity.
+ *
+ * The executor is chosen by a specification string:
+ *
+ *   fixed:N     exactly N threads
+ *   cached:N    up to N threads, idle threads are released (default)
+ *   forkjoin:N  a work-stealing pool with parallelism N
+ *   virtual     one virtual thread per batch, where the JVM supports it
+ *
+ * Batches waiting for a thread of a fixed or cached executor are queued
+ * up to ZG_EXECUTOR_QUEUE, beyond which further batches are answered
+ * with 503 Service Unavailable rather than held. The other executors
+ * queue batches without limit.
+ *
+ * The dispatcher thread only receives batches and forwards responses.
+ * Any spooling of a large batch is done by the executor thread that
+ * handles it, so that disk writes never hold up other clients.
+ *
+ */
+public class Dispatcher {
+
+    final public static String DEFAULT_EXECUTOR = "cached:40";
+    final public static int DEFAULT_QUEUE_SIZE = 1000;
+
+    final private static long POLL_TIMEOUT = 200;  // milliseconds
+    final private static long SHUTDOWN_TIMEOUT = 10;  // seconds
+    final private static long IDLE_THREAD_TIMEOUT = 60;  // seconds
+
+    final private Service service;
+    final private ExecutorService executor;
+    final private ConcurrentLinkedQueue<Worker> idleWorkers;
+
+    private volatile boolean running;
+
+    public Dispatcher(Service service, String executorSpec) {
+        this.service = service;
+        this.executor = createExecutor(executorSpec, "zerograph-" + service.getPort(),
+                Environment.getInstance().getExecutorQueue());
+        this.idleWorkers = new ConcurrentLinkedQueue<>();
+    }
+
+    public static ExecutorService createExecutor(String spec, final String name, int queueSize) {
+        String[] parts = spec.split(":", 2);
+        String kind = parts[0];
+        int threads = parts.length > 1 ? Integer.parseInt(parts[1]) : Runtime.getRuntime().availableProcessors();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            final private AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, name + "-worker-" + count.incrementAndGet());
+            }
+        };
+        switch (kind) {
+            case "fixed":
+                return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(queueSize), threadFactory);
+            case "cached":
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(queueSize), threadFactory);
+                executor.allowCoreThreadTimeOut(true);
+                return executor;
+            case "forkjoin":
+                return new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+            case "virtual":
+                try {
+                    Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                    return (ExecutorService)method.invoke(null);
+                } catch (ReflectiveOperationException ex) {
+                    Log.warn("Virtual threads are not available, using " + DEFAULT_EXECUTOR + " executor");
+                    return createExecutor(DEFAULT_EXECUTOR, name, queueSize);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown executor " + spec);
+        }
+    }
+
+    /**
+     * Receive and dispatch request batches until stopped.
+     *
+     */
+    public void run() {
+        ZMQ.Context context = service.getContext();
+        ZMQ.Socket external = context.socket(ZMQ.ROUTER);  // incoming requests from clients
+        ZMQ.Socket internal = context.socket(ZMQ.PULL);    // outgoing responses from workers
+        external.setLinger(0);
+        internal.setLinger(0);
+        internal.bind(service.getInternalAddress());
+        external.bind(service.getExternalAddress());
+        ZMQ.Poller poller = new ZMQ.Poller(2);
+        int externalIndex = poller.register(external, ZMQ.Poller.POLLIN);
+        int internalIndex = poller.register(internal, ZMQ.Poller.POLLIN);
+        this.running = true;
+        try {
+            while (this.running && !Thread.currentThread().isInterrupted()) {
+                poller.poll(POLL_TIMEOUT);
+                if (poller.pollin(internalIndex)) {
+                    forward(internal, external);
+                }
+                if (poller.pollin(externalIndex)) {
+                    dispatch(external);
+                }
+            }
+        } finally {
+            shutdownExecutor();
+            external.close();
+            internal.close();
+            Worker worker;
+            while ((worker = idleWorkers.poll()) != null) {
+                worker.close();
+            }
+        }
+    }
+
+    public void stop() {
+        this.running = false;
+    }
+
+    /**
+     * Return true once every batch has finished and every worker, along
+     * with its socket, has been closed, after which the service context
+     * can be terminated without blocking.
+     *
+     */
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    /**
+     * Stop accepting batches and wait for those running to finish,
+     * interrupting any still running after the shutdown timeout and
+     * waiting for those once more.
+     *
+     */
+    private void shutdownExecutor() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                    Log.warn("Batches still running after shutdown on ", service.getPort());
+                }
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read one multipart request from the ROUTER socket and submit it to
+     * the executor. Everything up to and including the first empty frame
+     * is the envelope which must be returned ahead of the response. If
+     * the executor has no room for the batch, it is answered at once with
+     * 503 Service Unavailable.
+     *
+     */
+    private void dispatch(ZMQ.Socket external) {
+        final ArrayList<byte[]> envelope = new ArrayList<>(2);
+        final ArrayList<byte[]> frames = new ArrayList<>();
+        boolean inBody = false;
+        boolean more = true;
+        while (more) {
+            byte[] part = external.recv(0);
+            more = external.hasReceiveMore();
+            if (!inBody) {
+                envelope.add(part);
+                inBody = part.length == 0;
+            } else {
+                frames.add(part);
+            }
+        }
+        if (!inBody) {
+            Log.warn("Dropping request without envelope delimiter");
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Spool spool = spool(frames);
+                    Worker worker = acquireWorker();
+                    try {
+                        worker.handle(envelope, frames, spool);
+                    } finally {
+                        releaseWorker(worker);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            if (this.running && !executor.isShutdown()) {
+                Log.warn("Refusing request as executor queue is full");
+                refuse(external, envelope);
+            } else {
+                Log.warn("Dropping request as service is stopping");
+            }
+        }
+    }
+
+    /**
+     * Answer a batch that cannot be queued with a single 503 response.
+     *
+     */
+    private void refuse(ZMQ.Socket external, List<byte[]> envelope) {
+        for (byte[] part : envelope) {
+            external.sendMore(part);
+        }
+        ResponseWriter writer = new ResponseWriter(external, service.getStats(), 0);
+        writer.begin(new Session(null));
+        writer.send(new ServiceUnavailable("Too many batches waiting"));
+    }
+
+    /**
+     * Move the frames of a batch larger than the spool threshold from the
+     * heap to a new spool file, on the thread that is to handle it, and
+     * return the spool. Null is returned for a smaller batch or if no
+     * spool file can be created, the batch then being read from the heap.
+     *
+     */
+    private static Spool spool(ArrayList<byte[]> frames) {
+        Environment environment = Environment.getInstance();
+        int threshold = environment.getSpoolThreshold();
+        if (threshold <= 0 || Spool.size(frames) <= threshold) {
+            return null;
+        }
+        Spool spool;
+        try {
+            spool = new Spool(environment.getSpoolDirectory());
+        } catch (IOException ex) {
+            Log.warn("Cannot spool batch, reading onto heap instead: ", ex.getMessage());
+            return null;
+        }
+        if (Log.isDebugEnabled()) {
+            Log.debug("--- Spooling batch of " + Spool.size(frames) + " bytes in " + frames.size() + " frames");
+        }
+        for (byte[] frame : frames) {
+            spool.write(frame);
+        }
+        frames.clear();
+        frames.trimToSize();
+        return spool;
+    }
+
+    /**
+     * Copy one multipart response from a worker to the ROUTER socket. The
+     * first frame is the client identity, which the ROUTER uses to route
+     * the remainder.
+     *
+     */
+    private void forward(ZMQ.Socket internal, ZMQ.Socket external) {
+        boolean more = true;
+        while (more) {
+            byte[] part = internal.recv(0);
+            more = internal.hasReceiveMore();
+            if (more) {
+                external.sendMore(part);
+            } else {
+                external.send(part, 0);
+            }
+        }
+    }
+
+    private Worker acquireWorker() {
+        Worker worker = idleWorkers.poll();
+        if (worker == null) {
+            return service.createWorker();
+        } else {
+            return worker;
+        }
+    }
+
+    private void releaseWorker(Worker worker) {
+        if (this.running && !worker.isBroken()) {
+            idleWorkers.offer(worker);
+        } else {
+            worker.close();
+        }
+    }
+
+}
@@ -2,31 +2,80 @@ package org.zerograph;
 
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.zerograph.resource.IndexResource;
+import org.zerograph.resource.NodesResource;
+import org.zerograph.resource.TraverseResource;
+import org.zerograph.util.Compression;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 public class Environment {
 
     final private static String DEFAULT_HOST = "localhost";
     final private static int DEFAULT_PORT = 47470;
+    final private static int DEFAULT_SPOOL_THRESHOLD = 64 * 1024 * 1024;
+    final private static int DEFAULT_FRAME_SIZE = 64 * 1024;
+    final private static int DEFAULT_METRICS_INTERVAL = 15;  // seconds
 
     final private static Environment instance = new Environment();
     final private static GraphDatabaseFactory factory = new GraphDatabaseFactory();
 
     private String host;
     private int port;
+    private int queryCacheSize;
+    private int statementTimeout;
+    private String executorSpec;
+    private int executorQueue;
+    private int spoolThreshold;
+    private int frameSize;
+    private int inflateLimit;
+    private String logLevel;
+    private int logSample;
+    private String logFormat;
+    private String logFile;
+    private int metricsInterval;
+    private int cursorLimit;
+    private int cursorTimeout;
+    private int queryTimeout;
+    private int traversalDepthLimit;
+    private int indexWaitLimit;
+    private int nodesLimit;
     private File homeDirectory;
     private File dataDirectory;
+    private File spoolDirectory;
     private HashMap<Integer, GraphDatabaseService> databases;
+    private ArrayList<String> warnings;
 
     public static Environment getInstance() {
         return instance;
     }
 
     public Environment() {
+        this.warnings = new ArrayList<>();
         this.host = DEFAULT_HOST;
         this.port = DEFAULT_PORT;
+        this.queryCacheSize = getIntegerVariable("ZG_QUERY_CACHE_SIZE", QueryEngine.DEFAULT_CACHE_SIZE);
+        this.statementTimeout = getIntegerVariable("ZG_STATEMENT_TIMEOUT", QueryEngine.DEFAULT_STATEMENT_TIMEOUT);
+        this.executorSpec = getStringVariable("ZG_EXECUTOR", Dispatcher.DEFAULT_EXECUTOR);
+        this.executorQueue = getIntegerVariable("ZG_EXECUTOR_QUEUE", Dispatcher.DEFAULT_QUEUE_SIZE);
+        this.spoolThreshold = getIntegerVariable("ZG_SPOOL_THRESHOLD", DEFAULT_SPOOL_THRESHOLD);
+        this.frameSize = getIntegerVariable("ZG_FRAME_SIZE", DEFAULT_FRAME_SIZE);
+        this.inflateLimit = getIntegerVariable("ZG_INFLATE_LIMIT", Compression.DEFAULT_INFLATE_LIMIT);
+        this.logLevel = getStringVariable("ZG_LOG_LEVEL", "info");
+        this.logSample = getIntegerVariable("ZG_LOG_SAMPLE", 1);
+        this.logFormat = getStringVariable("ZG_LOG_FORMAT", "text");
+        this.logFile = getStringVariable("ZG_LOG_FILE", null);
+        this.metricsInterval = getIntegerVariable("ZG_METRICS_INTERVAL", DEFAULT_METRICS_INTERVAL);
+        this.cursorLimit = getIntegerVariable("ZG_CURSOR_LIMIT", Cursors.DEFAULT_LIMIT);
+        this.cursorTimeout = getIntegerVariable("ZG_CURSOR_TIMEOUT", Cursors.DEFAULT_TIMEOUT);
+        this.queryTimeout = getIntegerVariable("ZG_QUERY_TIMEOUT", 0);
+        this.traversalDepthLimit = getIntegerVariable("ZG_TRAVERSAL_DEPTH_LIMIT", TraverseResource.DEFAULT_DEPTH_LIMIT);
+        this.indexWaitLimit = getIntegerVariable("ZG_INDEX_WAIT_LIMIT", IndexResource.DEFAULT_WAIT_LIMIT);
+        this.nodesLimit = getIntegerVariable("ZG_NODES_LIMIT", NodesResource.DEFAULT_COUNT_LIMIT);
         this.setDirectories();
         this.databases = new HashMap<>();
     }
@@ -44,19 +93,52 @@ public class Environment {
         this.homeDirectory = getOrCreateDirectory(home);
         // set data directory
         this.dataDirectory = getOrCreateDirectory(this.homeDirectory + "/" + "data");
+        // set spool directory
+        this.spoolDirectory = getOrCreateDirectory(this.homeDirectory + "/" + "spool");
+    }
+
+    private String getStringVariable(String name, String defaultValue) {
+        String value = System.getenv(name);
+        if (value == null) {
+            return defaultValue;
+        } else {
+            return value;
+        }
+    }
+
+    private int getIntegerVariable(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            warnings.add("Ignoring invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
     }
 
     private File getOrCreateDirectory(String path) {
         File directory = new File(path);
         if (!directory.isDirectory()) {
             if (!directory.mkdirs()) {
-                System.err.println("Cannot create directory " + directory);
-                System.exit(1);  // TODO: throw exception instead
+                throw new IllegalStateException("Cannot create directory " + directory);
             }
         }
         return directory;
     }
 
+    /**
+     * Return the problems found while reading the environment, which are
+     * logged once the log has started, as the log is itself configured
+     * from the environment.
+     *
+     */
+    public List<String> getWarnings() {
+        return this.warnings;
+    }
+
     public GraphDatabaseService getDatabase(String host, int port) {
         if (databases.containsKey(port)) {
             return databases.get(port);
@@ -70,7 +152,9 @@ public class Environment {
             return databases.get(port);
         } else {
             String databaseDirectory = this.dataDirectory.getPath() + "/" + port;
-            GraphDatabaseService database = factory.newEmbeddedDatabase(databaseDirectory);
+            GraphDatabaseService database = factory.newEmbeddedDatabaseBuilder(databaseDirectory).
+                    setConfig(GraphDatabaseSettings.query_cache_size, Integer.toString(queryCacheSize)).
+                    newGraphDatabase();
             databases.put(port, database);
             return database;
         }
@@ -84,6 +168,139 @@ public class Environment {
         return this.port;
     }
 
+    public int getQueryCacheSize() {
+        return this.queryCacheSize;
+    }
+
+    /**
+     * Return the number of seconds after which an idle prepared statement
+     * may be released to make room for another, or zero if statements are
+     * kept until released by a client.
+     *
+     */
+    public int getStatementTimeout() {
+        return this.statementTimeout;
+    }
+
+    public String getExecutorSpec() {
+        return this.executorSpec;
+    }
+
+    /**
+     * Return the number of batches that may wait for a thread of a fixed
+     * or cached executor, beyond which further batches are refused.
+     *
+     */
+    public int getExecutorQueue() {
+        return this.executorQueue;
+    }
+
+    /**
+     * Return the total size in bytes above which an incoming batch is
+     * spilled to the spool directory, or zero if batches are never spilled.
+     *
+     */
+    public int getSpoolThreshold() {
+        return this.spoolThreshold;
+    }
+
+    /**
+     * Return the size in bytes from which a frame of response lines is
+     * sent, or 0 to send each line as a frame of its own.
+     *
+     */
+    public int getFrameSize() {
+        return this.frameSize;
+    }
+
+    /**
+     * Return the size in bytes beyond which a compressed request frame is
+     * rejected rather than inflated.
+     *
+     */
+    public int getInflateLimit() {
+        return this.inflateLimit;
+    }
+
+    public String getLogLevel() {
+        return this.logLevel;
+    }
+
+    public int getLogSample() {
+        return this.logSample;
+    }
+
+    public String getLogFormat() {
+        return this.logFormat;
+    }
+
+    public String getLogFile() {
+        return this.logFile;
+    }
+
+    /**
+     * Return the number of seconds between writes of the metrics file,
+     * or zero if it is not written.
+     *
+     */
+    public int getMetricsInterval() {
+        return this.metricsInterval;
+    }
+
+    /**
+     * Return the maximum number of cursors that may be open at once on
+     * each graph.
+     *
+     */
+    public int getCursorLimit() {
+        return this.cursorLimit;
+    }
+
+    /**
+     * Return the number of seconds after which an idle cursor is closed,
+     * or zero if idle cursors are kept until the limit is reached.
+     *
+     */
+    public int getCursorTimeout() {
+        return this.cursorTimeout;
+    }
+
+    /**
+     * Return the number of milliseconds after which a Cypher query is
+     * stopped unless the request gives a timeout of its own, or zero if
+     * queries may run indefinitely.
+     *
+     */
+    public int getQueryTimeout() {
+        return this.queryTimeout;
+    }
+
+    /**
+     * Return the greatest "max_depth" that a traversal request may give.
+     *
+     */
+    public int getTraversalDepthLimit() {
+        return this.traversalDepthLimit;
+    }
+
+    /**
+     * Return the greatest number of milliseconds for which an index
+     * request may wait for an index to come online.
+     *
+     */
+    public int getIndexWaitLimit() {
+        return this.indexWaitLimit;
+    }
+
+    /**
+     * Return the greatest number of nodes that a single bulk node request
+     * may create.
+     *
+     */
+    public int getNodesLimit() {
+        return this.nodesLimit;
+    }
+
     public File getHomeDirectory() {
         return this.homeDirectory;
     }
@@ -92,4 +309,8 @@ public class Environment {
         return this.dataDirectory;
     }
 
+    public File getSpoolDirectory() {
+        return this.spoolDirectory;
+    }
+
 }
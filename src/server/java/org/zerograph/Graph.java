@@ -7,6 +7,8 @@ import org.zerograph.except.GraphNotStartedException;
 import org.zerograph.except.NoSuchGraphException;
 
 import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * A Graph service represents a database exposed over a server port.
@@ -32,6 +34,14 @@ public class Graph extends Service {
         }
     }
 
+    /**
+     * Return a snapshot of all running graph services, keyed by port.
+     *
+     */
+    public static synchronized Map<Integer, Graph> getInstances() {
+        return new TreeMap<>(instances);
+    }
+
     public static synchronized void stopInstance(ZerographInterface zerograph, String host, int port, boolean delete) throws GraphNotStartedException {
         // TODO: handle delete flag
         if (instances.containsKey(port)) {
@@ -43,6 +53,9 @@ public class Graph extends Service {
     }
 
     final private GraphDatabaseService database;
+    final private QueryEngine engine;
+    final private Cursors cursors;
+    final private Batches batches;
 
     public Graph(ZerographInterface zerograph, String host, int port, boolean create) throws NoSuchGraphException {
         super(zerograph, host, port);
@@ -54,16 +67,68 @@ public class Graph extends Service {
         if (this.database == null) {
             throw new NoSuchGraphException(host, port);
         }
+        this.engine = new QueryEngine(this.database, getEnvironment().getQueryCacheSize(), getEnvironment().getStatementTimeout());
+        this.cursors = new Cursors(this.database, getEnvironment().getCursorLimit(), getEnvironment().getCursorTimeout());
+        this.batches = new Batches(getEnvironment().getQueryTimeout());
+    }
+
+    /**
+     * Create a graph service over an existing database, such as an
+     * impermanent database for tests and benchmarks. The service is not
+     * registered as a running instance.
+     *
+     */
+    public Graph(ZerographInterface zerograph, String host, int port, GraphDatabaseService database) {
+        super(zerograph, host, port);
+        this.database = database;
+        this.engine = new QueryEngine(this.database, getEnvironment().getQueryCacheSize(), getEnvironment().getStatementTimeout());
+        this.cursors = new Cursors(this.database, getEnvironment().getCursorLimit(), getEnvironment().getCursorTimeout());
+        this.batches = new Batches(getEnvironment().getQueryTimeout());
     }
 
     public GraphDatabaseService getDatabase() {
         return this.database;
     }
 
-    public void startWorkers(int count) {
-        for(int i = 0; i < count; i++) {
-            new Thread(new GraphWorker(getZerograph(), this)).start();
+    public QueryEngine getEngine() {
+        return this.engine;
+    }
+
+    public Cursors getCursors() {
+        return this.cursors;
+    }
+
+    public Batches getBatches() {
+        return this.batches;
+    }
+
+    public Worker createWorker() {
+        return new GraphWorker(getZerograph(), this);
+    }
+
+    /**
+     * Run this service until stopped, expiring idle cursors meanwhile.
+     *
+     */
+    @Override
+    public void start() {
+        this.cursors.startReaper();
+        try {
+            super.start();
+        } finally {
+            this.cursors.stopReaper();
         }
     }
 
+    /**
+     * Stop this service, rolling back any cursors left open.
+     *
+     */
+    @Override
+    public void stop() {
+        super.stop();
+        this.cursors.stopReaper();
+        this.cursors.closeAll();
+    }
+
 }
@@ -1,15 +1,23 @@
 package org.zerograph;
 
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.TransactionFailureException;
+import org.zerograph.api.ResponseInterface;
 import org.zerograph.api.TransactionalResourceInterface;
 import org.zerograph.api.ZerographInterface;
+import org.zerograph.resource.CursorResource;
 import org.zerograph.resource.CypherResource;
+import org.zerograph.resource.IndexResource;
 import org.zerograph.resource.NodeResource;
 import org.zerograph.resource.NodeSetResource;
+import org.zerograph.resource.NodesResource;
+import org.zerograph.resource.PathResource;
 import org.zerograph.resource.RelResource;
+import org.zerograph.resource.RelsResource;
+import org.zerograph.resource.SessionResource;
+import org.zerograph.resource.StatementResource;
+import org.zerograph.resource.TraverseResource;
 import org.zerograph.response.status2xx.OK;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status4xx.BadRequest;
@@ -17,100 +25,226 @@ import org.zerograph.response.status4xx.Conflict;
 import org.zerograph.response.status4xx.MethodNotAllowed;
 import org.zerograph.response.status4xx.NotFound;
 import org.zerograph.response.status5xx.ServerError;
+import org.zerograph.response.status5xx.Status5xx;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class GraphWorker extends Worker<Graph> {
 
     final private GraphDatabaseService database;
 
+    final private CursorResource cursorResource;
     final private CypherResource cypherResource;
+    final private IndexResource indexResource;
     final private NodeResource nodeResource;
     final private NodeSetResource nodeSetResource;
+    final private NodesResource nodesResource;
+    final private PathResource pathResource;
     final private RelResource relResource;
+    final private RelsResource relsResource;
+    final private SessionResource sessionResource;
+    final private StatementResource statementResource;
+    final private TraverseResource traverseResource;
 
     public GraphWorker(ZerographInterface zerograph, Graph graph) {
         super(zerograph, graph);
         this.database = graph.getDatabase();
-        this.cypherResource = new CypherResource(zerograph, this.getSocket(), this.database);
-        this.nodeResource = new NodeResource(zerograph, this.getSocket(), this.database);
-        this.nodeSetResource = new NodeSetResource(zerograph, this.getSocket(), this.database);
-        this.relResource = new RelResource(zerograph, this.getSocket(), this.database);
+        this.cursorResource = new CursorResource(zerograph, this.getWriter(), this.database, graph.getEngine(), graph.getCursors());
+        this.cypherResource = new CypherResource(zerograph, this.getWriter(), this.database, graph.getEngine(), graph.getCursors());
+        this.indexResource = new IndexResource(zerograph, this.getWriter(), this.database, graph.getEngine());
+        this.nodeResource = new NodeResource(zerograph, this.getWriter(), this.database, graph.getEngine());
+        this.nodeSetResource = new NodeSetResource(zerograph, this.getWriter(), this.database, graph.getEngine(), graph.getCursors());
+        this.nodesResource = new NodesResource(zerograph, this.getWriter(), this.database, graph.getEngine());
+        this.pathResource = new PathResource(zerograph, this.getWriter(), this.database, graph.getEngine());
+        this.relResource = new RelResource(zerograph, this.getWriter(), this.database, graph.getEngine());
+        this.relsResource = new RelsResource(zerograph, this.getWriter(), this.database, graph.getEngine());
+        this.statementResource = new StatementResource(zerograph, this.getWriter(), this.database, graph.getEngine());
+        this.sessionResource = new SessionResource(zerograph, this.getWriter(), graph.getSessions());
+        this.traverseResource = new TraverseResource(zerograph, this.getWriter(), this.database, graph.getEngine());
     }
 
     public GraphDatabaseService getDatabase() {
         return this.database;
     }
 
+    /**
+     * Handle a batch of requests within a single transaction or, if the
+     * session asks for chunked commits, a series of transactions. In the
+     * latter case, requests in chunks committed before a failure remain
+     * committed and the final response reports the number of chunks and
+     * requests committed, as a map appended to the data of an error
+     * response, so that a client knows where to resume.
+     *
+     * The batch is registered with the graph while it runs so that it can
+     * be listed and cancelled through the control service. Cancellation
+     * takes effect before the next request or result row, after which the
+     * transaction is rolled back as for any other failure.
+     *
+     */
     @Override
-    public void run() {
-        while (!Thread.currentThread().isInterrupted()) {
-            List<Request> requests;
-            // parse requests
-            try {
-                requests = receiveRequestBatch();
-            } catch (Status4xx ex) {
-                send(ex);
-                continue;
-            }
-            // handle requests
-            ArrayList<PropertyContainer> outputValues = new ArrayList<>(requests.size());
-            try {
-                System.out.println("--- Beginning transaction in worker " + this.getUUID().toString() + " ---");
-                try (Transaction tx = database.beginTx()) {
-                    for (Request request : requests) {
-                        request.resolvePointers(outputValues);
-                        TransactionalResourceInterface resource;
-                        String requestedResource = request.getResource();
-                        if (cypherResource.getName().equals(requestedResource)) {
-                            resource = cypherResource;
-                        } else if (nodeResource.getName().equals(requestedResource)) {
-                            resource = nodeResource;
-                        } else if (relResource.getName().equals(requestedResource)) {
-                            resource = relResource;
-                        } else if (nodeSetResource.getName().equals(requestedResource)) {
-                            resource = nodeSetResource;
-                        } else {
-                            throw new NotFound("This service does not provide a resource called " + request.getResource());
-                        }
-                        PropertyContainer outputValue;
-                        switch (request.getMethod()) {
-                            case "GET":
-                                outputValue = resource.get(request, tx);
-                                break;
-                            case "PUT":
-                                outputValue = resource.put(request, tx);
-                                break;
-                            case "PATCH":
-                                outputValue = resource.patch(request, tx);
-                                break;
-                            case "POST":
-                                outputValue = resource.post(request, tx);
-                                break;
-                            case "DELETE":
-                                outputValue = resource.delete(request, tx);
-                                break;
-                            default:
-                                throw new MethodNotAllowed(request.getMethod() + " " + request.getResource());
-                        }
-                        outputValues.add(outputValue);
-                    }
+    public void handle(RequestReader requests) {
+        Session session = getWriter().getSession();
+        Stats stats = getService().getStats();
+        Batches batches = getService().getBatches();
+        Batch batch = batches.begin(getUUID());
+        getWriter().setBatch(batch);
+        OutputValues outputValues = new OutputValues(database);
+        Transaction tx = null;
+        int chunks = 0;
+        int committed = 0;
+        try {
+            Log.debug("--- Beginning transaction in worker ", this.getUUID());
+            tx = database.beginTx();
+            int chunkRequests = 0;
+            long chunkBytes = 0;
+            while (true) {
+                long start = System.nanoTime();
+                Request request = requests.next();
+                if (request == null) {
+                    break;
+                }
+                batch.check();
+                stats.getParse().record(System.nanoTime() - start);
+                stats.countRequest();
+                if (Log.isTrafficSampled()) {
+                    Log.debug("<<< ", request);
+                }
+                request.resolvePointers(outputValues);
+                start = System.nanoTime();
+                outputValues.add(dispatch(request, tx));
+                stats.getExecute(request.getResource(), request.getMethod()).record(System.nanoTime() - start);
+                chunkRequests += 1;
+                chunkBytes += request.getLength();
+                if (session.shouldCommit(chunkRequests, chunkBytes)) {
+                    start = System.nanoTime();
                     tx.success();
+                    Transaction chunk = tx;
+                    tx = null;
+                    chunk.close();
+                    stats.getCommit().record(System.nanoTime() - start);
+                    chunks += 1;
+                    committed += chunkRequests;
+                    chunkRequests = 0;
+                    chunkBytes = 0;
+                    if (Log.isDebugEnabled()) {
+                        Log.debug("--- Committed chunk " + chunks + " (" + committed + " requests) in worker ", this.getUUID());
+                    }
+                    outputValues.commit();
+                    tx = database.beginTx();
                 }
+            }
+            long start = System.nanoTime();
+            tx.success();
+            Transaction chunk = tx;
+            tx = null;
+            chunk.close();
+            stats.getCommit().record(System.nanoTime() - start);
+            if (session.isChunked()) {
+                send(new OK(progress(chunks + (chunkRequests > 0 ? 1 : 0), committed + chunkRequests)));
+            } else {
                 send(new OK());
-                System.out.println("--- Successfully completed transaction in worker " + this.getUUID().toString() + " ---");
-            } catch (IllegalArgumentException ex) {
-                send(new BadRequest(ex.getMessage()));
-            } catch (TransactionFailureException ex) {
-                send(new Conflict(ex.getMessage()));  // TODO - derive cause from nested Exceptions
-            } catch (Status4xx ex) {
-                send(ex);
-            } catch (Exception ex) {
-                send(new ServerError(ex.getMessage()));
-            } finally {
-                System.out.println();
             }
+            Log.debug("--- Successfully completed transaction in worker ", this.getUUID());
+        } catch (IllegalArgumentException ex) {
+            fail(new BadRequest(ex.getMessage()), session, chunks, committed);
+        } catch (TransactionFailureException ex) {
+            fail(new Conflict(ex.getMessage()), session, chunks, committed);  // TODO - derive cause from nested Exceptions
+        } catch (Status4xx ex) {
+            fail(ex, session, chunks, committed);
+        } catch (Exception ex) {
+            fail(new ServerError(ex.getMessage()), session, chunks, committed);
+        } finally {
+            if (tx != null) {
+                tx.close();  // roll back the incomplete chunk
+                if (chunks > 0) {
+                    if (Log.isEnabled(Log.INFO)) {
+                        Log.info("--- Rolled back final chunk, " + committed + " requests in " + chunks + " chunks remain committed");
+                    }
+                }
+            }
+            batches.end(batch);
+        }
+    }
+
+    private static Map<String, Object> progress(int chunks, int committed) {
+        LinkedHashMap<String, Object> progress = new LinkedHashMap<>();
+        progress.put("chunks", chunks);
+        progress.put("committed", committed);
+        return progress;
+    }
+
+    /**
+     * Send the error response that ends a failed batch, followed, if the
+     * batch is committed in chunks, by the numbers of chunks and requests
+     * that remain committed.
+     *
+     */
+    private void fail(ResponseInterface error, Session session, int chunks, int committed) {
+        if (session.isChunked()) {
+            Object[] data = error.getData();
+            final int status = error.getStatus();
+            final Object[] failure = Arrays.copyOf(data, data.length + 1);
+            failure[data.length] = progress(chunks, committed);
+            send(new ResponseInterface() {
+                @Override
+                public int getStatus() {
+                    return status;
+                }
+                @Override
+                public Object[] getData() {
+                    return failure;
+                }
+            });
+        } else {
+            send(error);
+        }
+    }
+
+    private Object dispatch(Request request, Transaction tx) throws Status4xx, Status5xx {
+        TransactionalResourceInterface resource;
+        String requestedResource = request.getResource();
+        if (cypherResource.getName().equals(requestedResource)) {
+            resource = cypherResource;
+        } else if (nodeResource.getName().equals(requestedResource)) {
+            resource = nodeResource;
+        } else if (relResource.getName().equals(requestedResource)) {
+            resource = relResource;
+        } else if (nodeSetResource.getName().equals(requestedResource)) {
+            resource = nodeSetResource;
+        } else if (nodesResource.getName().equals(requestedResource)) {
+            resource = nodesResource;
+        } else if (relsResource.getName().equals(requestedResource)) {
+            resource = relsResource;
+        } else if (statementResource.getName().equals(requestedResource)) {
+            resource = statementResource;
+        } else if (cursorResource.getName().equals(requestedResource)) {
+            resource = cursorResource;
+        } else if (indexResource.getName().equals(requestedResource)) {
+            resource = indexResource;
+        } else if (sessionResource.getName().equals(requestedResource)) {
+            resource = sessionResource;
+        } else if (traverseResource.getName().equals(requestedResource)) {
+            resource = traverseResource;
+        } else if (pathResource.getName().equals(requestedResource)) {
+            resource = pathResource;
+        } else {
+            throw new NotFound("This service does not provide a resource called " + request.getResource());
+        }
+        switch (request.getMethod()) {
+            case "GET":
+                return resource.get(request, tx);
+            case "PUT":
+                return resource.put(request, tx);
+            case "PATCH":
+                return resource.patch(request, tx);
+            case "POST":
+                return resource.post(request, tx);
+            case "DELETE":
+                return resource.delete(request, tx);
+            default:
+                throw new MethodNotAllowed(request.getMethod() + " " + request.getResource());
         }
     }
 
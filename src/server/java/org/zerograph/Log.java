@@ -0,0 +1,302 @@
+package org.zerograph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous server log. Threads append entries to a fixed-size ring
+ * buffer without locking and a single background thread formats and
+ * writes them, so no worker ever waits on the console. If the buffer is
+ * full, entries are dropped and counted rather than blocking the caller.
+ *
+ * Configuration is read once at startup through the Environment:
+ *
+ *   ZG_LOG_LEVEL   off, error, warn, info (default) or debug
+ *   ZG_LOG_SAMPLE  log one in every N request and response lines
+ *   ZG_LOG_FORMAT  text (default) or binary
+ *   ZG_LOG_FILE    file to write to instead of standard output
+ *
+ * Problems found in this configuration, or earlier in the environment,
+ * are logged as warnings once the log has started.
+ *
+ * Request and response lines are logged at debug level, so traffic is
+ * not logged at the default info level. Callers on the
+ * hot path should check isDebugEnabled or isTrafficSampled first; as the
+ * level is fixed at startup, such checks cost nothing once compiled when
+ * the level is disabled. Messages are passed as prefix and object, and
+ * only turned into text by the log thread.
+ *
+ * The binary journal is a sequence of records, each holding the time in
+ * milliseconds (8 bytes), level (1 byte), thread ID (8 bytes), message
+ * length (4 bytes) and the UTF-8 message itself.
+ *
+ */
+public class Log {
+
+    final public static int OFF = 0;
+    final public static int ERROR = 1;
+    final public static int WARN = 2;
+    final public static int INFO = 3;
+    final public static int DEBUG = 4;
+
+    final private static String[] LEVEL_NAMES = {"OFF", "ERROR", "WARN", "INFO", "DEBUG"};
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+    final private static int CAPACITY = 1 << 16;
+    final private static long IDLE_NANOS = 1000000;
+
+    final private static int LEVEL;
+    final private static int SAMPLE;
+    final private static boolean BINARY;
+    final private static Log instance;
+
+    static {
+        Environment environment = Environment.getInstance();
+        ArrayList<String> warnings = new ArrayList<>(environment.getWarnings());
+        LEVEL = parseLevel(environment.getLogLevel(), warnings);
+        SAMPLE = Math.max(1, environment.getLogSample());
+        BINARY = "binary".equalsIgnoreCase(environment.getLogFormat());
+        if (LEVEL > OFF) {
+            instance = new Log(open(environment.getLogFile(), warnings));
+            instance.start();
+        } else {
+            instance = null;
+        }
+        for (String warning : warnings) {
+            warn(warning);
+        }
+    }
+
+    final private AtomicReferenceArray<Entry> slots;
+    final private AtomicLong head;          // next slot to be claimed by a writer
+    final private AtomicLong dropped;
+    final private OutputStream stream;
+    final private DataOutputStream journal;
+    final private SimpleDateFormat dateFormat;
+
+    private volatile long tail;             // next slot to be read by the log thread
+
+    private Log(OutputStream stream) {
+        this.slots = new AtomicReferenceArray<>(CAPACITY);
+        this.head = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.stream = new BufferedOutputStream(stream, 65536);
+        this.journal = new DataOutputStream(this.stream);
+        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        this.tail = 0;
+    }
+
+    public static boolean isEnabled(int level) {
+        return level <= LEVEL;
+    }
+
+    public static boolean isDebugEnabled() {
+        return DEBUG <= LEVEL;
+    }
+
+    /**
+     * Return true if this request or response line should be logged,
+     * taking sampling into account.
+     *
+     */
+    public static boolean isTrafficSampled() {
+        return DEBUG <= LEVEL && (SAMPLE == 1 || ThreadLocalRandom.current().nextInt(SAMPLE) == 0);
+    }
+
+    /**
+     * Return the number of entries dropped because the buffer was full.
+     *
+     */
+    public static long getDropped() {
+        return instance == null ? 0 : instance.dropped.get();
+    }
+
+    public static void error(String message) {
+        log(ERROR, message, null);
+    }
+
+    public static void error(String prefix, Object message) {
+        log(ERROR, prefix, message);
+    }
+
+    public static void warn(String message) {
+        log(WARN, message, null);
+    }
+
+    public static void warn(String prefix, Object message) {
+        log(WARN, prefix, message);
+    }
+
+    public static void info(String message) {
+        log(INFO, message, null);
+    }
+
+    public static void info(String prefix, Object message) {
+        log(INFO, prefix, message);
+    }
+
+    public static void debug(String message) {
+        log(DEBUG, message, null);
+    }
+
+    /**
+     * Log a message at debug level. The message may be any object,
+     * including a byte array holding UTF-8 text, and is only converted
+     * to text by the log thread.
+     *
+     */
+    public static void debug(String prefix, Object message) {
+        log(DEBUG, prefix, message);
+    }
+
+    private static void log(int level, String prefix, Object message) {
+        if (level <= LEVEL) {
+            instance.offer(new Entry(level, prefix, message));
+        }
+    }
+
+    private static int parseLevel(String name, List<String> warnings) {
+        for (int level = OFF; level < LEVEL_NAMES.length; level++) {
+            if (LEVEL_NAMES[level].equalsIgnoreCase(name)) {
+                return level;
+            }
+        }
+        warnings.add("Ignoring invalid log level " + name);
+        return INFO;
+    }
+
+    private static OutputStream open(String file, List<String> warnings) {
+        if (file != null) {
+            try {
+                return new FileOutputStream(file, true);
+            } catch (IOException ex) {
+                warnings.add("Cannot open log file " + file + ", logging to standard output instead");
+            }
+        }
+        return System.out;
+    }
+
+    private void start() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "zerograph-log");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }));
+    }
+
+    private void offer(Entry entry) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+        slots.lazySet((int) (sequence & (CAPACITY - 1)), entry);
+    }
+
+    private Entry poll() {
+        int index = (int) (tail & (CAPACITY - 1));
+        Entry entry = slots.get(index);
+        if (entry != null) {
+            slots.lazySet(index, null);
+            tail += 1;  // only ever written by the log thread
+        }
+        return entry;
+    }
+
+    private void drain() {
+        while (true) {
+            if (!write()) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
+
+    private synchronized void flush() {
+        write();
+    }
+
+    /**
+     * Write all entries currently available and flush the stream,
+     * returning true if there were any.
+     *
+     */
+    private synchronized boolean write() {
+        Entry entry = poll();
+        if (entry == null) {
+            return false;
+        }
+        try {
+            while (entry != null) {
+                if (BINARY) {
+                    byte[] message = entry.getText().getBytes(UTF_8);
+                    journal.writeLong(entry.time);
+                    journal.writeByte(entry.level);
+                    journal.writeLong(entry.thread);
+                    journal.writeInt(message.length);
+                    journal.write(message);
+                } else {
+                    String line = dateFormat.format(new Date(entry.time)) + " " + LEVEL_NAMES[entry.level] + " " + entry.getText() + "\n";
+                    stream.write(line.getBytes(UTF_8));
+                }
+                entry = poll();
+            }
+            stream.flush();
+        } catch (IOException ex) {
+            // nowhere left to report this
+        }
+        return true;
+    }
+
+    private static class Entry {
+
+        final private long time;
+        final private int level;
+        final private long thread;
+        final private String prefix;
+        final private Object message;
+
+        private Entry(int level, String prefix, Object message) {
+            this.time = System.currentTimeMillis();
+            this.level = level;
+            this.thread = Thread.currentThread().getId();
+            this.prefix = prefix;
+            this.message = message;
+        }
+
+        private String getText() {
+            if (message == null) {
+                return prefix;
+            } else if (message instanceof byte[]) {
+                return prefix + new String((byte[]) message, UTF_8);
+            } else {
+                return prefix + message;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.zerograph;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the stats of all services to metrics.prom in the
+ * home directory, in Prometheus text format, for collection by a local
+ * agent such as the node exporter's textfile collector. Each write goes
+ * to a temporary file which then replaces the last, so the file is never
+ * read half-written.
+ *
+ */
+public class MetricsFile implements Runnable {
+
+    final private static String FILE_NAME = "metrics.prom";
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+
+    final private Zerograph zerograph;
+    final private File file;
+    final private File tempFile;
+
+    public MetricsFile(Zerograph zerograph, File directory) {
+        this.zerograph = zerograph;
+        this.file = new File(directory, FILE_NAME);
+        this.tempFile = new File(directory, FILE_NAME + ".tmp");
+    }
+
+    public static void schedule(Zerograph zerograph, int interval) {
+        if (interval > 0) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "zerograph-metrics");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            MetricsFile metricsFile = new MetricsFile(zerograph, zerograph.getEnvironment().getHomeDirectory());
+            executor.scheduleAtFixedRate(metricsFile, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), UTF_8)) {
+                Stats.writeMetrics(writer, zerograph.getAllStats(), zerograph.getAllEngines());
+            }
+            if (!tempFile.renameTo(file)) {
+                Log.warn("Cannot replace metrics file ", file);
+            }
+        } catch (IOException ex) {
+            Log.warn("Cannot write metrics file: ", ex.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.zerograph;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The output values of the requests in a batch, to which pointers in
+ * later requests resolve. When a batch is committed in chunks, entities
+ * produced by an earlier chunk are fetched again by id the first time
+ * they are used in a later one, so only values actually referenced
+ * across a commit are refreshed.
+ *
+ */
+public class OutputValues extends AbstractList<Object> {
+
+    final private static int DEFAULT_CAPACITY = 64;
+
+    final private GraphDatabaseService database;
+    final private ArrayList<Object> values;
+    final private ArrayList<Integer> chunks;  // the chunk in which each value was last fetched
+
+    private int chunk;
+
+    public OutputValues(GraphDatabaseService database) {
+        this(database, DEFAULT_CAPACITY);
+    }
+
+    public OutputValues(GraphDatabaseService database, int capacity) {
+        this.database = database;
+        this.values = new ArrayList<>(capacity);
+        this.chunks = new ArrayList<>(capacity);
+        this.chunk = 0;
+    }
+
+    @Override
+    public boolean add(Object value) {
+        values.add(value);
+        chunks.add(chunk);
+        return true;
+    }
+
+    @Override
+    public Object get(int index) {
+        Object value = values.get(index);
+        if (chunks.get(index) != chunk) {
+            value = refresh(value);
+            values.set(index, value);
+            chunks.set(index, chunk);
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Mark the end of a chunk, after which all existing values must be
+     * fetched again before use.
+     *
+     */
+    public void commit() {
+        chunk += 1;
+    }
+
+    private Object refresh(Object value) {
+        try {
+            if (value instanceof Node) {
+                return database.getNodeById(((Node) value).getId());
+            } else if (value instanceof Relationship) {
+                return database.getRelationshipById(((Relationship) value).getId());
+            } else if (value instanceof List) {
+                List list = (List) value;
+                ArrayList<Object> refreshed = new ArrayList<>(list.size());
+                for (Object item : list) {
+                    refreshed.add(refresh(item));
+                }
+                return refreshed;
+            } else {
+                return value;
+            }
+        } catch (NotFoundException ex) {
+            throw new IllegalArgumentException("Referenced entity no longer exists: " + ex.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.zerograph;
+
+import org.neo4j.graphdb.PropertyContainer;
+import org.zerograph.response.status4xx.BadRequest;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes how much of an entity should be returned in response to a
+ * node or relationship request. Projections are read from an optional
+ * options map on the request, falling back to the session default for
+ * requests other than GET:
+ *
+ *   return  "full" for the whole entity (default), "labels" for the
+ *           entity without properties, "id" for its id alone, sent as a
+ *           plain number, or "none" for a bare status
+ *   keys    a list of property keys to which properties are restricted
+ *
+ */
+public class Projection {
+
+    final public static String RETURN = "return";
+    final public static String KEYS = "keys";
+
+    final public static String FULL = "full";
+    final public static String LABELS = "labels";
+    final public static String ID = "id";
+    final public static String NONE = "none";
+
+    final public static Projection DEFAULT = new Projection(FULL, null);
+
+    final private static Object[] NO_DATA = new Object[0];
+
+    final private String mode;
+    final private Set<String> keys;
+
+    private Projection(String mode, Set<String> keys) {
+        this.mode = mode;
+        this.keys = keys;
+    }
+
+    public static Projection fromMode(Object mode) throws BadRequest {
+        if (FULL.equals(mode)) {
+            return DEFAULT;
+        } else if (LABELS.equals(mode) || ID.equals(mode) || NONE.equals(mode)) {
+            return new Projection((String) mode, null);
+        } else {
+            throw new BadRequest("Option " + RETURN + " must be one of \"full\", \"labels\", \"id\" or \"none\"");
+        }
+    }
+
+    /**
+     * Build a projection from a map of request options. Any option not
+     * present is taken from the default projection given.
+     *
+     */
+    public static Projection fromOptions(Map options, Projection defaultProjection) throws BadRequest {
+        String mode = defaultProjection.mode;
+        Set<String> keys = defaultProjection.keys;
+        for (Object option : options.keySet()) {
+            Object value = options.get(option);
+            if (RETURN.equals(option)) {
+                mode = fromMode(value).mode;
+            } else if (KEYS.equals(option)) {
+                if (value instanceof List) {
+                    keys = new LinkedHashSet<>();
+                    for (Object key : (List) value) {
+                        keys.add(key.toString());
+                    }
+                } else if (value == null) {
+                    keys = null;
+                } else {
+                    throw new BadRequest("Option " + KEYS + " must be a list of property keys");
+                }
+            } else {
+                throw new BadRequest("Unknown option " + option);
+            }
+        }
+        return new Projection(mode, keys);
+    }
+
+    public String getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Return the property keys to include, or null for all properties.
+     *
+     */
+    public Set<String> getKeys() {
+        return this.keys;
+    }
+
+    /**
+     * Return the response data for an entity under this projection.
+     *
+     */
+    public Object[] apply(PropertyContainer entity) {
+        if (NONE.equals(this.mode)) {
+            return NO_DATA;
+        } else if (FULL.equals(this.mode) && this.keys == null) {
+            return new Object[] {entity};
+        } else {
+            return new Object[] {new View(entity, this)};
+        }
+    }
+
+    /**
+     * An entity to be encoded under a projection other than the default.
+     *
+     */
+    public static class View {
+
+        final private PropertyContainer entity;
+        final private Projection projection;
+
+        public View(PropertyContainer entity, Projection projection) {
+            this.entity = entity;
+            this.projection = projection;
+        }
+
+        public PropertyContainer getEntity() {
+            return this.entity;
+        }
+
+        public Projection getProjection() {
+            return this.projection;
+        }
+
+    }
+
+}
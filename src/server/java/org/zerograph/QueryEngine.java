@@ -0,0 +1,264 @@
+package org.zerograph;
+
+import org.neo4j.cypher.CypherException;
+import org.neo4j.cypher.ExecutionEngine;
+import org.neo4j.cypher.internal.CypherCompiler;
+import org.neo4j.cypher.internal.ExecutionPlan;
+import org.neo4j.cypher.javacompat.ExecutionResult;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.impl.util.StringLogger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Cypher execution engine shared by all workers of a Graph.
+ *
+ * The underlying engine is thread-safe and keeps its own LRU cache of
+ * query plans, bounded by the database's query_cache_size setting and
+ * discarded whenever the schema changes. The engine only builds a plan
+ * when that cache misses, so its compiler is wrapped to count each plan
+ * built as a miss, and every other query run as a hit. The cache itself
+ * is a ConcurrentLinkedHashMap created inside the engine without an
+ * eviction listener, and is dropped whole on schema changes, so the
+ * plans it evicts cannot be counted and no eviction count is reported.
+ *
+ * Queries may also be registered as prepared statements, each identified
+ * by an integer handle. Clients can then execute a statement repeatedly
+ * with different parameters without resending the query, its plan being
+ * taken from the shared plan cache whenever it has not been evicted.
+ * Statements are shared by all clients of the graph, and those left
+ * unused for longer than the statement timeout are released to make room
+ * for new ones, so that clients that never release their statements
+ * cannot keep others from preparing any.
+ *
+ */
+public class QueryEngine {
+
+    final public static int DEFAULT_CACHE_SIZE = 100;
+    final public static int DEFAULT_STATEMENT_TIMEOUT = 600;  // seconds
+
+    final private CountingEngine engine;
+    final private int cacheSize;
+    final private long statementTimeout;  // nanoseconds
+
+    final private ConcurrentHashMap<Integer, Statement> statements;
+    final private ConcurrentHashMap<String, Integer> statementHandles;
+    final private AtomicInteger nextStatementHandle;
+
+    public QueryEngine(GraphDatabaseService database) {
+        this(database, DEFAULT_CACHE_SIZE);
+    }
+
+    public QueryEngine(GraphDatabaseService database, int cacheSize) {
+        this(database, cacheSize, DEFAULT_STATEMENT_TIMEOUT);
+    }
+
+    /**
+     * Create an engine with the given plan cache size, which also limits
+     * the number of prepared statements, releasing statements idle for
+     * longer than statementTimeout seconds when that limit is reached, or
+     * never if statementTimeout is zero.
+     *
+     */
+    public QueryEngine(GraphDatabaseService database, int cacheSize, int statementTimeout) {
+        this.engine = new CountingEngine(database);
+        this.cacheSize = cacheSize;
+        this.statementTimeout = TimeUnit.SECONDS.toNanos(statementTimeout);
+        this.statements = new ConcurrentHashMap<>();
+        this.statementHandles = new ConcurrentHashMap<>();
+        this.nextStatementHandle = new AtomicInteger();
+    }
+
+    public ExecutionResult execute(String query) throws CypherException {
+        this.engine.startLookup();
+        try {
+            return new ExecutionResult(this.engine.execute(query));
+        } finally {
+            this.engine.endLookup();
+        }
+    }
+
+    public ExecutionResult execute(String query, Map<String, Object> params) throws CypherException {
+        this.engine.startLookup();
+        try {
+            return new ExecutionResult(this.engine.execute(query, params));
+        } finally {
+            this.engine.endLookup();
+        }
+    }
+
+    public ExecutionResult profile(String query, Map<String, Object> params) throws CypherException {
+        this.engine.startLookup();
+        try {
+            return new ExecutionResult(this.engine.profile(query, params));
+        } finally {
+            this.engine.endLookup();
+        }
+    }
+
+    /**
+     * Register a query as a prepared statement and return its handle.
+     * Preparing the same query text twice returns the same handle. The
+     * number of statements is limited to the plan cache size; once it is
+     * reached, idle statements are released and -1 is returned if there
+     * is still no room.
+     *
+     */
+    public synchronized int prepare(String query) {
+        Integer handle = this.statementHandles.get(query);
+        if (handle == null) {
+            if (this.statements.size() >= this.cacheSize) {
+                expire();
+            }
+            if (this.statements.size() >= this.cacheSize) {
+                return -1;
+            }
+            handle = this.nextStatementHandle.getAndIncrement();
+            this.statements.put(handle, new Statement(query));
+            this.statementHandles.put(query, handle);
+        } else {
+            this.statements.get(handle).touch();
+        }
+        return handle;
+    }
+
+    /**
+     * Return the query text for a prepared statement, or null if no
+     * statement exists with the given handle.
+     *
+     */
+    public String getStatement(int handle) {
+        Statement statement = this.statements.get(handle);
+        if (statement == null) {
+            return null;
+        } else {
+            statement.touch();
+            return statement.query;
+        }
+    }
+
+    public synchronized boolean release(int handle) {
+        Statement statement = this.statements.remove(handle);
+        if (statement == null) {
+            return false;
+        } else {
+            this.statementHandles.remove(statement.query);
+            return true;
+        }
+    }
+
+    /**
+     * Release every statement that has been idle for longer than the
+     * statement timeout.
+     *
+     */
+    public synchronized void expire() {
+        if (statementTimeout <= 0) {
+            return;
+        }
+        long cutoff = System.nanoTime() - statementTimeout;
+        for (Map.Entry<Integer, Statement> entry : statements.entrySet()) {
+            if (entry.getValue().lastUsed < cutoff) {
+                release(entry.getKey());
+                Log.debug("--- Expired statement ", entry.getKey());
+            }
+        }
+    }
+
+    public int getStatementCount() {
+        return this.statements.size();
+    }
+
+    public int getCacheSize() {
+        return this.cacheSize;
+    }
+
+    /**
+     * Return the number of queries run with a plan taken from the plan
+     * cache.
+     *
+     */
+    public long getHits() {
+        return this.engine.hits.get();
+    }
+
+    /**
+     * Return the number of plans built because the plan cache had none
+     * for the query, including those rebuilt after a schema change.
+     *
+     */
+    public long getMisses() {
+        return this.engine.misses.get();
+    }
+
+    /**
+     * The Cypher engine, with its compiler replaced by one that notes each
+     * plan built against the thread that asked for it. The engine takes
+     * its compiler through compiler() whenever its plan cache misses, on
+     * the thread running the query, so a query that builds no plan has
+     * been served from the cache.
+     *
+     */
+    private static class CountingEngine extends ExecutionEngine {
+
+        final private AtomicLong hits;
+        final private AtomicLong misses;
+        final private ThreadLocal<Boolean> planned;
+
+        private CypherCompiler.VersionProxy countingCompiler;
+
+        public CountingEngine(GraphDatabaseService database) {
+            super(database, StringLogger.DEV_NULL);
+            this.hits = new AtomicLong();
+            this.misses = new AtomicLong();
+            this.planned = new ThreadLocal<>();
+            this.countingCompiler = new CypherCompiler.VersionProxy(database, super.compiler().defaultVersion()) {
+                @Override
+                public ExecutionPlan prepare(String query, GraphDatabaseService graph, org.neo4j.kernel.api.Statement statement) {
+                    misses.incrementAndGet();
+                    planned.set(Boolean.TRUE);
+                    return super.prepare(query, graph, statement);
+                }
+            };
+        }
+
+        @Override
+        public CypherCompiler.VersionProxy compiler() {
+            // null while the engine is being constructed
+            return this.countingCompiler == null ? super.compiler() : this.countingCompiler;
+        }
+
+        public void startLookup() {
+            this.planned.set(Boolean.FALSE);
+        }
+
+        public void endLookup() {
+            if (!this.planned.get()) {
+                this.hits.incrementAndGet();
+            }
+        }
+
+    }
+
+    private static class Statement {
+
+        final private String query;
+
+        private volatile long lastUsed;
+
+        public Statement(String query) {
+            this.query = query;
+            this.lastUsed = System.nanoTime();
+        }
+
+        public void touch() {
+            this.lastUsed = System.nanoTime();
+        }
+
+    }
+
+}
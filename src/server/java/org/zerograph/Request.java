@@ -1,15 +1,17 @@
 package org.zerograph;
 
-import org.codehaus.jackson.map.ObjectMapper;
 import org.neo4j.graphdb.PropertyContainer;
 import org.zerograph.api.RequestInterface;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.util.BinaryReader;
 import org.zerograph.util.Data;
+import org.zerograph.util.JsonReader;
 import org.zerograph.util.Pointer;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -18,40 +20,246 @@ import java.util.Map;
  *
  * METHOD resource [data [data ...]]
  *
+ * or the equivalent binary message (see BinaryReader).
+ *
+ * Requests are normally parsed directly from a slice of a received frame.
+ * Term boundaries are found by scanning bytes and every term is checked
+ * as the request is parsed, so that a malformed term is rejected with 400
+ * Bad Request whatever the state of the resource it is sent to. Lists and
+ * maps in text requests are only checked, not decoded, until they are
+ * first accessed, so that map terms can still be applied to an entity
+ * directly from the request bytes. The String form of the request is
+ * likewise only built if it is asked for.
+ *
  */
 public class Request implements RequestInterface {
 
-    final private static ObjectMapper mapper = new ObjectMapper();
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+    final private static byte TAB = '\t';
+    final private static Object UNDECODED = new Object();
+
+    final private static String[] METHODS = {"GET", "PUT", "PATCH", "POST", "DELETE"};
+    final private static byte[][] METHOD_BYTES = new byte[METHODS.length][];
+
+    static {
+        for (int i = 0; i < METHODS.length; i++) {
+            METHOD_BYTES[i] = METHODS[i].getBytes(UTF_8);
+        }
+    }
 
-    final private String string;
+    final private byte[] buffer;
+    final private int offset;
+    final private int length;
     final private String method;
     final private String resource;
+    final private int[] terms;  // start and end offsets of each data term
     final private Object[] data;
+    final private boolean binary;
+
+    private String string;
 
     public Request(String string) throws Status4xx {
+        this(string.getBytes(UTF_8));
         this.string = string;
-        String[] parts = string.split("\t");
-        if (parts.length < 2) {
-            throw new BadRequest(string);
-        }
-        this.method = parts[0];
-        this.resource = parts[1];
-        int dataSize = parts.length - 2;
-        ArrayList<Object> data = new ArrayList<>(dataSize);
-        for (int i = 0; i < dataSize; i++) {
+    }
+
+    public Request(byte[] buffer) throws Status4xx {
+        this(buffer, 0, buffer.length);
+    }
+
+    public Request(byte[] buffer, int offset, int length) throws Status4xx {
+        this(buffer, offset, length, false);
+    }
+
+    /**
+     * Parse a request from a binary message, the MessagePack array
+     * [method, resource, data...] (see BinaryReader).
+     *
+     */
+    public static Request fromBinary(byte[] buffer, int offset, int length) throws Status4xx {
+        return new Request(buffer, offset, length, true);
+    }
+
+    private Request(byte[] buffer, int offset, int length, boolean binary) throws Status4xx {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.binary = binary;
+        int[] bounds = binary ? scanBinary(buffer, offset, length) : scanText(buffer, offset, length);
+        if (bounds == null) {
+            throw new BadRequest(binary ? "Malformed binary request" : toString());
+        }
+        this.method = decodeMethod(buffer, bounds[0], bounds[1] - bounds[0]);
+        this.resource = new String(buffer, bounds[2], bounds[3] - bounds[2], UTF_8);
+        this.terms = Arrays.copyOfRange(bounds, 4, bounds.length);
+        this.data = new Object[this.terms.length / 2];
+        Arrays.fill(this.data, UNDECODED);
+        validate();
+    }
+
+    /**
+     * Check that every data term is well formed, decoding those that are
+     * not text lists or maps.
+     *
+     */
+    private void validate() throws BadRequest {
+        for (int i = 0; i < this.data.length; i++) {
+            int start = this.terms[2 * i];
+            int length = this.terms[2 * i + 1] - start;
             try {
-                data.add(Data.decode(parts[i + 2]));
+                if (!this.binary && (this.buffer[start] == '[' || this.buffer[start] == '{')) {
+                    JsonReader.validate(this.buffer, start, length);
+                } else {
+                    decode(i);
+                }
             } catch (IOException ex) {
-                throw new BadRequest(parts[i + 2]);
+                throw new BadRequest(new String(this.buffer, start, length, UTF_8));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequest(ex.getMessage());
             }
         }
-        this.data = data.toArray(new Object[dataSize]);
     }
 
+    /**
+     * Find the start and end offsets of the method, resource and each
+     * data term of a text request, or return null if it is malformed.
+     *
+     */
+    private static int[] scanText(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        // trailing empty terms are ignored
+        while (end > offset && buffer[end - 1] == TAB) {
+            end -= 1;
+        }
+        int methodEnd = indexOfTab(buffer, offset, end);
+        if (methodEnd == end) {
+            return null;
+        }
+        int resourceEnd = indexOfTab(buffer, methodEnd + 1, end);
+        int dataSize = 0;
+        for (int i = resourceEnd; i < end; i++) {
+            if (buffer[i] == TAB) {
+                dataSize += 1;
+            }
+        }
+        int[] bounds = new int[4 + 2 * dataSize];
+        bounds[0] = offset;
+        bounds[1] = methodEnd;
+        bounds[2] = methodEnd + 1;
+        bounds[3] = resourceEnd;
+        int start = resourceEnd + 1;
+        for (int i = 0; i < dataSize; i++) {
+            int termEnd = indexOfTab(buffer, start, end);
+            if (termEnd == start) {
+                return null;
+            }
+            bounds[4 + 2 * i] = start;
+            bounds[5 + 2 * i] = termEnd;
+            start = termEnd + 1;
+        }
+        return bounds;
+    }
+
+    /**
+     * Find the bounds of the method and resource strings, excluding their
+     * headers, and of each data value of a binary request, or return null
+     * if it is malformed. Data values are skipped, not decoded.
+     *
+     */
+    private static int[] scanBinary(byte[] buffer, int offset, int length) {
+        BinaryReader reader = new BinaryReader(buffer, offset, length);
+        try {
+            int count = reader.readArrayHeader();
+            if (count < 2) {
+                return null;
+            }
+            int[] bounds = new int[2 * count];
+            for (int i = 0; i < 2; i++) {
+                int stringLength = reader.readStringHeader();
+                bounds[2 * i] = reader.getPosition();
+                reader.skip(stringLength);
+                bounds[2 * i + 1] = reader.getPosition();
+            }
+            for (int i = 2; i < count; i++) {
+                bounds[2 * i] = reader.getPosition();
+                reader.skipValue();
+                bounds[2 * i + 1] = reader.getPosition();
+            }
+            return reader.hasMore() ? null : bounds;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Return the size of the request line in bytes.
+     *
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    private static int indexOfTab(byte[] buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == TAB) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static String decodeMethod(byte[] buffer, int offset, int length) {
+        for (int i = 0; i < METHOD_BYTES.length; i++) {
+            byte[] method = METHOD_BYTES[i];
+            if (method.length == length) {
+                int j = 0;
+                while (j < length && buffer[offset + j] == method[j]) {
+                    j += 1;
+                }
+                if (j == length) {
+                    return METHODS[i];
+                }
+            }
+        }
+        return new String(buffer, offset, length, UTF_8);
+    }
+
+    /**
+     * Return the request as a line of text. Binary requests are rendered
+     * in the equivalent text form.
+     *
+     */
     public String toString() {
+        if (this.string == null) {
+            if (this.binary) {
+                StringBuilder builder = new StringBuilder(this.method).append('\t').append(this.resource);
+                for (int i = 0; i < this.data.length; i++) {
+                    builder.append('\t');
+                    try {
+                        // decoded afresh, as this may be called from another thread
+                        int start = this.terms[2 * i];
+                        Object datum = BinaryReader.decode(this.buffer, start, this.terms[2 * i + 1] - start);
+                        builder.append(datum instanceof Pointer ? describe((Pointer) datum) : Data.encode(datum));
+                    } catch (IOException | IllegalArgumentException ex) {
+                        builder.append('?');
+                    }
+                }
+                this.string = builder.toString();
+            } else {
+                this.string = new String(this.buffer, this.offset, this.length, UTF_8);
+            }
+        }
         return this.string;
     }
 
+    private static String describe(Pointer pointer) {
+        if (pointer.hasIndex()) {
+            return Data.POINTER_HINT + "[" + pointer.getAddress() + "," + pointer.getIndex() + "]";
+        } else {
+            return Data.POINTER_HINT + pointer.getAddress();
+        }
+    }
+
     public String getMethod() {
         return this.method;
     }
@@ -62,7 +270,7 @@ public class Request implements RequestInterface {
 
     public Object getData(int index) {
         if (index >= 0 && index < this.data.length) {
-            return this.data[index];
+            return decode(index);
         } else {
             throw new IndexOutOfBoundsException();
         }
@@ -70,12 +278,31 @@ public class Request implements RequestInterface {
 
     public Object getData(int index, Object defaultValue) {
         if (index >= 0 && index < this.data.length) {
-            return this.data[index];
+            return decode(index);
         } else {
             return defaultValue;
         }
     }
 
+    private Object decode(int index) {
+        Object datum = this.data[index];
+        if (datum == UNDECODED) {
+            int start = this.terms[2 * index];
+            int length = this.terms[2 * index + 1] - start;
+            try {
+                if (this.binary) {
+                    datum = BinaryReader.decode(this.buffer, start, length);
+                } else {
+                    datum = Data.decode(this.buffer, start, length);
+                }
+            } catch (IOException ex) {
+                throw new IllegalArgumentException(this.binary ? ex.getMessage() : new String(this.buffer, start, length, UTF_8));
+            }
+            this.data[index] = datum;
+        }
+        return datum;
+    }
+
     public boolean getBooleanData(int index) {
         Object datum = getData(index);
         if (datum instanceof Boolean) {
@@ -123,7 +350,9 @@ public class Request implements RequestInterface {
 
     public String getStringData(int index, String defaultValue) {
         Object datum = getData(index, defaultValue);
-        if (datum instanceof String) {
+        if (datum == null) {
+            return defaultValue;
+        } else if (datum instanceof String) {
             return (String)datum;
         } else {
             throw new IllegalArgumentException("String data expected");
@@ -141,7 +370,9 @@ public class Request implements RequestInterface {
 
     public List getListData(int index, List defaultValue) {
         Object datum = getData(index, defaultValue);
-        if (datum instanceof List) {
+        if (datum == null) {
+            return defaultValue;
+        } else if (datum instanceof List) {
             return (List)datum;
         } else {
             throw new IllegalArgumentException("List data expected");
@@ -159,19 +390,84 @@ public class Request implements RequestInterface {
 
     public Map getMapData(int index, Map defaultValue) {
         Object datum = getData(index, defaultValue);
-        if (datum instanceof Map) {
+        if (datum == null) {
+            return defaultValue;
+        } else if (datum instanceof Map) {
             return (Map)datum;
         } else {
             throw new IllegalArgumentException("Map data expected");
         }
     }
 
-    public void resolvePointers(List<PropertyContainer> values) {
+    /**
+     * Set each entry of a map term as a property on an entity. Unless the
+     * term has already been decoded, properties are read straight from the
+     * request bytes and no intermediate map is built.
+     *
+     */
+    public void applyMapData(int index, PropertyContainer entity) {
+        if (index < 0 || index >= this.data.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (this.data[index] != UNDECODED || this.binary) {
+            Map map = getMapData(index);
+            for (Object key : map.keySet()) {
+                entity.setProperty(key.toString(), map.get(key));
+            }
+            return;
+        }
+        int start = this.terms[2 * index];
+        int end = this.terms[2 * index + 1];
+        if (this.buffer[start] != '{') {
+            throw new IllegalArgumentException("Map data expected");
+        }
+        JsonReader reader = new JsonReader(this.buffer, start, end - start);
+        try {
+            reader.startObject();
+            while (reader.nextField()) {
+                String key = reader.readString();
+                reader.expectColon();
+                entity.setProperty(key, reader.readValue());
+            }
+            reader.expectEnd();
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(new String(this.buffer, start, end - start, UTF_8));
+        }
+    }
+
+    public void resolvePointers(List<?> values) {
         for (int i = 0; i < data.length; i++) {
-            if (data[i] instanceof Pointer) {
-                Pointer pointer = (Pointer)data[i];
-                data[i] = values.get(pointer.getAddress());
+            // only terms which could be pointers need to be decoded here
+            if (data[i] == UNDECODED && !couldBePointer(buffer[terms[2 * i]])) {
+                continue;
+            }
+            Object datum = decode(i);
+            if (datum instanceof Pointer) {
+                data[i] = resolvePointer((Pointer)datum, values);
+            }
+        }
+    }
+
+    private boolean couldBePointer(byte first) {
+        return this.binary ? BinaryReader.isExtension(first) : first == '/';
+    }
+
+    private static Object resolvePointer(Pointer pointer, List<?> values) {
+        int address = pointer.getAddress();
+        if (address < 0 || address >= values.size()) {
+            throw new IllegalArgumentException("Pointer address " + address + " out of range");
+        }
+        Object value = values.get(address);
+        if (pointer.hasIndex()) {
+            int index = pointer.getIndex();
+            if (!(value instanceof List)) {
+                throw new IllegalArgumentException("Pointer address " + address + " does not refer to a list");
+            } else if (index >= ((List) value).size()) {
+                throw new IllegalArgumentException("Pointer index " + index + " out of range");
             }
+            return ((List) value).get(index);
+        } else {
+            return value;
         }
     }
 
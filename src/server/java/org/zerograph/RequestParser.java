@@ -0,0 +1,37 @@
+package org.zerograph;
+
+import org.zerograph.response.status4xx.Status4xx;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits received frames into requests without decoding them to Strings.
+ * Each frame may hold any number of requests separated by CR, LF or CRLF
+ * line endings; blank lines are ignored. Workers read batches lazily
+ * through a RequestReader instead; this is a convenience for reading a
+ * whole batch at once.
+ *
+ */
+public class RequestParser {
+
+    public static List<Request> parse(List<byte[]> frames) throws Status4xx {
+        ArrayList<Request> requests = new ArrayList<>();
+        readAll(RequestReader.fromArrays(frames), requests);
+        return requests;
+    }
+
+    public static void parse(byte[] frame, List<Request> requests) throws Status4xx {
+        readAll(new RequestReader(new ArrayList<>(Collections.singletonList(ByteBuffer.wrap(frame)))), requests);
+    }
+
+    private static void readAll(RequestReader reader, List<Request> requests) throws Status4xx {
+        Request request;
+        while ((request = reader.next()) != null) {
+            requests.add(request);
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+package org.zerograph;
+
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.util.BinaryWriter;
+import org.zerograph.util.Compression;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads requests one at a time from the frames of a batch, so that each
+ * request can be executed as soon as it has been parsed rather than once
+ * the whole batch has been. Each frame may hold any number of requests
+ * separated by CR, LF or CRLF line endings; blank lines are ignored.
+ * Frames starting with the binary marker byte instead hold a sequence of
+ * binary messages, each prefixed by its length. Compressed frames are
+ * inflated as they are reached and then read as either of the above.
+ *
+ * Frames backed by heap arrays are parsed in place. Other frames, such
+ * as those mapped from a spool file, have each line copied out as it is
+ * read. Each frame is released once fully read.
+ *
+ * Workers lend the reader an inflater of their own, which is reused for
+ * every batch. A reader given none creates one when it first meets a
+ * compressed frame and ends it when closed, which happens however the
+ * batch ends.
+ *
+ */
+public class RequestReader {
+
+    final private List<ByteBuffer> frames;
+    final private Stats stats;
+    final private int inflateLimit;
+    final private boolean ownsInflater;
+
+    private int frameIndex;
+    private ByteBuffer frame;
+    private int position;
+    private boolean binary;
+    private int count;
+    private Inflater inflater;
+
+    public RequestReader(List<ByteBuffer> frames) {
+        this(frames, new Stats());
+    }
+
+    public RequestReader(List<ByteBuffer> frames, Stats stats) {
+        this(frames, stats, null, Compression.DEFAULT_INFLATE_LIMIT);
+    }
+
+    /**
+     * Create a reader that inflates compressed frames with the given
+     * inflater, or with one of its own if that is null, rejecting any
+     * frame that inflates to more than a limit in bytes.
+     *
+     */
+    public RequestReader(List<ByteBuffer> frames, Stats stats, Inflater inflater, int inflateLimit) {
+        this.frames = frames;
+        this.stats = stats;
+        this.inflater = inflater;
+        this.ownsInflater = inflater == null;
+        this.inflateLimit = inflateLimit;
+        this.frameIndex = 0;
+        this.count = 0;
+    }
+
+    public static RequestReader fromArrays(List<byte[]> arrays) {
+        ArrayList<ByteBuffer> frames = new ArrayList<>(arrays.size());
+        for (byte[] array : arrays) {
+            frames.add(ByteBuffer.wrap(array));
+        }
+        return new RequestReader(frames);
+    }
+
+    /**
+     * Return the next request, or null once all frames have been read.
+     *
+     */
+    public Request next() throws Status4xx {
+        while (true) {
+            if (frame == null) {
+                if (frameIndex >= frames.size()) {
+                    close();
+                    return null;
+                }
+                frame = frames.set(frameIndex, null);
+                frameIndex += 1;
+                if (frame.hasRemaining() && frame.get(frame.position()) == Compression.MARKER) {
+                    frame = inflate(frame);
+                }
+                position = frame.position();
+                binary = position < frame.limit() && frame.get(position) == BinaryWriter.MARKER;
+                if (binary) {
+                    position += 1;
+                }
+            }
+            if (binary) {
+                return nextBinary();
+            }
+            ByteBuffer current = frame;
+            int limit = current.limit();
+            int start = position;
+            int end = start;
+            while (end < limit) {
+                byte b = current.get(end);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                end += 1;
+            }
+            position = end + 1;
+            if (position >= limit) {
+                frame = null;
+            }
+            if (end > start) {
+                count += 1;
+                return createRequest(current, start, end - start, false);
+            }
+        }
+    }
+
+    /**
+     * Read the next message of a binary frame, which is prefixed by its
+     * length as an unsigned varint.
+     *
+     */
+    private Request nextBinary() throws Status4xx {
+        ByteBuffer current = frame;
+        int limit = current.limit();
+        if (position >= limit) {
+            frame = null;
+            return next();
+        }
+        int length = 0;
+        int shift = 0;
+        while (true) {
+            if (position >= limit || shift > 28) {
+                throw new BadRequest("Malformed binary frame");
+            }
+            byte b = current.get(position++);
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+        if (length <= 0 || length > limit - position) {
+            throw new BadRequest("Malformed binary frame");
+        }
+        int start = position;
+        position += length;
+        if (position >= limit) {
+            frame = null;
+        }
+        count += 1;
+        return createRequest(current, start, length, true);
+    }
+
+    /**
+     * Inflate a compressed frame, skipping its marker byte.
+     *
+     */
+    private ByteBuffer inflate(ByteBuffer compressed) throws Status4xx {
+        long start = System.nanoTime();
+        int length = compressed.remaining() - 1;
+        byte[] array;
+        int offset;
+        if (compressed.hasArray()) {
+            array = compressed.array();
+            offset = compressed.arrayOffset() + compressed.position() + 1;
+        } else {
+            array = new byte[length];
+            ByteBuffer source = compressed.duplicate();
+            source.position(source.position() + 1);
+            source.get(array);
+            offset = 0;
+        }
+        if (inflater == null) {
+            inflater = Compression.createInflater();
+        }
+        byte[] frame;
+        try {
+            frame = Compression.decompress(inflater, array, offset, length, inflateLimit);
+        } catch (DataFormatException ex) {
+            throw new BadRequest("Malformed compressed frame: " + ex.getMessage());
+        }
+        stats.countDecompressed(frame.length, length + 1, System.nanoTime() - start);
+        return ByteBuffer.wrap(frame);
+    }
+
+    /**
+     * Release the native memory of the inflater, if this reader created
+     * it. Closing a reader more than once has no further effect.
+     *
+     */
+    public void close() {
+        if (ownsInflater && inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    /**
+     * Return the number of requests read so far.
+     *
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    private static Request createRequest(ByteBuffer buffer, int offset, int length, boolean binary) throws Status4xx {
+        byte[] array;
+        if (buffer.hasArray()) {
+            array = buffer.array();
+            offset += buffer.arrayOffset();
+        } else {
+            array = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.position(offset);
+            source.get(array);
+            offset = 0;
+        }
+        if (binary) {
+            return Request.fromBinary(array, offset, length);
+        } else {
+            return new Request(array, offset, length);
+        }
+    }
+
+}
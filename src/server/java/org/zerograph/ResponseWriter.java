@@ -0,0 +1,654 @@
+package org.zerograph;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.PrettyPrinter;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.zerograph.api.ResponseInterface;
+import org.zerograph.response.status5xx.ServerError;
+import org.zerograph.util.BinaryWriter;
+import org.zerograph.util.Compression;
+import org.zerograph.util.Data;
+import org.zerograph.util.Pointer;
+import org.zeromq.ZMQ;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes responses onto a socket. Each response line is streamed
+ * through a single long-lived JsonGenerator into a reusable buffer, the
+ * contents of which are sent as a frame without first being converted to
+ * a String. Sessions using the binary protocol instead have each response
+ * written as a single binary message into a separate reusable buffer.
+ * Consecutive lines are gathered into frames of up to a given size, the
+ * last of which is sent when the final response of a batch is, rather
+ * than each line being sent as a message part of its own. Lines and
+ * frames are encoded into these buffers, so the only array allocated per
+ * message is the one handed to the socket. Frames may then be
+ * compressed, as the session asks.
+ *
+ * A response that cannot be encoded, such as one holding a value with no
+ * JSON form, is replaced by a 500 response and the generator is replaced,
+ * so that the lines that follow are unaffected. A ResponseWriter is owned
+ * by one Worker and shared by all of that worker's resources; it is not
+ * thread-safe.
+ *
+ */
+public class ResponseWriter {
+
+    final private static int INITIAL_BUFFER_SIZE = 4096;
+
+    final private ZMQ.Socket socket;
+    final private Stats stats;
+    final private Buffer buffer;
+    final private BinaryWriter binary;
+    final private HashSet<Long> sentNodes;
+    final private int frameSize;
+    final private Buffer frame;
+
+    private JsonGenerator generator;
+    private byte[] line;
+    private int lineLength;
+    private Session session;
+    private Batch batch;
+    private Deflater deflater;
+    private boolean binaryFrame;
+    private boolean open;
+
+    public ResponseWriter(ZMQ.Socket socket) {
+        this(socket, new Stats(), 0);
+    }
+
+    /**
+     * Create a writer that gathers lines into frames of up to frameSize
+     * bytes, or sends each line as a frame of its own if frameSize is 0.
+     *
+     */
+    public ResponseWriter(ZMQ.Socket socket, Stats stats, int frameSize) {
+        this.socket = socket;
+        this.frameSize = frameSize;
+        this.frame = new Buffer(frameSize > 0 ? Math.min(frameSize, INITIAL_BUFFER_SIZE) : 0);
+        this.stats = stats;
+        this.buffer = new Buffer(INITIAL_BUFFER_SIZE);
+        this.generator = createGenerator(this.buffer);
+        this.binary = new BinaryWriter(INITIAL_BUFFER_SIZE);
+        this.sentNodes = new HashSet<>();
+        this.session = new Session(null);
+        this.batch = new Batch(-1, null, 0);
+    }
+
+    /**
+     * Begin a new batch of responses using the options of a session. Any
+     * node table left by a previous batch is discarded.
+     *
+     */
+    public void begin(Session session) {
+        this.session = session;
+        this.sentNodes.clear();
+        this.frame.reset();
+        this.open = true;
+    }
+
+    /**
+     * Return true if a batch of responses has begun but the final frame
+     * of its multipart message has not yet been sent, in which case the
+     * socket cannot be used for another message until it is.
+     *
+     */
+    public boolean isOpen() {
+        return this.open;
+    }
+
+    public Session getSession() {
+        return this.session;
+    }
+
+    /**
+     * Return the batch whose responses are being written, against which
+     * resources check for cancellation and timeouts as they stream rows.
+     *
+     */
+    public Batch getBatch() {
+        return this.batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public ZMQ.Socket getSocket() {
+        return this.socket;
+    }
+
+    /**
+     * Add a response to the current frame of a multipart message, sending
+     * that frame once it reaches the frame size.
+     *
+     */
+    public boolean sendMore(ResponseInterface response) {
+        encodeLine(response);
+        if (frame.size() == 0 && lineLength >= frameSize) {
+            return send(line, lineLength, ZMQ.SNDMORE);
+        }
+        append();
+        if (frame.size() >= frameSize) {
+            return flush(ZMQ.SNDMORE);
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * Add a response to the current frame and send it as the final frame
+     * of a multipart message.
+     *
+     */
+    public boolean send(ResponseInterface response) {
+        encodeLine(response);
+        if (frame.size() == 0) {
+            return send(line, lineLength, 0);
+        }
+        append();
+        return flush(0);
+    }
+
+    /**
+     * Send any lines gathered so far as a frame, to be followed by
+     * further frames.
+     *
+     */
+    public boolean flush() {
+        if (frame.size() > 0) {
+            return flush(ZMQ.SNDMORE);
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * Add the last encoded response to the current frame. Text lines are
+     * separated by line feeds while binary messages share the marker at
+     * the start of the frame. A frame holds only one kind of response,
+     * so the current frame is sent first if the protocol has changed.
+     *
+     */
+    private void append() {
+        boolean binaryLine = lineLength > 0 && line[0] == BinaryWriter.MARKER;
+        if (frame.size() > 0 && binaryLine != binaryFrame) {
+            flush(ZMQ.SNDMORE);
+        }
+        if (frame.size() == 0) {
+            frame.write(line, 0, lineLength);
+            binaryFrame = binaryLine;
+        } else if (binaryLine) {
+            frame.write(line, 1, lineLength - 1);
+        } else {
+            frame.write('\n');
+            frame.write(line, 0, lineLength);
+        }
+    }
+
+    private boolean flush(int flags) {
+        boolean sent = send(frame.array(), frame.size(), flags);
+        frame.reset();
+        return sent;
+    }
+
+    /**
+     * Send the first bytes of a buffer as a frame, compressed if the
+     * session asks for frames of that size to be compressed. The socket
+     * keeps the array it is given until the message is written, so an
+     * uncompressed frame is copied out of the reusable buffer first.
+     *
+     */
+    private boolean send(byte[] data, int length, int flags) {
+        byte[] message = null;
+        if (session.shouldCompress(length)) {
+            if (deflater == null) {
+                deflater = Compression.createDeflater();
+            }
+            long start = System.nanoTime();
+            message = Compression.compress(deflater, data, 0, length);
+            if (message == null) {
+                stats.countCompressed(length, length, System.nanoTime() - start);
+            } else {
+                stats.countCompressed(length, message.length, System.nanoTime() - start);
+            }
+        }
+        if (message == null) {
+            message = Arrays.copyOf(data, length);
+        }
+        long start = System.nanoTime();
+        boolean sent = socket.send(message, flags);
+        stats.getSend().record(System.nanoTime() - start);
+        if (sent && (flags & ZMQ.SNDMORE) == 0) {
+            open = false;
+        }
+        return sent;
+    }
+
+    /**
+     * Release the native resources held by this writer.
+     *
+     */
+    public void close() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+    }
+
+    /**
+     * Encode a response as a single line of tab-separated values, the
+     * first of which is the status code, or as a binary frame if the
+     * session uses the binary protocol, returning a copy of the encoded
+     * bytes. Responses are sent without this copy being made; it is
+     * provided for callers that need the encoded form itself.
+     *
+     */
+    public byte[] encode(ResponseInterface response) {
+        encodeLine(response);
+        return Arrays.copyOf(line, lineLength);
+    }
+
+    /**
+     * Encode a response into the reusable buffer of its protocol, leaving
+     * the encoded bytes as the current line until the next response is
+     * encoded.
+     *
+     */
+    private void encodeLine(ResponseInterface response) {
+        long start = System.nanoTime();
+        if (session.isBinary()) {
+            encodeBinary(response);
+            endResponse(response.getStatus());
+            line = binary.array();
+            lineLength = binary.size();
+            stats.countResponse(response.getStatus());
+            stats.getEncode().record(System.nanoTime() - start);
+            if (Log.isTrafficSampled()) {
+                Log.debug(">>> ", response.getStatus() + " [" + lineLength + " bytes binary]");
+            }
+            return;
+        }
+        int status = response.getStatus();
+        try {
+            writeLine(status, response.getData());
+        } catch (IOException ex) {
+            // the generator is left part way through a value
+            generator = createGenerator(buffer);
+            ServerError error = new ServerError("Cannot encode " + status + " response: " + ex.getMessage());
+            status = error.getStatus();
+            try {
+                writeLine(status, error.getData());
+            } catch (IOException ex2) {
+                throw new IllegalStateException(ex2);
+            }
+        } catch (RuntimeException ex) {
+            generator = createGenerator(buffer);
+            sentNodes.clear();
+            throw ex;
+        }
+        endResponse(status);
+        line = buffer.array();
+        lineLength = buffer.size();
+        stats.countResponse(status);
+        stats.getEncode().record(System.nanoTime() - start);
+        if (Log.isTrafficSampled()) {
+            // the buffer is reused, so the log thread is given a copy
+            Log.debug(">>> ", Arrays.copyOf(line, lineLength));
+        }
+    }
+
+    /**
+     * Discard the node table once the final line of the response to a
+     * request has been encoded, so that nodes changed by later requests
+     * in the batch are sent again in full rather than referenced by id.
+     *
+     */
+    private void endResponse(int status) {
+        if (status >= 200) {
+            sentNodes.clear();
+        }
+    }
+
+    private void writeLine(int status, Object[] data) throws IOException {
+        buffer.reset();
+        generator.writeRaw(Integer.toString(status));
+        for (Object datum : data) {
+            generator.writeRaw('\t');
+            write(datum);
+        }
+        generator.flush();
+    }
+
+    private static JsonGenerator createGenerator(Buffer buffer) {
+        buffer.reset();
+        JsonGenerator generator;
+        try {
+            generator = Data.createGenerator(buffer);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to create response generator", ex);
+        }
+        generator.setPrettyPrinter(new CompactPrinter());
+        return generator;
+    }
+
+    private void write(Object datum) throws IOException {
+        if (datum instanceof Node) {
+            generator.writeRaw(Data.NODE_HINT);
+            writeNode((Node) datum);
+        } else if (datum instanceof Relationship) {
+            generator.writeRaw(Data.REL_HINT);
+            writeRel((Relationship) datum, true, null);
+        } else if (datum instanceof Projection.View) {
+            writeView((Projection.View) datum);
+        } else {
+            Data.write(generator, datum);
+        }
+    }
+
+    private void writeRel(Relationship rel, boolean withProperties, Set<String> keys) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rel.getId());
+        generator.writeFieldName("start");
+        writeEndpoint(rel.getStartNode());
+        generator.writeFieldName("end");
+        writeEndpoint(rel.getEndNode());
+        generator.writeStringField("type", rel.getType().name());
+        if (withProperties) {
+            Data.writeProperties(generator, rel, keys);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write a projected entity. Partial entities are never entered into
+     * the entity table.
+     *
+     */
+    private void writeView(Projection.View view) throws IOException {
+        PropertyContainer entity = view.getEntity();
+        Projection projection = view.getProjection();
+        boolean withProperties = !Projection.LABELS.equals(projection.getMode());
+        if (Projection.ID.equals(projection.getMode()) && (entity instanceof Node || entity instanceof Relationship)) {
+            // a plain number, so as not to be mistaken for a node table reference
+            generator.writeNumber(entity instanceof Node ? ((Node) entity).getId() : ((Relationship) entity).getId());
+        } else if (entity instanceof Node) {
+            generator.writeRaw(Data.NODE_HINT);
+            Data.writeNode(generator, (Node) entity, withProperties, projection.getKeys());
+        } else if (entity instanceof Relationship) {
+            generator.writeRaw(Data.REL_HINT);
+            writeRel((Relationship) entity, withProperties, projection.getKeys());
+        } else {
+            Data.write(generator, entity);
+        }
+    }
+
+    /**
+     * Write a node in full or, if the session uses an entity table and
+     * the node has already been sent in this response, as its id alone.
+     *
+     */
+    private void writeNode(Node node) throws IOException {
+        if (session.hasNodeTable() && !sentNodes.add(node.getId())) {
+            generator.writeNumber(node.getId());
+        } else {
+            Data.writeNode(generator, node);
+        }
+    }
+
+    private void writeEndpoint(Node node) throws IOException {
+        if (session.hasCompactRels()) {
+            generator.writeNumber(node.getId());
+        } else {
+            writeNode(node);
+        }
+    }
+
+    /**
+     * Encode a response as a binary frame holding one message: an array
+     * of the status code followed by each datum.
+     *
+     */
+    private void encodeBinary(ResponseInterface response) {
+        Object[] data = response.getData();
+        binary.reset();
+        binary.writeMarker();
+        int mark = binary.beginMessage();
+        binary.writeArrayHeader(1 + data.length);
+        binary.writeInteger(response.getStatus());
+        for (Object datum : data) {
+            writeBinary(datum);
+        }
+        binary.endMessage(mark);
+    }
+
+    /**
+     * Write a datum in the binary encoding. Entities nested within lists
+     * and maps are written as entities too. Values with no binary form,
+     * such as graphs, are written as strings holding their text encoding.
+     *
+     */
+    private void writeBinary(Object datum) {
+        if (datum instanceof Node) {
+            writeBinaryNode((Node) datum);
+        } else if (datum instanceof Relationship) {
+            writeBinaryRel((Relationship) datum, true, null);
+        } else if (datum instanceof Projection.View) {
+            writeBinaryView((Projection.View) datum);
+        } else if (datum instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) datum;
+            binary.writeMapHeader(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                binary.writeString(String.valueOf(entry.getKey()));
+                writeBinary(entry.getValue());
+            }
+        } else if (datum instanceof Collection) {
+            Collection<?> collection = (Collection<?>) datum;
+            binary.writeArrayHeader(collection.size());
+            for (Object item : collection) {
+                writeBinary(item);
+            }
+        } else if (datum instanceof Object[]) {
+            Object[] array = (Object[]) datum;
+            binary.writeArrayHeader(array.length);
+            for (Object item : array) {
+                writeBinary(item);
+            }
+        } else if (datum == null || datum instanceof String || datum instanceof Number ||
+                   datum instanceof Boolean || datum instanceof Character ||
+                   datum instanceof Pointer || datum.getClass().isArray()) {
+            binary.writeValue(datum);
+        } else {
+            try {
+                binary.writeString(Data.encode(datum));
+            } catch (IOException ex) {
+                binary.writeNil();
+            }
+        }
+    }
+
+    /**
+     * Write a node in full or, if the session uses an entity table and
+     * the node has already been sent in this response, as its id alone.
+     *
+     */
+    private void writeBinaryNode(Node node) {
+        int mark = binary.beginExtension(BinaryWriter.NODE);
+        if (session.hasNodeTable() && !sentNodes.add(node.getId())) {
+            binary.writeInteger(node.getId());
+        } else {
+            writeBinaryNodeContent(node, true, null);
+        }
+        binary.endExtension(mark);
+    }
+
+    private void writeBinaryNodeContent(Node node, boolean withProperties, Set<String> keys) {
+        binary.writeArrayHeader(withProperties ? 3 : 2);
+        binary.writeInteger(node.getId());
+        ArrayList<String> labels = new ArrayList<>();
+        for (Label label : node.getLabels()) {
+            labels.add(label.name());
+        }
+        binary.writeArrayHeader(labels.size());
+        for (String label : labels) {
+            binary.writeString(label);
+        }
+        if (withProperties) {
+            writeBinaryProperties(node, keys);
+        }
+    }
+
+    private void writeBinaryRel(Relationship rel, boolean withProperties, Set<String> keys) {
+        int mark = binary.beginExtension(BinaryWriter.REL);
+        binary.writeArrayHeader(withProperties ? 5 : 4);
+        binary.writeInteger(rel.getId());
+        writeBinaryEndpoint(rel.getStartNode());
+        writeBinaryEndpoint(rel.getEndNode());
+        binary.writeString(rel.getType().name());
+        if (withProperties) {
+            writeBinaryProperties(rel, keys);
+        }
+        binary.endExtension(mark);
+    }
+
+    private void writeBinaryEndpoint(Node node) {
+        if (session.hasCompactRels()) {
+            binary.writeInteger(node.getId());
+        } else {
+            writeBinaryNode(node);
+        }
+    }
+
+    private void writeBinaryView(Projection.View view) {
+        PropertyContainer entity = view.getEntity();
+        Projection projection = view.getProjection();
+        boolean withProperties = !Projection.LABELS.equals(projection.getMode());
+        if (Projection.ID.equals(projection.getMode()) && (entity instanceof Node || entity instanceof Relationship)) {
+            // a plain integer, as in text
+            binary.writeInteger(entity instanceof Node ? ((Node) entity).getId() : ((Relationship) entity).getId());
+        } else if (entity instanceof Node) {
+            int mark = binary.beginExtension(BinaryWriter.NODE);
+            writeBinaryNodeContent((Node) entity, withProperties, projection.getKeys());
+            binary.endExtension(mark);
+        } else if (entity instanceof Relationship) {
+            writeBinaryRel((Relationship) entity, withProperties, projection.getKeys());
+        } else {
+            writeBinary(entity);
+        }
+    }
+
+    private void writeBinaryProperties(PropertyContainer entity, Set<String> keys) {
+        if (keys == null) {
+            ArrayList<String> present = new ArrayList<>();
+            for (String key : entity.getPropertyKeys()) {
+                present.add(key);
+            }
+            binary.writeMapHeader(present.size());
+            for (String key : present) {
+                binary.writeString(key);
+                binary.writeValue(entity.getProperty(key));
+            }
+        } else {
+            ArrayList<String> present = new ArrayList<>(keys.size());
+            ArrayList<Object> values = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                Object value = entity.getProperty(key, null);
+                if (value != null) {
+                    present.add(key);
+                    values.add(value);
+                }
+            }
+            binary.writeMapHeader(present.size());
+            for (int i = 0; i < present.size(); i++) {
+                binary.writeString(present.get(i));
+                binary.writeValue(values.get(i));
+            }
+        }
+    }
+
+    /**
+     * Byte array output stream whose contents can be read in place.
+     *
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+
+        public Buffer(int size) {
+            super(size);
+        }
+
+        public byte[] array() {
+            return buf;
+        }
+
+    }
+
+    /**
+     * Pretty printer producing compact output without the space that
+     * would otherwise separate consecutive root-level values; the tabs
+     * between values are written explicitly.
+     *
+     */
+    private static class CompactPrinter implements PrettyPrinter {
+
+        @Override
+        public void writeRootValueSeparator(JsonGenerator generator) {
+        }
+
+        @Override
+        public void writeStartObject(JsonGenerator generator) throws IOException {
+            generator.writeRaw('{');
+        }
+
+        @Override
+        public void writeEndObject(JsonGenerator generator, int entries) throws IOException {
+            generator.writeRaw('}');
+        }
+
+        @Override
+        public void writeObjectEntrySeparator(JsonGenerator generator) throws IOException {
+            generator.writeRaw(',');
+        }
+
+        @Override
+        public void writeObjectFieldValueSeparator(JsonGenerator generator) throws IOException {
+            generator.writeRaw(':');
+        }
+
+        @Override
+        public void writeStartArray(JsonGenerator generator) throws IOException {
+            generator.writeRaw('[');
+        }
+
+        @Override
+        public void writeEndArray(JsonGenerator generator, int values) throws IOException {
+            generator.writeRaw(']');
+        }
+
+        @Override
+        public void writeArrayValueSeparator(JsonGenerator generator) throws IOException {
+            generator.writeRaw(',');
+        }
+
+        @Override
+        public void beforeArrayValues(JsonGenerator generator) {
+        }
+
+        @Override
+        public void beforeObjectEntries(JsonGenerator generator) {
+        }
+
+    }
+
+}
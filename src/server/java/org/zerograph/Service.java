@@ -6,17 +6,16 @@ import org.zeromq.ZMQ;
 
 public abstract class Service implements Runnable, ServiceInterface {
 
-    final public static int WORKER_COUNT = 40;
-
     final private ZerographInterface zerograph;
     final private String host;
     final private int port;
 
     final private ZMQ.Context context;
     final private Environment environment;
+    final private Sessions sessions;
+    final private Stats stats;
 
-    private ZMQ.Socket external;  // incoming requests from clients
-    private ZMQ.Socket internal;  // request forwarding to workers
+    private Dispatcher dispatcher;
 
     public Service(ZerographInterface zerograph, String host, int port) {
         this.zerograph = zerograph;
@@ -24,6 +23,8 @@ public abstract class Service implements Runnable, ServiceInterface {
         this.port = port;
         this.environment = Environment.getInstance();
         this.context = ZMQ.context(1);
+        this.sessions = new Sessions();
+        this.stats = new Stats();
     }
 
     public ZerographInterface getZerograph() {
@@ -46,6 +47,14 @@ public abstract class Service implements Runnable, ServiceInterface {
         return this.environment;
     }
 
+    public Sessions getSessions() {
+        return this.sessions;
+    }
+
+    public Stats getStats() {
+        return this.stats;
+    }
+
     public String getInternalAddress() {
         return "inproc://" + host + "-" + port;
     }
@@ -54,29 +63,39 @@ public abstract class Service implements Runnable, ServiceInterface {
         return "tcp://" + host + ":" + port;
     }
 
-    public abstract void startWorkers(int count);
+    public abstract Worker createWorker();
 
     public void run() {
         start();
-        stop();
     }
 
+    /**
+     * Run this service until stopped. Request batches are received by a
+     * dispatcher and executed on its executor, so the number of threads
+     * follows load rather than being fixed per service.
+     *
+     */
     public void start() {
-        System.out.println("Starting service on " + this.port);
-        this.internal = context.socket(ZMQ.DEALER);
-        this.internal.bind(getInternalAddress());
-        this.external = context.socket(ZMQ.ROUTER);
-        this.external.bind(getExternalAddress());
-        startWorkers(WORKER_COUNT);
-        ZMQ.proxy(external, internal, null);
+        Log.info("Starting service on ", this.port);
+        this.dispatcher = new Dispatcher(this, getEnvironment().getExecutorSpec());
+        try {
+            this.dispatcher.run();
+        } finally {
+            if (this.dispatcher.isTerminated()) {
+                context.term();
+            } else {
+                // terminating would block on the sockets of running workers
+                Log.warn("Leaving context open for running workers on ", this.port);
+            }
+            Log.info("Stopped service on ", this.port);
+        }
     }
 
     public void stop() {
-        System.out.println("Stopping service on " + this.port);
-        // TODO: interrupt this thread and shut down gracefully
-        external.close();
-        internal.close();
-        context.term();
+        Log.info("Stopping service on ", this.port);
+        if (this.dispatcher != null) {
+            this.dispatcher.stop();
+        }
     }
 
 }
@@ -0,0 +1,212 @@
+package org.zerograph;
+
+import org.zerograph.response.status4xx.BadRequest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options negotiated by a client. A working copy of the options
+ * stored for a connection is taken at the start of each batch; changes
+ * made to that copy apply to the remainder of the batch only unless the
+ * session is saved back to its store.
+ *
+ * Options:
+ *
+ *   rels   "full" to embed both endpoint nodes in each relationship
+ *          (default) or "compact" to send only their ids
+ *   nodes  "full" to send every node in full (default) or "table" to
+ *          send each node in full only on its first appearance within a
+ *          response, after which it is referenced by id
+ *   return "full", "labels", "id" or "none", the default amount of each
+ *          entity returned by node and rel requests that write, GET
+ *          requests being unaffected (see Projection)
+ *   commit_every
+ *          commit the batch transaction after every N requests rather
+ *          than once at the end (0, the default, to disable)
+ *   commit_bytes
+ *          commit the batch transaction once the request lines handled
+ *          since the last commit exceed N bytes (0 to disable)
+ *   protocol
+ *          "text" for tab-separated JSON responses (default) or "binary"
+ *          for the MessagePack-based binary encoding; requests may be
+ *          sent in either form regardless
+ *   compress
+ *          compress response frames of at least N bytes with Deflate (0,
+ *          the default, to disable); compressed requests are accepted
+ *          regardless
+ *
+ */
+public class Session {
+
+    final public static String RELS = "rels";
+    final public static String NODES = "nodes";
+    final public static String RETURN = Projection.RETURN;
+    final public static String COMMIT_EVERY = "commit_every";
+    final public static String COMMIT_BYTES = "commit_bytes";
+    final public static String PROTOCOL = "protocol";
+    final public static String COMPRESS = "compress";
+
+    final public static String FULL = "full";
+    final public static String COMPACT = "compact";
+    final public static String TABLE = "table";
+    final public static String TEXT = "text";
+    final public static String BINARY = "binary";
+
+    final private String key;
+
+    private boolean compactRels;
+    private boolean nodeTable;
+    private Projection projection;
+    private long commitEvery;
+    private long commitBytes;
+    private boolean binary;
+    private long compressThreshold;
+
+    public Session(String key) {
+        this.key = key;
+        this.projection = Projection.DEFAULT;
+    }
+
+    public Session copy() {
+        Session session = new Session(this.key);
+        session.compactRels = this.compactRels;
+        session.nodeTable = this.nodeTable;
+        session.projection = this.projection;
+        session.commitEvery = this.commitEvery;
+        session.commitBytes = this.commitBytes;
+        session.binary = this.binary;
+        session.compressThreshold = this.compressThreshold;
+        return session;
+    }
+
+    /**
+     * Return the key identifying the connection to which this session
+     * belongs, or null if the session cannot be stored.
+     *
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    public boolean hasCompactRels() {
+        return this.compactRels;
+    }
+
+    public boolean hasNodeTable() {
+        return this.nodeTable;
+    }
+
+    public Projection getProjection() {
+        return this.projection;
+    }
+
+    public boolean isBinary() {
+        return this.binary;
+    }
+
+    /**
+     * Return true if a response frame of the given size should be sent
+     * compressed.
+     *
+     */
+    public boolean shouldCompress(int size) {
+        return this.compressThreshold > 0 && size >= this.compressThreshold;
+    }
+
+    public boolean isChunked() {
+        return this.commitEvery > 0 || this.commitBytes > 0;
+    }
+
+    /**
+     * Determine whether a chunk of a batch should be committed, given
+     * the number of requests and bytes handled since the last commit.
+     *
+     */
+    public boolean shouldCommit(int requests, long bytes) {
+        return (this.commitEvery > 0 && requests >= this.commitEvery) ||
+               (this.commitBytes > 0 && bytes >= this.commitBytes);
+    }
+
+    /**
+     * Restore all options to their defaults.
+     *
+     */
+    public void reset() {
+        this.compactRels = false;
+        this.nodeTable = false;
+        this.projection = Projection.DEFAULT;
+        this.commitEvery = 0;
+        this.commitBytes = 0;
+        this.binary = false;
+        this.compressThreshold = 0;
+    }
+
+    /**
+     * Apply a map of options to this session. Options not included are
+     * left unchanged.
+     *
+     */
+    public void update(Map<String, Object> options) throws BadRequest {
+        for (Map.Entry<String, Object> entry : options.entrySet()) {
+            String option = entry.getKey();
+            Object value = entry.getValue();
+            switch (option) {
+                case RELS:
+                    this.compactRels = choose(option, value, FULL, COMPACT);
+                    break;
+                case NODES:
+                    this.nodeTable = choose(option, value, FULL, TABLE);
+                    break;
+                case RETURN:
+                    this.projection = Projection.fromMode(value);
+                    break;
+                case COMMIT_EVERY:
+                    this.commitEvery = count(option, value);
+                    break;
+                case COMMIT_BYTES:
+                    this.commitBytes = count(option, value);
+                    break;
+                case PROTOCOL:
+                    this.binary = choose(option, value, TEXT, BINARY);
+                    break;
+                case COMPRESS:
+                    this.compressThreshold = count(option, value);
+                    break;
+                default:
+                    throw new BadRequest("Unknown session option " + option);
+            }
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        LinkedHashMap<String, Object> options = new LinkedHashMap<>();
+        options.put(RELS, this.compactRels ? COMPACT : FULL);
+        options.put(NODES, this.nodeTable ? TABLE : FULL);
+        options.put(RETURN, this.projection.getMode());
+        options.put(COMMIT_EVERY, this.commitEvery);
+        options.put(COMMIT_BYTES, this.commitBytes);
+        options.put(PROTOCOL, this.binary ? BINARY : TEXT);
+        options.put(COMPRESS, this.compressThreshold);
+        return options;
+    }
+
+    private static long count(String option, Object value) throws BadRequest {
+        if ((value instanceof Integer || value instanceof Long) && ((Number) value).longValue() >= 0) {
+            return ((Number) value).longValue();
+        } else {
+            throw new BadRequest("Session option " + option + " must be a non-negative integer");
+        }
+    }
+
+    private static boolean choose(String option, Object value, String off, String on) throws BadRequest {
+        if (off.equals(value)) {
+            return false;
+        } else if (on.equals(value)) {
+            return true;
+        } else {
+            throw new BadRequest("Session option " + option + " must be \"" + off + "\" or \"" + on + "\"");
+        }
+    }
+
+}
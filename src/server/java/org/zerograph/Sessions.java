@@ -0,0 +1,91 @@
+package org.zerograph;
+
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sessions stored for the connections to a Service, keyed by the
+ * identity that the ROUTER socket assigns to each client. Identities are
+ * not reused, so the least recently used sessions are discarded once a
+ * fixed number are held.
+ *
+ */
+public class Sessions {
+
+    final public static int MAX_SESSIONS = 1024;
+
+    final private static Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    final private LinkedHashMap<String, Session> sessions;
+
+    public Sessions() {
+        this.sessions = new LinkedHashMap<String, Session>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > MAX_SESSIONS;
+            }
+        };
+    }
+
+    /**
+     * Derive a session key from the envelope of a request batch. Batches
+     * routed without an identity have no key and cannot be stored.
+     *
+     */
+    public static String key(List<byte[]> envelope) {
+        if (envelope.size() > 1) {
+            return new String(envelope.get(0), ISO_8859_1);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Return a working copy of the session stored under a key, or a new
+     * session with default options if none is stored.
+     *
+     */
+    public Session open(String key) {
+        if (key != null) {
+            synchronized (this.sessions) {
+                Session session = this.sessions.get(key);
+                if (session != null) {
+                    return session.copy();
+                }
+            }
+        }
+        return new Session(key);
+    }
+
+    /**
+     * Store a copy of a session for use by subsequent batches on the
+     * same connection, returning false if the session has no key.
+     *
+     */
+    public boolean save(Session session) {
+        if (session.getKey() == null) {
+            return false;
+        }
+        synchronized (this.sessions) {
+            this.sessions.put(session.getKey(), session.copy());
+        }
+        return true;
+    }
+
+    public void discard(Session session) {
+        if (session.getKey() != null) {
+            synchronized (this.sessions) {
+                this.sessions.remove(session.getKey());
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (this.sessions) {
+            return this.sessions.size();
+        }
+    }
+
+}
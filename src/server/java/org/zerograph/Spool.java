@@ -0,0 +1,142 @@
+package org.zerograph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spills the frames of a large batch to a file and maps them back into
+ * memory, so that the batch is held in the page cache rather than on the
+ * heap while it executes. Frames are written by the executor thread that
+ * handles the batch, before it is executed, and released from the heap
+ * once written. The file is deleted as soon as it has been mapped, or
+ * when the spool is closed; mapped contents remain readable until the
+ * mapping is collected.
+ *
+ * A failure to write a frame is held until the spool is mapped, so that
+ * the failure can be reported to the client in place of the batch.
+ *
+ */
+public class Spool {
+
+    final private static long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    final private File file;
+    final private RandomAccessFile spool;
+    final private FileChannel channel;
+    final private ArrayList<Integer> lengths;
+
+    private IOException failure;
+    private boolean closed;
+
+    public Spool(File directory) throws IOException {
+        this.file = File.createTempFile("batch-", ".spool", directory);
+        try {
+            this.spool = new RandomAccessFile(file, "rw");
+        } catch (IOException ex) {
+            delete();
+            throw ex;
+        }
+        this.channel = spool.getChannel();
+        this.lengths = new ArrayList<>();
+    }
+
+    public static long size(List<byte[]> frames) {
+        long size = 0;
+        for (byte[] frame : frames) {
+            size += frame.length;
+        }
+        return size;
+    }
+
+    public static List<ByteBuffer> spill(List<byte[]> frames, File directory) throws IOException {
+        Spool spool = new Spool(directory);
+        for (byte[] frame : frames) {
+            spool.write(frame);
+        }
+        return spool.map();
+    }
+
+    /**
+     * Append a frame to the spool file, unless an earlier write failed.
+     *
+     */
+    public void write(byte[] frame) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            lengths.add(frame.length);
+        } catch (IOException ex) {
+            failure = ex;
+        }
+    }
+
+    /**
+     * Map the frames written back into memory as one buffer per frame and
+     * delete the file, or throw the exception with which a write failed.
+     *
+     */
+    public List<ByteBuffer> map() throws IOException {
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            long size = channel.size();
+            ArrayList<ByteBuffer> buffers = new ArrayList<>(lengths.size());
+            MappedByteBuffer segment = null;
+            long segmentStart = 0;
+            long position = 0;
+            for (int length : lengths) {
+                long end = position + length;
+                if (segment == null || end - segmentStart > segment.capacity()) {
+                    // map from the start of this frame, which always fits in one segment
+                    segmentStart = position;
+                    segment = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, MAX_SEGMENT_SIZE));
+                }
+                ByteBuffer slice = segment.duplicate();
+                slice.limit((int) (end - segmentStart));
+                slice.position((int) (position - segmentStart));
+                buffers.add(slice.slice());
+                position = end;
+            }
+            return buffers;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Close and delete the spool file. Closing a spool more than once has
+     * no further effect.
+     *
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            spool.close();
+        } catch (IOException ex) {
+            Log.warn("Cannot close spool file " + file + ": ", ex.getMessage());
+        }
+        delete();
+    }
+
+    private void delete() {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+}
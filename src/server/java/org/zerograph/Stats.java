@@ -0,0 +1,302 @@
+package org.zerograph;
+
+import org.zerograph.util.Histogram;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency histograms and counters for a single service, shared by all of
+ * its workers. Stage histograms cover parsing, commit, response encoding
+ * and socket sends; execution is broken down by resource and method and
+ * includes the encoding and sending of that request's responses. Frame
+ * compression is reported separately for each direction, as the bytes
+ * before and after compression and the time spent on it.
+ *
+ */
+public class Stats {
+
+    final private Histogram parse;
+    final private Histogram commit;
+    final private Histogram encode;
+    final private Histogram send;
+    final private Histogram compress;
+    final private Histogram decompress;
+    final private ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>> execute;
+
+    final private AtomicLong batches;
+    final private AtomicLong requests;
+    final private AtomicLong conflicts;
+    final private AtomicLong clientErrors;
+    final private AtomicLong serverErrors;
+
+    final private Traffic compressed;
+    final private Traffic decompressed;
+
+    public Stats() {
+        this.parse = new Histogram();
+        this.commit = new Histogram();
+        this.encode = new Histogram();
+        this.send = new Histogram();
+        this.compress = new Histogram();
+        this.decompress = new Histogram();
+        this.execute = new ConcurrentHashMap<>();
+        this.batches = new AtomicLong();
+        this.requests = new AtomicLong();
+        this.conflicts = new AtomicLong();
+        this.clientErrors = new AtomicLong();
+        this.serverErrors = new AtomicLong();
+        this.compressed = new Traffic();
+        this.decompressed = new Traffic();
+    }
+
+    public Histogram getParse() {
+        return this.parse;
+    }
+
+    public Histogram getCommit() {
+        return this.commit;
+    }
+
+    public Histogram getEncode() {
+        return this.encode;
+    }
+
+    public Histogram getSend() {
+        return this.send;
+    }
+
+    public Histogram getCompress() {
+        return this.compress;
+    }
+
+    public Histogram getDecompress() {
+        return this.decompress;
+    }
+
+    public Histogram getExecute(String resource, String method) {
+        ConcurrentHashMap<String, Histogram> methods = execute.get(resource);
+        if (methods == null) {
+            methods = putIfAbsent(execute, resource, new ConcurrentHashMap<String, Histogram>());
+        }
+        Histogram histogram = methods.get(method);
+        if (histogram == null) {
+            histogram = putIfAbsent(methods, method, new Histogram());
+        }
+        return histogram;
+    }
+
+    public void countBatch() {
+        batches.incrementAndGet();
+    }
+
+    public void countRequest() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * Count a response by status code.
+     *
+     */
+    public void countResponse(int status) {
+        if (status == 409) {
+            conflicts.incrementAndGet();
+        }
+        if (status >= 500) {
+            serverErrors.incrementAndGet();
+        } else if (status >= 400) {
+            clientErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record the compression of an outgoing frame.
+     *
+     */
+    public void countCompressed(long rawBytes, long compressedBytes, long nanos) {
+        compressed.record(rawBytes, compressedBytes);
+        compress.record(nanos);
+    }
+
+    /**
+     * Record the decompression of an incoming frame.
+     *
+     */
+    public void countDecompressed(long rawBytes, long compressedBytes, long nanos) {
+        decompressed.record(rawBytes, compressedBytes);
+        decompress.record(nanos);
+    }
+
+    public Map<String, Object> toMap() {
+        LinkedHashMap<String, Object> counters = new LinkedHashMap<>();
+        counters.put("batches", batches.get());
+        counters.put("requests", requests.get());
+        counters.put("conflicts", conflicts.get());
+        counters.put("4xx", clientErrors.get());
+        counters.put("5xx", serverErrors.get());
+        LinkedHashMap<String, Object> latency = new LinkedHashMap<>();
+        latency.put("parse", parse.toMap());
+        latency.put("commit", commit.toMap());
+        latency.put("encode", encode.toMap());
+        latency.put("send", send.toMap());
+        latency.put("compress", compress.toMap());
+        latency.put("decompress", decompress.toMap());
+        LinkedHashMap<String, Object> resources = new LinkedHashMap<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, Histogram>> resource : execute.entrySet()) {
+            LinkedHashMap<String, Object> methods = new LinkedHashMap<>();
+            for (Map.Entry<String, Histogram> method : resource.getValue().entrySet()) {
+                methods.put(method.getKey(), method.getValue().toMap());
+            }
+            resources.put(resource.getKey(), methods);
+        }
+        latency.put("execute", resources);
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        map.put("counters", counters);
+        map.put("latency", latency);
+        LinkedHashMap<String, Object> compression = new LinkedHashMap<>();
+        compression.put("sent", compressed.toMap());
+        compression.put("received", decompressed.toMap());
+        map.put("compression", compression);
+        return map;
+    }
+
+    /**
+     * Write the stats of several services and the query engines of those
+     * that are graphs, each keyed by port, in Prometheus text exposition
+     * format. All series of each metric are written together, as that
+     * format requires.
+     *
+     */
+    public static void writeMetrics(Writer writer, Map<Integer, Stats> services, Map<Integer, QueryEngine> engines) throws IOException {
+        String[] counters = {"batches", "requests", "conflicts", "client_errors", "server_errors"};
+        for (int c = 0; c < counters.length; c++) {
+            String name = "zerograph_" + counters[c] + "_total";
+            writer.write("# TYPE " + name + " counter\n");
+            for (Map.Entry<Integer, Stats> service : services.entrySet()) {
+                writer.write(name + "{port=\"" + service.getKey() + "\"} " + service.getValue().getCounter(c) + "\n");
+            }
+        }
+        String[] traffic = {"frames", "raw_bytes", "compressed_bytes"};
+        for (int c = 0; c < traffic.length; c++) {
+            String name = "zerograph_compression_" + traffic[c] + "_total";
+            writer.write("# TYPE " + name + " counter\n");
+            for (Map.Entry<Integer, Stats> service : services.entrySet()) {
+                Stats stats = service.getValue();
+                String port = "port=\"" + service.getKey() + "\"";
+                writer.write(name + "{" + port + ",direction=\"sent\"} " + stats.compressed.get(c) + "\n");
+                writer.write(name + "{" + port + ",direction=\"received\"} " + stats.decompressed.get(c) + "\n");
+            }
+        }
+        String[] cache = {"hits", "misses"};
+        for (int c = 0; c < cache.length; c++) {
+            String name = "zerograph_query_cache_" + cache[c] + "_total";
+            writer.write("# TYPE " + name + " counter\n");
+            for (Map.Entry<Integer, QueryEngine> engine : engines.entrySet()) {
+                QueryEngine e = engine.getValue();
+                long value = c == 0 ? e.getHits() : e.getMisses();
+                writer.write(name + "{port=\"" + engine.getKey() + "\"} " + value + "\n");
+            }
+        }
+        writer.write("# TYPE zerograph_prepared_statements gauge\n");
+        for (Map.Entry<Integer, QueryEngine> engine : engines.entrySet()) {
+            writer.write("zerograph_prepared_statements{port=\"" + engine.getKey() + "\"} " + engine.getValue().getStatementCount() + "\n");
+        }
+        writer.write("# TYPE zerograph_latency_seconds histogram\n");
+        for (Map.Entry<Integer, Stats> service : services.entrySet()) {
+            Stats stats = service.getValue();
+            String labels = "port=\"" + service.getKey() + "\"";
+            writeHistogram(writer, labels + ",stage=\"parse\"", stats.parse);
+            writeHistogram(writer, labels + ",stage=\"commit\"", stats.commit);
+            writeHistogram(writer, labels + ",stage=\"encode\"", stats.encode);
+            writeHistogram(writer, labels + ",stage=\"send\"", stats.send);
+            writeHistogram(writer, labels + ",stage=\"compress\"", stats.compress);
+            writeHistogram(writer, labels + ",stage=\"decompress\"", stats.decompress);
+            for (Map.Entry<String, ConcurrentHashMap<String, Histogram>> resource : stats.execute.entrySet()) {
+                for (Map.Entry<String, Histogram> method : resource.getValue().entrySet()) {
+                    writeHistogram(writer, labels + ",stage=\"execute\",resource=\"" + resource.getKey() +
+                            "\",method=\"" + method.getKey() + "\"", method.getValue());
+                }
+            }
+        }
+    }
+
+    private long getCounter(int index) {
+        switch (index) {
+            case 0:
+                return batches.get();
+            case 1:
+                return requests.get();
+            case 2:
+                return conflicts.get();
+            case 3:
+                return clientErrors.get();
+            default:
+                return serverErrors.get();
+        }
+    }
+
+    private static void writeHistogram(Writer writer, String labels, Histogram histogram) throws IOException {
+        String name = "zerograph_latency_seconds";
+        long cumulative = 0;
+        for (int i = 0; i < Histogram.BUCKETS; i++) {
+            cumulative += histogram.getCount(i);
+            double bound = Histogram.getBucketBound(i) / 1e6;
+            writer.write(name + "_bucket{" + labels + ",le=\"" + bound + "\"} " + cumulative + "\n");
+        }
+        cumulative += histogram.getOverflow();
+        writer.write(name + "_bucket{" + labels + ",le=\"+Inf\"} " + cumulative + "\n");
+        writer.write(name + "_sum{" + labels + "} " + (histogram.getSum() / 1e9) + "\n");
+        writer.write(name + "_count{" + labels + "} " + cumulative + "\n");
+    }
+
+    /**
+     * Byte counts for frames compressed in one direction.
+     *
+     */
+    private static class Traffic {
+
+        final private AtomicLong frames = new AtomicLong();
+        final private AtomicLong rawBytes = new AtomicLong();
+        final private AtomicLong compressedBytes = new AtomicLong();
+
+        public void record(long raw, long compressed) {
+            frames.incrementAndGet();
+            rawBytes.addAndGet(raw);
+            compressedBytes.addAndGet(compressed);
+        }
+
+        public long get(int index) {
+            switch (index) {
+                case 0:
+                    return frames.get();
+                case 1:
+                    return rawBytes.get();
+                default:
+                    return compressedBytes.get();
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            long raw = rawBytes.get();
+            long compressed = compressedBytes.get();
+            LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+            map.put("frames", frames.get());
+            map.put("raw_bytes", raw);
+            map.put("compressed_bytes", compressed);
+            map.put("ratio", compressed == 0 ? 0.0 : (double) raw / compressed);
+            return map;
+        }
+
+    }
+
+    private static <V> V putIfAbsent(ConcurrentMap<String, V> map, String key, V value) {
+        V existing = map.putIfAbsent(key, value);
+        return existing == null ? value : existing;
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.zerograph;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.impl.core.SchemaLock;
+import org.neo4j.kernel.impl.transaction.LockManager;
+import org.zerograph.response.status4xx.Conflict;
+import org.zerograph.response.status4xx.RequestTimeout;
+import org.zerograph.response.status5xx.ServerError;
+
+import javax.transaction.InvalidTransactionException;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detaches transactions from the current thread and reattaches them,
+ * through the transaction manager of a database. This lets a worker put
+ * its batch transaction aside to run work that needs a transaction of its
+ * own, such as a cursor or a schema change, and then carry on with the
+ * batch.
+ *
+ */
+public class Transactions {
+
+    final private static long LOCK_RETRY_INTERVAL = 10;  // milliseconds
+
+    final private TransactionManager txManager;
+    final private LockManager lockManager;
+
+    public Transactions(GraphDatabaseService database) {
+        GraphDatabaseAPI api = (GraphDatabaseAPI) database;
+        this.txManager = api.getDependencyResolver().resolveDependency(TransactionManager.class);
+        this.lockManager = api.getDependencyResolver().resolveDependency(LockManager.class);
+    }
+
+    /**
+     * Detach the transaction of the current thread, returning it, or
+     * null if the thread has none.
+     *
+     */
+    public Transaction suspend() throws ServerError {
+        try {
+            return txManager.suspend();
+        } catch (SystemException ex) {
+            throw new ServerError("Cannot suspend transaction: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Attach a transaction to the current thread, which must have none.
+     * Nothing is done if the transaction is null.
+     *
+     */
+    public void resume(Transaction tx) throws ServerError {
+        if (tx != null) {
+            try {
+                txManager.resume(tx);
+            } catch (InvalidTransactionException | SystemException ex) {
+                throw new ServerError("Cannot resume transaction: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Roll back a detached transaction without attaching it to the
+     * current thread, such as one that can no longer be resumed.
+     *
+     */
+    public void rollback(Transaction tx) throws ServerError {
+        if (tx != null) {
+            try {
+                tx.rollback();
+            } catch (IllegalStateException | SystemException ex) {
+                throw new ServerError("Cannot roll back transaction: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Take the schema write lock for the transaction of the current
+     * thread, returning that transaction, which must later be passed to
+     * unlockSchema. Neo4j would otherwise wait for the lock without limit
+     * and, as every transaction that has written data holds a read lock
+     * on the schema until it ends, a schema change made while the batch
+     * transaction is suspended would wait forever if that batch had
+     * already written data. The lock is instead tried repeatedly, with
+     * the batch checked in between, and 409 Conflict is returned if it
+     * is not free within the given number of milliseconds.
+     *
+     */
+    public Transaction lockSchema(Batch batch, long timeout) throws Conflict, RequestTimeout, ServerError {
+        Transaction tx;
+        try {
+            tx = txManager.getTransaction();
+        } catch (SystemException ex) {
+            throw new ServerError("Cannot find transaction: " + ex.getMessage());
+        }
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (!lockManager.tryWriteLock(new SchemaLock(), tx)) {
+            batch.check();
+            long remaining = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+            if (remaining <= 0) {
+                throw new Conflict("Schema is locked by another transaction, or by data already written in this batch");
+            }
+            try {
+                Thread.sleep(Math.min(remaining, LOCK_RETRY_INTERVAL));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RequestTimeout("Interrupted while waiting for schema lock");
+            }
+        }
+        return tx;
+    }
+
+    /**
+     * Release the schema write lock taken by lockSchema, once the
+     * transaction holding it has finished with it.
+     *
+     */
+    public void unlockSchema(Transaction tx) {
+        lockManager.releaseWriteLock(new SchemaLock(), tx);
+    }
+
+}
@@ -2,28 +2,44 @@ package org.zerograph;
 
 import org.zerograph.api.ResponseInterface;
 import org.zerograph.api.ZerographInterface;
-import org.zerograph.response.status4xx.Status4xx;
-import org.zerograph.util.Data;
+import org.zerograph.response.status5xx.ServerError;
+import org.zerograph.util.Compression;
 import org.zeromq.ZMQ;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.Inflater;
 
-public abstract class Worker<T extends Service> implements Runnable {
+/**
+ * A Worker executes request batches on behalf of a Service. Workers are
+ * pooled by the service's Dispatcher and each batch is handled on
+ * whichever executor thread picks it up. Responses are pushed back to the
+ * dispatcher, prefixed by the envelope of the client that sent the batch.
+ *
+ */
+public abstract class Worker<T extends Service> {
 
     final private ZerographInterface zerograph;
     final private UUID uuid;
     final private T service;
     final private ZMQ.Socket socket;
+    final private ResponseWriter writer;
+    final private Inflater inflater;
+
+    private boolean broken;
 
     public Worker(ZerographInterface zerograph, T service) {
         this.zerograph = zerograph;
         this.uuid = UUID.randomUUID();
         this.service = service;
-        this.socket = service.getContext().socket(ZMQ.REP);
+        this.socket = service.getContext().socket(ZMQ.PUSH);
+        this.socket.setLinger(0);
         this.socket.connect(this.service.getInternalAddress());
+        this.writer = new ResponseWriter(this.socket, service.getStats(), Environment.getInstance().getFrameSize());
+        this.inflater = Compression.createInflater();
     }
 
     public ZerographInterface getZerograph() {
@@ -42,35 +58,100 @@ public abstract class Worker<T extends Service> implements Runnable {
         return this.socket;
     }
 
-    public List<Request> receiveRequestBatch() throws Status4xx {
-        ArrayList<Request> requests = new ArrayList<>();
-        boolean more = true;
-        while (more) {
-            String frame = socket.recvStr();
-            for (String line : frame.split("\\r|\\n|\\r\\n")) {
-                if (line.length() > 0) {
-                    System.out.println("<<< " + line);
-                    requests.add(new Request(line));
+    public ResponseWriter getWriter() {
+        return this.writer;
+    }
+
+    /**
+     * Handle a single batch of requests, sending all responses back along
+     * the given envelope. If handling fails part way through the response
+     * message, that message is ended with a 500 response so that the
+     * socket can be reused; if even that cannot be sent, the worker is
+     * marked as broken and should be closed rather than pooled.
+     *
+     */
+    public void handle(List<byte[]> envelope, List<byte[]> frames) {
+        handle(envelope, frames, null);
+    }
+
+    /**
+     * Handle a batch whose frames were spilled to a spool file, if the
+     * spool is not null, or are otherwise held in the list given. A batch that could not be spooled in full is
+     * answered with a 500 response and nothing in it is executed.
+     *
+     */
+    public void handle(List<byte[]> envelope, List<byte[]> frames, Spool spool) {
+        writer.begin(service.getSessions().open(Sessions.key(envelope)));
+        try {
+            for (byte[] part : envelope) {
+                socket.sendMore(part);
+            }
+            service.getStats().countBatch();
+            List<ByteBuffer> buffers;
+            if (spool == null) {
+                buffers = wrap(frames);
+            } else {
+                try {
+                    buffers = spool.map();
+                } catch (IOException ex) {
+                    Log.warn("Cannot spool batch: ", ex.getMessage());
+                    send(new ServerError("Cannot spool batch: " + ex.getMessage()));
+                    return;
                 }
             }
-            more = socket.hasReceiveMore();
+            // requests are parsed as they are executed
+            RequestReader requests = new RequestReader(buffers, service.getStats(),
+                    inflater, Environment.getInstance().getInflateLimit());
+            try {
+                handle(requests);
+            } finally {
+                requests.close();
+            }
+        } finally {
+            if (writer.isOpen()) {
+                finish();
+            }
         }
-        return requests;
     }
 
-    public boolean send(ResponseInterface response) {
-        StringBuilder builder = new StringBuilder(Integer.toString(response.getStatus()));
-        for (Object datum : response.getData()) {
-            builder.append('\t');
-            try {
-                builder.append(Data.encode(datum));
-            } catch (IOException ex) {
-                builder.append('?');  // TODO
-            }
+    private void finish() {
+        try {
+            writer.send(new ServerError("Batch aborted"));
+        } catch (RuntimeException ex) {
+            Log.warn("Cannot end response in worker " + uuid + ": ", ex.getMessage());
         }
-        String string = builder.toString();
-        System.out.println(">>> " + string);
-        return socket.send(string);
+        if (writer.isOpen()) {
+            broken = true;
+        }
+    }
+
+    /**
+     * Return true if this worker's socket was left part way through a
+     * multipart message and cannot be reused.
+     *
+     */
+    public boolean isBroken() {
+        return this.broken;
+    }
+
+    public abstract void handle(RequestReader requests);
+
+    private static List<ByteBuffer> wrap(List<byte[]> frames) {
+        ArrayList<ByteBuffer> buffers = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) {
+            buffers.add(ByteBuffer.wrap(frame));
+        }
+        return buffers;
+    }
+
+    public boolean send(ResponseInterface response) {
+        return writer.send(response);
+    }
+
+    public void close() {
+        writer.close();
+        socket.close();
+        inflater.end();
     }
 
 }
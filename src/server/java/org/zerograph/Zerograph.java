@@ -2,6 +2,9 @@ package org.zerograph;
 
 import org.zerograph.api.ZerographInterface;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * The Zerograph is the root control service for the entire server. It is
  * not backed by a database itself but provides facilities to start, stop,
@@ -26,10 +29,45 @@ public class Zerograph extends Service implements ZerographInterface {
         return this;
     }
 
-    public void startWorkers(int count) {
-        for(int i = 0; i < count; i++) {
-            new Thread(new ZerographWorker(this)).start();
+    public Worker createWorker() {
+        return new ZerographWorker(this);
+    }
+
+    /**
+     * Start this service, together with the periodic metrics file if
+     * one is configured.
+     *
+     */
+    @Override
+    public void start() {
+        MetricsFile.schedule(this, environment.getMetricsInterval());
+        super.start();
+    }
+
+    /**
+     * Return the stats of this service and of every running graph,
+     * keyed by port.
+     *
+     */
+    public Map<Integer, Stats> getAllStats() {
+        LinkedHashMap<Integer, Stats> stats = new LinkedHashMap<>();
+        stats.put(getPort(), getStats());
+        for (Map.Entry<Integer, Graph> graph : Graph.getInstances().entrySet()) {
+            stats.put(graph.getKey(), graph.getValue().getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Return the query engine of every running graph, keyed by port.
+     *
+     */
+    public Map<Integer, QueryEngine> getAllEngines() {
+        LinkedHashMap<Integer, QueryEngine> engines = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Graph> graph : Graph.getInstances().entrySet()) {
+            engines.put(graph.getKey(), graph.getValue().getEngine());
         }
+        return engines;
     }
 
     public static void main(String[] args) {
@@ -35,6 +35,8 @@ public interface RequestInterface {
 
     public Map getMapData(int index, Map defaultValue);
 
-    public void resolvePointers(List<PropertyContainer> values);
+    public void applyMapData(int index, PropertyContainer entity);
+
+    public void resolvePointers(List<?> values);
 
 }
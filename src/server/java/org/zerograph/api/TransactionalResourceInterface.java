@@ -1,22 +1,28 @@
 package org.zerograph.api;
 
-import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Transaction;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status5xx.Status5xx;
 
+/**
+ * A resource executed within a batch transaction. Each method returns
+ * the output value to which pointers in later requests of the same batch
+ * resolve, usually the entity or list of entities affected.
+ * Implementations may narrow the return type.
+ *
+ */
 public interface TransactionalResourceInterface {
 
     public String getName();
 
-    public PropertyContainer get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
+    public Object get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
 
-    public PropertyContainer put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
+    public Object put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
 
-    public PropertyContainer patch(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
+    public Object patch(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
 
-    public PropertyContainer post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
+    public Object post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
 
-    public PropertyContainer delete(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
+    public Object delete(RequestInterface request, Transaction tx) throws Status4xx, Status5xx;
 
 }
@@ -1,18 +1,33 @@
 package org.zerograph.resource;
 
 import org.neo4j.cypher.CypherException;
-import org.neo4j.cypher.javacompat.ExecutionEngine;
 import org.neo4j.cypher.javacompat.ExecutionResult;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.PathExpanders;
 import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.zerograph.Batch;
+import org.zerograph.Cursor;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
 import org.zerograph.api.RequestInterface;
 import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status1xx.Continue;
+import org.zerograph.response.status4xx.BadRequest;
 import org.zerograph.response.status4xx.MethodNotAllowed;
+import org.zerograph.response.status4xx.RequestTimeout;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status5xx.Status5xx;
-import org.zeromq.ZMQ;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,19 +36,29 @@ import java.util.Map;
  */
 public abstract class AbstractTransactionalResource extends AbstractResource {
 
+    final public static String PAGE = "page";
+    final public static String TIMEOUT = "timeout";
+    final public static String DIRECTION = "direction";
+    final public static String TYPES = "types";
+    final public static String LIMIT = "limit";
+
     final private GraphDatabaseService database;
-    final private ExecutionEngine engine;
+    final private QueryEngine engine;
 
-    public AbstractTransactionalResource(ZerographInterface zerograph, ZMQ.Socket socket, GraphDatabaseService database) {
-        super(zerograph, socket);
+    public AbstractTransactionalResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer);
         this.database = database;
-        this.engine = new ExecutionEngine(database);
+        this.engine = engine;
     }
 
     public GraphDatabaseService database() {
         return this.database;
     }
 
+    public QueryEngine engine() {
+        return this.engine;
+    }
+
     public ExecutionResult execute(String query) throws CypherException {
         return this.engine.execute(query);
     }
@@ -46,23 +71,206 @@ public abstract class AbstractTransactionalResource extends AbstractResource {
         return this.engine.profile(query, params);
     }
 
-    public PropertyContainer get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+    /**
+     * Send each row of a Cypher result as a Continue response. If the
+     * first value of the first row is an entity, this is returned so that
+     * it may be referenced by later requests in the batch.
+     *
+     */
+    public PropertyContainer sendRows(ExecutionResult result, List<String> columns) throws RequestTimeout {
+        Batch batch = getWriter().getBatch();
+        PropertyContainer firstEntity = null;
+        int rowNumber = 0;
+        for (Map<String, Object> row : result) {
+            batch.check();
+            Object firstValue = sendRow(row, columns);
+            if (rowNumber == 0 && firstValue instanceof PropertyContainer) {
+                firstEntity = (PropertyContainer)firstValue;
+            }
+            rowNumber += 1;
+        }
+        return firstEntity;
+    }
+
+    /**
+     * Send up to a given number of rows from a cursor as Continue
+     * responses, returning the number sent.
+     *
+     */
+    public int sendPage(Cursor cursor, int count) throws RequestTimeout {
+        Batch batch = getWriter().getBatch();
+        List<String> columns = cursor.getColumns();
+        int sent = 0;
+        while (sent < count && cursor.hasNext()) {
+            batch.check();
+            Object row = cursor.next();
+            if (columns == null) {
+                send(new Continue(row));
+            } else {
+                sendRow((Map<String, Object>) row, columns);
+            }
+            sent += 1;
+        }
+        return sent;
+    }
+
+    /**
+     * Return the summary sent at the end of a page from a cursor: the
+     * number of rows sent and the cursor id, or null once the cursor has
+     * been closed.
+     *
+     */
+    public Map<String, Object> pageStats(Cursor cursor, int rows, boolean more) {
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rows", rows);
+        stats.put("cursor", more ? cursor.getId() : null);
+        return stats;
+    }
+
+    /**
+     * Read a non-negative integer option from an options map term of a
+     * request, returning a default value if the option is not given.
+     *
+     */
+    public int getIntegerOption(RequestInterface request, int index, String option, int defaultValue) throws BadRequest {
+        Map options = request.getMapData(index, null);
+        if (options == null || options.get(option) == null) {
+            return defaultValue;
+        }
+        Object value = options.get(option);
+        if (value instanceof Integer && (Integer) value >= 0) {
+            return (Integer) value;
+        } else {
+            throw new BadRequest("Option " + option + " must be a non-negative integer");
+        }
+    }
+
+    /**
+     * Read a boolean option from an options map term of a request,
+     * returning a default value if the option is not given.
+     *
+     */
+    public boolean getBooleanOption(RequestInterface request, int index, String option, boolean defaultValue) throws BadRequest {
+        Map options = request.getMapData(index, null);
+        if (options == null || options.get(option) == null) {
+            return defaultValue;
+        }
+        Object value = options.get(option);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else {
+            throw new BadRequest("Option " + option + " must be true or false");
+        }
+    }
+
+    /**
+     * Read a string option from an options map term of a request,
+     * returning a default value if the option is not given.
+     *
+     */
+    public String getStringOption(RequestInterface request, int index, String option, String defaultValue) throws BadRequest {
+        Map options = request.getMapData(index, null);
+        if (options == null || options.get(option) == null) {
+            return defaultValue;
+        }
+        Object value = options.get(option);
+        if (value instanceof String) {
+            return (String) value;
+        } else {
+            throw new BadRequest("Option " + option + " must be a string");
+        }
+    }
+
+    /**
+     * Build the expander that steps from node to node along relationships
+     * for a traversal or path search, from the "direction" option ("out",
+     * "in" or "both", the default) and "types" option (a list of
+     * relationship type names, all types if not given) of an options map
+     * term of a request.
+     *
+     */
+    public PathExpander getExpander(RequestInterface request, int index) throws BadRequest {
+        Direction direction;
+        String directionName = getStringOption(request, index, DIRECTION, "both");
+        switch (directionName.toLowerCase()) {
+            case "out":
+            case "outgoing":
+                direction = Direction.OUTGOING;
+                break;
+            case "in":
+            case "incoming":
+                direction = Direction.INCOMING;
+                break;
+            case "both":
+                direction = Direction.BOTH;
+                break;
+            default:
+                throw new BadRequest("Option " + DIRECTION + " must be out, in or both");
+        }
+        Map options = request.getMapData(index, null);
+        Object typeNames = options == null ? null : options.get(TYPES);
+        if (typeNames == null) {
+            return PathExpanders.forDirection(direction);
+        } else if (!(typeNames instanceof List) || ((List) typeNames).isEmpty()) {
+            throw new BadRequest("Option " + TYPES + " must be a list of relationship types");
+        }
+        List names = (List) typeNames;
+        RelationshipType[] types = new RelationshipType[names.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = DynamicRelationshipType.withName(String.valueOf(names.get(i)));
+        }
+        if (types.length == 1) {
+            return PathExpanders.forTypeAndDirection(types[0], direction);
+        }
+        Object[] more = new Object[2 * (types.length - 2)];
+        for (int i = 2; i < types.length; i++) {
+            more[2 * (i - 2)] = types[i];
+            more[2 * (i - 2) + 1] = direction;
+        }
+        return PathExpanders.forTypesAndDirections(types[0], direction, types[1], direction, more);
+    }
+
+    /**
+     * Return the schema index on a single property key of a label, or
+     * null if there is none.
+     *
+     */
+    public IndexDefinition findIndex(Label label, String key) {
+        for (IndexDefinition index : database.schema().getIndexes(label)) {
+            Iterator<String> keys = index.getPropertyKeys().iterator();
+            if (keys.hasNext() && keys.next().equals(key) && !keys.hasNext()) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    private Object sendRow(Map<String, Object> row, List<String> columns) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.get(columns.get(i));
+        }
+        send(new Continue(values));
+        return values.length > 0 ? values[0] : null;
+    }
+
+    public Object get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         throw new MethodNotAllowed(request.getMethod());
     }
 
-    public PropertyContainer put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+    public Object put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         throw new MethodNotAllowed(request.getMethod());
     }
 
-    public PropertyContainer patch(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+    public Object patch(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         throw new MethodNotAllowed(request.getMethod());
     }
 
-    public PropertyContainer post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+    public Object post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         throw new MethodNotAllowed(request.getMethod());
     }
 
-    public PropertyContainer delete(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+    public Object delete(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         throw new MethodNotAllowed(request.getMethod());
     }
 
@@ -0,0 +1,96 @@
+package org.zerograph.resource;
+
+import org.zerograph.Graph;
+import org.zerograph.ResponseWriter;
+import org.zerograph.Zerograph;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.ResourceInterface;
+import org.zerograph.response.status2xx.NoContent;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.NotFound;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request batches running on graph workers. Each batch is described by
+ * its id, the worker executing it, its start time in milliseconds since
+ * the epoch, the milliseconds elapsed and the text of the query it is
+ * running, if any.
+ *
+ */
+public class BatchResource extends AbstractResource implements ResourceInterface {
+
+    final private static String NAME = "batch";
+
+    public BatchResource(Zerograph zerograph, ResponseWriter writer) {
+        super(zerograph, writer);
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * GET batch [{port}]
+     *
+     * List the batches running on the graph on the given port or, if no
+     * port is given, on every running graph, keyed by port.
+     *
+     * @param request
+     */
+    @Override
+    public void get(RequestInterface request) throws Status4xx, Status5xx {
+        Map<Integer, Graph> graphs = getGraphs();
+        Object port = request.getData(0, null);
+        if (port == null) {
+            LinkedHashMap<String, Object> batches = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Graph> graph : graphs.entrySet()) {
+                batches.put(graph.getKey().toString(), graph.getValue().getBatches().toList());
+            }
+            send(new OK(batches));
+        } else {
+            send(new OK(getGraph(graphs, request.getIntegerData(0)).getBatches().toList()));
+        }
+    }
+
+    /**
+     * DELETE batch {port} {batch_id}
+     *
+     * Cancel a running batch. The batch stops before its next request or
+     * result row, fails with a 408 response and its transaction is
+     * rolled back.
+     *
+     * @param request
+     */
+    @Override
+    public void delete(RequestInterface request) throws Status4xx, Status5xx {
+        int port = request.getIntegerData(0);
+        int id = request.getIntegerData(1);
+        if (getGraph(getGraphs(), port).getBatches().cancel(id)) {
+            send(new NoContent());
+        } else {
+            throw new NotFound("No batch " + id + " running on port " + port);
+        }
+    }
+
+    /**
+     * Return the graphs whose batches may be listed and cancelled, which
+     * are the running graph services, keyed by port.
+     *
+     */
+    protected Map<Integer, Graph> getGraphs() {
+        return Graph.getInstances();
+    }
+
+    private Graph getGraph(Map<Integer, Graph> graphs, int port) throws NotFound {
+        Graph graph = graphs.get(port);
+        if (graph == null) {
+            throw new NotFound("No graph on port " + port);
+        }
+        return graph;
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.zerograph.resource;
+
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.traversal.BranchState;
+import org.zerograph.Batch;
+import org.zerograph.response.status4xx.RequestTimeout;
+
+import java.util.Collections;
+
+/**
+ * Limits the depth of a search and checks the batch at every expansion,
+ * so that traversals and path finding algorithms, which would otherwise
+ * run until they next yield a path or to completion, honour the depth
+ * limit and stop once the batch is cancelled or times out. A failed
+ * check is carried out of the search as a Stopped exception, from which
+ * the caller should rethrow its cause.
+ *
+ */
+class BoundedExpander implements PathExpander {
+
+    final private PathExpander expander;
+    final private int maxDepth;
+    final private Batch batch;
+
+    public BoundedExpander(PathExpander expander, int maxDepth, Batch batch) {
+        this.expander = expander;
+        this.maxDepth = maxDepth;
+        this.batch = batch;
+    }
+
+    @Override
+    public Iterable<Relationship> expand(Path path, BranchState state) {
+        try {
+            batch.check();
+        } catch (RequestTimeout ex) {
+            throw new Stopped(ex);
+        }
+        if (path.length() >= maxDepth) {
+            return Collections.emptyList();
+        } else {
+            return expander.expand(path, state);
+        }
+    }
+
+    @Override
+    public PathExpander reverse() {
+        return new BoundedExpander(expander.reverse(), maxDepth, batch);
+    }
+
+    /**
+     * Carries a failed batch check out of a search, through the
+     * traversal framework or graph algorithm, which cannot throw checked
+     * exceptions.
+     *
+     */
+    static class Stopped extends RuntimeException {
+
+        public Stopped(RequestTimeout cause) {
+            super(cause);
+        }
+
+        @Override
+        public RequestTimeout getCause() {
+            return (RequestTimeout) super.getCause();
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.zerograph.resource;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Batch;
+import org.zerograph.Cursor;
+import org.zerograph.Cursors;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.TransactionalResourceInterface;
+import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status2xx.NoContent;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.NotFound;
+import org.zerograph.response.status4xx.RequestTimeout;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+/**
+ * Pages of results held open by paged cypher and nodeset requests. Each
+ * page is sent as one Continue response per row, followed by a summary
+ * giving the number of rows sent and the cursor id, which is null once
+ * the result is exhausted and the cursor closed:
+ *
+ *   {"rows":100,"cursor":7}
+ *
+ */
+public class CursorResource extends AbstractTransactionalResource implements TransactionalResourceInterface {
+
+    final private static String NAME = "cursor";
+
+    final private Cursors cursors;
+
+    public CursorResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine, Cursors cursors) {
+        super(zerograph, writer, database, engine);
+        this.cursors = cursors;
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * GET cursor {cursor_id} [{count}]
+     *
+     * Fetch the next page of rows from a cursor, of the given size or of
+     * the page size with which the cursor was opened. Each page must be
+     * fetched within the query timeout of the graph, failing with a 408
+     * response otherwise, after which the cursor is closed.
+     */
+    @Override
+    public PropertyContainer get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        int id = request.getIntegerData(0);
+        int count = request.getIntegerData(1, 0);
+        if (count < 0) {
+            throw new BadRequest("Page size must not be negative");
+        }
+        Cursor cursor = cursors.acquire(id);
+        Batch batch = getWriter().getBatch();
+        batch.startQuery("GET cursor " + id);
+        int rows;
+        try {
+            rows = sendPage(cursor, count == 0 ? cursor.getPageSize() : count);
+        } catch (RuntimeException | RequestTimeout ex) {
+            cursors.abort(cursor);
+            throw ex;
+        } finally {
+            batch.endQuery();
+        }
+        boolean more = cursors.release(cursor);
+        send(new OK(pageStats(cursor, rows, more)));
+        return null;
+    }
+
+    /**
+     * DELETE cursor {cursor_id}
+     *
+     * Close a cursor before the end of its result, rolling back its
+     * transaction.
+     */
+    @Override
+    public PropertyContainer delete(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        int id = request.getIntegerData(0);
+        if (cursors.close(id)) {
+            send(new NoContent());
+            return null;
+        } else {
+            throw new NotFound("Cursor " + id + " not found");
+        }
+    }
+
+}
@@ -6,6 +6,11 @@ import org.neo4j.cypher.javacompat.ExecutionResult;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Transaction;
+import org.zerograph.Batch;
+import org.zerograph.Cursor;
+import org.zerograph.Cursors;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
 import org.zerograph.api.RequestInterface;
 import org.zerograph.api.TransactionalResourceInterface;
 import org.zerograph.api.ZerographInterface;
@@ -15,9 +20,7 @@ import org.zerograph.response.status4xx.BadRequest;
 import org.zerograph.response.status4xx.NotFound;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status5xx.Status5xx;
-import org.zeromq.ZMQ;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -25,8 +28,11 @@ public class CypherResource extends AbstractTransactionalResource implements Tra
 
     final private static String NAME = "cypher";
 
-    public CypherResource(ZerographInterface zerograph, ZMQ.Socket socket, GraphDatabaseService database) {
-        super(zerograph, socket, database);
+    final private Cursors cursors;
+
+    public CypherResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine, Cursors cursors) {
+        super(zerograph, writer, database, engine);
+        this.cursors = cursors;
     }
 
     public String getName() {
@@ -34,33 +40,46 @@ public class CypherResource extends AbstractTransactionalResource implements Tra
     }
 
     /**
-     * POST cypher {query} [{params}]
+     * POST cypher {query} [{params}] [{options}]
+     *
+     * Execute a query, sending the column names followed by each row of
+     * the result. If a page size is given in the options, as in
+     * {"page":100}, only that many rows are sent and the remainder are
+     * held in a cursor, from which they can be fetched by later batches
+     * (see CursorResource). A cursor query runs in a transaction of its
+     * own, so it does not see changes made earlier in the same batch,
+     * and a paged result has no output value for pointers to refer to.
+     * As that transaction would be rolled back if the cursor were closed
+     * before the end of the result, a query that writes to the graph
+     * cannot be paged; it is rolled back and a 400 response is sent.
+     *
+     * A timeout in milliseconds may also be given, as in
+     * {"timeout":5000}, in place of the default for the graph. The query
+     * fails with a 408 response if it is still running at that time, or
+     * if the batch is cancelled through the control service.
      *
      * @param request
      */
     @Override
     public PropertyContainer post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         String query = request.getStringData(0);
+        Map params = request.getMapData(1, null);
+        int pageSize = getIntegerOption(request, 2, PAGE, 0);
+        int timeout = getIntegerOption(request, 2, TIMEOUT, -1);
+        Batch batch = getWriter().getBatch();
+        if (timeout < 0) {
+            batch.startQuery(query);
+        } else {
+            batch.startQuery(query, timeout);
+        }
         try {
-            ExecutionResult result = execute(query);
+            if (pageSize > 0) {
+                return post(query, params, pageSize);
+            }
+            ExecutionResult result = run(query, params);
             List<String> columns = result.columns();
             send(new Continue(columns.toArray(new Object[columns.size()])));
-            PropertyContainer firstEntity = null;
-            int rowNumber = 0;
-            for (Map<String, Object> row : result) {
-                ArrayList<Object> values = new ArrayList<>();
-                for (String column : columns) {
-                    values.add(row.get(column));
-                }
-                send(new Continue(values.toArray(new Object[values.size()])));
-                if (rowNumber == 0) {
-                    Object firstValue = values.get(0);
-                    if (firstValue instanceof PropertyContainer) {
-                        firstEntity = (PropertyContainer)firstValue;
-                    }
-                }
-                rowNumber += 1;
-            }
+            PropertyContainer firstEntity = sendRows(result, columns);
             send(new OK());
             return firstEntity;
         } catch (EntityNotFoundException ex) {
@@ -68,6 +87,37 @@ public class CypherResource extends AbstractTransactionalResource implements Tra
         } catch (CypherException ex) {
             //ex.printStackTrace(System.err);
             throw new BadRequest(ex.getMessage());
+        } finally {
+            batch.endQuery();
+        }
+    }
+
+    private PropertyContainer post(String query, Map params, int pageSize) throws Status4xx, Status5xx {
+        Cursor cursor = cursors.open(pageSize);
+        int rows;
+        try {
+            ExecutionResult result = run(query, params);
+            if (result.getQueryStatistics().containsUpdates()) {
+                throw new BadRequest("Cannot page the result of a query that writes");
+            }
+            List<String> columns = result.columns();
+            cursor.open(columns, result.iterator());
+            send(new Continue(columns.toArray(new Object[columns.size()])));
+            rows = sendPage(cursor, pageSize);
+        } catch (RuntimeException | Status4xx ex) {
+            cursors.abort(cursor);
+            throw ex;
+        }
+        boolean more = cursors.release(cursor);
+        send(new OK(pageStats(cursor, rows, more)));
+        return null;
+    }
+
+    private ExecutionResult run(String query, Map params) throws CypherException {
+        if (params == null) {
+            return execute(query);
+        } else {
+            return execute(query, (Map<String, Object>)params);
         }
     }
 
@@ -2,6 +2,7 @@ package org.zerograph.resource;
 
 import org.zerograph.Graph;
 import org.zerograph.GraphDirectory;
+import org.zerograph.ResponseWriter;
 import org.zerograph.Zerograph;
 import org.zerograph.api.RequestInterface;
 import org.zerograph.api.ResourceInterface;
@@ -13,14 +14,13 @@ import org.zerograph.response.status4xx.Conflict;
 import org.zerograph.response.status4xx.NotFound;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status5xx.Status5xx;
-import org.zeromq.ZMQ;
 
 public class GraphResource extends AbstractResource implements ResourceInterface {
 
     final private static String NAME = "graph";
 
-    public GraphResource(Zerograph zerograph, ZMQ.Socket socket) {
-        super(zerograph, socket);
+    public GraphResource(Zerograph zerograph, ResponseWriter writer) {
+        super(zerograph, writer);
     }
 
     public String getName() {
@@ -0,0 +1,285 @@
+package org.zerograph.resource;
+
+import org.neo4j.graphdb.ConstraintViolationException;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.Schema;
+import org.zerograph.Batch;
+import org.zerograph.Environment;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.Transactions;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.TransactionalResourceInterface;
+import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status2xx.Created;
+import org.zerograph.response.status2xx.NoContent;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.Conflict;
+import org.zerograph.response.status4xx.NotFound;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schema indexes and uniqueness constraints on a single property key of
+ * a label. Each index is described by its label, keys, whether it backs
+ * a uniqueness constraint and its state, which is "populating" while
+ * existing nodes are being indexed, then "online", or "failed":
+ *
+ *   {"label":"Person","keys":["name"],"unique":false,"state":"online"}
+ *
+ * Neo4j does not allow schema changes in a transaction that also changes
+ * data, so each change is made and committed in a transaction of its
+ * own, separate from that of the batch. Changes are therefore not rolled
+ * back if the batch fails. Indexes are also read in transactions of
+ * their own, as a batch transaction that has read the schema holds a
+ * lock on it until the batch ends, which a later change would wait for.
+ * A change that still cannot take the schema lock within
+ * SCHEMA_LOCK_TIMEOUT milliseconds, as when data has already been
+ * written in the same batch, fails with 409 Conflict.
+ *
+ */
+public class IndexResource extends AbstractTransactionalResource implements TransactionalResourceInterface {
+
+    final private static String NAME = "index";
+
+    final public static String UNIQUE = "unique";
+    final public static String WAIT = "wait";
+
+    final public static int DEFAULT_WAIT_LIMIT = 60000;  // milliseconds
+
+    final private static long SCHEMA_LOCK_TIMEOUT = 2000;  // milliseconds
+    final private static long WAIT_SLICE = 100;  // milliseconds
+
+    final private Transactions transactions;
+
+    public IndexResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
+        this.transactions = new Transactions(database);
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * GET index [{label} [{key} [{wait}]]]
+     *
+     * List all indexes, or those of a label, or describe the index on a
+     * label and key. If a number of milliseconds to wait is given, the
+     * index is described once it is online or that time has passed,
+     * whichever is sooner. The wait is cut short by the server's
+     * ZG_INDEX_WAIT_LIMIT and by the query timeout.
+     */
+    @Override
+    public PropertyContainer get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        String labelName = request.getStringData(0, null);
+        String key = request.getStringData(1, null);
+        if (key == null) {
+            ArrayList<Map<String, Object>> descriptions = new ArrayList<>();
+            javax.transaction.Transaction outer = transactions.suspend();
+            try (Transaction schemaTx = database().beginTx()) {
+                Schema schema = database().schema();
+                Iterable<IndexDefinition> indexes;
+                if (labelName == null) {
+                    indexes = schema.getIndexes();
+                } else {
+                    indexes = schema.getIndexes(DynamicLabel.label(labelName));
+                }
+                for (IndexDefinition index : indexes) {
+                    descriptions.add(describe(schema, index));
+                }
+                schemaTx.success();
+            } finally {
+                transactions.resume(outer);
+            }
+            send(new OK(descriptions));
+        } else if (labelName == null) {
+            throw new BadRequest("An index key must be given with a label");
+        } else {
+            Label label = DynamicLabel.label(labelName);
+            Batch batch = getWriter().getBatch();
+            javax.transaction.Transaction outer = transactions.suspend();
+            batch.startQuery("GET index " + labelName + "." + key);
+            try {
+                send(new OK(await(label, key, request.getIntegerData(2, 0), batch)));
+            } finally {
+                batch.endQuery();
+                transactions.resume(outer);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * PUT index {label} {key} [{options}]
+     *
+     * Create an index on a label and key, or a uniqueness constraint if
+     * the options include {"unique":true}. Population of an index over
+     * existing nodes continues in the background unless a number of
+     * milliseconds to wait for it is given, as in {"wait":10000}, which
+     * is limited as for GET. If the index already exists, it is described
+     * without being changed.
+     */
+    @Override
+    public PropertyContainer put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Label label = DynamicLabel.label(request.getStringData(0));
+        String key = request.getStringData(1);
+        boolean unique = getBooleanOption(request, 2, UNIQUE, false);
+        int wait = getIntegerOption(request, 2, WAIT, 0);
+        Batch batch = getWriter().getBatch();
+        javax.transaction.Transaction outer = transactions.suspend();
+        batch.startQuery("PUT index " + label.name() + "." + key);
+        try {
+            boolean created = false;
+            try (Transaction schemaTx = database().beginTx()) {
+                IndexDefinition index = findIndex(label, key);
+                if (index == null) {
+                    Schema schema = database().schema();
+                    javax.transaction.Transaction locked = transactions.lockSchema(batch, SCHEMA_LOCK_TIMEOUT);
+                    try {
+                        if (unique) {
+                            schema.constraintFor(label).assertPropertyIsUnique(key).create();
+                        } else {
+                            schema.indexFor(label).on(key).create();
+                        }
+                    } finally {
+                        transactions.unlockSchema(locked);
+                    }
+                    created = true;
+                } else if (index.isConstraintIndex() != unique) {
+                    throw new Conflict("An index with a different uniqueness already exists on " + label.name() + "." + key);
+                }
+                schemaTx.success();
+            } catch (ConstraintViolationException | TransactionFailureException ex) {
+                throw new Conflict(ex.getMessage());
+            }
+            Map<String, Object> description = await(label, key, wait, batch);
+            if (created) {
+                send(new Created(description));
+            } else {
+                send(new OK(description));
+            }
+        } finally {
+            batch.endQuery();
+            transactions.resume(outer);
+        }
+        return null;
+    }
+
+    /**
+     * DELETE index {label} {key}
+     *
+     * Drop the index or uniqueness constraint on a label and key.
+     */
+    @Override
+    public PropertyContainer delete(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Label label = DynamicLabel.label(request.getStringData(0));
+        String key = request.getStringData(1);
+        Schema schema = database().schema();
+        Batch batch = getWriter().getBatch();
+        javax.transaction.Transaction outer = transactions.suspend();
+        try (Transaction schemaTx = database().beginTx()) {
+            ConstraintDefinition constraint = findConstraint(schema, label, key);
+            IndexDefinition index = constraint == null ? getIndex(label, key) : null;
+            javax.transaction.Transaction locked = transactions.lockSchema(batch, SCHEMA_LOCK_TIMEOUT);
+            try {
+                if (constraint != null) {
+                    constraint.drop();
+                } else {
+                    index.drop();
+                }
+            } finally {
+                transactions.unlockSchema(locked);
+            }
+            schemaTx.success();
+        } catch (ConstraintViolationException | TransactionFailureException ex) {
+            throw new Conflict(ex.getMessage());
+        } finally {
+            transactions.resume(outer);
+        }
+        send(new NoContent());
+        return null;
+    }
+
+    private IndexDefinition getIndex(Label label, String key) throws NotFound {
+        IndexDefinition index = findIndex(label, key);
+        if (index == null) {
+            throw new NotFound("No index on " + label.name() + "." + key);
+        }
+        return index;
+    }
+
+    private ConstraintDefinition findConstraint(Schema schema, Label label, String key) {
+        for (ConstraintDefinition constraint : schema.getConstraints(label)) {
+            Iterator<String> keys = constraint.getPropertyKeys().iterator();
+            if (keys.hasNext() && keys.next().equals(key) && !keys.hasNext()) {
+                return constraint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait up to a number of milliseconds for the index on a label and
+     * key to come online, then describe it. The wait is limited by
+     * ZG_INDEX_WAIT_LIMIT and by the time left before the query's
+     * deadline, and made in slices between which the batch is checked.
+     * An index still populating at the end of that time, or that has
+     * failed, is described as it stands.
+     *
+     */
+    private Map<String, Object> await(Label label, String key, int wait, Batch batch) throws Status4xx {
+        long limit = Math.min(wait, Environment.getInstance().getIndexWaitLimit());
+        long remaining = batch.getRemaining();
+        if (remaining >= 0) {
+            limit = Math.min(limit, remaining);
+        }
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limit);
+        try (Transaction schemaTx = database().beginTx()) {
+            Schema schema = database().schema();
+            IndexDefinition index = getIndex(label, key);
+            long left = limit;
+            while (left > 0 && schema.getIndexState(index) == Schema.IndexState.POPULATING) {
+                batch.check();
+                try {
+                    schema.awaitIndexOnline(index, Math.min(left, WAIT_SLICE), TimeUnit.MILLISECONDS);
+                } catch (IllegalStateException ex) {
+                    // not yet online
+                }
+                left = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+            }
+            Map<String, Object> description = describe(schema, index);
+            schemaTx.success();
+            return description;
+        }
+    }
+
+    private Map<String, Object> describe(Schema schema, IndexDefinition index) {
+        List<String> keys = new ArrayList<>();
+        for (String key : index.getPropertyKeys()) {
+            keys.add(key);
+        }
+        LinkedHashMap<String, Object> description = new LinkedHashMap<>();
+        description.put("label", index.getLabel().name());
+        description.put("keys", keys);
+        description.put(UNIQUE, index.isConstraintIndex());
+        description.put("state", schema.getIndexState(index).name().toLowerCase());
+        return description;
+    }
+
+}
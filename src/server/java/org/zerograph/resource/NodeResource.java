@@ -8,6 +8,8 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Transaction;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
 import org.zerograph.api.RequestInterface;
 import org.zerograph.api.TransactionalResourceInterface;
 import org.zerograph.api.ZerographInterface;
@@ -17,11 +19,9 @@ import org.zerograph.response.status2xx.OK;
 import org.zerograph.response.status4xx.NotFound;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status5xx.Status5xx;
-import org.zeromq.ZMQ;
 
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class NodeResource extends PropertyContainerResource implements TransactionalResourceInterface {
 
@@ -29,8 +29,8 @@ public class NodeResource extends PropertyContainerResource implements Transacti
 
     final private HashMap<String, Label> labelCache;
 
-    public NodeResource(ZerographInterface zerograph, ZMQ.Socket socket, GraphDatabaseService database) {
-        super(zerograph, socket, database);
+    public NodeResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
         this.labelCache = new HashMap<>();
     }
 
@@ -39,7 +39,7 @@ public class NodeResource extends PropertyContainerResource implements Transacti
     }
 
     /**
-     * GET node {node_id}
+     * GET node {node_id} [{options}]
      *
      * Fetch a single node by ID.
      */
@@ -48,7 +48,7 @@ public class NodeResource extends PropertyContainerResource implements Transacti
         long nodeID = request.getIntegerData(0);
         try {
             Node node = database().getNodeById(nodeID);
-            send(new OK(node));
+            send(new OK(project(node, request, 1)));
             return node;
         } catch (NotFoundException ex) {
             throw new NotFound("Node " + nodeID + " not found");
@@ -56,7 +56,7 @@ public class NodeResource extends PropertyContainerResource implements Transacti
     }
 
     /**
-     * PUT node {node_id} {labels} {properties}
+     * PUT node {node_id} {labels} {properties} [{options}]
      *
      * Replace all labels and properties on a node identified by ID.
      * This will not create a node with the given ID if one does not
@@ -66,7 +66,6 @@ public class NodeResource extends PropertyContainerResource implements Transacti
     public PropertyContainer put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         long nodeID = request.getIntegerData(0);
         List labelNames = request.getListData(1);
-        Map properties = request.getMapData(2);
         try {
             Node node = database().getNodeById(nodeID);
             Lock writeLock = tx.acquireWriteLock(node);
@@ -74,10 +73,10 @@ public class NodeResource extends PropertyContainerResource implements Transacti
             removeLabels(node);
             removeProperties(node);
             addLabels(node, labelNames);
-            addProperties(node, properties);
+            addProperties(node, request, 2);
             readLock.release();
             writeLock.release();
-            send(new OK(node));
+            send(new OK(project(node, request, 3)));
             return node;
         } catch (NotFoundException ex) {
             throw new NotFound("Node " + nodeID + " not found");
@@ -85,7 +84,7 @@ public class NodeResource extends PropertyContainerResource implements Transacti
     }
 
     /**
-     * PATCH node {node_id} {labels} {properties}
+     * PATCH node {node_id} {labels} {properties} [{options}]
      *
      * Add new labels and properties to a node identified by ID.
      * This will not create a node with the given ID if one does not
@@ -96,16 +95,15 @@ public class NodeResource extends PropertyContainerResource implements Transacti
     public PropertyContainer patch(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         long nodeID = request.getIntegerData(0);
         List labelNames = request.getListData(1);
-        Map properties = request.getMapData(2);
         try {
             Node node = database().getNodeById(nodeID);
             Lock writeLock = tx.acquireWriteLock(node);
             Lock readLock = tx.acquireReadLock(node);
             addLabels(node, labelNames);
-            addProperties(node, properties);
+            addProperties(node, request, 2);
             readLock.release();
             writeLock.release();
-            send(new OK(node));
+            send(new OK(project(node, request, 3)));
             return node;
         } catch (NotFoundException ex) {
             throw new NotFound("Node " + nodeID + " not found");
@@ -113,22 +111,21 @@ public class NodeResource extends PropertyContainerResource implements Transacti
     }
 
     /**
-     * POST node {labels} {properties}
+     * POST node {labels} {properties} [{options}]
      *
      * Create a new node with the given labels and properties.
      */
     @Override
     public PropertyContainer post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         List labelNames = request.getListData(0);
-        Map properties = request.getMapData(1);
         Node node = database().createNode();
         Lock writeLock = tx.acquireWriteLock(node);
         Lock readLock = tx.acquireReadLock(node);
         addLabels(node, labelNames);
-        addProperties(node, properties);
+        addProperties(node, request, 1);
         readLock.release();
         writeLock.release();
-        send(new Created(node));
+        send(new Created(project(node, request, 2)));
         return node;
     }
 
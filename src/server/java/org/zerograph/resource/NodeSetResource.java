@@ -7,27 +7,47 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.Schema;
+import org.zerograph.Batch;
+import org.zerograph.Cursor;
+import org.zerograph.Cursors;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
 import org.zerograph.api.RequestInterface;
 import org.zerograph.api.TransactionalResourceInterface;
 import org.zerograph.api.ZerographInterface;
 import org.zerograph.response.status1xx.Continue;
 import org.zerograph.response.status2xx.Created;
 import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.RequestTimeout;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status5xx.ServerError;
 import org.zerograph.response.status5xx.Status5xx;
-import org.zeromq.ZMQ;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
-public class NodeSetResource extends AbstractTransactionalResource implements TransactionalResourceInterface {
+public class NodeSetResource extends PropertyContainerResource implements TransactionalResourceInterface {
 
     final private static String NAME = "nodeset";
 
-    public NodeSetResource(ZerographInterface zerograph, ZMQ.Socket socket, GraphDatabaseService database) {
-        super(zerograph, socket, database);
+    final public static String SKIP = "skip";
+    final public static String IDS = "ids";
+    final public static String COUNT = "count";
+
+    final private Cursors cursors;
+
+    public NodeSetResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine, Cursors cursors) {
+        super(zerograph, writer, database, engine);
+        this.cursors = cursors;
     }
 
     public String getName() {
@@ -35,13 +55,29 @@ public class NodeSetResource extends AbstractTransactionalResource implements Tr
     }
 
     /**
-     * GET nodeset {label} {key} {value}
+     * GET nodeset {label} {key} {value} [{options}]
      *
      * tx.find(label, key, value)
      *
      * MATCH-RETURN
      * No locking
      *
+     * Options select which matching nodes are sent and how:
+     *
+     *   {"skip":n}     skip the first n matches
+     *   {"limit":n}    send no more than n matches
+     *   {"ids":true}   send node IDs rather than encoded nodes
+     *   {"count":true} send nothing but the summary
+     *   {"page":n}     send n matches and hold the remainder in a cursor
+     *                  (see CursorResource)
+     *
+     * Matches come in the order of the underlying index or label scan,
+     * which is stable for a given set of nodes but not otherwise defined.
+     * The summary reports, as "nodes_matched", the number of matches
+     * selected, and, as "indexed", whether the lookup was served by a
+     * schema index (see IndexResource). The output value is the first
+     * node sent, unless IDs are sent or only a count is requested.
+     *
      * @param request
      */
     @Override
@@ -49,16 +85,50 @@ public class NodeSetResource extends AbstractTransactionalResource implements Tr
         Label label = DynamicLabel.label(request.getStringData(0));
         String key = request.getStringData(1);
         Object value = request.getData(2);
-        HashMap<String, Integer> stats = new HashMap<>();
-        stats.put("nodes_matched", 0);
+        int skip = getIntegerOption(request, 3, SKIP, 0);
+        int limit = getIntegerOption(request, 3, LIMIT, -1);
+        boolean idsOnly = getBooleanOption(request, 3, IDS, false);
+        boolean countOnly = getBooleanOption(request, 3, COUNT, false);
+        int pageSize = getIntegerOption(request, 3, PAGE, 0);
+        Batch batch = getWriter().getBatch();
+        if (pageSize > 0 && !countOnly) {
+            Cursor cursor = cursors.open(pageSize);
+            int rows;
+            try {
+                ResourceIterator<Node> nodes = database().findNodesByLabelAndProperty(label, key, value).iterator();
+                Selection selection = new Selection(nodes, limit, idsOnly);
+                cursor.open(null, selection);
+                selection.skip(skip, batch);
+                rows = sendPage(cursor, pageSize);
+            } catch (RuntimeException | RequestTimeout ex) {
+                cursors.abort(cursor);
+                throw ex;
+            }
+            boolean more = cursors.release(cursor);
+            Map<String, Object> stats = pageStats(cursor, rows, more);
+            stats.put("indexed", isIndexed(label, key));
+            send(new OK(stats));
+            return null;
+        }
+        int nodesMatched = 0;
         Node firstNode = null;
-        for (Node node : database().findNodesByLabelAndProperty(label, key, value)) {
-            send(new Continue(node));
-            if (firstNode == null) {
-                firstNode = node;
+        try (Selection selection = new Selection(database().findNodesByLabelAndProperty(label, key, value).iterator(), limit, idsOnly)) {
+            selection.skip(skip, batch);
+            while (selection.hasNext()) {
+                batch.check();
+                Object match = selection.next();
+                if (!countOnly) {
+                    send(new Continue(match));
+                    if (firstNode == null && !idsOnly) {
+                        firstNode = (Node) match;
+                    }
+                }
+                nodesMatched += 1;
             }
-            stats.put("nodes_matched", stats.get("nodes_matched") + 1);
         }
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodes_matched", nodesMatched);
+        stats.put("indexed", isIndexed(label, key));
         send(new OK(stats));
         return firstNode;
     }
@@ -79,7 +149,7 @@ public class NodeSetResource extends AbstractTransactionalResource implements Tr
         String key = request.getStringData(1);
         Object value = request.getData(2);
         try {
-            HashMap<String, Integer> stats = new HashMap<>();
+            LinkedHashMap<String, Object> stats = new LinkedHashMap<>();
             String query = "MERGE (a:`" + labelName.replace("`", "``") +
                     "` {`" + key.replace("`", "``") + "`:{value}}) RETURN a";
             HashMap<String, Object> params = new HashMap<>(1);
@@ -95,6 +165,7 @@ public class NodeSetResource extends AbstractTransactionalResource implements Tr
             }
             int nodesCreated = result.getQueryStatistics().getNodesCreated();
             stats.put("nodes_created", nodesCreated);
+            stats.put("indexed", isIndexed(DynamicLabel.label(labelName), key));
             if (nodesCreated == 0) {
                 send(new OK(stats));
             } else {
@@ -106,6 +177,132 @@ public class NodeSetResource extends AbstractTransactionalResource implements Tr
         }
     }
 
+    /**
+     * POST nodeset {label} {key} {values} [{properties}]
+     *
+     * Merge one node for each of a list of values, through the core API
+     * rather than a Cypher MERGE per value. Each value is looked up by
+     * label and key, using a schema index where there is one, and a node
+     * is created for it if none is found. Properties, given as a list of
+     * maps or a map of column lists aligned with the values, are set on
+     * every node, whether created or matched. A value repeated in the
+     * list merges into the same node, as do numbers of equal value,
+     * such as 1 and 1.0, which the lookup itself does not tell apart.
+     *
+     * Every node matched is write locked until the batch ends, whether
+     * or not properties are given, so that concurrent upserts of a value
+     * that already exists wait for each other rather than interleaving
+     * their changes. Nodes that do not yet exist have nothing to lock,
+     * so, as with MERGE, concurrent batches can only be kept from
+     * creating the same value twice by a uniqueness constraint on the
+     * label and key (see IndexResource), in which case the later commit
+     * fails.
+     *
+     * A single response reports the numbers of nodes created and
+     * matched. The output value is the list of nodes merged, one per
+     * value, individual elements of which may be addressed by indexed
+     * pointers.
+     *
+     * @param request
+     */
+    @Override
+    public List<Node> post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Label label = DynamicLabel.label(request.getStringData(0));
+        String key = request.getStringData(1);
+        List values = request.getListData(2);
+        Object rows = request.getData(3, null);
+        int count = values.size();
+        if (rows != null && countRows(rows) != count) {
+            throw new BadRequest("Property rows must match values in number");
+        }
+        int nodesCreated = 0;
+        int nodesMatched = 0;
+        ArrayList<Node> nodes = new ArrayList<>(count);
+        HashMap<Object, Node> merged = new HashMap<>(count);
+        Batch batch = getWriter().getBatch();
+        for (int i = 0; i < count; i++) {
+            batch.check();
+            Object value = values.get(i);
+            if (value == null) {
+                throw new BadRequest("Cannot merge on a null value");
+            }
+            Object mergeKey = mergeKey(value);
+            Node node = merged.get(mergeKey);
+            if (node == null) {
+                node = match(label, key, value, tx);
+                if (node == null) {
+                    node = database().createNode(label);
+                    node.setProperty(key, value);
+                    nodesCreated += 1;
+                } else {
+                    nodesMatched += 1;
+                }
+                merged.put(mergeKey, node);
+            }
+            if (rows != null) {
+                addProperties(node, rows, i);
+            }
+            nodes.add(node);
+        }
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodes_created", nodesCreated);
+        stats.put("nodes_matched", nodesMatched);
+        stats.put("indexed", isIndexed(label, key));
+        if (nodesCreated == 0) {
+            send(new OK(stats));
+        } else {
+            send(new Created(stats));
+        }
+        return nodes;
+    }
+
+    /**
+     * Return the key under which a value is remembered as merged within
+     * a request. Numbers are normalised to Long where they are whole and
+     * to Double otherwise, so that values decoded as different numeric
+     * types but matching the same node share a key.
+     *
+     */
+    private static Object mergeKey(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d) && d >= Long.MIN_VALUE && d <= Long.MAX_VALUE) {
+                return (long) d;
+            } else {
+                return d;
+            }
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Find a node with a label and property value and write lock it,
+     * or return null if there is none. As the node may have been changed
+     * or deleted by another transaction before the lock was granted, the
+     * lookup is repeated until it finds the node already locked.
+     *
+     */
+    private Node match(Label label, String key, Object value, Transaction tx) {
+        Node locked = null;
+        while (true) {
+            Node node;
+            ResourceIterator<Node> matches = database().findNodesByLabelAndProperty(label, key, value).iterator();
+            try {
+                node = matches.hasNext() ? matches.next() : null;
+            } finally {
+                matches.close();
+            }
+            if (node == null || node.equals(locked)) {
+                return node;
+            }
+            tx.acquireWriteLock(node);
+            locked = node;
+        }
+    }
+
     /**
      * DELETE nodeset {label} {key} {value}
      *
@@ -120,14 +317,91 @@ public class NodeSetResource extends AbstractTransactionalResource implements Tr
         Label label = DynamicLabel.label(request.getStringData(0));
         String key = request.getStringData(1);
         Object value = request.getData(2);
-        HashMap<String, Integer> stats = new HashMap<>();
-        stats.put("nodes_deleted", 0);
+        int nodesDeleted = 0;
         for (Node node : database().findNodesByLabelAndProperty(label, key, value)) {
             node.delete();
-            stats.put("nodes_deleted", stats.get("nodes_deleted") + 1);
+            nodesDeleted += 1;
         }
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodes_deleted", nodesDeleted);
+        stats.put("indexed", isIndexed(label, key));
         send(new OK(stats));
         return null;
     }
 
+    /**
+     * Determine whether lookups on a label and property key are served by
+     * an online schema index rather than a scan of every node with the
+     * label.
+     *
+     */
+    private boolean isIndexed(Label label, String key) {
+        IndexDefinition index = findIndex(label, key);
+        return index != null && database().schema().getIndexState(index) == Schema.IndexState.ONLINE;
+    }
+
+    /**
+     * The matches of a nodeset lookup after skipping and limiting, as
+     * either nodes or node IDs. Matches skipped or beyond the limit are
+     * never encoded, and the lookup is closed with the selection.
+     *
+     */
+    private static class Selection implements ResourceIterator<Object> {
+
+        final private ResourceIterator<Node> nodes;
+        final private boolean idsOnly;
+
+        private int remaining;
+
+        public Selection(ResourceIterator<Node> nodes, int limit, boolean idsOnly) {
+            this.nodes = nodes;
+            this.idsOnly = idsOnly;
+            this.remaining = limit;
+        }
+
+        /**
+         * Pass over the first matches, checking the batch on each so that
+         * a large skip can still be cancelled or timed out.
+         *
+         */
+        public void skip(int skip, Batch batch) throws RequestTimeout {
+            for (int i = 0; i < skip && nodes.hasNext(); i++) {
+                batch.check();
+                nodes.next();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining != 0 && nodes.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (remaining > 0) {
+                remaining -= 1;
+            }
+            Node node = nodes.next();
+            if (idsOnly) {
+                return node.getId();
+            } else {
+                return node;
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            nodes.close();
+        }
+
+    }
+
 }
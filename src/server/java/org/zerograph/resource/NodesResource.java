@@ -0,0 +1,80 @@
+package org.zerograph.resource;
+
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Batch;
+import org.zerograph.Environment;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.TransactionalResourceInterface;
+import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status2xx.Created;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates nodes in bulk. The output value is the list of nodes created,
+ * individual elements of which may be addressed by indexed pointers.
+ *
+ */
+public class NodesResource extends PropertyContainerResource implements TransactionalResourceInterface {
+
+    final private static String NAME = "nodes";
+
+    final public static int DEFAULT_COUNT_LIMIT = 1000000;
+
+    public NodesResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * POST nodes {labels} {properties}
+     *
+     * Create one node for each row of properties, all with the given
+     * labels. Properties may be a list of maps, a map of equal-length
+     * column lists or a count of nodes to create without properties.
+     * No more than ZG_NODES_LIMIT nodes may be created by one request.
+     * The IDs of the nodes created are returned as either
+     * {"first":..,"count":..} or {"count":..,"ids":[..]}.
+     */
+    @Override
+    public List<Node> post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        List labelNames = request.getListData(0);
+        Object rows = request.getData(1);
+        Label[] labels = new Label[labelNames.size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = DynamicLabel.label(labelNames.get(i).toString());
+        }
+        boolean withProperties = !(rows instanceof Integer);
+        int count = withProperties ? countRows(rows) : (Integer) rows;
+        int countLimit = Environment.getInstance().getNodesLimit();
+        if (count < 0 || count > countLimit) {
+            throw new BadRequest("Node count must be between 0 and " + countLimit);
+        }
+        ArrayList<Node> nodes = new ArrayList<>(count);
+        Batch batch = getWriter().getBatch();
+        for (int i = 0; i < count; i++) {
+            batch.check();
+            Node node = database().createNode(labels);
+            if (withProperties) {
+                addProperties(node, rows, i);
+            }
+            nodes.add(node);
+        }
+        send(new Created(summarise(nodes)));
+        return nodes;
+    }
+
+}
@@ -0,0 +1,192 @@
+package org.zerograph.resource;
+
+import org.neo4j.graphalgo.CommonEvaluators;
+import org.neo4j.graphalgo.GraphAlgoFactory;
+import org.neo4j.graphalgo.PathFinder;
+import org.neo4j.graphalgo.WeightedPath;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Batch;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.TransactionalResourceInterface;
+import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status1xx.Continue;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Path finding between two nodes with the graph algorithms of the
+ * embedded database, rather than as Cypher. Each path is sent as the
+ * terms of a single response line, its nodes and relationships in turn,
+ * as by TraverseResource.
+ *
+ */
+public class PathResource extends PropertyContainerResource implements TransactionalResourceInterface {
+
+    final private static String NAME = "path";
+
+    final public static String ALGORITHM = "algorithm";
+    final public static String MAX_DEPTH = "max_depth";
+    final public static String COST = "cost";
+    final public static String ESTIMATE = "estimate";
+
+    final public static int DEFAULT_MAX_DEPTH = 15;
+
+    public PathResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * GET path {start} {end} [{options}]
+     *
+     * Find paths between two nodes, each given as a node ID or a pointer
+     * to a node. The "algorithm" option is one of:
+     *
+     *   "shortest"      a single shortest path (the default)
+     *   "all_shortest"  every shortest path
+     *   "dijkstra"      every cheapest path by the "cost" relationship
+     *                   property
+     *   "astar"         a cheapest path by the "cost" relationship
+     *                   property, guided by the geographic distance
+     *                   between nodes, whose latitude and longitude
+     *                   property keys are given as "estimate", as in
+     *                   {"estimate":["lat","lon"]}
+     *
+     * Relationships followed are filtered by the "direction" and "types"
+     * options, as for traversals, and every algorithm searches no further
+     * than "max_depth" hops (15 by default). This bounds the work done by
+     * a weighted search but does not make it find the cheapest path of
+     * at most that many hops: Dijkstra and A* keep only the cheapest path
+     * to each node, so a node first reached cheaply by a long route is
+     * not expanded again by a shorter, costlier one, and a path within
+     * the cap may be missed. No more than "limit" paths are sent, if
+     * given.
+     *
+     * Each algorithm runs to completion before any path is sent, but
+     * fails with a 408 response, as for a Cypher query, if the batch is
+     * cancelled or the timeout expires while it searches. The timeout is
+     * that of the graph unless given in milliseconds as "timeout". The
+     * summary reports, as "paths_matched", the number of paths sent and,
+     * for weighted searches, their total cost as "weight", which is the
+     * same for every path found.
+     *
+     * @param request
+     */
+    @Override
+    public PropertyContainer get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Node start = resolveNode(request.getData(0));
+        Node end = resolveNode(request.getData(1));
+        String algorithm = getStringOption(request, 2, ALGORITHM, "shortest");
+        int maxDepth = getIntegerOption(request, 2, MAX_DEPTH, DEFAULT_MAX_DEPTH);
+        int limit = getIntegerOption(request, 2, LIMIT, -1);
+        int timeout = getIntegerOption(request, 2, TIMEOUT, -1);
+        Batch batch = getWriter().getBatch();
+        PathExpander expander = new BoundedExpander(getExpander(request, 2), maxDepth, batch);
+        int matched = 0;
+        Double weight = null;
+        Iterable<? extends Path> paths;
+        String query = "path " + algorithm;
+        if (timeout < 0) {
+            batch.startQuery(query);
+        } else {
+            batch.startQuery(query, timeout);
+        }
+        try {
+            switch (algorithm) {
+                case "shortest":
+                    paths = single(GraphAlgoFactory.shortestPath(expander, maxDepth).findSinglePath(start, end));
+                    break;
+                case "all_shortest":
+                    if (limit > 0) {
+                        paths = GraphAlgoFactory.shortestPath(expander, maxDepth, limit).findAllPaths(start, end);
+                    } else {
+                        paths = GraphAlgoFactory.shortestPath(expander, maxDepth).findAllPaths(start, end);
+                    }
+                    break;
+                case "dijkstra":
+                    paths = GraphAlgoFactory.dijkstra(expander,
+                            CommonEvaluators.doubleCostEvaluator(getCost(request))).findAllPaths(start, end);
+                    break;
+                case "astar":
+                    List estimate = getEstimate(request);
+                    PathFinder<WeightedPath> finder = GraphAlgoFactory.aStar(expander,
+                            CommonEvaluators.doubleCostEvaluator(getCost(request)),
+                            CommonEvaluators.geoEstimateEvaluator(estimate.get(0).toString(), estimate.get(1).toString()));
+                    paths = single(finder.findSinglePath(start, end));
+                    break;
+                default:
+                    throw new BadRequest("Unknown path algorithm " + algorithm);
+            }
+            for (Path path : paths) {
+                if (matched == limit) {
+                    break;
+                }
+                batch.check();
+                send(new Continue(TraverseResource.entities(path)));
+                if (path instanceof WeightedPath && weight == null) {
+                    weight = ((WeightedPath) path).weight();
+                }
+                matched += 1;
+            }
+        } catch (NotFoundException ex) {
+            // a relationship without the cost property
+            throw new BadRequest(ex.getMessage());
+        } catch (BoundedExpander.Stopped ex) {
+            throw ex.getCause();
+        } finally {
+            batch.endQuery();
+        }
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<>();
+        stats.put("paths_matched", matched);
+        if (weight != null) {
+            stats.put("weight", weight);
+        }
+        send(new OK(stats));
+        return null;
+    }
+
+    private String getCost(RequestInterface request) throws BadRequest {
+        String cost = getStringOption(request, 2, COST, null);
+        if (cost == null) {
+            throw new BadRequest("Option " + COST + " is required for weighted path finding");
+        }
+        return cost;
+    }
+
+    private List getEstimate(RequestInterface request) throws BadRequest {
+        Map options = request.getMapData(2, null);
+        Object estimate = options == null ? null : options.get(ESTIMATE);
+        if (estimate instanceof List && ((List) estimate).size() == 2) {
+            return (List) estimate;
+        } else {
+            throw new BadRequest("Option " + ESTIMATE + " must list latitude and longitude keys");
+        }
+    }
+
+    private static Iterable<? extends Path> single(Path path) {
+        if (path == null) {
+            return Collections.emptyList();
+        } else {
+            return Collections.singletonList(path);
+        }
+    }
+
+}
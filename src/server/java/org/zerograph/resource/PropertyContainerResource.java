@@ -1,16 +1,28 @@
 package org.zerograph.resource;
 
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.zerograph.Projection;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.api.RequestInterface;
 import org.zerograph.api.ZerographInterface;
-import org.zeromq.ZMQ;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.NotFound;
+import org.zerograph.response.status4xx.Status4xx;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public abstract class PropertyContainerResource extends AbstractTransactionalResource {
 
-    public PropertyContainerResource(ZerographInterface zerograph, ZMQ.Socket socket, GraphDatabaseService database) {
-        super(zerograph, socket, database);
+    public PropertyContainerResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
     }
 
     public void addProperties(PropertyContainer entity, Map properties) {
@@ -19,6 +31,140 @@ public abstract class PropertyContainerResource extends AbstractTransactionalRes
         }
     }
 
+    /**
+     * Add the properties held in a map term of a request. This avoids
+     * building the map where the request can stream the properties
+     * directly onto the entity.
+     *
+     */
+    public void addProperties(PropertyContainer entity, RequestInterface request, int index) {
+        request.applyMapData(index, entity);
+    }
+
+    /**
+     * Return the response data for an entity, projected according to an
+     * optional options map term of a request or, where that term is not
+     * given, the session default. The session default applies only to
+     * requests that write, so that a GET always returns the entity in
+     * full unless it asks otherwise.
+     *
+     */
+    public Object[] project(PropertyContainer entity, RequestInterface request, int index) throws BadRequest {
+        Projection projection;
+        if ("GET".equals(request.getMethod())) {
+            projection = Projection.DEFAULT;
+        } else {
+            projection = getWriter().getSession().getProjection();
+        }
+        Map options = request.getMapData(index, null);
+        if (options != null) {
+            projection = Projection.fromOptions(options, projection);
+        }
+        return projection.apply(entity);
+    }
+
+    /**
+     * Add properties to the entity at a given row of a bulk property
+     * term. The term may be a list of property maps or a map of column
+     * lists; in either form, null values are skipped.
+     *
+     */
+    public void addProperties(PropertyContainer entity, Object rows, int row) {
+        if (rows instanceof List) {
+            Map properties = (Map) ((List) rows).get(row);
+            for (Object key : properties.keySet()) {
+                Object value = properties.get(key);
+                if (value != null) {
+                    entity.setProperty(key.toString(), value);
+                }
+            }
+        } else {
+            Map columns = (Map) rows;
+            for (Object key : columns.keySet()) {
+                Object value = ((List) columns.get(key)).get(row);
+                if (value != null) {
+                    entity.setProperty(key.toString(), value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the number of rows in a bulk property term, checking that
+     * it is well formed.
+     *
+     */
+    public int countRows(Object rows) throws BadRequest {
+        if (rows instanceof List) {
+            for (Object properties : (List) rows) {
+                if (!(properties instanceof Map)) {
+                    throw new BadRequest("Property rows must be maps");
+                }
+            }
+            return ((List) rows).size();
+        } else if (rows instanceof Map) {
+            int count = -1;
+            for (Object column : ((Map) rows).values()) {
+                if (!(column instanceof List)) {
+                    throw new BadRequest("Property columns must be lists");
+                } else if (count >= 0 && ((List) column).size() != count) {
+                    throw new BadRequest("Property columns must all be the same length");
+                }
+                count = ((List) column).size();
+            }
+            return Math.max(count, 0);
+        } else {
+            throw new BadRequest(rows);
+        }
+    }
+
+    /**
+     * Resolve a node from a request term, which may be a node resolved
+     * from a pointer or a node ID.
+     *
+     */
+    public Node resolveNode(Object value) throws Status4xx {
+        if (value instanceof Node) {
+            return (Node)value;
+        } else if (value instanceof Integer || value instanceof Long) {
+            try {
+                return database().getNodeById(((Number)value).longValue());
+            } catch (NotFoundException ex) {
+                throw new NotFound("Node " + value + " not found");
+            }
+        } else {
+            throw new BadRequest(value);
+        }
+    }
+
+    /**
+     * Summarise the IDs of entities created in bulk, as a range where
+     * these are contiguous or as a list otherwise.
+     *
+     */
+    public Map<String, Object> summarise(List<? extends PropertyContainer> entities) {
+        LinkedHashMap<String, Object> summary = new LinkedHashMap<>();
+        int count = entities.size();
+        ArrayList<Long> ids = new ArrayList<>(count);
+        boolean contiguous = true;
+        for (int i = 0; i < count; i++) {
+            PropertyContainer entity = entities.get(i);
+            long id = entity instanceof Node ? ((Node)entity).getId() : ((Relationship)entity).getId();
+            if (i > 0 && id != ids.get(i - 1) + 1) {
+                contiguous = false;
+            }
+            ids.add(id);
+        }
+        if (contiguous && count > 0) {
+            summary.put("first", ids.get(0));
+            summary.put("count", count);
+        } else {
+            summary.put("count", count);
+            summary.put("ids", ids);
+        }
+        return summary;
+    }
+
     public void removeProperties(PropertyContainer entity) {
         for (Object key : entity.getPropertyKeys()) {
             entity.removeProperty(key.toString());
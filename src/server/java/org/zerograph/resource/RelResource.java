@@ -9,20 +9,19 @@ import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
 import org.zerograph.api.RequestInterface;
 import org.zerograph.api.TransactionalResourceInterface;
 import org.zerograph.api.ZerographInterface;
 import org.zerograph.response.status2xx.Created;
 import org.zerograph.response.status2xx.NoContent;
 import org.zerograph.response.status2xx.OK;
-import org.zerograph.response.status4xx.BadRequest;
 import org.zerograph.response.status4xx.NotFound;
 import org.zerograph.response.status4xx.Status4xx;
 import org.zerograph.response.status5xx.Status5xx;
-import org.zeromq.ZMQ;
 
 import java.util.HashMap;
-import java.util.Map;
 
 public class RelResource extends PropertyContainerResource implements TransactionalResourceInterface {
 
@@ -30,8 +29,8 @@ public class RelResource extends PropertyContainerResource implements Transactio
 
     final private HashMap<String, RelationshipType> relationshipTypes;
 
-    public RelResource(ZerographInterface zerograph, ZMQ.Socket socket, GraphDatabaseService database) {
-        super(zerograph, socket, database);
+    public RelResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
         this.relationshipTypes = new HashMap<>();
     }
 
@@ -40,7 +39,7 @@ public class RelResource extends PropertyContainerResource implements Transactio
     }
 
     /**
-     * GET rel {rel_id}
+     * GET rel {rel_id} [{options}]
      *
      * Fetch a single relationship by ID.
      */
@@ -49,7 +48,7 @@ public class RelResource extends PropertyContainerResource implements Transactio
         long relID = request.getIntegerData(0);
         try {
             Relationship rel = database().getRelationshipById(relID);
-            send(new OK(rel));
+            send(new OK(project(rel, request, 1)));
             return rel;
         } catch (NotFoundException ex) {
             throw new NotFound("Relationship " + relID + " not found");
@@ -57,7 +56,7 @@ public class RelResource extends PropertyContainerResource implements Transactio
     }
 
     /**
-     * PUT rel {rel_id} {properties}
+     * PUT rel {rel_id} {properties} [{options}]
      *
      * Replace all properties on a relationship identified by ID.
      * This will not create a relationship with the given ID if one does not
@@ -66,16 +65,15 @@ public class RelResource extends PropertyContainerResource implements Transactio
     @Override
     public PropertyContainer put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         long relID = request.getIntegerData(0);
-        Map properties = request.getMapData(1);
         try {
             Relationship rel = database().getRelationshipById(relID);
             Lock writeLock = tx.acquireWriteLock(rel);
             Lock readLock = tx.acquireReadLock(rel);
             removeProperties(rel);
-            addProperties(rel, properties);
+            addProperties(rel, request, 1);
             readLock.release();
             writeLock.release();
-            send(new OK(rel));
+            send(new OK(project(rel, request, 2)));
             return rel;
         } catch (NotFoundException ex) {
             throw new NotFound("Relationship " + relID + " not found");
@@ -83,7 +81,7 @@ public class RelResource extends PropertyContainerResource implements Transactio
     }
 
     /**
-     * PATCH rel {rel_id} {properties}
+     * PATCH rel {rel_id} {properties} [{options}]
      *
      * Add new properties to a relationship identified by ID.
      * This will not create a relationship with the given ID if one does not
@@ -93,15 +91,14 @@ public class RelResource extends PropertyContainerResource implements Transactio
     @Override
     public PropertyContainer patch(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
         long relID = request.getIntegerData(0);
-        Map properties = request.getMapData(1);
         try {
             Relationship rel = database().getRelationshipById(relID);
             Lock writeLock = tx.acquireWriteLock(rel);
             Lock readLock = tx.acquireReadLock(rel);
-            addProperties(rel, properties);
+            addProperties(rel, request, 1);
             readLock.release();
             writeLock.release();
-            send(new OK(rel));
+            send(new OK(project(rel, request, 2)));
             return rel;
         } catch (NotFoundException ex) {
             throw new NotFound("Relationship " + relID + " not found");
@@ -109,7 +106,7 @@ public class RelResource extends PropertyContainerResource implements Transactio
     }
 
     /**
-     * POST rel {start_node} {end_node} {type} {properties}
+     * POST rel {start_node} {end_node} {type} {properties} [{options}]
      *
      * Create a new relationship.
      */
@@ -118,14 +115,13 @@ public class RelResource extends PropertyContainerResource implements Transactio
         Node startNode = resolveNode(request.getData(0));
         Node endNode = resolveNode(request.getData(1));
         String typeName = request.getStringData(2);
-        Map properties = request.getMapData(3);
         Relationship rel = startNode.createRelationshipTo(endNode, getRelationshipType(typeName));
         Lock writeLock = tx.acquireWriteLock(rel);
         Lock readLock = tx.acquireReadLock(rel);
-        addProperties(rel, properties);
+        addProperties(rel, request, 3);
         readLock.release();
         writeLock.release();
-        send(new Created(rel));
+        send(new Created(project(rel, request, 4)));
         return rel;
     }
 
@@ -149,20 +145,6 @@ public class RelResource extends PropertyContainerResource implements Transactio
         }
     }
 
-    private Node resolveNode(Object value) throws Status4xx {
-        if (value instanceof Node) {
-            return (Node)value;
-        } else if (value instanceof Integer) {
-            try {
-                return database().getNodeById((Integer)value);
-            } catch (NotFoundException ex) {
-                throw new NotFound("Relationship " + value + " not found");
-            }
-        } else {
-            throw new BadRequest(value);
-        }
-    }
-
     private RelationshipType getRelationshipType(String name) {
         if (relationshipTypes.containsKey(name)) {
             return relationshipTypes.get(name);
@@ -0,0 +1,91 @@
+package org.zerograph.resource;
+
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Batch;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.TransactionalResourceInterface;
+import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status2xx.Created;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates relationships in bulk. The output value is the list of
+ * relationships created, individual elements of which may be addressed
+ * by indexed pointers.
+ *
+ */
+public class RelsResource extends PropertyContainerResource implements TransactionalResourceInterface {
+
+    final private static String NAME = "rels";
+
+    public RelsResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * POST rels {start_nodes} {end_nodes} {type} [{properties}]
+     *
+     * Create one relationship of the given type for each pair of start
+     * and end nodes. Each of these may be a list of nodes or node IDs,
+     * such as a pointer to the output of a bulk node request, or a single
+     * node which is then used for every relationship. Properties may be
+     * a list of maps or a map of equal-length column lists. The IDs of
+     * the relationships created are returned as for POST nodes.
+     */
+    @Override
+    public List<Relationship> post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Object startNodes = request.getData(0);
+        Object endNodes = request.getData(1);
+        RelationshipType type = DynamicRelationshipType.withName(request.getStringData(2));
+        Object rows = request.getData(3, null);
+        int count = agree(-1, startNodes instanceof List ? ((List) startNodes).size() : -1);
+        count = agree(count, endNodes instanceof List ? ((List) endNodes).size() : -1);
+        count = agree(count, rows == null ? -1 : countRows(rows));
+        if (count < 0) {
+            count = 1;
+        }
+        ArrayList<Relationship> rels = new ArrayList<>(count);
+        Node startNode = startNodes instanceof List ? null : resolveNode(startNodes);
+        Node endNode = endNodes instanceof List ? null : resolveNode(endNodes);
+        Batch batch = getWriter().getBatch();
+        for (int i = 0; i < count; i++) {
+            batch.check();
+            Node start = startNode == null ? resolveNode(((List) startNodes).get(i)) : startNode;
+            Node end = endNode == null ? resolveNode(((List) endNodes).get(i)) : endNode;
+            Relationship rel = start.createRelationshipTo(end, type);
+            if (rows != null) {
+                addProperties(rel, rows, i);
+            }
+            rels.add(rel);
+        }
+        send(new Created(summarise(rels)));
+        return rels;
+    }
+
+    private static int agree(int count, int size) throws BadRequest {
+        if (size < 0) {
+            return count;
+        } else if (count < 0 || count == size) {
+            return size;
+        } else {
+            throw new BadRequest("Bulk relationship terms must all be the same length");
+        }
+    }
+
+}
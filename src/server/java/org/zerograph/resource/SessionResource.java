@@ -0,0 +1,105 @@
+package org.zerograph.resource;
+
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.ResponseWriter;
+import org.zerograph.Session;
+import org.zerograph.Sessions;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.TransactionalResourceInterface;
+import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.MethodNotAllowed;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.Map;
+
+/**
+ * Negotiates response encoding options for the current batch or for the
+ * connection as a whole. See Session for the options available.
+ *
+ */
+public class SessionResource extends AbstractResource implements TransactionalResourceInterface {
+
+    final private static String NAME = "session";
+
+    final private Sessions sessions;
+
+    public SessionResource(ZerographInterface zerograph, ResponseWriter writer, Sessions sessions) {
+        super(zerograph, writer);
+        this.sessions = sessions;
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * GET session
+     *
+     * Return the options in effect for the current batch.
+     *
+     * @param request
+     */
+    @Override
+    public PropertyContainer get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        send(new OK(getWriter().getSession().toMap()));
+        return null;
+    }
+
+    /**
+     * PUT session {options}
+     *
+     * Update options for the current batch and store them for all
+     * subsequent batches on the same connection.
+     *
+     * @param request
+     */
+    @Override
+    public PropertyContainer put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Session session = getWriter().getSession();
+        session.update((Map<String, Object>) request.getMapData(0));
+        sessions.save(session);
+        send(new OK(session.toMap()));
+        return null;
+    }
+
+    /**
+     * PATCH session {options}
+     *
+     * Update options for the remainder of the current batch only.
+     *
+     * @param request
+     */
+    @Override
+    public PropertyContainer patch(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Session session = getWriter().getSession();
+        session.update((Map<String, Object>) request.getMapData(0));
+        send(new OK(session.toMap()));
+        return null;
+    }
+
+    @Override
+    public PropertyContainer post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        throw new MethodNotAllowed(request.getMethod());
+    }
+
+    /**
+     * DELETE session
+     *
+     * Discard stored options for the connection and restore defaults for
+     * the remainder of the current batch.
+     *
+     * @param request
+     */
+    @Override
+    public PropertyContainer delete(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Session session = getWriter().getSession();
+        sessions.discard(session);
+        session.reset();
+        send(new OK(session.toMap()));
+        return null;
+    }
+
+}
@@ -0,0 +1,175 @@
+package org.zerograph.resource;
+
+import org.neo4j.cypher.CypherException;
+import org.neo4j.cypher.EntityNotFoundException;
+import org.neo4j.cypher.javacompat.ExecutionResult;
+import org.neo4j.cypher.javacompat.QueryStatistics;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Batch;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.TransactionalResourceInterface;
+import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status1xx.Continue;
+import org.zerograph.response.status2xx.NoContent;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.Conflict;
+import org.zerograph.response.status4xx.NotFound;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepared Cypher statements. A statement is registered once and can then
+ * be executed against any number of parameter rows within a single
+ * request, taking its plan from the engine's plan cache for every row.
+ * Statements left unused for ZG_STATEMENT_TIMEOUT seconds may be released
+ * once the number registered reaches the plan cache size.
+ *
+ */
+public class StatementResource extends AbstractTransactionalResource implements TransactionalResourceInterface {
+
+    final private static String NAME = "statement";
+
+    public StatementResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * GET statement {handle}
+     *
+     * Fetch the query text of a prepared statement.
+     */
+    @Override
+    public PropertyContainer get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        int handle = request.getIntegerData(0);
+        send(new OK(getQuery(handle)));
+        return null;
+    }
+
+    /**
+     * PUT statement {query}
+     *
+     * Register a query as a prepared statement and return its handle.
+     * Registering the same query text again returns the existing handle.
+     * If the statement table is full of statements in use, 409 Conflict
+     * is returned.
+     */
+    @Override
+    public PropertyContainer put(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        String query = request.getStringData(0);
+        int handle = engine().prepare(query);
+        if (handle < 0) {
+            throw new Conflict("Too many prepared statements");
+        }
+        send(new OK(handle));
+        return null;
+    }
+
+    /**
+     * POST statement {handle} {rows}
+     *
+     * Execute a prepared statement once for each map of parameters in
+     * rows. The column header is sent once, followed by the result rows
+     * of every execution and a summary of the updates made.
+     */
+    @Override
+    public PropertyContainer post(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        int handle = request.getIntegerData(0);
+        List rows = request.getListData(1);
+        String query = getQuery(handle);
+        LinkedHashMap<String, Integer> stats = new LinkedHashMap<>();
+        int executed = 0;
+        int nodesCreated = 0;
+        int nodesDeleted = 0;
+        int relationshipsCreated = 0;
+        int relationshipsDeleted = 0;
+        int propertiesSet = 0;
+        int labelsAdded = 0;
+        int labelsRemoved = 0;
+        PropertyContainer firstEntity = null;
+        Batch batch = getWriter().getBatch();
+        batch.startQuery(query);
+        try {
+            for (Object row : rows) {
+                batch.check();
+                if (!(row instanceof Map)) {
+                    throw new BadRequest("Map data expected");
+                }
+                ExecutionResult result = execute(query, (Map<String, Object>)row);
+                List<String> columns = result.columns();
+                if (executed == 0) {
+                    send(new Continue(columns.toArray(new Object[columns.size()])));
+                }
+                PropertyContainer entity = sendRows(result, columns);
+                if (firstEntity == null) {
+                    firstEntity = entity;
+                }
+                QueryStatistics statistics = result.getQueryStatistics();
+                nodesCreated += statistics.getNodesCreated();
+                nodesDeleted += statistics.getDeletedNodes();
+                relationshipsCreated += statistics.getRelationshipsCreated();
+                relationshipsDeleted += statistics.getDeletedRelationships();
+                propertiesSet += statistics.getPropertiesSet();
+                labelsAdded += statistics.getLabelsAdded();
+                labelsRemoved += statistics.getLabelsRemoved();
+                executed += 1;
+            }
+        } catch (EntityNotFoundException ex) {
+            throw new NotFound(ex.getMessage());
+        } catch (CypherException ex) {
+            throw new BadRequest(ex.getMessage());
+        } finally {
+            batch.endQuery();
+        }
+        if (executed == 0) {
+            send(new Continue());
+        }
+        stats.put("executed", executed);
+        stats.put("nodes_created", nodesCreated);
+        stats.put("nodes_deleted", nodesDeleted);
+        stats.put("relationships_created", relationshipsCreated);
+        stats.put("relationships_deleted", relationshipsDeleted);
+        stats.put("properties_set", propertiesSet);
+        stats.put("labels_added", labelsAdded);
+        stats.put("labels_removed", labelsRemoved);
+        send(new OK(stats));
+        return firstEntity;
+    }
+
+    /**
+     * DELETE statement {handle}
+     *
+     * Release a prepared statement.
+     */
+    @Override
+    public PropertyContainer delete(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        int handle = request.getIntegerData(0);
+        if (engine().release(handle)) {
+            send(new NoContent());
+            return null;
+        } else {
+            throw new NotFound("Statement " + handle + " not found");
+        }
+    }
+
+    private String getQuery(int handle) throws Status4xx {
+        String query = engine().getStatement(handle);
+        if (query == null) {
+            throw new NotFound("Statement " + handle + " not found");
+        }
+        return query;
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.zerograph.resource;
+
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.Stats;
+import org.zerograph.Zerograph;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.ResourceInterface;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.NotFound;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class StatsResource extends AbstractResource implements ResourceInterface {
+
+    final private static String NAME = "stats";
+
+    final private Zerograph zerograph;
+
+    public StatsResource(Zerograph zerograph, ResponseWriter writer) {
+        super(zerograph, writer);
+        this.zerograph = zerograph;
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * GET stats [{port}]
+     *
+     * Return counters and latency histograms for the service on the given
+     * port or, if no port is given, for this service and every running
+     * graph, keyed by port. Latencies are given in microseconds and
+     * graphs also report the query cache size, its hits and misses and the
+     * number of prepared statements.
+     *
+     * @param request
+     */
+    @Override
+    public void get(RequestInterface request) throws Status4xx, Status5xx {
+        Map<Integer, Stats> allStats = zerograph.getAllStats();
+        Map<Integer, QueryEngine> engines = zerograph.getAllEngines();
+        Object port = request.getData(0, null);
+        if (port == null) {
+            LinkedHashMap<String, Object> services = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Stats> stats : allStats.entrySet()) {
+                services.put(stats.getKey().toString(), describe(stats.getValue(), engines.get(stats.getKey())));
+            }
+            send(new OK(services));
+        } else {
+            int p = request.getIntegerData(0);
+            if (allStats.containsKey(p)) {
+                send(new OK(describe(allStats.get(p), engines.get(p))));
+            } else {
+                throw new NotFound("No service on port " + p);
+            }
+        }
+    }
+
+    private Map<String, Object> describe(Stats stats, QueryEngine engine) {
+        Map<String, Object> map = stats.toMap();
+        if (engine != null) {
+            LinkedHashMap<String, Object> cache = new LinkedHashMap<>();
+            cache.put("size", engine.getCacheSize());
+            cache.put("hits", engine.getHits());
+            cache.put("misses", engine.getMisses());
+            cache.put("statements", engine.getStatementCount());
+            map.put("query_cache", cache);
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,272 @@
+package org.zerograph.resource;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.graphdb.traversal.Evaluators;
+import org.neo4j.graphdb.traversal.TraversalDescription;
+import org.neo4j.graphdb.traversal.Uniqueness;
+import org.zerograph.Batch;
+import org.zerograph.Environment;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
+import org.zerograph.api.RequestInterface;
+import org.zerograph.api.TransactionalResourceInterface;
+import org.zerograph.api.ZerographInterface;
+import org.zerograph.response.status1xx.Continue;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.lang.reflect.Array;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traversals from a single start node, run next to the data through the
+ * core traversal framework rather than as Cypher. Each result is either
+ * the distinct node at which a path ends, or the whole path, sent as the
+ * terms of a single response line: its nodes and relationships in turn,
+ * starting and ending with a node.
+ *
+ */
+public class TraverseResource extends PropertyContainerResource implements TransactionalResourceInterface {
+
+    final private static String NAME = "traverse";
+
+    final public static String MIN_DEPTH = "min_depth";
+    final public static String MAX_DEPTH = "max_depth";
+    final public static String ORDER = "order";
+    final public static String UNIQUENESS = "uniqueness";
+    final public static String WHERE = "where";
+    final public static String RETURN = "return";
+
+    final public static int DEFAULT_DEPTH_LIMIT = 100;
+
+    public TraverseResource(ZerographInterface zerograph, ResponseWriter writer, GraphDatabaseService database, QueryEngine engine) {
+        super(zerograph, writer, database, engine);
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * GET traverse {start} [{options}]
+     *
+     * Traverse from a start node, given as a node ID or a pointer to a
+     * node. Options shape the traversal:
+     *
+     *   {"direction":"out"}        "out", "in" or "both" (the default)
+     *   {"types":["KNOWS"]}        relationship types to follow (all)
+     *   {"min_depth":1}            shallowest result (1)
+     *   {"max_depth":1}            deepest result (1)
+     *   {"order":"breadth"}        "breadth" (the default) or "depth" first
+     *   {"uniqueness":"node_global"}
+     *                              "node_global" (the default), "node_path",
+     *                              "relationship_global", "relationship_path"
+     *                              or "none"
+     *   {"where":{"name":"Bob"}}   property values the end node must have
+     *   {"return":"nodes"}         "nodes" (the default) or "paths"
+     *   {"limit":100}              send no more than this many results
+     *   {"timeout":5000}           milliseconds in which to finish, in
+     *                              place of the default for the graph
+     *
+     * A "max_depth" beyond ZG_TRAVERSAL_DEPTH_LIMIT (100 by default) is
+     * rejected with a 400 response. The batch is checked as each path is
+     * expanded, so a traversal fails with a 408 response once the batch
+     * is cancelled or the timeout expires, even while it yields nothing.
+     *
+     * Nodes are sent once each, however many paths end there. The
+     * summary reports, as "nodes_matched" or "paths_matched", the number
+     * of results sent. The output value is the first node sent, if nodes
+     * are returned.
+     *
+     * @param request
+     */
+    @Override
+    public PropertyContainer get(RequestInterface request, Transaction tx) throws Status4xx, Status5xx {
+        Node start = resolveNode(request.getData(0));
+        int minDepth = getIntegerOption(request, 1, MIN_DEPTH, 1);
+        int maxDepth = getIntegerOption(request, 1, MAX_DEPTH, Math.max(minDepth, 1));
+        if (minDepth > maxDepth) {
+            throw new BadRequest("Option " + MIN_DEPTH + " cannot exceed " + MAX_DEPTH);
+        }
+        int depthLimit = Environment.getInstance().getTraversalDepthLimit();
+        if (maxDepth > depthLimit) {
+            throw new BadRequest("Option " + MAX_DEPTH + " cannot exceed " + depthLimit);
+        }
+        int limit = getIntegerOption(request, 1, LIMIT, -1);
+        int timeout = getIntegerOption(request, 1, TIMEOUT, -1);
+        boolean returnPaths = isReturningPaths(request);
+        Batch batch = getWriter().getBatch();
+        TraversalDescription traversal = database().traversalDescription()
+                .expand(new BoundedExpander(getExpander(request, 1), maxDepth, batch))
+                .uniqueness(getUniqueness(request))
+                .evaluator(Evaluators.fromDepth(minDepth))
+                .evaluator(Evaluators.toDepth(maxDepth));
+        switch (getStringOption(request, 1, ORDER, "breadth")) {
+            case "breadth":
+                traversal = traversal.breadthFirst();
+                break;
+            case "depth":
+                traversal = traversal.depthFirst();
+                break;
+            default:
+                throw new BadRequest("Option " + ORDER + " must be breadth or depth");
+        }
+        Map where = getWhere(request);
+        if (where != null) {
+            traversal = traversal.evaluator(new PropertyEvaluator(where));
+        }
+        HashSet<Long> seen = new HashSet<>();
+        int matched = 0;
+        Node firstNode = null;
+        String query = "traverse " + start.getId();
+        if (timeout < 0) {
+            batch.startQuery(query);
+        } else {
+            batch.startQuery(query, timeout);
+        }
+        ResourceIterator<Path> paths = traversal.traverse(start).iterator();
+        try {
+            while (matched != limit && paths.hasNext()) {
+                batch.check();
+                Path path = paths.next();
+                if (returnPaths) {
+                    send(new Continue(entities(path)));
+                } else {
+                    Node node = path.endNode();
+                    if (!seen.add(node.getId())) {
+                        continue;
+                    }
+                    send(new Continue(node));
+                    if (firstNode == null) {
+                        firstNode = node;
+                    }
+                }
+                matched += 1;
+            }
+        } catch (BoundedExpander.Stopped ex) {
+            throw ex.getCause();
+        } finally {
+            paths.close();
+            batch.endQuery();
+        }
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<>();
+        stats.put(returnPaths ? "paths_matched" : "nodes_matched", matched);
+        send(new OK(stats));
+        return firstNode;
+    }
+
+    private boolean isReturningPaths(RequestInterface request) throws BadRequest {
+        switch (getStringOption(request, 1, RETURN, "nodes")) {
+            case "nodes":
+                return false;
+            case "paths":
+                return true;
+            default:
+                throw new BadRequest("Option " + RETURN + " must be nodes or paths");
+        }
+    }
+
+    private Uniqueness getUniqueness(RequestInterface request) throws BadRequest {
+        String name = getStringOption(request, 1, UNIQUENESS, "node_global");
+        try {
+            return Uniqueness.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequest("Unknown uniqueness " + name);
+        }
+    }
+
+    private Map getWhere(RequestInterface request) throws BadRequest {
+        Map options = request.getMapData(1, null);
+        Object where = options == null ? null : options.get(WHERE);
+        if (where == null || where instanceof Map) {
+            return (Map) where;
+        } else {
+            throw new BadRequest("Option " + WHERE + " must be a map of property values");
+        }
+    }
+
+    /**
+     * Return the nodes and relationships of a path in order, starting and
+     * ending with a node.
+     *
+     */
+    static Object[] entities(Path path) {
+        Object[] entities = new Object[2 * path.length() + 1];
+        int i = 0;
+        for (PropertyContainer entity : path) {
+            entities[i] = entity;
+            i += 1;
+        }
+        return entities;
+    }
+
+    /**
+     * Includes only those paths that end at a node with all of a set of
+     * property values, while continuing to traverse beyond the others.
+     * Numbers of different types are compared by value, since property
+     * values decoded from a request may be narrower than those stored,
+     * and a list matches an array property with the same elements in the
+     * same order.
+     *
+     */
+    private static class PropertyEvaluator implements Evaluator {
+
+        final private Map properties;
+
+        public PropertyEvaluator(Map properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Evaluation evaluate(Path path) {
+            Node node = path.endNode();
+            for (Object key : properties.keySet()) {
+                if (!matches(properties.get(key), node.getProperty(key.toString(), null))) {
+                    return Evaluation.EXCLUDE_AND_CONTINUE;
+                }
+            }
+            return Evaluation.INCLUDE_AND_CONTINUE;
+        }
+
+        private static boolean matches(Object expected, Object actual) {
+            if (expected == null || actual == null) {
+                return expected == actual;
+            } else if (expected instanceof Number && actual instanceof Number) {
+                if (expected instanceof Double || expected instanceof Float ||
+                        actual instanceof Double || actual instanceof Float) {
+                    return ((Number) expected).doubleValue() == ((Number) actual).doubleValue();
+                } else {
+                    return ((Number) expected).longValue() == ((Number) actual).longValue();
+                }
+            } else if (expected instanceof List && actual.getClass().isArray()) {
+                List list = (List) expected;
+                int length = Array.getLength(actual);
+                if (list.size() != length) {
+                    return false;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (!matches(list.get(i), Array.get(actual, i))) {
+                        return false;
+                    }
+                }
+                return true;
+            } else {
+                return expected.equals(actual);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package org.zerograph.response.status4xx;
+
+public class RequestTimeout extends Status4xx {
+
+    public RequestTimeout(Object... data) {
+        super(data);
+    }
+
+    @Override
+    public int getStatus() {
+        return REQUEST_TIMEOUT;
+    }
+
+}
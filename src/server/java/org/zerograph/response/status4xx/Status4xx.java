@@ -8,6 +8,7 @@ public abstract class Status4xx extends ZerographException implements ResponseIn
     final public static int BAD_REQUEST = 400;
     final public static int NOT_FOUND = 404;
     final public static int METHOD_NOT_ALLOWED = 405;
+    final public static int REQUEST_TIMEOUT = 408;
     final public static int CONFLICT = 409;
 
     final private Object[] data;
@@ -0,0 +1,14 @@
+package org.zerograph.response.status5xx;
+
+public class ServiceUnavailable extends Status5xx {
+
+    public ServiceUnavailable(Object... data) {
+        super(data);
+    }
+
+    @Override
+    public int getStatus() {
+        return SERVICE_UNAVAILABLE;
+    }
+
+}
@@ -7,6 +7,7 @@ public abstract class Status5xx extends ZerographException implements ResponseIn
 
     final public static int SERVER_ERROR = 500;
     final public static int NOT_IMPLEMENTED = 501;
+    final public static int SERVICE_UNAVAILABLE = 503;
 
     final private Object[] data;
 
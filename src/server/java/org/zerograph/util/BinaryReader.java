@@ -0,0 +1,431 @@
+package org.zerograph.util;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+/**
+ * Reads values in the binary encoding directly from a slice of a byte
+ * array. The encoding is MessagePack with three extension types:
+ *
+ *   1  Node     [id, labels, properties], [id, labels] or id
+ *   2  Rel      [id, start, end, type, properties], [id, start, end, type]
+ *               or id, where start and end are Nodes or ids
+ *   3  Pointer  address or [address, index]
+ *
+ * Values are decoded to the same types as text terms: LinkedHashMap,
+ * ArrayList, String, Boolean, null, Double and the smaller of Integer and
+ * Long. Binary values are decoded to byte arrays. Only pointers may be
+ * sent by clients; other extension types are rejected, as are arrays and
+ * maps nested more than MAX_DEPTH deep.
+ *
+ */
+public class BinaryReader {
+
+    final public static int MAX_DEPTH = 64;
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+
+    final private byte[] buffer;
+    final private int end;
+    private int position;
+    private int depth;
+
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Decode exactly one value from a slice of bytes.
+     *
+     */
+    public static Object decode(byte[] buffer, int offset, int length) throws IOException {
+        BinaryReader reader = new BinaryReader(buffer, offset, length);
+        Object value = reader.readValue();
+        if (reader.hasMore()) {
+            throw reader.error("Unexpected trailing data");
+        }
+        return value;
+    }
+
+    /**
+     * Return true if a value starting with this byte is an extension.
+     *
+     */
+    public static boolean isExtension(byte b) {
+        int type = b & 0xFF;
+        return (type >= 0xC7 && type <= 0xC9) || (type >= 0xD4 && type <= 0xD8);
+    }
+
+    public int getPosition() {
+        return this.position;
+    }
+
+    public boolean hasMore() {
+        return position < end;
+    }
+
+    /**
+     * Read an unsigned varint, as used for message lengths.
+     *
+     */
+    public int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw error("Invalid varint");
+    }
+
+    public int readArrayHeader() throws IOException {
+        int type = readByte();
+        if ((type & 0xF0) == 0x90) {
+            return type & 0x0F;
+        } else if (type == 0xDC) {
+            return readUnsigned(2);
+        } else if (type == 0xDD) {
+            return readLength(4);
+        } else {
+            throw error("Array expected");
+        }
+    }
+
+    /**
+     * Read the header of a string and return its length, leaving the
+     * position at the start of its bytes.
+     *
+     */
+    public int readStringHeader() throws IOException {
+        int type = readByte();
+        if ((type & 0xE0) == 0xA0) {
+            return checkLength(type & 0x1F);
+        } else if (type == 0xD9) {
+            return checkLength(readUnsigned(1));
+        } else if (type == 0xDA) {
+            return checkLength(readUnsigned(2));
+        } else if (type == 0xDB) {
+            return checkLength(readLength(4));
+        } else {
+            throw error("String expected");
+        }
+    }
+
+    public void skip(int length) throws IOException {
+        position += checkLength(length);
+    }
+
+    public Object readValue() throws IOException {
+        int type = readByte();
+        if (type < 0x80) {
+            return type;
+        } else if (type >= 0xE0) {
+            return type - 0x100;
+        } else if ((type & 0xF0) == 0x80) {
+            return readMap(type & 0x0F);
+        } else if ((type & 0xF0) == 0x90) {
+            return readArray(type & 0x0F);
+        } else if ((type & 0xE0) == 0xA0) {
+            return readString(type & 0x1F);
+        }
+        switch (type) {
+            case 0xC0:
+                return null;
+            case 0xC2:
+                return false;
+            case 0xC3:
+                return true;
+            case 0xC4:
+                return readBinary(readUnsigned(1));
+            case 0xC5:
+                return readBinary(readUnsigned(2));
+            case 0xC6:
+                return readBinary(readLength(4));
+            case 0xC7:
+                return readExtension(readUnsigned(1));
+            case 0xC8:
+                return readExtension(readUnsigned(2));
+            case 0xC9:
+                return readExtension(readLength(4));
+            case 0xCA:
+                return (double) Float.intBitsToFloat((int) readFixed(4));
+            case 0xCB:
+                return Double.longBitsToDouble(readFixed(8));
+            case 0xCC:
+                return readUnsigned(1);
+            case 0xCD:
+                return readUnsigned(2);
+            case 0xCE:
+                return integer(readFixed(4) & 0xFFFFFFFFL);
+            case 0xCF:
+                long value = readFixed(8);
+                if (value < 0) {
+                    throw error("Integer out of range");
+                }
+                return integer(value);
+            case 0xD0:
+                return (int) (byte) readFixed(1);
+            case 0xD1:
+                return (int) (short) readFixed(2);
+            case 0xD2:
+                return (int) readFixed(4);
+            case 0xD3:
+                return integer(readFixed(8));
+            case 0xD4:
+                return readExtension(1);
+            case 0xD5:
+                return readExtension(2);
+            case 0xD6:
+                return readExtension(4);
+            case 0xD7:
+                return readExtension(8);
+            case 0xD8:
+                return readExtension(16);
+            case 0xD9:
+                return readString(readUnsigned(1));
+            case 0xDA:
+                return readString(readUnsigned(2));
+            case 0xDB:
+                return readString(readLength(4));
+            case 0xDC:
+                return readArray(readUnsigned(2));
+            case 0xDD:
+                return readArray(readLength(4));
+            case 0xDE:
+                return readMap(readUnsigned(2));
+            case 0xDF:
+                return readMap(readLength(4));
+            default:
+                throw error("Unknown type");
+        }
+    }
+
+    /**
+     * Skip over a single value without decoding it.
+     *
+     */
+    public void skipValue() throws IOException {
+        int type = readByte();
+        if (type < 0x80 || type >= 0xE0 || type == 0xC0 || type == 0xC2 || type == 0xC3) {
+            return;
+        } else if ((type & 0xF0) == 0x80) {
+            skipValues(2L * (type & 0x0F));
+            return;
+        } else if ((type & 0xF0) == 0x90) {
+            skipValues(type & 0x0F);
+            return;
+        } else if ((type & 0xE0) == 0xA0) {
+            skip(type & 0x1F);
+            return;
+        }
+        switch (type) {
+            case 0xC4: case 0xD9:
+                skip(readUnsigned(1));
+                break;
+            case 0xC5: case 0xDA:
+                skip(readUnsigned(2));
+                break;
+            case 0xC6: case 0xDB:
+                skip(readLength(4));
+                break;
+            case 0xC7:
+                skip(readUnsigned(1) + 1);
+                break;
+            case 0xC8:
+                skip(readUnsigned(2) + 1);
+                break;
+            case 0xC9:
+                skip(readLength(4) + 1);
+                break;
+            case 0xCC: case 0xD0:
+                skip(1);
+                break;
+            case 0xCD: case 0xD1:
+                skip(2);
+                break;
+            case 0xCA: case 0xCE: case 0xD2:
+                skip(4);
+                break;
+            case 0xCB: case 0xCF: case 0xD3:
+                skip(8);
+                break;
+            case 0xD4:
+                skip(2);
+                break;
+            case 0xD5:
+                skip(3);
+                break;
+            case 0xD6:
+                skip(5);
+                break;
+            case 0xD7:
+                skip(9);
+                break;
+            case 0xD8:
+                skip(17);
+                break;
+            case 0xDC:
+                skipValues(readUnsigned(2));
+                break;
+            case 0xDD:
+                skipValues(readLength(4));
+                break;
+            case 0xDE:
+                skipValues(2L * readUnsigned(2));
+                break;
+            case 0xDF:
+                skipValues(2L * readLength(4));
+                break;
+            default:
+                throw error("Unknown type");
+        }
+    }
+
+    /**
+     * Skip over the values of an array or map, each of which takes at
+     * least one byte.
+     *
+     */
+    private void skipValues(long count) throws IOException {
+        checkCount(count);
+        enter();
+        for (long i = 0; i < count; i++) {
+            skipValue();
+        }
+        depth -= 1;
+    }
+
+    private String readString(int length) throws IOException {
+        checkLength(length);
+        String value = new String(buffer, position, length, UTF_8);
+        position += length;
+        return value;
+    }
+
+    private byte[] readBinary(int length) throws IOException {
+        checkLength(length);
+        byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return value;
+    }
+
+    private ArrayList<Object> readArray(int count) throws IOException {
+        checkCount(count);
+        enter();
+        ArrayList<Object> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(readValue());
+        }
+        depth -= 1;
+        return list;
+    }
+
+    private LinkedHashMap<String, Object> readMap(int count) throws IOException {
+        checkCount(2L * count);
+        enter();
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            Object key = readValue();
+            if (!(key instanceof String)) {
+                throw error("Map keys must be strings");
+            }
+            map.put((String) key, readValue());
+        }
+        depth -= 1;
+        return map;
+    }
+
+    private void enter() throws IOException {
+        depth += 1;
+        if (depth > MAX_DEPTH) {
+            throw error("Nested too deeply");
+        }
+    }
+
+    private Object readExtension(int length) throws IOException {
+        int type = readByte();
+        checkLength(length);
+        int start = position;
+        if (type != BinaryWriter.POINTER) {
+            throw error("Unsupported extension type " + type);
+        }
+        Object value = readValue();
+        if (position != start + length) {
+            throw error("Malformed extension");
+        }
+        if (value instanceof Integer) {
+            return new Pointer((Integer) value);
+        } else if (value instanceof ArrayList && ((ArrayList) value).size() == 2) {
+            Object address = ((ArrayList) value).get(0);
+            Object index = ((ArrayList) value).get(1);
+            if (address instanceof Integer && index instanceof Integer && (Integer) index >= 0) {
+                return new Pointer((Integer) address, (Integer) index);
+            }
+        }
+        throw error("Malformed pointer");
+    }
+
+    private int readByte() throws IOException {
+        if (position >= end) {
+            throw error("Unexpected end of data");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private long readFixed(int size) throws IOException {
+        checkLength(size);
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private int readUnsigned(int size) throws IOException {
+        return (int) readFixed(size);
+    }
+
+    private int readLength(int size) throws IOException {
+        long length = readFixed(size);
+        if (length > Integer.MAX_VALUE) {
+            throw error("Length out of range");
+        }
+        return (int) length;
+    }
+
+    private int checkLength(int length) throws IOException {
+        if (length < 0 || length > end - position) {
+            throw error("Unexpected end of data");
+        }
+        return length;
+    }
+
+    private void checkCount(long count) throws IOException {
+        if (count > end - position) {
+            throw error("Unexpected end of data");
+        }
+    }
+
+    private static Object integer(long value) {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return (int) value;
+        } else {
+            return value;
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + position);
+    }
+
+}
@@ -0,0 +1,369 @@
+package org.zerograph.util;
+
+import java.lang.reflect.Array;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes values in the binary encoding into a reusable, growable buffer.
+ * Values are encoded as MessagePack, with extension types for graph
+ * entities and pointers (see BinaryReader). Extensions and messages are
+ * written with the smallest header that fits: space for the shortest
+ * header is reserved before the content is written and the content is
+ * moved along in the rare case that a longer one is needed.
+ *
+ */
+public class BinaryWriter {
+
+    final public static byte MARKER = (byte) 0xC1;
+
+    final public static int NODE = 1;
+    final public static int REL = 2;
+    final public static int POINTER = 3;
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+
+    private byte[] buffer;
+    private int size;
+
+    public BinaryWriter(int capacity) {
+        this.buffer = new byte[capacity];
+        this.size = 0;
+    }
+
+    public void reset() {
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Return the buffer itself, of which the first size() bytes have
+     * been written. The buffer is replaced as it grows, so this must be
+     * called again after further writes.
+     *
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public void writeMarker() {
+        writeByte(MARKER);
+    }
+
+    public void writeNil() {
+        writeByte(0xC0);
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 0xC3 : 0xC2);
+    }
+
+    public void writeInteger(long value) {
+        if (value >= 0) {
+            if (value < 0x80) {
+                writeByte((int) value);
+            } else if (value < 0x100) {
+                writeByte(0xCC);
+                writeByte((int) value);
+            } else if (value < 0x10000) {
+                writeByte(0xCD);
+                writeShort((int) value);
+            } else if (value < 0x100000000L) {
+                writeByte(0xCE);
+                writeInt((int) value);
+            } else {
+                writeByte(0xCF);
+                writeLong(value);
+            }
+        } else {
+            if (value >= -32) {
+                writeByte((int) value);
+            } else if (value >= Byte.MIN_VALUE) {
+                writeByte(0xD0);
+                writeByte((int) value);
+            } else if (value >= Short.MIN_VALUE) {
+                writeByte(0xD1);
+                writeShort((int) value);
+            } else if (value >= Integer.MIN_VALUE) {
+                writeByte(0xD2);
+                writeInt((int) value);
+            } else {
+                writeByte(0xD3);
+                writeLong(value);
+            }
+        }
+    }
+
+    public void writeFloat(float value) {
+        writeByte(0xCA);
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        writeByte(0xCB);
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Write a string as UTF-8. ASCII strings, which make up most labels,
+     * keys and values, are copied straight into the buffer.
+     *
+     */
+    public void writeString(String value) {
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) {
+            writeStringHeader(length);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                buffer[size++] = (byte) value.charAt(i);
+            }
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeStringHeader(bytes.length);
+            writeBytes(bytes);
+        }
+    }
+
+    public void writeBinary(byte[] value) {
+        if (value.length < 0x100) {
+            writeByte(0xC4);
+            writeByte(value.length);
+        } else if (value.length < 0x10000) {
+            writeByte(0xC5);
+            writeShort(value.length);
+        } else {
+            writeByte(0xC6);
+            writeInt(value.length);
+        }
+        writeBytes(value);
+    }
+
+    public void writeArrayHeader(int count) {
+        if (count < 16) {
+            writeByte(0x90 | count);
+        } else if (count < 0x10000) {
+            writeByte(0xDC);
+            writeShort(count);
+        } else {
+            writeByte(0xDD);
+            writeInt(count);
+        }
+    }
+
+    public void writeMapHeader(int count) {
+        if (count < 16) {
+            writeByte(0x80 | count);
+        } else if (count < 0x10000) {
+            writeByte(0xDE);
+            writeShort(count);
+        } else {
+            writeByte(0xDF);
+            writeInt(count);
+        }
+    }
+
+    /**
+     * Begin an extension value of the given type, returning a mark to be
+     * passed to endExtension once its content has been written.
+     *
+     */
+    public int beginExtension(int type) {
+        int mark = size;
+        ensureCapacity(3);
+        buffer[mark + 2] = (byte) type;
+        size += 3;
+        return mark;
+    }
+
+    public void endExtension(int mark) {
+        int length = size - mark - 3;
+        byte type = buffer[mark + 2];
+        if (length < 0x100) {
+            buffer[mark] = (byte) 0xC7;
+            buffer[mark + 1] = (byte) length;
+        } else if (length < 0x10000) {
+            shift(mark + 3, 1);
+            buffer[mark] = (byte) 0xC8;
+            buffer[mark + 1] = (byte) (length >> 8);
+            buffer[mark + 2] = (byte) length;
+            buffer[mark + 3] = type;
+        } else {
+            shift(mark + 3, 3);
+            buffer[mark] = (byte) 0xC9;
+            buffer[mark + 1] = (byte) (length >> 24);
+            buffer[mark + 2] = (byte) (length >> 16);
+            buffer[mark + 3] = (byte) (length >> 8);
+            buffer[mark + 4] = (byte) length;
+            buffer[mark + 5] = type;
+        }
+    }
+
+    /**
+     * Begin a message, which is prefixed by its length as an unsigned
+     * varint, returning a mark to be passed to endMessage.
+     *
+     */
+    public int beginMessage() {
+        int mark = size;
+        writeByte(0);
+        return mark;
+    }
+
+    public void endMessage(int mark) {
+        int length = size - mark - 1;
+        int varintSize = 1;
+        for (int rest = length >>> 7; rest != 0; rest >>>= 7) {
+            varintSize += 1;
+        }
+        if (varintSize > 1) {
+            shift(mark + 1, varintSize - 1);
+        }
+        int position = mark;
+        int rest = length;
+        while (rest >= 0x80) {
+            buffer[position++] = (byte) (rest | 0x80);
+            rest >>>= 7;
+        }
+        buffer[position] = (byte) rest;
+    }
+
+    public void writePointer(Pointer pointer) {
+        int mark = beginExtension(POINTER);
+        if (pointer.hasIndex()) {
+            writeArrayHeader(2);
+            writeInteger(pointer.getAddress());
+            writeInteger(pointer.getIndex());
+        } else {
+            writeInteger(pointer.getAddress());
+        }
+        endExtension(mark);
+    }
+
+    /**
+     * Write a plain value: null, a boolean, number or string, a byte or
+     * other primitive array, a list, a map or a pointer. Graph entities
+     * are written by the caller, as their form depends on the session.
+     *
+     */
+    public void writeValue(Object value) {
+        if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeInteger(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            writeBoolean((Boolean) value);
+        } else if (value == null) {
+            writeNil();
+        } else if (value instanceof Character) {
+            writeString(value.toString());
+        } else if (value instanceof byte[]) {
+            writeBinary((byte[]) value);
+        } else if (value instanceof Pointer) {
+            writePointer((Pointer) value);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeMapHeader(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(String.valueOf(entry.getKey()));
+                writeValue(entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            writeArrayHeader(collection.size());
+            for (Object item : collection) {
+                writeValue(item);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            writeArrayHeader(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(Array.get(value, i));
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot encode value of type " + value.getClass().getName());
+        }
+    }
+
+    public void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    private void writeShort(int value) {
+        ensureCapacity(2);
+        buffer[size++] = (byte) (value >> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[size++] = (byte) (value >> 24);
+        buffer[size++] = (byte) (value >> 16);
+        buffer[size++] = (byte) (value >> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >> 32));
+        writeInt((int) value);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void writeStringHeader(int length) {
+        if (length < 32) {
+            writeByte(0xA0 | length);
+        } else if (length < 0x100) {
+            writeByte(0xD9);
+            writeByte(length);
+        } else if (length < 0x10000) {
+            writeByte(0xDA);
+            writeShort(length);
+        } else {
+            writeByte(0xDB);
+            writeInt(length);
+        }
+    }
+
+    /**
+     * Move everything from a position to the end of the buffer along by
+     * a number of bytes, to make room for a longer header.
+     *
+     */
+    private void shift(int from, int by) {
+        ensureCapacity(by);
+        System.arraycopy(buffer, from, buffer, from + by, size - from);
+        size += by;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, size + extra));
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.zerograph.util;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses whole frames with raw Deflate. A compressed
+ * frame consists of a NUL marker byte followed by the deflated content of
+ * the original frame, which may be either text or binary. As a NUL cannot
+ * begin a text line or a binary frame, compressed frames can be told
+ * apart from any other by their first byte alone.
+ *
+ * Deflaters and inflaters hold native memory, so callers own one each,
+ * reuse it for every frame they handle and end it when they are done.
+ *
+ */
+public class Compression {
+
+    final public static byte MARKER = 0x00;
+
+    // repetitive JSON compresses almost as well at the fastest level
+    final public static int LEVEL = Deflater.BEST_SPEED;
+
+    final public static int DEFAULT_INFLATE_LIMIT = 64 * 1024 * 1024;
+
+    public static Deflater createDeflater() {
+        return new Deflater(LEVEL, true);
+    }
+
+    public static Inflater createInflater() {
+        return new Inflater(true);
+    }
+
+    public static boolean isCompressed(byte[] frame) {
+        return frame.length > 0 && frame[0] == MARKER;
+    }
+
+    /**
+     * Compress a frame, returning the original frame unchanged if
+     * compression would not make it smaller.
+     *
+     */
+    public static byte[] compress(Deflater deflater, byte[] frame) {
+        byte[] compressed = compress(deflater, frame, 0, frame.length);
+        return compressed == null ? frame : compressed;
+    }
+
+    /**
+     * Compress a frame held in a slice of a byte array, returning null if
+     * compression would not make it smaller.
+     *
+     */
+    public static byte[] compress(Deflater deflater, byte[] buffer, int offset, int length) {
+        if (length == 0) {
+            return null;
+        }
+        byte[] compressed = new byte[length];
+        compressed[0] = MARKER;
+        deflater.reset();
+        deflater.setInput(buffer, offset, length);
+        deflater.finish();
+        int size = 1;
+        while (!deflater.finished() && size < compressed.length) {
+            size += deflater.deflate(compressed, size, compressed.length - size);
+        }
+        if (deflater.finished() && size < length) {
+            return Arrays.copyOf(compressed, size);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Decompress the content of a compressed frame, excluding its marker
+     * byte, from a slice of a byte array. A frame that would inflate to
+     * more than the given limit is rejected before that much memory is
+     * taken, as a few kilobytes of deflated input can otherwise expand
+     * to fill the heap.
+     *
+     */
+    public static byte[] decompress(Inflater inflater, byte[] buffer, int offset, int length, int limit) throws DataFormatException {
+        // one byte beyond the limit is enough to detect overflow
+        long capacity = Math.min(limit + 1L, Integer.MAX_VALUE);
+        byte[] frame = new byte[(int) Math.min(Math.max(64L, 4L * length), capacity)];
+        int size = 0;
+        inflater.reset();
+        inflater.setInput(buffer, offset, length);
+        while (!inflater.finished()) {
+            if (size == frame.length) {
+                if (size == capacity) {
+                    throw new DataFormatException("Decompressed frame exceeds " + limit + " bytes");
+                }
+                frame = Arrays.copyOf(frame, (int) Math.min(2L * frame.length, capacity));
+            }
+            int inflated = inflater.inflate(frame, size, frame.length - size);
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated compressed frame");
+            }
+            size += inflated;
+        }
+        if (size > limit) {
+            throw new DataFormatException("Decompressed frame exceeds " + limit + " bytes");
+        }
+        return Arrays.copyOf(frame, size);
+    }
+
+}
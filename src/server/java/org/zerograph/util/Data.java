@@ -1,5 +1,7 @@
 package org.zerograph.util;
 
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
@@ -11,96 +13,205 @@ import org.zerograph.Zerograph;
 import org.zerograph.api.ZerographInterface;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class Data {
 
     final private static String ZEROGRAPH_HINT = "/*Zerograph*/";
     final private static String GRAPH_HINT = "/*Graph*/";
-    final private static String NODE_HINT = "/*Node*/";
-    final private static String REL_HINT = "/*Rel*/";
-    final private static String POINTER_HINT = "/*Pointer*/";
+    final public static String NODE_HINT = "/*Node*/";
+    final public static String REL_HINT = "/*Rel*/";
+    final public static String POINTER_HINT = "/*Pointer*/";
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+    final private static byte[] NULL_BYTES = "null".getBytes(UTF_8);
+    final private static byte[] TRUE_BYTES = "true".getBytes(UTF_8);
+    final private static byte[] FALSE_BYTES = "false".getBytes(UTF_8);
+    final private static byte[] POINTER_HINT_BYTES = POINTER_HINT.getBytes(UTF_8);
 
     final private static ObjectMapper mapper = new ObjectMapper();
 
     private static Object decodePointer(String string) throws IOException {
-        int address = mapper.readValue(string, Integer.class);
-        return new Pointer(address);
+        return pointer(mapper.readValue(string, Object.class));
     }
 
-    private static List<String> labels(Node node) {
-        ArrayList<String> labelList = new ArrayList<>();
-        for (Label label : node.getLabels()) {
-            labelList.add(label.name());
+    /**
+     * Build a pointer from its decoded value, either an address alone or
+     * a list of address and index.
+     *
+     */
+    private static Pointer pointer(Object value) {
+        if (value instanceof Integer) {
+            return new Pointer((Integer) value);
+        } else if (value instanceof List) {
+            List list = (List) value;
+            if (list.size() == 2 && list.get(0) instanceof Integer && list.get(1) instanceof Integer && (Integer) list.get(1) >= 0) {
+                return new Pointer((Integer) list.get(0), (Integer) list.get(1));
+            }
         }
-        return labelList;
+        throw new IllegalArgumentException(POINTER_HINT + value);
+    }
+
+    /**
+     * Create a UTF-8 generator over a stream, suitable for passing to
+     * write. Values written are serialised with the same mapper used by
+     * encode and decode.
+     *
+     */
+    public static JsonGenerator createGenerator(OutputStream stream) throws IOException {
+        return mapper.getJsonFactory().createJsonGenerator(stream, JsonEncoding.UTF8);
+    }
+
+    /**
+     * Encode a single value as a String. This is a convenience for
+     * callers outside the response path, which should instead stream
+     * values into a shared generator with write.
+     *
+     */
+    public static String encode(Object value) throws IOException {
+        StringWriter writer = new StringWriter();
+        JsonGenerator generator = mapper.getJsonFactory().createJsonGenerator(writer);
+        write(generator, value);
+        generator.close();
+        return writer.toString();
     }
 
-    private static Map<String, Object> properties(PropertyContainer entity) {
-        HashMap<String, Object> propertyMap = new HashMap<>();
-        for (String key : entity.getPropertyKeys()) {
-            propertyMap.put(key, entity.getProperty(key));
+    /**
+     * Stream a single value, including any type hint, into a generator.
+     * Graph entities are written field by field without building
+     * intermediate maps or lists; any other value is passed to Jackson.
+     *
+     */
+    public static void write(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof Node) {
+            generator.writeRaw(NODE_HINT);
+            writeNode(generator, (Node) value);
+        } else if (value instanceof Relationship) {
+            generator.writeRaw(REL_HINT);
+            writeRel(generator, (Relationship) value);
+        } else if (value instanceof Zerograph) {
+            generator.writeRaw(ZEROGRAPH_HINT);
+            writeZerograph(generator, (Zerograph) value);
+        } else if (value instanceof Graph) {
+            Graph graph = (Graph) value;
+            generator.writeRaw(GRAPH_HINT);
+            writeGraph(generator, graph.getZerograph(), graph.getHost(), graph.getPort());
+        } else if (value instanceof GraphDirectory) {
+            GraphDirectory directory = (GraphDirectory) value;
+            generator.writeRaw(GRAPH_HINT);
+            writeGraph(generator, directory.getZerograph(), directory.getHost(), directory.getPort());
+        } else {
+            writeValue(generator, value);
         }
-        return propertyMap;
     }
 
-    private static Map<String, Object> attributes(ZerographInterface zerograph) throws IOException {
-        HashMap<String, Object> attributes = new HashMap<>();
-        attributes.put("host", zerograph.getHost());
-        attributes.put("port", zerograph.getPort());
-        return attributes;
+    private static void writeZerograph(JsonGenerator generator, ZerographInterface zerograph) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("host", zerograph.getHost());
+        generator.writeNumberField("port", zerograph.getPort());
+        generator.writeEndObject();
     }
 
-    private static Map<String, Object> attributes(Graph graph) throws IOException {
-        HashMap<String, Object> attributes = new HashMap<>();
-        attributes.put("zerograph", attributes(graph.getZerograph()));
-        attributes.put("host", graph.getHost());
-        attributes.put("port", graph.getPort());
-        return attributes;
+    private static void writeGraph(JsonGenerator generator, ZerographInterface zerograph, String host, int port) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName("zerograph");
+        writeZerograph(generator, zerograph);
+        generator.writeStringField("host", host);
+        generator.writeNumberField("port", port);
+        generator.writeEndObject();
     }
 
-    private static Map<String, Object> attributes(GraphDirectory directory) throws IOException {
-        HashMap<String, Object> attributes = new HashMap<>();
-        attributes.put("zerograph", attributes(directory.getZerograph()));
-        attributes.put("host", directory.getHost());
-        attributes.put("port", directory.getPort());
-        return attributes;
+    public static void writeNode(JsonGenerator generator, Node node) throws IOException {
+        writeNode(generator, node, true, null);
     }
 
-    private static Map<String, Object> attributes(Node node) throws IOException {
-        HashMap<String, Object> attributes = new HashMap<>();
-        attributes.put("id", node.getId());
-        attributes.put("labels", labels(node));
-        attributes.put("properties", properties(node));
-        return attributes;
+    /**
+     * Write a node, optionally omitting its properties or restricting
+     * them to a set of keys.
+     *
+     */
+    public static void writeNode(JsonGenerator generator, Node node, boolean withProperties, Set<String> keys) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", node.getId());
+        generator.writeArrayFieldStart("labels");
+        for (Label label : node.getLabels()) {
+            generator.writeString(label.name());
+        }
+        generator.writeEndArray();
+        if (withProperties) {
+            writeProperties(generator, node, keys);
+        }
+        generator.writeEndObject();
     }
 
-    private static Map<String, Object> attributes(Relationship rel) throws IOException {
-        HashMap<String, Object> attributes = new HashMap<>();
-        attributes.put("id", rel.getId());
-        attributes.put("start", attributes(rel.getStartNode()));
-        attributes.put("end", attributes(rel.getEndNode()));
-        attributes.put("type", rel.getType().name());
-        attributes.put("properties", properties(rel));
-        return attributes;
+    private static void writeRel(JsonGenerator generator, Relationship rel) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rel.getId());
+        generator.writeFieldName("start");
+        writeNode(generator, rel.getStartNode());
+        generator.writeFieldName("end");
+        writeNode(generator, rel.getEndNode());
+        generator.writeStringField("type", rel.getType().name());
+        writeProperties(generator, rel);
+        generator.writeEndObject();
     }
 
-    public static String encode(Object value) throws IOException {
-        if (value instanceof Zerograph) {
-            return ZEROGRAPH_HINT + mapper.writeValueAsString(attributes((Zerograph) value));
-        } else if (value instanceof Graph) {
-            return GRAPH_HINT + mapper.writeValueAsString(attributes((Graph) value));
-        } else if (value instanceof GraphDirectory) {
-            return GRAPH_HINT + mapper.writeValueAsString(attributes((GraphDirectory) value));
-        } else if (value instanceof Node) {
-            return NODE_HINT + mapper.writeValueAsString(attributes((Node) value));
-        } else if(value instanceof Relationship) {
-            return REL_HINT + mapper.writeValueAsString(attributes((Relationship) value));
+    public static void writeProperties(JsonGenerator generator, PropertyContainer entity) throws IOException {
+        writeProperties(generator, entity, null);
+    }
+
+    /**
+     * Write the properties of an entity, restricted to a set of keys
+     * unless that set is null. Keys that the entity does not have are
+     * omitted.
+     *
+     */
+    public static void writeProperties(JsonGenerator generator, PropertyContainer entity, Set<String> keys) throws IOException {
+        generator.writeObjectFieldStart("properties");
+        if (keys == null) {
+            for (String key : entity.getPropertyKeys()) {
+                generator.writeFieldName(key);
+                writeValue(generator, entity.getProperty(key));
+            }
+        } else {
+            for (String key : keys) {
+                Object value = entity.getProperty(key, null);
+                if (value != null) {
+                    generator.writeFieldName(key);
+                    writeValue(generator, value);
+                }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write a plain value, avoiding a serializer lookup for the scalar
+     * types that make up the majority of property values.
+     *
+     */
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Float) {
+            generator.writeNumber((Float) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value == null) {
+            generator.writeNull();
         } else {
-            return mapper.writeValueAsString(value);
+            generator.writeObject(value);
         }
     }
 
@@ -138,4 +249,104 @@ public class Data {
         }
     }
 
+    /**
+     * Decode a single term from a slice of a byte array. Plain integers
+     * and strings without escapes are decoded directly from the bytes and
+     * lists and maps are read with a JsonReader; anything else is passed
+     * to Jackson without first being copied into a String.
+     *
+     */
+    public static Object decode(byte[] buffer, int offset, int length) throws IOException {
+        if (length > 0) {
+            byte b = buffer[offset];
+            if ((b >= '0' && b <= '9') || b == '-') {
+                return decodeNumber(buffer, offset, length);
+            } else if (b == '"') {
+                return decodeString(buffer, offset, length);
+            } else if (b == '[' || b == '{') {
+                return JsonReader.decode(buffer, offset, length);
+            } else if (b == '/' && startsWith(buffer, offset, length, POINTER_HINT_BYTES)) {
+                int hintLength = POINTER_HINT_BYTES.length;
+                if (length > hintLength && buffer[offset + hintLength] == '[') {
+                    return pointer(JsonReader.decode(buffer, offset + hintLength, length - hintLength));
+                }
+                Object address = decodeNumber(buffer, offset + hintLength, length - hintLength);
+                if (address instanceof Integer) {
+                    return new Pointer((Integer)address);
+                }
+            } else if (equals(buffer, offset, length, NULL_BYTES)) {
+                return null;
+            } else if (equals(buffer, offset, length, TRUE_BYTES)) {
+                return true;
+            } else if (equals(buffer, offset, length, FALSE_BYTES)) {
+                return false;
+            }
+        }
+        throw new IllegalArgumentException(new String(buffer, offset, length, UTF_8));
+    }
+
+    private static Object decodeNumber(byte[] buffer, int offset, int length) throws IOException {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && buffer[i] == '-';
+        if (negative) {
+            i += 1;
+        }
+        int digits = end - i;
+        if (digits == 0 || digits > 18 || (digits > 1 && buffer[i] == '0')) {
+            return mapper.readValue(buffer, offset, length, Number.class);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                // fractions and exponents
+                return mapper.readValue(buffer, offset, length, Number.class);
+            }
+            value = 10 * value + digit;
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return (int)value;
+        } else {
+            return value;
+        }
+    }
+
+    private static Object decodeString(byte[] buffer, int offset, int length) throws IOException {
+        int end = offset + length - 1;
+        if (length >= 2 && buffer[end] == '"') {
+            boolean plain = true;
+            for (int i = offset + 1; i < end; i++) {
+                byte b = buffer[i];
+                if (b == '\\' || b == '"' || (b >= 0 && b < 0x20)) {
+                    plain = false;
+                    break;
+                }
+            }
+            if (plain) {
+                return new String(buffer, offset + 1, length - 2, UTF_8);
+            }
+        }
+        return mapper.readValue(buffer, offset, length, String.class);
+    }
+
+    private static boolean startsWith(byte[] buffer, int offset, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(byte[] buffer, int offset, int length, byte[] value) {
+        return length == value.length && startsWith(buffer, offset, length, value);
+    }
+
 }
@@ -0,0 +1,124 @@
+package org.zerograph.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with power-of-two microsecond buckets.
+ * Bucket 0 counts durations of up to 1us and bucket i those of up to
+ * 2^i us, so percentiles are accurate to within a factor of two, which
+ * is enough to spot regressions cheaply. Anything longer than the last
+ * bucket is counted as an overflow rather than in any bucket. Negative
+ * durations, as from a clock adjustment, are recorded as zero.
+ *
+ */
+public class Histogram {
+
+    final public static int BUCKETS = 32;  // up to about 36 minutes
+
+    final private AtomicLongArray counts;
+    final private AtomicLong sum;          // nanoseconds
+    final private AtomicLong max;          // nanoseconds
+
+    public Histogram() {
+        this.counts = new AtomicLongArray(BUCKETS + 1);  // the last for overflow
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Return the upper bound of a bucket in microseconds.
+     *
+     */
+    public static long getBucketBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        long micros = (nanos + 999) / 1000;
+        int bucket = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+        counts.incrementAndGet(Math.min(bucket, BUCKETS));
+        sum.addAndGet(nanos);
+        long current;
+        while (nanos > (current = max.get())) {
+            if (max.compareAndSet(current, nanos)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /**
+     * Return the number of durations longer than the last bucket bound.
+     *
+     */
+    public long getOverflow() {
+        return counts.get(BUCKETS);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Return the upper bound in microseconds of the bucket containing the
+     * given quantile, the maximum if that is beyond the last bucket, or
+     * zero if nothing has been recorded.
+     *
+     */
+    public long getQuantile(double quantile) {
+        long[] snapshot = new long[BUCKETS + 1];
+        long count = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return getBucketBound(i);
+            }
+        }
+        return getMax() / 1000;
+    }
+
+    /**
+     * Summarise this histogram with all times in microseconds.
+     *
+     */
+    public Map<String, Object> toMap() {
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        long count = getCount();
+        map.put("count", count);
+        map.put("mean", count == 0 ? 0 : getSum() / count / 1000);
+        map.put("p50", getQuantile(0.5));
+        map.put("p99", getQuantile(0.99));
+        map.put("p999", getQuantile(0.999));
+        map.put("max", getMax() / 1000);
+        return map;
+    }
+
+}
@@ -0,0 +1,458 @@
+package org.zerograph.util;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader working directly on a slice of a byte array.
+ *
+ * Values are decoded to the same types as Jackson's untyped mapping:
+ * LinkedHashMap, ArrayList, String, Boolean, null, Double for fractions
+ * and the smallest of Integer, Long and BigInteger for whole numbers.
+ * Unlike an ObjectMapper, no parser, symbol table or intermediate String
+ * is created for each value read. Arrays and objects nested more than
+ * MAX_DEPTH deep are rejected when read or skipped as whole values.
+ *
+ */
+public class JsonReader {
+
+    final public static int MAX_DEPTH = 64;
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+
+    final private byte[] buffer;
+    final private int end;
+    private int position;
+    private boolean firstField;
+    private int depth;
+
+    public JsonReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Decode exactly one JSON value from a slice of bytes.
+     *
+     */
+    public static Object decode(byte[] buffer, int offset, int length) throws IOException {
+        JsonReader reader = new JsonReader(buffer, offset, length);
+        Object value = reader.readValue();
+        reader.expectEnd();
+        return value;
+    }
+
+    /**
+     * Check that exactly one well-formed JSON value occupies a slice of
+     * bytes, without building the lists, maps or strings it holds.
+     *
+     */
+    public static void validate(byte[] buffer, int offset, int length) throws IOException {
+        JsonReader reader = new JsonReader(buffer, offset, length);
+        reader.skipValue();
+        reader.expectEnd();
+    }
+
+    public void expectEnd() throws IOException {
+        skipWhitespace();
+        if (position != end) {
+            throw error("Unexpected trailing data");
+        }
+    }
+
+    public Object readValue() throws IOException {
+        skipWhitespace();
+        if (position == end) {
+            throw error("Unexpected end of data");
+        }
+        byte b = buffer[position];
+        switch (b) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                expectLiteral("true");
+                return true;
+            case 'f':
+                expectLiteral("false");
+                return false;
+            case 'n':
+                expectLiteral("null");
+                return null;
+            default:
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    return readNumber();
+                } else {
+                    throw error("Unexpected character");
+                }
+        }
+    }
+
+    /**
+     * Read past one value, checking that it is well formed.
+     *
+     */
+    public void skipValue() throws IOException {
+        skipWhitespace();
+        if (position == end) {
+            throw error("Unexpected end of data");
+        }
+        byte b = buffer[position];
+        switch (b) {
+            case '{':
+                enter();
+                startObject();
+                while (nextField()) {
+                    skipString();
+                    expectColon();
+                    skipValue();
+                }
+                depth -= 1;
+                break;
+            case '[':
+                enter();
+                position += 1;
+                skipWhitespace();
+                if (position < end && buffer[position] == ']') {
+                    position += 1;
+                    depth -= 1;
+                    break;
+                }
+                while (true) {
+                    skipValue();
+                    skipWhitespace();
+                    if (position == end) {
+                        throw error("Unexpected end of array");
+                    }
+                    byte next = buffer[position++];
+                    if (next == ']') {
+                        break;
+                    } else if (next != ',') {
+                        throw error("Expected ',' or ']'");
+                    }
+                }
+                depth -= 1;
+                break;
+            case '"':
+                skipString();
+                break;
+            case 't':
+                expectLiteral("true");
+                break;
+            case 'f':
+                expectLiteral("false");
+                break;
+            case 'n':
+                expectLiteral("null");
+                break;
+            default:
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    readNumber();
+                } else {
+                    throw error("Unexpected character");
+                }
+        }
+    }
+
+    public Map<String, Object> readObject() throws IOException {
+        enter();
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        startObject();
+        while (nextField()) {
+            String key = readString();
+            expectColon();
+            map.put(key, readValue());
+        }
+        depth -= 1;
+        return map;
+    }
+
+    /**
+     * Consume the opening brace of an object. Fields may then be read one
+     * at a time with nextField, readString (for the key), expectColon and
+     * readValue.
+     *
+     */
+    public void startObject() throws IOException {
+        skipWhitespace();
+        expect('{');
+        firstField = true;
+    }
+
+    /**
+     * Advance to the next field of an object, returning false once the
+     * closing brace has been consumed.
+     *
+     */
+    public boolean nextField() throws IOException {
+        skipWhitespace();
+        if (position < end) {
+            byte b = buffer[position];
+            if (b == '}') {
+                position += 1;
+                // a nested object has ended, so its parent has had a field
+                firstField = false;
+                return false;
+            } else if (firstField) {
+                firstField = false;
+                return true;
+            } else if (b == ',') {
+                position += 1;
+                return true;
+            }
+        }
+        throw error("Expected ',' or '}'");
+    }
+
+    public void expectColon() throws IOException {
+        skipWhitespace();
+        expect(':');
+    }
+
+    public List<Object> readArray() throws IOException {
+        enter();
+        ArrayList<Object> list = new ArrayList<>();
+        expect('[');
+        skipWhitespace();
+        if (position < end && buffer[position] == ']') {
+            position += 1;
+            depth -= 1;
+            return list;
+        }
+        while (true) {
+            list.add(readValue());
+            skipWhitespace();
+            if (position < end) {
+                byte b = buffer[position++];
+                if (b == ']') {
+                    depth -= 1;
+                    return list;
+                } else if (b != ',') {
+                    throw error("Expected ',' or ']'");
+                }
+            } else {
+                throw error("Unexpected end of array");
+            }
+        }
+    }
+
+    public String readString() throws IOException {
+        skipWhitespace();
+        expect('"');
+        int start = position;
+        while (position < end) {
+            byte b = buffer[position];
+            if (b == '"') {
+                String string = new String(buffer, start, position - start, UTF_8);
+                position += 1;
+                return string;
+            } else if (b == '\\') {
+                return readEscapedString(start);
+            } else if (b >= 0 && b < 0x20) {
+                throw error("Control character in string");
+            }
+            position += 1;
+        }
+        throw error("Unterminated string");
+    }
+
+    private void skipString() throws IOException {
+        skipWhitespace();
+        expect('"');
+        while (position < end) {
+            byte b = buffer[position++];
+            if (b == '"') {
+                return;
+            } else if (b == '\\') {
+                if (position == end) {
+                    break;
+                }
+                byte escaped = buffer[position++];
+                if (escaped == 'u') {
+                    if (end - position < 4) {
+                        throw error("Incomplete unicode escape");
+                    }
+                    for (int i = 0; i < 4; i++) {
+                        if (Character.digit(buffer[position++], 16) < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                    }
+                } else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+                    throw error("Invalid escape");
+                }
+            } else if (b >= 0 && b < 0x20) {
+                throw error("Control character in string");
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private String readEscapedString(int start) throws IOException {
+        StringBuilder builder = new StringBuilder(new String(buffer, start, position - start, UTF_8));
+        int chunk = position;
+        while (position < end) {
+            byte b = buffer[position];
+            if (b == '"') {
+                builder.append(new String(buffer, chunk, position - chunk, UTF_8));
+                position += 1;
+                return builder.toString();
+            } else if (b == '\\') {
+                builder.append(new String(buffer, chunk, position - chunk, UTF_8));
+                position += 1;
+                if (position == end) {
+                    break;
+                }
+                byte escaped = buffer[position++];
+                switch (escaped) {
+                    case '"':  builder.append('"'); break;
+                    case '\\': builder.append('\\'); break;
+                    case '/':  builder.append('/'); break;
+                    case 'b':  builder.append('\b'); break;
+                    case 'f':  builder.append('\f'); break;
+                    case 'n':  builder.append('\n'); break;
+                    case 'r':  builder.append('\r'); break;
+                    case 't':  builder.append('\t'); break;
+                    case 'u':
+                        if (end - position < 4) {
+                            throw error("Incomplete unicode escape");
+                        }
+                        int codeUnit = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(buffer[position++], 16);
+                            if (digit < 0) {
+                                throw error("Invalid unicode escape");
+                            }
+                            codeUnit = (codeUnit << 4) | digit;
+                        }
+                        builder.append((char)codeUnit);
+                        break;
+                    default:
+                        throw error("Invalid escape");
+                }
+                chunk = position;
+            } else if (b >= 0 && b < 0x20) {
+                throw error("Control character in string");
+            } else {
+                position += 1;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    public Object readNumber() throws IOException {
+        int start = position;
+        boolean negative = false;
+        if (buffer[position] == '-') {
+            negative = true;
+            position += 1;
+        }
+        int digitsStart = position;
+        long value = 0;
+        while (position < end && buffer[position] >= '0' && buffer[position] <= '9') {
+            value = 10 * value + (buffer[position] - '0');
+            position += 1;
+        }
+        int digits = position - digitsStart;
+        if (digits == 0 || (digits > 1 && buffer[digitsStart] == '0')) {
+            throw error("Invalid number");
+        }
+        boolean fraction = false;
+        if (position < end && buffer[position] == '.') {
+            fraction = true;
+            position += 1;
+            int fractionStart = position;
+            while (position < end && buffer[position] >= '0' && buffer[position] <= '9') {
+                position += 1;
+            }
+            if (position == fractionStart) {
+                throw error("Invalid number");
+            }
+        }
+        if (position < end && (buffer[position] == 'e' || buffer[position] == 'E')) {
+            fraction = true;
+            position += 1;
+            if (position < end && (buffer[position] == '+' || buffer[position] == '-')) {
+                position += 1;
+            }
+            int exponentStart = position;
+            while (position < end && buffer[position] >= '0' && buffer[position] <= '9') {
+                position += 1;
+            }
+            if (position == exponentStart) {
+                throw error("Invalid number");
+            }
+        }
+        if (fraction) {
+            return Double.parseDouble(new String(buffer, start, position - start, UTF_8));
+        } else if (digits > 18) {
+            BigInteger big = new BigInteger(new String(buffer, start, position - start, UTF_8));
+            if (big.bitLength() < 64) {
+                return big.longValue();
+            } else {
+                return big;
+            }
+        } else {
+            if (negative) {
+                value = -value;
+            }
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int)value;
+            } else {
+                return value;
+            }
+        }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        int length = literal.length();
+        if (end - position < length) {
+            throw error("Invalid literal");
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[position + i] != literal.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+        position += length;
+    }
+
+    private void expect(char ch) throws IOException {
+        if (position < end && buffer[position] == ch) {
+            position += 1;
+        } else {
+            throw error("Expected '" + ch + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < end) {
+            byte b = buffer[position];
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                position += 1;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void enter() throws IOException {
+        depth += 1;
+        if (depth > MAX_DEPTH) {
+            throw error("Nested too deeply");
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + position);
+    }
+
+}
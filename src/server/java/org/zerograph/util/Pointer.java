@@ -3,13 +3,33 @@ package org.zerograph.util;
 public class Pointer {
 
     final public int address;
+    final public int index;
 
     public Pointer(int address) {
+        this(address, -1);
+    }
+
+    /**
+     * A pointer to a single element of a list of entities, such as those
+     * created by a bulk request. A negative index refers to the whole
+     * output value.
+     *
+     */
+    public Pointer(int address, int index) {
         this.address = address;
+        this.index = index;
     }
 
     public int getAddress() {
         return this.address;
     }
 
+    public boolean hasIndex() {
+        return this.index >= 0;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
 }
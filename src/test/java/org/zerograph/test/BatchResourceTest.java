@@ -0,0 +1,77 @@
+package org.zerograph.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.zerograph.Batch;
+import org.zerograph.Graph;
+import org.zerograph.Request;
+import org.zerograph.resource.BatchResource;
+import org.zerograph.response.status4xx.NotFound;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+public class BatchResourceTest extends ResourceTest {
+
+    final private static int PORT = 47598;
+
+    protected Graph graph;
+    protected BatchResource resource;
+
+    @Before
+    public void createResource() {
+        graph = new Graph(fakeZerograph, "localhost", PORT, fakeDatabase);
+        resource = new BatchResource(null, fakeWriter) {
+            @Override
+            protected Map<Integer, Graph> getGraphs() {
+                return Collections.singletonMap(PORT, graph);
+            }
+        };
+    }
+
+    @After
+    public void closeGraph() {
+        graph.getContext().term();
+    }
+
+    @Test
+    public void testCanListRunningBatches() throws Status4xx, Status5xx {
+        Batch batch = graph.getBatches().begin(UUID.randomUUID());
+        batch.startQuery("MATCH (a) RETURN a");
+        resource.get(new Request("GET\tbatch\t" + PORT));
+        sendClose();
+        String line = fakeClient.recvStr();
+        assert line.startsWith("200\t[{\"id\":" + batch.getId() + ",");
+        assert line.contains("\"query\":\"MATCH (a) RETURN a\",\"cancelled\":false}]");
+    }
+
+    @Test
+    public void testCanCancelRunningBatch() throws Status4xx, Status5xx {
+        Batch batch = graph.getBatches().begin(UUID.randomUUID());
+        resource.delete(new Request("DELETE\tbatch\t" + PORT + "\t" + batch.getId()));
+        assert batch.isCancelled();
+        sendClose();
+        assert fakeClient.recvStr().equals("204");
+    }
+
+    @Test
+    public void testCannotCancelUnknownBatch() throws Status4xx, Status5xx {
+        try {
+            resource.delete(new Request("DELETE\tbatch\t" + PORT + "\t99"));
+            assert false;
+        } catch (NotFound ex) {
+            assert true;
+        }
+        try {
+            resource.delete(new Request("DELETE\tbatch\t" + (PORT + 1) + "\t0"));
+            assert false;
+        } catch (NotFound ex) {
+            assert true;
+        }
+    }
+
+}
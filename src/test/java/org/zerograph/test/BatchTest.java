@@ -0,0 +1,69 @@
+package org.zerograph.test;
+
+import org.junit.Test;
+import org.zerograph.Batch;
+import org.zerograph.Batches;
+import org.zerograph.response.status4xx.RequestTimeout;
+
+import java.util.Map;
+import java.util.UUID;
+
+public class BatchTest {
+
+    @Test
+    public void testCanListRunningQuery() throws RequestTimeout {
+        Batches batches = new Batches(1000);
+        Batch batch = batches.begin(UUID.randomUUID());
+        batch.startQuery("MATCH (a) RETURN a");
+        Map<String, Object> running = batches.toList().get(0);
+        assert running.get("id").equals(batch.getId());
+        assert running.get("query").equals("MATCH (a) RETURN a");
+        batch.check();
+    }
+
+    @Test
+    public void testQueryFailsOnceDeadlinePasses() throws InterruptedException {
+        Batch batch = new Batches().begin(UUID.randomUUID());
+        batch.startQuery("MATCH (a) RETURN a", 1);
+        Thread.sleep(20);
+        try {
+            batch.check();
+            assert false;
+        } catch (RequestTimeout ex) {
+            assert ex.getData()[0].equals("Query timed out");
+        }
+    }
+
+    @Test
+    public void testDefaultTimeoutAppliesToQuery() throws InterruptedException {
+        Batch batch = new Batches(1).begin(UUID.randomUUID());
+        batch.startQuery("MATCH (a) RETURN a");
+        Thread.sleep(20);
+        try {
+            batch.check();
+            assert false;
+        } catch (RequestTimeout ex) {
+            assert true;
+        }
+    }
+
+    @Test
+    public void testDeadlineEndsWithQuery() throws InterruptedException, RequestTimeout {
+        Batch batch = new Batches().begin(UUID.randomUUID());
+        batch.startQuery("MATCH (a) RETURN a", 1);
+        batch.endQuery();
+        Thread.sleep(20);
+        batch.check();
+        assert batch.getQuery() == null;
+    }
+
+    @Test
+    public void testCannotCancelBatchThatHasEnded() {
+        Batches batches = new Batches();
+        Batch batch = batches.begin(UUID.randomUUID());
+        batches.end(batch);
+        assert !batches.cancel(batch.getId());
+        assert !batch.isCancelled();
+    }
+
+}
@@ -0,0 +1,174 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.tooling.GlobalGraphOperations;
+import org.zerograph.Environment;
+import org.zerograph.Request;
+import org.zerograph.resource.NodesResource;
+import org.zerograph.resource.RelsResource;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class BulkResourceTest extends ResourceTest {
+
+    protected NodesResource nodesResource;
+    protected RelsResource relsResource;
+
+    @Before
+    public void createResource() {
+        nodesResource = new NodesResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine);
+        relsResource = new RelsResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine);
+    }
+
+    @Test
+    public void testCanCreateNodesFromRows() throws Status4xx, Status5xx {
+        String rq = "POST\tnodes\t[\"Person\"]\t[{\"name\":\"Alice\"},{\"name\":\"Bob\"}]";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            List<Node> nodes = nodesResource.post(new Request(rq), tx);
+            assert nodes.size() == 2;
+            assert nodes.get(0).hasLabel(DynamicLabel.label("Person"));
+            assert nodes.get(1).getProperty("name").equals("Bob");
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("201\t{\"first\":0,\"count\":2}");
+    }
+
+    @Test
+    public void testCanCreateNodesFromColumns() throws Status4xx, Status5xx {
+        String rq = "POST\tnodes\t[]\t{\"name\":[\"Alice\",\"Bob\"],\"age\":[33,null]}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            List<Node> nodes = nodesResource.post(new Request(rq), tx);
+            assert nodes.get(0).getProperty("age").equals(33);
+            assert !nodes.get(1).hasProperty("age");
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("201\t{\"first\":0,\"count\":2}");
+    }
+
+    @Test
+    public void testCanCreateNodesFromRowsWithNulls() throws Status4xx, Status5xx {
+        String rq = "POST\tnodes\t[]\t[{\"name\":\"Alice\",\"age\":33},{\"name\":\"Bob\",\"age\":null}]";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            List<Node> nodes = nodesResource.post(new Request(rq), tx);
+            assert nodes.get(0).getProperty("age").equals(33);
+            assert nodes.get(1).getProperty("name").equals("Bob");
+            assert !nodes.get(1).hasProperty("age");
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("201\t{\"first\":0,\"count\":2}");
+    }
+
+    @Test
+    public void testCannotCreateNodesFromRaggedColumns() throws Status4xx, Status5xx {
+        String rq = "POST\tnodes\t[]\t{\"name\":[\"Alice\",\"Bob\"],\"age\":[33]}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                nodesResource.post(new Request(rq), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert true;
+            }
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("");
+    }
+
+    @Test
+    public void testCannotCreateNegativeNodeCount() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                nodesResource.post(new Request("POST\tnodes\t[]\t-1"), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert err.getStatus() == Status4xx.BAD_REQUEST;
+            }
+        }
+    }
+
+    @Test
+    public void testCannotCreateMoreNodesThanLimit() throws Status4xx, Status5xx {
+        int countLimit = Environment.getInstance().getNodesLimit();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                nodesResource.post(new Request("POST\tnodes\t[]\t" + (countLimit + 1)), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert err.getStatus() == Status4xx.BAD_REQUEST;
+            }
+            assert !GlobalGraphOperations.at(fakeDatabase).getAllNodes().iterator().hasNext();
+        }
+    }
+
+    @Test
+    public void testNonContiguousIdsAreSummarisedAsList() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            List<Node> nodes = nodesResource.post(new Request("POST\tnodes\t[]\t4"), tx);
+            Map<String, Object> summary = nodesResource.summarise(Arrays.asList(nodes.get(0), nodes.get(2), nodes.get(3)));
+            assert summary.get("count").equals(3);
+            assert summary.get("ids").equals(Arrays.asList(0L, 2L, 3L));
+        }
+    }
+
+    @Test
+    public void testCanCreateRelsBetweenBulkNodes() throws Status4xx, Status5xx {
+        ArrayList<Object> outputValues = new ArrayList<>();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            outputValues.add(nodesResource.post(new Request("POST\tnodes\t[]\t3"), tx));
+            outputValues.add(nodesResource.post(new Request("POST\tnodes\t[]\t3"), tx));
+            Request rq = new Request("POST\trels\t/*Pointer*/0\t/*Pointer*/1\t\"KNOWS\"\t{\"since\":[1999,2000,2001]}");
+            rq.resolvePointers(outputValues);
+            List<Relationship> rels = relsResource.post(rq, tx);
+            assert rels.size() == 3;
+            assert rels.get(2).getStartNode().getId() == 2;
+            assert rels.get(2).getEndNode().getId() == 5;
+            assert rels.get(2).getProperty("since").equals(2001);
+            outputValues.add(rels);
+            rq = new Request("POST\trels\t/*Pointer*/[0,1]\t[3,4]\t\"LIKES\"");
+            rq.resolvePointers(outputValues);
+            rels = relsResource.post(rq, tx);
+            assert rels.size() == 2;
+            assert rels.get(1).getStartNode().getId() == 1;
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("201\t{\"first\":0,\"count\":3}");
+        assert fakeClient.recvStr().equals("201\t{\"first\":3,\"count\":3}");
+        assert fakeClient.recvStr().equals("201\t{\"first\":0,\"count\":3}");
+        assert fakeClient.recvStr().equals("201\t{\"first\":3,\"count\":2}");
+    }
+
+    @Test
+    public void testCannotParseNegativePointerIndex() {
+        try {
+            new Request("POST\trels\t/*Pointer*/[0,-1]\t/*Pointer*/1\t\"KNOWS\"");
+            assert false;
+        } catch (Status4xx ex) {
+            assert ex.getStatus() == Status4xx.BAD_REQUEST;
+        }
+    }
+
+    @Test
+    public void testCannotResolvePointerIndexOutOfRange() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            ArrayList<Object> outputValues = new ArrayList<>();
+            outputValues.add(nodesResource.post(new Request("POST\tnodes\t[]\t3"), tx));
+            Request rq = new Request("POST\trels\t/*Pointer*/[0,3]\t/*Pointer*/[0,0]\t\"KNOWS\"");
+            try {
+                rq.resolvePointers(outputValues);
+                assert false;
+            } catch (IllegalArgumentException ex) {
+                assert ex.getMessage().equals("Pointer index 3 out of range");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.tooling.GlobalGraphOperations;
+import org.zerograph.Cursors;
+import org.zerograph.Request;
+import org.zerograph.resource.CursorResource;
+import org.zerograph.resource.CypherResource;
+import org.zerograph.resource.NodeSetResource;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+public class CursorResourceTest extends ResourceTest {
+
+    protected CypherResource cypherResource;
+    protected NodeSetResource nodeSetResource;
+    protected CursorResource resource;
+
+    @Before
+    public void createResource() {
+        cypherResource = new CypherResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine, fakeCursors);
+        nodeSetResource = new NodeSetResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine, fakeCursors);
+        resource = new CursorResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine, fakeCursors);
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            for (String name : new String[] {"A", "B", "C", "D", "E"}) {
+                Node node = fakeDatabase.createNode(DynamicLabel.label("Person"));
+                node.setProperty("name", name);
+                node.setProperty("country", "UK");
+            }
+            tx.success();
+        }
+    }
+
+    @Test
+    public void testCanPageThroughCypherResult() throws Status4xx, Status5xx {
+        String rq = "POST\tcypher\t\"MATCH (a:Person) RETURN a.name ORDER BY a.name\"\t{}\t{\"page\":2}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            cypherResource.post(new Request(rq), tx);
+            resource.get(new Request("GET\tcursor\t0"), tx);
+            resource.get(new Request("GET\tcursor\t0\t10"), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("100\t\"a.name\"");
+        assert fakeClient.recvStr().equals("100\t\"A\"");
+        assert fakeClient.recvStr().equals("100\t\"B\"");
+        assert fakeClient.recvStr().equals("200\t{\"rows\":2,\"cursor\":0}");
+        assert fakeClient.recvStr().equals("100\t\"C\"");
+        assert fakeClient.recvStr().equals("100\t\"D\"");
+        assert fakeClient.recvStr().equals("200\t{\"rows\":2,\"cursor\":0}");
+        assert fakeClient.recvStr().equals("100\t\"E\"");
+        assert fakeClient.recvStr().equals("200\t{\"rows\":1,\"cursor\":null}");
+        assert fakeCursors.getOpenCount() == 0;
+    }
+
+    @Test
+    public void testCanPageThroughNodeSet() throws Status4xx, Status5xx {
+        String rq = "GET\tnodeset\t\"Person\"\t\"country\"\t\"UK\"\t{\"page\":3}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            nodeSetResource.get(new Request(rq), tx);
+            resource.get(new Request("GET\tcursor\t0"), tx);
+        }
+        sendClose();
+        for (int i = 0; i < 3; i++) {
+            assert fakeClient.recvStr().startsWith("100\t/*Node*/");
+        }
+        assert fakeClient.recvStr().equals("200\t{\"rows\":3,\"cursor\":0,\"indexed\":false}");
+        for (int i = 0; i < 2; i++) {
+            assert fakeClient.recvStr().startsWith("100\t/*Node*/");
+        }
+        assert fakeClient.recvStr().equals("200\t{\"rows\":2,\"cursor\":null}");
+        assert fakeCursors.getOpenCount() == 0;
+    }
+
+    @Test
+    public void testCanCloseCursor() throws Status4xx, Status5xx {
+        String rq = "POST\tcypher\t\"MATCH (a:Person) RETURN a\"\tnull\t{\"page\":1}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            cypherResource.post(new Request(rq), tx);
+            assert fakeCursors.getOpenCount() == 1;
+            resource.delete(new Request("DELETE\tcursor\t0"), tx);
+            try {
+                resource.get(new Request("GET\tcursor\t0"), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert true;
+            }
+        }
+        assert fakeCursors.getOpenCount() == 0;
+    }
+
+    @Test
+    public void testCannotPageQueryThatWrites() throws Status4xx, Status5xx {
+        String rq = "POST\tcypher\t\"CREATE (a:Temp) RETURN a\"\t{}\t{\"page\":1}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                cypherResource.post(new Request(rq), tx);
+                assert false;
+            } catch (Status4xx ex) {
+                assert ex.getStatus() == Status4xx.BAD_REQUEST;
+            }
+            tx.success();
+        }
+        assert fakeCursors.getOpenCount() == 0;
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            assert !GlobalGraphOperations.at(fakeDatabase).getAllNodesWithLabel(DynamicLabel.label("Temp")).iterator().hasNext();
+        }
+    }
+
+    @Test
+    public void testIdleCursorIsReapedWithoutTraffic() throws Exception {
+        Cursors cursors = new Cursors(fakeDatabase, Cursors.DEFAULT_LIMIT, 1);
+        CypherResource cypherResource = new CypherResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine, cursors);
+        String rq = "POST\tcypher\t\"MATCH (a:Person) RETURN a\"\tnull\t{\"page\":1}";
+        cursors.startReaper();
+        try {
+            try (Transaction tx = fakeDatabase.beginTx()) {
+                cypherResource.post(new Request(rq), tx);
+            }
+            assert cursors.getOpenCount() == 1;
+            for (int i = 0; i < 50 && cursors.getOpenCount() > 0; i++) {
+                Thread.sleep(100);
+            }
+            assert cursors.getOpenCount() == 0;
+        } finally {
+            cursors.stopReaper();
+            cursors.closeAll();
+        }
+    }
+
+}
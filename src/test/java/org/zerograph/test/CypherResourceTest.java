@@ -0,0 +1,62 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Batch;
+import org.zerograph.Batches;
+import org.zerograph.Request;
+import org.zerograph.resource.CypherResource;
+import org.zerograph.response.status4xx.RequestTimeout;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.UUID;
+
+public class CypherResourceTest extends ResourceTest {
+
+    protected CypherResource resource;
+
+    @Before
+    public void createResource() {
+        resource = new CypherResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine, fakeCursors);
+    }
+
+    @Test
+    public void testCanExecuteCypherWithParameters() throws Status4xx, Status5xx {
+        String rq = "POST\tcypher\t\"CREATE (a:Person {name:{name}}) RETURN a\"\t{\"name\":\"Alice\"}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            PropertyContainer created = resource.post(new Request(rq), tx);
+            assert created instanceof Node;
+            Node node = (Node)created;
+            assert node.hasLabel(DynamicLabel.label("Person"));
+            assert node.getProperty("name").equals("Alice");
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("100\t\"a\"");
+    }
+
+    @Test
+    public void testCannotContinueCancelledQuery() throws Status4xx, Status5xx {
+        String rq = "POST\tcypher\t\"CREATE (a:Person) RETURN a\"";
+        Batches batches = new Batches();
+        Batch batch = batches.begin(UUID.randomUUID());
+        fakeWriter.setBatch(batch);
+        assert batches.cancel(batch.getId());
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.post(new Request(rq), tx);
+                assert false;
+            } catch (RequestTimeout err) {
+                assert true;
+            }
+        }
+        assert batch.getQuery() == null;
+        batches.end(batch);
+        assert batches.size() == 0;
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.zerograph.test;
+
+import org.junit.Test;
+import org.zerograph.Dispatcher;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class DispatcherTest {
+
+    @Test
+    public void testExecutorQueueIsBounded() throws InterruptedException {
+        ExecutorService executor = Dispatcher.createExecutor("fixed:1", "test", 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try {
+            executor.execute(task);
+            executor.execute(task);
+            try {
+                executor.execute(task);
+                assert false;
+            } catch (RejectedExecutionException ex) {
+                assert true;
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            assert executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+}
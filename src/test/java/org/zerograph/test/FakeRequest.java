@@ -107,7 +107,15 @@ public class FakeRequest implements RequestInterface {
     }
 
     @Override
-    public void resolvePointers(List<PropertyContainer> values) {
+    public void applyMapData(int index, PropertyContainer entity) {
+        Map map = (Map)data[index];
+        for (Object key : map.keySet()) {
+            entity.setProperty(key.toString(), map.get(key));
+        }
+    }
+
+    @Override
+    public void resolvePointers(List<?> values) {
 
     }
 
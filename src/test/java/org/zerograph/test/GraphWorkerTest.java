@@ -0,0 +1,226 @@
+package org.zerograph.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Graph;
+import org.zerograph.GraphWorker;
+import org.zerograph.OutputValues;
+import org.zerograph.Spool;
+import org.zeromq.ZMQ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class GraphWorkerTest extends ResourceTest {
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+    final private static int PORT = 47599;
+
+    protected Graph graph;
+    protected GraphWorker worker;
+    protected ZMQ.Socket responses;
+
+    @Before
+    public void createWorker() {
+        graph = new Graph(fakeZerograph, "localhost", PORT, fakeDatabase);
+        responses = graph.getContext().socket(ZMQ.PULL);
+        responses.bind(graph.getInternalAddress());
+        worker = new GraphWorker(fakeZerograph, graph);
+    }
+
+    @After
+    public void closeWorker() {
+        worker.close();
+        responses.close();
+        graph.getContext().term();
+    }
+
+    /**
+     * Handle a batch of request lines and return the response lines,
+     * after the envelope.
+     *
+     */
+    protected List<String> handle(String... lines) {
+        StringBuilder batch = new StringBuilder();
+        for (String line : lines) {
+            batch.append(line).append('\n');
+        }
+        List<byte[]> envelope = Arrays.asList("client".getBytes(UTF_8), new byte[0]);
+        ArrayList<byte[]> frames = new ArrayList<>(Collections.singletonList(batch.toString().getBytes(UTF_8)));
+        worker.handle(envelope, frames);
+        assert new String(responses.recv(), UTF_8).equals("client");
+        assert responses.recv().length == 0;
+        ArrayList<String> responseLines = new ArrayList<>();
+        boolean more = true;
+        while (more) {
+            responseLines.addAll(Arrays.asList(new String(responses.recv(), UTF_8).split("\n")));
+            more = responses.hasReceiveMore();
+        }
+        return responseLines;
+    }
+
+    protected int countPeople() {
+        int count = 0;
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            for (Node node : fakeDatabase.findNodesByLabelAndProperty(DynamicLabel.label("Person"), "chunked", true)) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testCanCommitBatchInChunks() {
+        List<String> lines = handle(
+                "PATCH\tsession\t{\"commit_every\":2}",
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"chunked\":true}",
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Bob\",\"chunked\":true}",
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Carol\",\"chunked\":true}");
+        assert lines.size() == 5;
+        assert lines.get(4).equals("200\t{\"chunks\":2,\"committed\":4}");
+        assert countPeople() == 3;
+    }
+
+    @Test
+    public void testPointerResolvesToValueFromEarlierChunk() {
+        List<String> lines = handle(
+                "PATCH\tsession\t{\"commit_every\":2}",
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"chunked\":true}",
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Bob\",\"chunked\":true}",
+                "POST\trel\t/*Pointer*/1\t/*Pointer*/2\t\"KNOWS\"\t{}");
+        assert lines.get(3).startsWith("201\t/*Rel*/");
+        assert lines.get(4).equals("200\t{\"chunks\":2,\"committed\":4}");
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Node alice = fakeDatabase.findNodesByLabelAndProperty(DynamicLabel.label("Person"), "name", "Alice").iterator().next();
+            Relationship knows = alice.getRelationships().iterator().next();
+            assert knows.getEndNode().getProperty("name").equals("Bob");
+        }
+    }
+
+    @Test
+    public void testFailureInLaterChunkReportsCommittedChunks() {
+        List<String> lines = handle(
+                "PATCH\tsession\t{\"commit_every\":2}",
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"chunked\":true}",
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Bob\",\"chunked\":true}",
+                "GET\tnode\t999");
+        assert lines.size() == 4;
+        assert lines.get(3).equals("404\t\"Node 999 not found\"\t{\"chunks\":1,\"committed\":2}");
+        assert countPeople() == 1;
+    }
+
+    @Test
+    public void testFailureWithoutChunksReportsNoProgress() {
+        List<String> lines = handle(
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"chunked\":true}",
+                "GET\tnode\t999");
+        assert lines.get(1).equals("404\t\"Node 999 not found\"");
+        assert countPeople() == 0;
+    }
+
+    @Test
+    public void testMalformedLineEndsBatchAfterEarlierResponses() {
+        List<String> lines = handle(
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"chunked\":true}",
+                "POST\tnode\t[\"Person\"]\t{\"name\":",
+                "POST\tnode\t[\"Person\"]\t{\"name\":\"Bob\",\"chunked\":true}");
+        assert lines.size() == 2;
+        assert lines.get(0).startsWith("201\t");
+        assert lines.get(1).startsWith("400\t");
+        assert countPeople() == 0;
+    }
+
+    @Test
+    public void testCanHandleSpooledBatch() throws IOException {
+        Spool spool = new Spool(new File(System.getProperty("java.io.tmpdir")));
+        spool.write("POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"chunked\":true}\n".getBytes(UTF_8));
+        spool.write("POST\tnode\t[\"Person\"]\t{\"name\":\"Bob\",\"chunked\":true}\n".getBytes(UTF_8));
+        List<byte[]> envelope = Arrays.asList("client".getBytes(UTF_8), new byte[0]);
+        worker.handle(envelope, new ArrayList<byte[]>(), spool);
+        assert new String(responses.recv(), UTF_8).equals("client");
+        assert responses.recv().length == 0;
+        String[] lines = new String(responses.recv(), UTF_8).split("\n");
+        assert !responses.hasReceiveMore();
+        assert lines.length == 3;
+        assert lines[2].equals("200");
+        assert countPeople() == 2;
+    }
+
+    @Test
+    public void testCancelledBatchIsRolledBack() throws InterruptedException {
+        final String[] lines = new String[20000];
+        Arrays.fill(lines, "POST\tnode\t[\"Person\"]\t{\"chunked\":true}");
+        final ArrayList<List<String>> result = new ArrayList<>(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.add(handle(lines));
+            }
+        });
+        thread.start();
+        while (graph.getBatches().size() == 0 && thread.isAlive()) {
+            Thread.sleep(1);
+        }
+        Map<String, Object> running = graph.getBatches().toList().get(0);
+        assert graph.getBatches().cancel((Integer) running.get("id"));
+        thread.join(60000);
+        List<String> responseLines = result.get(0);
+        assert responseLines.get(responseLines.size() - 1).startsWith("408\t");
+        assert responseLines.size() < lines.length + 1;
+        assert graph.getBatches().size() == 0;
+        assert countPeople() == 0;
+    }
+
+    @Test
+    public void testOutputValuesAreFetchedAgainAfterCommit() {
+        Node alice;
+        OutputValues values = new OutputValues(fakeDatabase);
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            alice = fakeDatabase.createNode();
+            values.add(alice);
+            values.add(Arrays.asList(alice, alice));
+            assert values.get(0) == alice;
+            tx.success();
+        }
+        values.commit();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Object refreshed = values.get(0);
+            assert refreshed != alice;
+            assert ((Node) refreshed).getId() == alice.getId();
+            assert ((Node) ((List) values.get(1)).get(1)).getId() == alice.getId();
+            assert values.get(0) == refreshed;
+        }
+    }
+
+    @Test
+    public void testOutputValueDeletedAfterCommitCannotBeUsed() {
+        OutputValues values = new OutputValues(fakeDatabase);
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            values.add(fakeDatabase.createNode());
+            tx.success();
+        }
+        values.commit();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            ((Node) fakeDatabase.getNodeById(0)).delete();
+            tx.success();
+        }
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            values.get(0);
+            assert false;
+        } catch (IllegalArgumentException ex) {
+            assert ex.getMessage().startsWith("Referenced entity no longer exists");
+        }
+    }
+
+}
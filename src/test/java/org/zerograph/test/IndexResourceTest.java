@@ -0,0 +1,90 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Request;
+import org.zerograph.resource.IndexResource;
+import org.zerograph.resource.NodeSetResource;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+public class IndexResourceTest extends ResourceTest {
+
+    protected IndexResource resource;
+    protected NodeSetResource nodeSetResource;
+
+    @Before
+    public void createResource() {
+        resource = new IndexResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine);
+        nodeSetResource = new NodeSetResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine, fakeCursors);
+    }
+
+    @Test
+    public void testCanCreateIndexAndWaitUntilOnline() throws Status4xx, Status5xx {
+        String rq = "PUT\tindex\t\"Person\"\t\"name\"\t{\"wait\":10000}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.put(new Request(rq), tx);
+            resource.put(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("201\t{\"label\":\"Person\",\"keys\":[\"name\"],\"unique\":false,\"state\":\"online\"}");
+        assert fakeClient.recvStr().equals("200\t{\"label\":\"Person\",\"keys\":[\"name\"],\"unique\":false,\"state\":\"online\"}");
+    }
+
+    @Test
+    public void testNodeSetReportsWhetherIndexed() throws Status4xx, Status5xx {
+        String rq = "GET\tnodeset\t\"Person\"\t\"name\"\t\"Alice\"";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            nodeSetResource.get(new Request(rq), tx);
+            resource.put(new Request("PUT\tindex\t\"Person\"\t\"name\"\t{\"unique\":true,\"wait\":10000}"), tx);
+            nodeSetResource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":0,\"indexed\":false}");
+        assert fakeClient.recvStr().startsWith("201\t");
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":0,\"indexed\":true}");
+    }
+
+    @Test
+    public void testCanDropIndex() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.put(new Request("PUT\tindex\t\"Person\"\t\"name\""), tx);
+            resource.delete(new Request("DELETE\tindex\t\"Person\"\t\"name\""), tx);
+        }
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            assert !fakeDatabase.schema().getIndexes(DynamicLabel.label("Person")).iterator().hasNext();
+        }
+        sendClose();
+        assert fakeClient.recvStr().startsWith("201\t");
+        assert fakeClient.recvStr().equals("204");
+    }
+
+    @Test
+    public void testCannotDescribeIndexKeyWithoutLabel() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request("GET\tindex\tnull\t\"name\""), tx);
+            assert false;
+        } catch (Status4xx err) {
+            assert err.getStatus() == Status4xx.BAD_REQUEST;
+        }
+    }
+
+    @Test
+    public void testCannotChangeSchemaAfterWritingDataInBatch() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            fakeDatabase.createNode(DynamicLabel.label("Person")).setProperty("name", "Alice");
+            try {
+                resource.put(new Request("PUT\tindex\t\"Person\"\t\"name\""), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert err.getStatus() == Status4xx.CONFLICT;
+            }
+        }
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            assert !fakeDatabase.schema().getIndexes(DynamicLabel.label("Person")).iterator().hasNext();
+        }
+    }
+
+}
@@ -17,7 +17,7 @@ public class NodeResourceTest extends ResourceTest {
 
     @Before
     public void createResource() {
-        resource = new NodeResource(fakeZerograph, fakeServer, fakeDatabase);
+        resource = new NodeResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine);
     }
 
     protected Node createAlice() {
@@ -169,4 +169,64 @@ public class NodeResourceTest extends ResourceTest {
         assert fakeClient.recvStr().equals(rs);
     }
 
+    @Test
+    public void testMalformedPropertiesForMissingNodeAreBadRequest() throws Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.put(new Request("PUT\tnode\t99\t{\"name\":"), tx);
+                assert false;
+            } catch (Status4xx ex) {
+                assert ex.getStatus() == Status4xx.BAD_REQUEST;
+            }
+        }
+    }
+
+    @Test
+    public void testCanCreateNodeReturningIdOnly() throws Status4xx, Status5xx {
+        String rq = "POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\"}\t{\"return\":\"id\"}";
+        String rs = "201\t0";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.post(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals(rs);
+    }
+
+    @Test
+    public void testCanPatchNodeReturningNothing() throws Status4xx, Status5xx {
+        String rq = "PATCH\tnode\t0\t[]\t{\"age\":33}\t{\"return\":\"none\"}";
+        String rs = "200";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            createAlice();
+            resource.patch(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals(rs);
+    }
+
+    @Test
+    public void testCanGetNodeWithProjectedProperties() throws Status4xx, Status5xx {
+        String rq = "GET\tnode\t0\t{\"keys\":[\"age\",\"missing\"]}";
+        String rs = "200\t/*Node*/{\"id\":0,\"labels\":[\"Person\"],\"properties\":{\"age\":33}}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Node created = createAlice();
+            created.setProperty("age", 33);
+            resource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals(rs);
+    }
+
+    @Test
+    public void testCanGetNodeLabelsOnly() throws Status4xx, Status5xx {
+        String rq = "GET\tnode\t0\t{\"return\":\"labels\"}";
+        String rs = "200\t/*Node*/{\"id\":0,\"labels\":[\"Person\"]}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            createAlice();
+            resource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals(rs);
+    }
+
 }
@@ -0,0 +1,160 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Batch;
+import org.zerograph.Batches;
+import org.zerograph.Request;
+import org.zerograph.resource.NodeSetResource;
+import org.zerograph.response.status4xx.RequestTimeout;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.List;
+import java.util.UUID;
+
+public class NodeSetResourceTest extends ResourceTest {
+
+    protected NodeSetResource resource;
+
+    @Before
+    public void createResource() {
+        resource = new NodeSetResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine, fakeCursors);
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            for (String name : new String[] {"A", "B", "C", "D", "E"}) {
+                Node node = fakeDatabase.createNode(DynamicLabel.label("Person"));
+                node.setProperty("name", name);
+                node.setProperty("country", "UK");
+            }
+            tx.success();
+        }
+    }
+
+    @Test
+    public void testCanCountNodeSet() throws Status4xx, Status5xx {
+        String rq = "GET\tnodeset\t\"Person\"\t\"country\"\t\"UK\"\t{\"count\":true}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            assert resource.get(new Request(rq), tx) == null;
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":5,\"indexed\":false}");
+    }
+
+    @Test
+    public void testCanSkipAndLimitNodeSet() throws Status4xx, Status5xx {
+        String rq = "GET\tnodeset\t\"Person\"\t\"country\"\t\"UK\"\t{\"skip\":1,\"limit\":2}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().startsWith("100\t/*Node*/");
+        assert fakeClient.recvStr().startsWith("100\t/*Node*/");
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":2,\"indexed\":false}");
+    }
+
+    @Test
+    public void testCanGetNodeSetIds() throws Status4xx, Status5xx {
+        String rq = "GET\tnodeset\t\"Person\"\t\"country\"\t\"UK\"\t{\"ids\":true,\"skip\":3}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("100\t3");
+        assert fakeClient.recvStr().equals("100\t4");
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":2,\"indexed\":false}");
+    }
+
+    @Test
+    public void testCannotSkipNodeSetInCancelledBatch() throws Status4xx, Status5xx {
+        String rq = "GET\tnodeset\t\"Person\"\t\"country\"\t\"UK\"\t{\"skip\":10,\"count\":true}";
+        Batch batch = new Batches().begin(UUID.randomUUID());
+        fakeWriter.setBatch(batch);
+        batch.cancel();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.get(new Request(rq), tx);
+                assert false;
+            } catch (RequestTimeout err) {
+                assert true;
+            }
+        }
+    }
+
+    @Test
+    public void testCannotUseNegativeLimit() throws Status4xx, Status5xx {
+        String rq = "GET\tnodeset\t\"Person\"\t\"country\"\t\"UK\"\t{\"limit\":-1}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.get(new Request(rq), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert true;
+            }
+        }
+    }
+
+    @Test
+    public void testCanMergeNodesInBulk() throws Status4xx, Status5xx {
+        String rq = "POST\tnodeset\t\"Person\"\t\"name\"\t[\"Alice\",\"Bob\",\"Alice\"]\t{\"age\":[33,44,null]}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Node alice = fakeDatabase.createNode(DynamicLabel.label("Person"));
+            alice.setProperty("name", "Alice");
+            List<Node> nodes = resource.post(new Request(rq), tx);
+            assert nodes.size() == 3;
+            assert nodes.get(0).equals(alice);
+            assert nodes.get(2).equals(alice);
+            assert nodes.get(0).getProperty("age").equals(33);
+            assert nodes.get(1).getProperty("name").equals("Bob");
+            assert nodes.get(1).getProperty("age").equals(44);
+            resource.post(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("201\t{\"nodes_created\":1,\"nodes_matched\":1,\"indexed\":false}");
+        assert fakeClient.recvStr().equals("200\t{\"nodes_created\":0,\"nodes_matched\":2,\"indexed\":false}");
+    }
+
+    @Test
+    public void testCanMergeEqualNumbersOfDifferentTypes() throws Status4xx, Status5xx {
+        String rq = "POST\tnodeset\t\"Person\"\t\"number\"\t[1,1.0,2.5,4294967296,4294967296.0]";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            List<Node> nodes = resource.post(new Request(rq), tx);
+            assert nodes.size() == 5;
+            assert nodes.get(1).equals(nodes.get(0));
+            assert !nodes.get(2).equals(nodes.get(0));
+            assert nodes.get(4).equals(nodes.get(3));
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("201\t{\"nodes_created\":3,\"nodes_matched\":0,\"indexed\":false}");
+    }
+
+    @Test
+    public void testMergeLocksMatchedNodesWithoutProperties() throws Exception {
+        String rq = "POST\tnodeset\t\"Person\"\t\"name\"\t[\"A\"]";
+        final Node a;
+        Thread writer;
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            a = resource.post(new Request(rq), tx).get(0);
+            writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try (Transaction tx = fakeDatabase.beginTx()) {
+                        a.setProperty("age", 33);
+                        tx.success();
+                    }
+                }
+            });
+            writer.start();
+            writer.join(500);
+            assert writer.isAlive();
+            tx.success();
+        }
+        writer.join(10000);
+        assert !writer.isAlive();
+        sendClose();
+        assert fakeClient.recvStr().equals("200\t{\"nodes_created\":0,\"nodes_matched\":1,\"indexed\":false}");
+    }
+
+}
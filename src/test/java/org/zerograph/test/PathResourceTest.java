@@ -0,0 +1,100 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Request;
+import org.zerograph.resource.PathResource;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+public class PathResourceTest extends ResourceTest {
+
+    protected PathResource resource;
+
+    @Before
+    public void createResource() {
+        resource = new PathResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine);
+        RelationshipType road = DynamicRelationshipType.withName("ROAD");
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Node a = fakeDatabase.createNode();
+            Node b = fakeDatabase.createNode();
+            Node c = fakeDatabase.createNode();
+            a.createRelationshipTo(b, road).setProperty("distance", 1.0);
+            b.createRelationshipTo(c, road).setProperty("distance", 1.5);
+            a.createRelationshipTo(c, road).setProperty("distance", 5.0);
+            tx.success();
+        }
+    }
+
+    @Test
+    public void testCanFindShortestPath() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request("GET\tpath\t0\t2"), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().matches("100\t/\\*Node\\*/\\{\"id\":0,.*\t/\\*Rel\\*/\\{\"id\":2,.*\t/\\*Node\\*/\\{\"id\":2,.*");
+        assert fakeClient.recvStr().equals("200\t{\"paths_matched\":1}");
+    }
+
+    @Test
+    public void testCanFindCheapestPath() throws Status4xx, Status5xx {
+        String rq = "GET\tpath\t0\t2\t{\"algorithm\":\"dijkstra\",\"cost\":\"distance\",\"direction\":\"out\"}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().matches("100(\t/\\*Node\\*/.*\t/\\*Rel\\*/.*){2}\t/\\*Node\\*/\\{\"id\":2,.*");
+        assert fakeClient.recvStr().equals("200\t{\"paths_matched\":1,\"weight\":2.5}");
+    }
+
+    @Test
+    public void testCannotFindPathAgainstDirection() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request("GET\tpath\t2\t0\t{\"direction\":\"out\"}"), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("200\t{\"paths_matched\":0}");
+    }
+
+    @Test
+    public void testCannotFindWeightedPathWithoutCost() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.get(new Request("GET\tpath\t0\t2\t{\"algorithm\":\"dijkstra\"}"), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert true;
+            }
+        }
+    }
+
+    @Test
+    public void testCheapestPathIsLimitedByDepth() throws Status4xx, Status5xx {
+        String rq = "GET\tpath\t0\t2\t{\"algorithm\":\"dijkstra\",\"cost\":\"distance\",\"max_depth\":1}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().matches("100\t/\\*Node\\*/\\{\"id\":0,.*\t/\\*Rel\\*/\\{\"id\":2,.*\t/\\*Node\\*/\\{\"id\":2,.*");
+        assert fakeClient.recvStr().equals("200\t{\"paths_matched\":1,\"weight\":5.0}");
+    }
+
+    @Test
+    public void testCannotFindPathInCancelledBatch() throws Status4xx, Status5xx {
+        String rq = "GET\tpath\t0\t2\t{\"algorithm\":\"dijkstra\",\"cost\":\"distance\"}";
+        fakeWriter.getBatch().cancel();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.get(new Request(rq), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert err.getStatus() == Status4xx.REQUEST_TIMEOUT;
+            }
+        }
+    }
+
+}
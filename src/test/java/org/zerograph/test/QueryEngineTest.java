@@ -0,0 +1,149 @@
+package org.zerograph.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.cypher.javacompat.ExecutionResult;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.Schema;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.test.TestGraphDatabaseFactory;
+import org.zerograph.QueryEngine;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+public class QueryEngineTest {
+
+    final private static String MATCH = "MATCH (a:Person {name:{name}}) RETURN a";
+
+    protected GraphDatabaseService fakeDatabase;
+    protected QueryEngine engine;
+
+    @Before
+    public void setUp() {
+        fakeDatabase = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        engine = new QueryEngine(fakeDatabase, 2);
+    }
+
+    @After
+    public void tearDown() {
+        fakeDatabase.shutdown();
+    }
+
+    protected int countMatches(String name) {
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("name", name);
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            ExecutionResult result = engine.execute(MATCH, params);
+            return IteratorUtil.count(result.iterator());
+        }
+    }
+
+    protected void createPerson(String name) {
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("name", name);
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            engine.execute("CREATE (a:Person {name:{name}})", params);
+            tx.success();
+        }
+    }
+
+    @Test
+    public void testRepeatedQueryReturnsCurrentData() {
+        createPerson("Alice");
+        assert countMatches("Alice") == 1;
+        createPerson("Alice");
+        assert countMatches("Alice") == 2;
+        assert countMatches("Bob") == 0;
+    }
+
+    @Test
+    public void testRepeatedQueryIsCountedAsHit() {
+        createPerson("Alice");
+        assert engine.getMisses() == 1;
+        assert engine.getHits() == 0;
+        createPerson("Bob");
+        createPerson("Carol");
+        assert engine.getMisses() == 1;
+        assert engine.getHits() == 2;
+    }
+
+    @Test
+    public void testQueryIsPlannedAgainAfterSchemaChange() {
+        createPerson("Alice");
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            engine.execute("CREATE INDEX ON :Person(name)");
+            tx.success();
+        }
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            fakeDatabase.schema().awaitIndexesOnline(10, TimeUnit.SECONDS);
+        }
+        long misses = engine.getMisses();
+        createPerson("Bob");
+        assert engine.getMisses() == misses + 1;
+        createPerson("Carol");
+        assert engine.getMisses() == misses + 1;
+    }
+
+    @Test
+    public void testQueryPlannedBeforeSchemaChangeStillMatches() {
+        createPerson("Alice");
+        assert countMatches("Alice") == 1;
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            engine.execute("CREATE INDEX ON :Person(name)");
+            tx.success();
+        }
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Schema schema = fakeDatabase.schema();
+            schema.awaitIndexesOnline(10, TimeUnit.SECONDS);
+            assert schema.getIndexes(DynamicLabel.label("Person")).iterator().hasNext();
+        }
+        createPerson("Alice");
+        createPerson("Bob");
+        assert countMatches("Alice") == 2;
+        assert countMatches("Bob") == 1;
+    }
+
+    @Test
+    public void testPreparedStatementSurvivesSchemaChange() {
+        int handle = engine.prepare(MATCH);
+        createPerson("Alice");
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            engine.execute("CREATE CONSTRAINT ON (a:Person) ASSERT a.name IS UNIQUE");
+            tx.success();
+        }
+        assert engine.getStatement(handle).equals(MATCH);
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("name", "Alice");
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            ExecutionResult result = engine.execute(engine.getStatement(handle), params);
+            assert IteratorUtil.count(result.iterator()) == 1;
+        }
+    }
+
+    @Test
+    public void testCannotPrepareBeyondCacheSizeWithoutTimeout() {
+        QueryEngine engine = new QueryEngine(fakeDatabase, 2, 0);
+        assert engine.prepare("RETURN 1") == 0;
+        assert engine.prepare("RETURN 2") == 1;
+        assert engine.prepare("RETURN 3") == -1;
+        assert engine.prepare("RETURN 1") == 0;
+        assert engine.release(0);
+        assert engine.prepare("RETURN 3") == 2;
+    }
+
+    @Test
+    public void testIdleStatementIsReleasedForAnother() throws InterruptedException {
+        QueryEngine engine = new QueryEngine(fakeDatabase, 1, 1);
+        assert engine.prepare("RETURN 1") == 0;
+        assert engine.prepare("RETURN 2") == -1;
+        Thread.sleep(1100);
+        assert engine.prepare("RETURN 2") == 1;
+        assert engine.getStatement(0) == null;
+        assert engine.getStatementCount() == 1;
+    }
+
+}
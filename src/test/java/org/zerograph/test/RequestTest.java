@@ -0,0 +1,274 @@
+package org.zerograph.test;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+import org.zerograph.Request;
+import org.zerograph.RequestParser;
+import org.zerograph.RequestReader;
+import org.zerograph.Spool;
+import org.zerograph.Stats;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.util.BinaryReader;
+import org.zerograph.util.BinaryWriter;
+import org.zerograph.util.Compression;
+import org.zerograph.util.JsonReader;
+import org.zerograph.util.Pointer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class RequestTest {
+
+    final private static Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testCanParseRequest() throws Status4xx {
+        Request request = new Request("POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"age\":33}");
+        assert request.getMethod().equals("POST");
+        assert request.getResource().equals("node");
+        assert request.getListData(0).equals(Arrays.asList("Person"));
+        Map properties = request.getMapData(1);
+        assert properties.get("name").equals("Alice");
+        assert properties.get("age").equals(33);
+    }
+
+    @Test
+    public void testCanParseScalarTerms() throws Status4xx {
+        Request request = new Request("GET\tthing\t12\t-3\t5000000000\t1.5\t\"a\\tb\"\ttrue\tfalse\tnull");
+        assert request.getData(0).equals(12);
+        assert request.getData(1).equals(-3);
+        assert request.getData(2).equals(5000000000L);
+        assert request.getData(3).equals(1.5);
+        assert request.getData(4).equals("a\tb");
+        assert request.getData(5).equals(true);
+        assert request.getData(6).equals(false);
+        assert request.getData(7) == null;
+    }
+
+    @Test
+    public void testCanParsePointer() throws Status4xx {
+        Request request = new Request("POST\trel\t/*Pointer*/0\t/*Pointer*/1\t\"KNOWS\"\t{}");
+        assert request.getData(0) instanceof Pointer;
+        assert ((Pointer)request.getData(1)).getAddress() == 1;
+    }
+
+    @Test
+    public void testCannotParseRequestWithoutResource() {
+        try {
+            new Request("GET");
+            assert false;
+        } catch (Status4xx ex) {
+            assert true;
+        }
+    }
+
+    @Test
+    public void testInvalidTermIsRejectedOnParse() {
+        String[] lines = {
+                "GET\tnode\t{\"name\":\t1",
+                "PUT\tnode\t0\t{\"name\":\"Alice\"\t{}",
+                "PUT\tnode\t0\t{\"name\":\"\\x\"}",
+                "POST\tnode\t[\"Person\",]\t{}",
+                "GET\tnode\tnothing",
+        };
+        for (String line : lines) {
+            try {
+                new Request(line);
+                assert false;
+            } catch (Status4xx ex) {
+                assert ex.getStatus() == Status4xx.BAD_REQUEST;
+            }
+        }
+    }
+
+    @Test
+    public void testValidMapIsNotDecodedOnParse() throws Status4xx {
+        Request request = new Request("PUT\tnode\t0\t{\"name\":\"Al\\u0069ce\",\"tags\":[1,2.5e3,{\"x\":null}]}");
+        assert request.getIntegerData(0) == 0;
+        Map properties = request.getMapData(1);
+        assert properties.get("name").equals("Alice");
+        assert ((List) properties.get("tags")).size() == 3;
+    }
+
+    @Test
+    public void testCannotParseEmptyTerm() {
+        try {
+            new Request("GET\tnode\t\t1");
+            assert false;
+        } catch (Status4xx ex) {
+            assert true;
+        }
+    }
+
+    @Test
+    public void testCanSplitFrameIntoLines() throws Status4xx {
+        byte[] frame = "GET\tnode\t1\r\nGET\tnode\t2\n\nGET\tnode\t3\rGET\tnode\t4".getBytes(UTF_8);
+        List<Request> requests = RequestParser.parse(Arrays.asList(frame, new byte[0]));
+        assert requests.size() == 4;
+        for (int i = 0; i < 4; i++) {
+            assert requests.get(i).getIntegerData(0) == i + 1;
+        }
+        assert requests.get(1).toString().equals("GET\tnode\t2");
+    }
+
+    @Test
+    public void testCanReadSpooledFrames() throws Status4xx, IOException {
+        List<byte[]> frames = Arrays.asList("GET\tnode\t1\nGET\tnode\t2".getBytes(UTF_8), new byte[0], "GET\tnode\t3\n".getBytes(UTF_8));
+        RequestReader reader = new RequestReader(Spool.spill(frames, new File(System.getProperty("java.io.tmpdir"))));
+        for (int i = 0; i < 3; i++) {
+            Request request = reader.next();
+            assert request.getIntegerData(0) == i + 1;
+        }
+        assert reader.next() == null;
+        assert reader.getCount() == 3;
+    }
+
+    @Test
+    public void testCanReadBinaryFrame() throws Status4xx {
+        BinaryWriter writer = new BinaryWriter(64);
+        writer.writeMarker();
+        int mark = writer.beginMessage();
+        writer.writeValue(Arrays.asList("POST", "rel", new Pointer(0), new Pointer(1, 2), "KNOWS",
+                Collections.singletonMap("since", 1999)));
+        writer.endMessage(mark);
+        mark = writer.beginMessage();
+        writer.writeValue(Arrays.asList("GET", "node", 5000000000L));
+        writer.endMessage(mark);
+        RequestReader reader = RequestReader.fromArrays(Arrays.asList(writer.toByteArray(), new byte[0]));
+        Request request = reader.next();
+        assert request.getMethod().equals("POST");
+        assert request.getResource().equals("rel");
+        assert ((Pointer) request.getData(1)).getIndex() == 2;
+        assert request.getStringData(2).equals("KNOWS");
+        assert request.getMapData(3).get("since").equals(1999);
+        assert request.toString().equals("POST\trel\t/*Pointer*/0\t/*Pointer*/[1,2]\t\"KNOWS\"\t{\"since\":1999}");
+        request = reader.next();
+        assert request.getData(0).equals(5000000000L);
+        assert reader.next() == null;
+    }
+
+    @Test
+    public void testCannotReadTruncatedBinaryFrame() {
+        byte[] frame = {BinaryWriter.MARKER, 0x09, (byte) 0x92, (byte) 0xA3, 'G', 'E', 'T'};
+        try {
+            RequestReader.fromArrays(Arrays.<byte[]>asList(frame)).next();
+            assert false;
+        } catch (Status4xx ex) {
+            assert true;
+        }
+    }
+
+    @Test
+    public void testCannotParseBinaryMapCountBeyondData() {
+        byte[] message = {(byte) 0x93, (byte) 0xA3, 'G', 'E', 'T', (byte) 0xA4, 'n', 'o', 'd', 'e',
+                (byte) 0xDF, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        try {
+            Request.fromBinary(message, 0, message.length);
+            assert false;
+        } catch (Status4xx ex) {
+            assert ex.getStatus() == Status4xx.BAD_REQUEST;
+        }
+    }
+
+    @Test
+    public void testCannotParseBinaryValueNestedTooDeeply() throws Status4xx {
+        byte[] message = nestedBinaryRequest(BinaryReader.MAX_DEPTH);
+        Request.fromBinary(message, 0, message.length);
+        message = nestedBinaryRequest(BinaryReader.MAX_DEPTH + 1);
+        try {
+            Request.fromBinary(message, 0, message.length);
+            assert false;
+        } catch (Status4xx ex) {
+            assert ex.getStatus() == Status4xx.BAD_REQUEST;
+        }
+    }
+
+    private static byte[] nestedBinaryRequest(int depth) {
+        byte[] header = {(byte) 0x93, (byte) 0xA3, 'G', 'E', 'T', (byte) 0xA4, 'n', 'o', 'd', 'e'};
+        byte[] message = Arrays.copyOf(header, header.length + depth + 1);
+        Arrays.fill(message, header.length, header.length + depth, (byte) 0x91);
+        message[message.length - 1] = 0x01;
+        return message;
+    }
+
+    @Test
+    public void testCannotParseTextValueNestedTooDeeply() {
+        StringBuilder line = new StringBuilder("GET\tnode\t");
+        for (int i = 0; i <= JsonReader.MAX_DEPTH; i++) {
+            line.append('[');
+        }
+        for (int i = 0; i <= JsonReader.MAX_DEPTH; i++) {
+            line.append(']');
+        }
+        try {
+            new Request(line.toString());
+            assert false;
+        } catch (Status4xx ex) {
+            assert ex.getStatus() == Status4xx.BAD_REQUEST;
+        }
+    }
+
+    @Test
+    public void testCanReadCompressedFrame() throws Status4xx {
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            batch.append("POST\tnode\t[\"Person\"]\t{\"name\":\"Alice\",\"index\":").append(i).append("}\n");
+        }
+        byte[] raw = batch.toString().getBytes(UTF_8);
+        byte[] frame = Compression.compress(Compression.createDeflater(), raw);
+        assert Compression.isCompressed(frame);
+        assert frame.length < raw.length / 4;
+        Stats stats = new Stats();
+        RequestReader reader = new RequestReader(Arrays.asList(ByteBuffer.wrap(frame)), stats);
+        for (int i = 0; i < 100; i++) {
+            assert reader.next().getMapData(1).get("index").equals(i);
+        }
+        assert reader.next() == null;
+        Map received = (Map) ((Map) stats.toMap().get("compression")).get("received");
+        assert received.get("raw_bytes").equals((long) raw.length);
+        assert received.get("compressed_bytes").equals((long) frame.length);
+    }
+
+    @Test
+    public void testCannotInflateFrameBeyondLimit() {
+        byte[] raw = new byte[1024 * 1024];
+        Arrays.fill(raw, (byte) '\n');
+        byte[] frame = Compression.compress(Compression.createDeflater(), raw);
+        assert frame.length < 8192;
+        RequestReader reader = new RequestReader(Arrays.asList(ByteBuffer.wrap(frame)), new Stats(), null, 64 * 1024);
+        try {
+            reader.next();
+            assert false;
+        } catch (Status4xx ex) {
+            assert ex.getStatus() == Status4xx.BAD_REQUEST;
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testJsonReaderMatchesJackson() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        String[] documents = {
+                "{}",
+                "[]",
+                "{\"a\":1,\"b\":[true,false,null],\"c\":{\"d\":\"e\"}}",
+                "[1, -2, 2147483648, 12345678901234567890, 0.5, 1e3, -1.25E-2]",
+                "{ \"escaped\" : \"quote \\\" slash \\\\ \\/ \\u00e9 \\n\" , \"unicode\" : \"\u00e9\u4e2d\" }",
+                "[{\"x\":{}},{\"y\":[]}]",
+        };
+        for (String document : documents) {
+            byte[] bytes = document.getBytes(UTF_8);
+            Object expected = mapper.readValue(document, Object.class);
+            Object actual = JsonReader.decode(bytes, 0, bytes.length);
+            assert expected.equals(actual) : document;
+        }
+    }
+
+}
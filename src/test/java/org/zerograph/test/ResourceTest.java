@@ -4,6 +4,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.test.TestGraphDatabaseFactory;
+import org.zerograph.Cursors;
+import org.zerograph.QueryEngine;
+import org.zerograph.ResponseWriter;
 import org.zerograph.api.ZerographInterface;
 import org.zeromq.ZMQ;
 
@@ -11,17 +14,23 @@ public class ResourceTest {
 
     protected ZerographInterface fakeZerograph;
     protected GraphDatabaseService fakeDatabase;
+    protected QueryEngine fakeEngine;
+    protected Cursors fakeCursors;
     protected ZMQ.Context fakeContext;
     protected ZMQ.Socket fakeClient;
     protected ZMQ.Socket fakeServer;
+    protected ResponseWriter fakeWriter;
 
     @Before
     public void setUp() {
         fakeZerograph = new FakeZerograph();
         fakeDatabase = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        fakeEngine = new QueryEngine(fakeDatabase);
+        fakeCursors = new Cursors(fakeDatabase);
         fakeContext = ZMQ.context(1);
         fakeServer = fakeContext.socket(ZMQ.REP);
         fakeServer.bind("inproc://test");
+        fakeWriter = new ResponseWriter(fakeServer);
         fakeClient = fakeContext.socket(ZMQ.REQ);
         fakeClient.connect("inproc://test");
         fakeClient.send("");
@@ -32,10 +41,12 @@ public class ResourceTest {
     public void tearDown() {
         fakeClient.close();
         fakeServer.close();
+        fakeCursors.closeAll();
         fakeDatabase.shutdown();
     }
 
     public void sendClose() {
+        fakeWriter.flush();
         fakeServer.send("");
     }
 
@@ -0,0 +1,88 @@
+package org.zerograph.test;
+
+import org.junit.Test;
+import org.zerograph.ResponseWriter;
+import org.zerograph.Session;
+import org.zerograph.Stats;
+import org.zerograph.response.status1xx.Continue;
+import org.zerograph.response.status2xx.OK;
+import org.zerograph.response.status4xx.BadRequest;
+import org.zerograph.util.BinaryWriter;
+
+import java.util.Collections;
+
+public class ResponseWriterTest extends ResourceTest {
+
+    @Test
+    public void testCanGatherLinesIntoFrames() {
+        ResponseWriter writer = new ResponseWriter(fakeServer, new Stats(), 32);
+        writer.begin(new Session(null));
+        for (int i = 0; i < 10; i++) {
+            writer.sendMore(new Continue("row", i));
+        }
+        writer.send(new OK());
+        assert fakeClient.recvStr().equals("100\t\"row\"\t0\n100\t\"row\"\t1\n100\t\"row\"\t2");
+        assert fakeClient.hasReceiveMore();
+        assert fakeClient.recvStr().equals("100\t\"row\"\t3\n100\t\"row\"\t4\n100\t\"row\"\t5");
+        assert fakeClient.recvStr().equals("100\t\"row\"\t6\n100\t\"row\"\t7\n100\t\"row\"\t8");
+        assert fakeClient.recvStr().equals("100\t\"row\"\t9\n200");
+        assert !fakeClient.hasReceiveMore();
+    }
+
+    @Test
+    public void testMessageIsOpenUntilFinalFrameIsSent() {
+        ResponseWriter writer = new ResponseWriter(fakeServer, new Stats(), 32);
+        assert !writer.isOpen();
+        writer.begin(new Session(null));
+        assert writer.isOpen();
+        writer.sendMore(new Continue("row", 0));
+        writer.flush();
+        assert writer.isOpen();
+        writer.send(new OK());
+        assert !writer.isOpen();
+        assert fakeClient.recvStr().equals("100\t\"row\"\t0");
+        assert fakeClient.recvStr().equals("200");
+        assert !fakeClient.hasReceiveMore();
+    }
+
+    @Test
+    public void testProtocolChangeStartsNewFrame() throws BadRequest {
+        ResponseWriter writer = new ResponseWriter(fakeServer, new Stats(), 1024);
+        Session session = new Session(null);
+        writer.begin(session);
+        writer.sendMore(new Continue(1));
+        session.update(Collections.<String, Object>singletonMap(Session.PROTOCOL, Session.BINARY));
+        writer.sendMore(new Continue(2));
+        writer.send(new OK());
+        assert fakeClient.recvStr().equals("100\t1");
+        byte[] frame = fakeClient.recv();
+        assert frame[0] == BinaryWriter.MARKER;
+        assert frame.length == 1 + 4 + 4;  // marker and two 4-byte messages
+        assert !fakeClient.hasReceiveMore();
+    }
+
+    @Test
+    public void testUnencodableResponseIsReplacedByServerError() {
+        ResponseWriter writer = new ResponseWriter(fakeServer, new Stats(), 0);
+        writer.begin(new Session(null));
+        writer.sendMore(new Continue("before"));
+        writer.sendMore(new Continue(Collections.singletonMap("value", new Object())));
+        writer.sendMore(new Continue("after", Collections.singletonMap("key", 1)));
+        writer.send(new OK());
+        assert fakeClient.recvStr().equals("100\t\"before\"");
+        assert fakeClient.recvStr().startsWith("500\t\"Cannot encode 100 response: ");
+        assert fakeClient.recvStr().equals("100\t\"after\"\t{\"key\":1}");
+        assert fakeClient.recvStr().equals("200");
+        assert !fakeClient.hasReceiveMore();
+    }
+
+    @Test
+    public void testEncodeReturnsCopyOfLine() {
+        ResponseWriter writer = new ResponseWriter(fakeServer, new Stats(), 0);
+        writer.begin(new Session(null));
+        byte[] first = writer.encode(new Continue("first"));
+        writer.encode(new Continue("second"));
+        assert new String(first).equals("100\t\"first\"");
+    }
+
+}
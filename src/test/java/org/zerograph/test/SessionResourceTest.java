@@ -0,0 +1,164 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Request;
+import org.zerograph.Sessions;
+import org.zerograph.resource.RelResource;
+import org.zerograph.resource.SessionResource;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+import org.zerograph.util.BinaryWriter;
+import org.zerograph.util.Compression;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+public class SessionResourceTest extends ResourceTest {
+
+    protected Sessions sessions;
+    protected SessionResource resource;
+    protected RelResource relResource;
+
+    @Before
+    public void createResource() {
+        sessions = new Sessions();
+        fakeWriter.begin(sessions.open("client"));
+        resource = new SessionResource(fakeZerograph, fakeWriter, sessions);
+        relResource = new RelResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine);
+    }
+
+    protected Relationship createKnows() {
+        Node alice = fakeDatabase.createNode();
+        alice.setProperty("name", "Alice");
+        Node bob = fakeDatabase.createNode();
+        bob.setProperty("name", "Bob");
+        return alice.createRelationshipTo(bob, DynamicRelationshipType.withName("KNOWS"));
+    }
+
+    @Test
+    public void testCanGetCompactRel() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Relationship rel = createKnows();
+            resource.patch(new Request("PATCH\tsession\t{\"rels\":\"compact\"}"), tx);
+            relResource.get(new Request("GET\trel\t" + rel.getId()), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().startsWith("200\t{\"rels\":\"compact\",\"nodes\":\"full\",\"return\":\"full\",");
+        assert fakeClient.recvStr().equals("200\t/*Rel*/{\"id\":0,\"start\":0,\"end\":1,\"type\":\"KNOWS\",\"properties\":{}}");
+        assert sessions.size() == 0;
+    }
+
+    @Test
+    public void testCanSendEachNodeOnceWithTable() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Node alice = fakeDatabase.createNode();
+            alice.setProperty("name", "Alice");
+            Relationship rel = alice.createRelationshipTo(alice, DynamicRelationshipType.withName("LIKES"));
+            resource.patch(new Request("PATCH\tsession\t{\"nodes\":\"table\"}"), tx);
+            relResource.get(new Request("GET\trel\t" + rel.getId()), tx);
+        }
+        sendClose();
+        fakeClient.recvStr();
+        String alice = "{\"id\":0,\"labels\":[],\"properties\":{\"name\":\"Alice\"}}";
+        assert fakeClient.recvStr().equals("200\t/*Rel*/{\"id\":0,\"start\":" + alice + ",\"end\":0,\"type\":\"LIKES\",\"properties\":{}}");
+    }
+
+    @Test
+    public void testNodeTableLastsForSingleResponse() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Relationship rel = createKnows();
+            resource.patch(new Request("PATCH\tsession\t{\"nodes\":\"table\"}"), tx);
+            relResource.get(new Request("GET\trel\t" + rel.getId()), tx);
+            rel.getStartNode().setProperty("name", "Alicia");
+            relResource.get(new Request("GET\trel\t" + rel.getId()), tx);
+        }
+        sendClose();
+        fakeClient.recvStr();
+        String alice = "{\"id\":0,\"labels\":[],\"properties\":{\"name\":\"Alice\"}}";
+        String alicia = "{\"id\":0,\"labels\":[],\"properties\":{\"name\":\"Alicia\"}}";
+        String bob = "{\"id\":1,\"labels\":[],\"properties\":{\"name\":\"Bob\"}}";
+        assert fakeClient.recvStr().equals("200\t/*Rel*/{\"id\":0,\"start\":" + alice + ",\"end\":" + bob + ",\"type\":\"KNOWS\",\"properties\":{}}");
+        assert fakeClient.recvStr().equals("200\t/*Rel*/{\"id\":0,\"start\":" + alicia + ",\"end\":" + bob + ",\"type\":\"KNOWS\",\"properties\":{}}");
+    }
+
+    @Test
+    public void testSessionReturnAppliesOnlyToWrites() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Relationship rel = createKnows();
+            resource.patch(new Request("PATCH\tsession\t{\"return\":\"none\",\"rels\":\"compact\"}"), tx);
+            relResource.get(new Request("GET\trel\t" + rel.getId()), tx);
+            relResource.put(new Request("PUT\trel\t" + rel.getId() + "\t{\"since\":1999}"), tx);
+            relResource.get(new Request("GET\trel\t" + rel.getId() + "\t{\"return\":\"id\"}"), tx);
+        }
+        sendClose();
+        fakeClient.recvStr();
+        assert fakeClient.recvStr().equals("200\t/*Rel*/{\"id\":0,\"start\":0,\"end\":1,\"type\":\"KNOWS\",\"properties\":{}}");
+        assert fakeClient.recvStr().equals("200");
+        assert fakeClient.recvStr().equals("200\t0");
+    }
+
+    @Test
+    public void testCanGetBinaryRel() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Relationship rel = createKnows();
+            resource.patch(new Request("PATCH\tsession\t{\"rels\":\"compact\",\"protocol\":\"binary\"}"), tx);
+            relResource.get(new Request("GET\trel\t" + rel.getId()), tx);
+        }
+        sendClose();
+        assert fakeClient.recv()[0] == BinaryWriter.MARKER;
+        byte[] expected = {(byte) 0xC1, 0x11, (byte) 0x92, (byte) 0xCC, (byte) 0xC8, (byte) 0xC7, 0x0B, 0x02,
+                (byte) 0x95, 0x00, 0x00, 0x01, (byte) 0xA5, 'K', 'N', 'O', 'W', 'S', (byte) 0x80};
+        assert Arrays.equals(fakeClient.recv(), expected);
+    }
+
+    @Test
+    public void testCanCompressLargeResponses() throws Status4xx, Status5xx, DataFormatException {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Relationship rel = createKnows();
+            resource.patch(new Request("PATCH\tsession\t{\"compress\":64}"), tx);
+            relResource.get(new Request("GET\trel\t" + rel.getId() + "\t{\"return\":\"id\"}"), tx);
+            relResource.get(new Request("GET\trel\t" + rel.getId()), tx);
+        }
+        sendClose();
+        fakeClient.recv();
+        assert fakeClient.recvStr().equals("200\t0");
+        byte[] frame = fakeClient.recv();
+        assert Compression.isCompressed(frame);
+        byte[] line = Compression.decompress(Compression.createInflater(), frame, 1, frame.length - 1, Compression.DEFAULT_INFLATE_LIMIT);
+        assert new String(line).startsWith("200\t/*Rel*/{\"id\":0,\"start\":{\"id\":0,");
+    }
+
+    @Test
+    public void testCanStoreSessionForConnection() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.put(new Request("PUT\tsession\t{\"rels\":\"compact\"}"), tx);
+        }
+        assert sessions.open("client").hasCompactRels();
+        assert !sessions.open("other").hasCompactRels();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.delete(new Request("DELETE\tsession"), tx);
+        }
+        assert !sessions.open("client").hasCompactRels();
+        assert !fakeWriter.getSession().hasCompactRels();
+    }
+
+    @Test
+    public void testCannotSetUnknownOption() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.patch(new Request("PATCH\tsession\t{\"rels\":\"tiny\"}"), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert true;
+            }
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("");
+    }
+
+}
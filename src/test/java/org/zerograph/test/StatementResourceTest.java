@@ -0,0 +1,93 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.tooling.GlobalGraphOperations;
+import org.zerograph.Batch;
+import org.zerograph.Batches;
+import org.zerograph.Request;
+import org.zerograph.resource.StatementResource;
+import org.zerograph.response.status4xx.RequestTimeout;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+import java.util.UUID;
+
+public class StatementResourceTest extends ResourceTest {
+
+    protected StatementResource resource;
+
+    @Before
+    public void createResource() {
+        resource = new StatementResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine);
+    }
+
+    @Test
+    public void testCanPrepareStatement() throws Status4xx, Status5xx {
+        String rq = "PUT\tstatement\t\"CREATE (a:Person {name:{name}})\"";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.put(new Request(rq), tx);
+            resource.put(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("200\t0");
+        assert fakeClient.recvStr().equals("200\t0");
+        assert fakeEngine.getStatementCount() == 1;
+    }
+
+    @Test
+    public void testCanExecuteStatementForManyRows() throws Status4xx, Status5xx {
+        int handle = fakeEngine.prepare("CREATE (a:Person {name:{name}})");
+        String rq = "POST\tstatement\t" + handle + "\t[{\"name\":\"Alice\"},{\"name\":\"Bob\"},{\"name\":\"Carol\"}]";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.post(new Request(rq), tx);
+            int count = 0;
+            for (Node node : fakeDatabase.findNodesByLabelAndProperty(DynamicLabel.label("Person"), "name", "Bob")) {
+                count += 1;
+            }
+            assert count == 1;
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("100");
+        assert fakeClient.recvStr().startsWith("200\t{\"executed\":3,\"nodes_created\":3,");
+    }
+
+    @Test
+    public void testCannotExecuteUnknownStatement() throws Status4xx, Status5xx {
+        String rq = "POST\tstatement\t99\t[{}]";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.post(new Request(rq), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert true;
+            }
+        }
+        sendClose();
+        assert fakeClient.recvStr().equals("");
+    }
+
+    @Test
+    public void testCannotExecuteStatementInCancelledBatch() throws Status4xx, Status5xx {
+        int handle = fakeEngine.prepare("CREATE (a:Person {name:{name}})");
+        String rq = "POST\tstatement\t" + handle + "\t[{\"name\":\"Alice\"},{\"name\":\"Bob\"}]";
+        Batches batches = new Batches();
+        Batch batch = batches.begin(UUID.randomUUID());
+        fakeWriter.setBatch(batch);
+        batch.cancel();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.post(new Request(rq), tx);
+                assert false;
+            } catch (RequestTimeout err) {
+                assert true;
+            }
+            assert !GlobalGraphOperations.at(fakeDatabase).getAllNodes().iterator().hasNext();
+        }
+        assert batch.getQuery() == null;
+    }
+
+}
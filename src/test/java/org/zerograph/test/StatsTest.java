@@ -0,0 +1,78 @@
+package org.zerograph.test;
+
+import org.junit.Test;
+import org.zerograph.QueryEngine;
+import org.zerograph.Stats;
+import org.zerograph.util.Histogram;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+
+public class StatsTest {
+
+    @Test
+    public void testHistogramQuantilesAreBucketBounds() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(1500);         // 1.5us
+        }
+        histogram.record(3000000);          // 3ms
+        histogram.record(100000000);        // 100ms
+        assert histogram.getCount() == 100;
+        assert histogram.getQuantile(0.5) == 2;
+        assert histogram.getQuantile(0.99) == 4096;
+        assert histogram.getQuantile(0.999) == 131072;
+        assert histogram.getMax() == 100000000;
+    }
+
+    @Test
+    public void testResponsesAreCountedByStatus() {
+        Stats stats = new Stats();
+        stats.countResponse(200);
+        stats.countResponse(404);
+        stats.countResponse(409);
+        stats.countResponse(500);
+        Map counters = (Map) stats.toMap().get("counters");
+        assert counters.get("conflicts").equals(1L);
+        assert counters.get("4xx").equals(2L);
+        assert counters.get("5xx").equals(1L);
+    }
+
+    @Test
+    public void testMetricsAreWrittenInPrometheusFormat() throws IOException {
+        Stats stats = new Stats();
+        stats.countBatch();
+        stats.getExecute("node", "GET").record(2000);
+        StringWriter writer = new StringWriter();
+        Stats.writeMetrics(writer, Collections.singletonMap(47474, stats), Collections.<Integer, QueryEngine>emptyMap());
+        String metrics = writer.toString();
+        assert metrics.contains("# TYPE zerograph_batches_total counter\nzerograph_batches_total{port=\"47474\"} 1\n");
+        assert metrics.contains("zerograph_latency_seconds_bucket{port=\"47474\",stage=\"execute\",resource=\"node\",method=\"GET\",le=\"2.0E-6\"} 1\n");
+        assert metrics.contains("zerograph_latency_seconds_count{port=\"47474\",stage=\"execute\",resource=\"node\",method=\"GET\"} 1\n");
+    }
+
+    @Test
+    public void testOverflowIsCountedOnlyInInfiniteBucket() throws IOException {
+        Stats stats = new Stats();
+        Histogram histogram = stats.getExecute("cypher", "POST");
+        histogram.record(2000);
+        histogram.record(1L << 62);         // beyond the last bucket
+        histogram.record(-5000);            // counted as zero
+        assert histogram.getOverflow() == 1;
+        assert histogram.getCount() == 3;
+        assert histogram.getSum() == 2000 + (1L << 62);
+        StringWriter writer = new StringWriter();
+        Stats.writeMetrics(writer, Collections.singletonMap(47474, stats), Collections.<Integer, QueryEngine>emptyMap());
+        String metrics = writer.toString();
+        String labels = "port=\"47474\",stage=\"execute\",resource=\"cypher\",method=\"POST\"";
+        double last = Histogram.getBucketBound(Histogram.BUCKETS - 1) / 1e6;
+        assert metrics.contains("zerograph_latency_seconds_bucket{" + labels + ",le=\"1.0E-6\"} 1\n");
+        assert metrics.contains("zerograph_latency_seconds_bucket{" + labels + ",le=\"" + last + "\"} 2\n");
+        assert metrics.contains("zerograph_latency_seconds_bucket{" + labels + ",le=\"+Inf\"} 3\n");
+        assert metrics.contains("zerograph_latency_seconds_count{" + labels + "} 3\n");
+        assert metrics.contains("zerograph_latency_seconds_sum{" + labels + "} " + ((2000 + (1L << 62)) / 1e9) + "\n");
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.zerograph.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.zerograph.Request;
+import org.zerograph.resource.TraverseResource;
+import org.zerograph.response.status4xx.RequestTimeout;
+import org.zerograph.response.status4xx.Status4xx;
+import org.zerograph.response.status5xx.Status5xx;
+
+public class TraverseResourceTest extends ResourceTest {
+
+    protected TraverseResource resource;
+
+    @Before
+    public void createResource() {
+        resource = new TraverseResource(fakeZerograph, fakeWriter, fakeDatabase, fakeEngine);
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Node[] nodes = new Node[4];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = fakeDatabase.createNode(DynamicLabel.label("Person"));
+                nodes[i].setProperty("name", "ABCD".substring(i, i + 1));
+            }
+            nodes[0].createRelationshipTo(nodes[1], DynamicRelationshipType.withName("KNOWS"));
+            nodes[1].createRelationshipTo(nodes[2], DynamicRelationshipType.withName("KNOWS"));
+            nodes[0].createRelationshipTo(nodes[3], DynamicRelationshipType.withName("LIKES"));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void testCanGetNeighbours() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request("GET\ttraverse\t0\t{\"direction\":\"out\"}"), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().startsWith("100\t/*Node*/");
+        assert fakeClient.recvStr().startsWith("100\t/*Node*/");
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":2}");
+    }
+
+    @Test
+    public void testCanTraversePathsOfType() throws Status4xx, Status5xx {
+        String rq = "GET\ttraverse\t0\t{\"types\":[\"KNOWS\"],\"max_depth\":2,\"return\":\"paths\"}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().matches("100\t/\\*Node\\*/.*\t/\\*Rel\\*/.*\t/\\*Node\\*/.*");
+        assert fakeClient.recvStr().matches("100(\t/\\*Node\\*/.*\t/\\*Rel\\*/.*){2}\t/\\*Node\\*/.*");
+        assert fakeClient.recvStr().equals("200\t{\"paths_matched\":2}");
+    }
+
+    @Test
+    public void testCanTraverseToMatchingNodes() throws Status4xx, Status5xx {
+        String rq = "GET\ttraverse\t0\t{\"max_depth\":3,\"where\":{\"name\":\"C\"}}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            Node node = (Node) resource.get(new Request(rq), tx);
+            assert node.getId() == 2;
+        }
+        sendClose();
+        assert fakeClient.recvStr().startsWith("100\t/*Node*/{\"id\":2,");
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":1}");
+    }
+
+    @Test
+    public void testCannotTraverseInUnknownDirection() throws Status4xx, Status5xx {
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.get(new Request("GET\ttraverse\t0\t{\"direction\":\"sideways\"}"), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert true;
+            }
+        }
+    }
+
+    @Test
+    public void testCanTraverseToNodesMatchingArrayProperty() throws Status4xx, Status5xx {
+        String rq = "GET\ttraverse\t0\t{\"max_depth\":3,\"where\":{\"scores\":[1,2.5]}}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            fakeDatabase.getNodeById(2).setProperty("scores", new double[] {1.0, 2.5});
+            fakeDatabase.getNodeById(3).setProperty("scores", new double[] {1.0, 2.5, 4.0});
+            Node node = (Node) resource.get(new Request(rq), tx);
+            assert node.getId() == 2;
+        }
+        sendClose();
+        assert fakeClient.recvStr().startsWith("100\t/*Node*/{\"id\":2,");
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":1}");
+    }
+
+    @Test
+    public void testCanLimitTraversal() throws Status4xx, Status5xx {
+        String rq = "GET\ttraverse\t0\t{\"max_depth\":2,\"limit\":1}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            resource.get(new Request(rq), tx);
+        }
+        sendClose();
+        assert fakeClient.recvStr().startsWith("100\t/*Node*/");
+        assert fakeClient.recvStr().equals("200\t{\"nodes_matched\":1}");
+    }
+
+    @Test
+    public void testCannotTraverseBeyondDepthLimit() throws Status4xx, Status5xx {
+        String rq = "GET\ttraverse\t0\t{\"max_depth\":" + (TraverseResource.DEFAULT_DEPTH_LIMIT + 1) + "}";
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.get(new Request(rq), tx);
+                assert false;
+            } catch (Status4xx err) {
+                assert err.getStatus() == Status4xx.BAD_REQUEST;
+            }
+        }
+    }
+
+    @Test
+    public void testCannotTraverseInCancelledBatch() throws Status4xx, Status5xx {
+        String rq = "GET\ttraverse\t0\t{\"max_depth\":50,\"uniqueness\":\"none\",\"where\":{\"name\":\"Z\"}}";
+        fakeWriter.getBatch().cancel();
+        try (Transaction tx = fakeDatabase.beginTx()) {
+            try {
+                resource.get(new Request(rq), tx);
+                assert false;
+            } catch (RequestTimeout err) {
+                assert true;
+            }
+        }
+        assert fakeWriter.getBatch().getQuery() == null;
+    }
+
+}